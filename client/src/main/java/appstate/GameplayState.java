@@ -25,6 +25,8 @@ public class GameplayState extends BaseState {
 		LeaveGameCommand::new,
 		HighlightMovesCommand::new,
 		RedrawChessBoardCommand::new,
+		AnalyzeGameCommand::new,
+		HintCommand::new,
 		MakeMoveCommand::new,
 		ResignCommand::new
 			);
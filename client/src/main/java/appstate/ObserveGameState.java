@@ -26,7 +26,9 @@ public class ObserveGameState extends BaseState {
 			HelpCommand::new,
 			LeaveGameCommand::new,
 			HighlightMovesCommand::new,
-			RedrawChessBoardCommand::new
+			RedrawChessBoardCommand::new,
+			AnalyzeGameCommand::new,
+			HintCommand::new
 	);
 
 	private ChessGame game;
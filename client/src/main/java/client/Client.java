@@ -28,6 +28,7 @@ import command.*;
 import command.global.*;
 
 import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
 
 import model.*;
 import util.Debugger;
@@ -53,10 +54,16 @@ public class Client implements NotificationHandler {
 		.append("'s turn.\n")
 		.toString();
 
+	private static final String CLOCK_MSG = "\tWhite %s | Black %s\n";
+
 	private static final String GAME_OVER_MSG = """
 		\n\tThe game has now ended. Players are no longer able to make moves.""";
 
 	private static final Gson GSON = new Gson();
+	private static final Gson GAME_GSON = new GsonBuilder()
+		.registerTypeAdapter(ChessGame.class, new ChessGame.ChessGameDeserializer())
+		.registerTypeAdapter(ChessPiece.class, new ChessPiece.ChessPieceDeserializer())
+		.create();
 
 	private BaseState appState;
 	private boolean running;
@@ -65,11 +72,20 @@ public class Client implements NotificationHandler {
 
 	private ServerFacade server;
 	private WebSocketFacade ws;
+	private final String serverDomain;
+	private final int serverPort;
 
-	private List<GameData> gamesCache;
+	private List<GameSummary> gamesCache;
 
-	public static record ActiveGame(GameData game, TeamColor team) {};
-	private ActiveGame activeGame;
+	/**
+	 * The game being played or watched. Its board is null until the server's first LOAD_GAME.
+	 *
+	 * @param sequence The sequence number of the last event of the game seen, which a
+	 * dropped connection resumes from
+	 */
+	public static record ActiveGame(GameData game, TeamColor team, long sequence) {};
+	// Replaced by the WebSocket thread whenever the server sends the board
+	private volatile ActiveGame activeGame;
 	private GameBoardPrinter boardPrinter;
 	
 	public Client(String serverDomain, int serverPort) {
@@ -78,6 +94,8 @@ public class Client implements NotificationHandler {
 
 		this.userData = null;
 
+		this.serverDomain = serverDomain;
+		this.serverPort = serverPort;
 		this.server = new ServerFacade(serverDomain, serverPort);
 		this.ws = new WebSocketFacade(serverDomain, serverPort, this);
 
@@ -142,11 +160,36 @@ public class Client implements NotificationHandler {
 		return this.server;
 	}
 
+	/**
+	 * @return The connection to the server, opened again if it dropped. A game being played
+	 * or watched is resumed after the last event seen, so only what was missed is sent.
+	 */
 	public WebSocketFacade getWebSocket() {
+		if (this.ws.isOpen()) {
+			return this.ws;
+		}
+
+		this.ws = new WebSocketFacade(this.serverDomain, this.serverPort, this);
+		ActiveGame active = this.activeGame;
+		if (active == null || !this.ws.isOpen()) {
+			return this.ws;
+		}
+
+		int gameID = Integer.parseInt(active.game().gameID());
+		try {
+			// Without a board yet there is nothing to resume from
+			if (active.game().game() == null) {
+				this.ws.connect(this.getAuthToken(), gameID);
+			} else {
+				this.ws.resume(this.getAuthToken(), gameID, active.sequence());
+			}
+		} catch (IOException ex) {
+			// The command about to be sent fails the same way, and says so
+		}
 		return this.ws;
 	}
 
-	public List<GameData> getGamesCache() throws DataAccessException {
+	public List<GameSummary> getGamesCache() throws DataAccessException {
 		if (this.gamesCache == null) {
 			return this.generateGamesCache();
 		}
@@ -154,16 +197,16 @@ public class Client implements NotificationHandler {
 		return this.gamesCache;
 	}
 
-	public void updateGamesCache(List<GameData> newCache) {
+	public void updateGamesCache(List<GameSummary> newCache) {
 		this.gamesCache = newCache;
 	}
 
-	public List<GameData> generateGamesCache() throws DataAccessException {
+	public List<GameSummary> generateGamesCache() throws DataAccessException {
 		// Get the games from the server
-		List<GameData> games = new ArrayList<>(this.server.listGames(this.getAuthToken()));
+		List<GameSummary> games = new ArrayList<>(this.server.listGames(this.getAuthToken()));
 
 		// Sort the games based on their gameID
-		games.sort(Comparator.comparingInt(GameData::getGameID));
+		games.sort(Comparator.comparingInt(GameSummary::getGameID));
 
 		this.updateGamesCache(games);
 		return games;
@@ -173,24 +216,37 @@ public class Client implements NotificationHandler {
 		return this.activeGame;
 	}
 
-	public void setActiveGame(GameData game, TeamColor team) {
-		this.activeGame = new ActiveGame(game, team);
+	/**
+	 * Starts playing or watching a listed game. Call before connecting to it, so the board
+	 * the server sends back has somewhere to go.
+	 */
+	public void setActiveGame(GameSummary game, TeamColor team) {
+		GameData gameData = new GameData(game.gameID(), game.whiteUsername(), game.blackUsername(),
+				game.gameName(), null);
+		this.activeGame = new ActiveGame(gameData, team, 0);
 	}
 
-	public void updateActiveGame() throws DataAccessException {
-		// if the game is null, just return
-		if (this.activeGame == null) {
+	/**
+	 * Replaces the active game's board with the one sent by the server
+	 */
+	public void updateActiveGame(ChessGame game) {
+		this.updateActiveGame(game, 0);
+	}
+
+	/**
+	 * Replaces the active game's board with the one sent by the server
+	 *
+	 * @param sequence The sequence number of the last game event on the board
+	 */
+	public void updateActiveGame(ChessGame game, long sequence) {
+		ActiveGame active = this.activeGame;
+		if (active == null || game == null) {
 			return;
 		}
 
-		List<GameData> allGames = this.generateGamesCache();
-
-		for (GameData game : allGames) {
-			// Look for the game that matches the current game
-			if (game.gameID().equals(this.activeGame.game().gameID())) {
-				this.activeGame = new ActiveGame(game, this.activeGame.team());	
-			}
-		}
+		GameData gameData = active.game();
+		this.activeGame = new ActiveGame(new GameData(gameData.gameID(), gameData.whiteUsername(),
+					gameData.blackUsername(), gameData.gameName(), game), active.team(), sequence);
 	}
 
 	public void resetActiveGame() {
@@ -240,23 +296,100 @@ public class Client implements NotificationHandler {
 	}
 
 	public void manageMsg(ServerMessage msg, String origMsg) {
+		this.noteSequence(msg.getSequence());
+
 		switch (msg.getServerMessageType()) {
-			case LOAD_GAME -> printActiveGame();
+			case LOAD_GAME -> loadGame(origMsg);
 			case ERROR -> printServerError(origMsg);
 			case NOTIFICATION -> printServerNotification(origMsg);
 			case GAME_OVER -> inactivateGame();
+			case ANALYSIS -> printAnalysis(origMsg);
+			case MOVE_APPLIED -> applyMove(msg instanceof MoveAppliedMessage update ? update
+					: GSON.fromJson(origMsg, MoveAppliedMessage.class));
 		}
 	}
 
-	public void printActiveGame(boolean printCmdHeader) {
+	public void loadGame(String msgStr) {
+		RedrawBoardMessage msg = GAME_GSON.fromJson(msgStr, RedrawBoardMessage.class);
+		Long sequence = msg.getSequence();
+		this.updateActiveGame(msg.getGame(), sequence == null ? 0 : sequence);
+		this.printActiveGame();
+	}
+
+	/**
+	 * Remembers the last game event seen, so a dropped connection can resume after it
+	 */
+	private void noteSequence(Long sequence) {
+		ActiveGame active = this.activeGame;
+		if (sequence != null && active != null && sequence > active.sequence()) {
+			this.activeGame = new ActiveGame(active.game(), active.team(), sequence);
+		}
+	}
+
+	/**
+	 * Plays a move the server sent onto the board the client already has. If a move was
+	 * missed, or the board can't take it, the whole board is asked for instead.
+	 */
+	public void applyMove(MoveAppliedMessage msg) {
+		ActiveGame active = this.activeGame;
+		if (active == null || !active.game().gameID().equals(String.valueOf(msg.getGameID()))) {
+			return;
+		}
+
+		ChessGame game = active.game().game();
+		if (game == null || msg.getMoveNumber() != game.getMoveHistory().size() + 1) {
+			this.requestBoard(msg.getGameID());
+			return;
+		}
+
+		// Only this thread changes the board, so it is played in place
+		TeamColor mover = game.getTeamTurn();
+		try {
+			game.makeMove(msg.getMove());
+		} catch (InvalidMoveException ex) {
+			this.requestBoard(msg.getGameID());
+			return;
+		}
+
+		// The server's clock is the one that counts; this copy is only for showing
+		if (game.getClock() != null) {
+			game.getClock().punch(mover, System.currentTimeMillis());
+		}
+
+		this.printActiveGame();
+	}
+
+	private void requestBoard(int gameID) {
 		try {
-			this.updateActiveGame();
-		} catch (DataAccessException ex) {}
+			this.getWebSocket().sync(this.getAuthToken(), gameID);
+		} catch (IOException ex) {
+			// The next move tries again
+		}
+	}
+
+	private void printClock(ChessClock clock) {
+		if (clock == null) {
+			return;
+		}
 
-		if (this.activeGame != null) {
+		long nowMillis = System.currentTimeMillis();
+		System.out.println(String.format(CLOCK_MSG,
+				formatClock(clock.getRemainingMillis(TeamColor.WHITE, nowMillis)),
+				formatClock(clock.getRemainingMillis(TeamColor.BLACK, nowMillis))));
+	}
+
+	private static String formatClock(long millis) {
+		long seconds = millis / 1000;
+		return String.format("%d:%02d", seconds / 60, seconds % 60);
+	}
+
+	public void printActiveGame(boolean printCmdHeader) {
+		ActiveGame active = this.activeGame;
+		if (active != null && active.game().game() != null) {
 			System.out.println(ERASE_LINE);
-			System.out.println(String.format(GAME_TURN_MSG, this.activeGame.game().game().getTeamTurn()));
-			this.printBoard(this.activeGame);
+			System.out.println(String.format(GAME_TURN_MSG, active.game().game().getTeamTurn()));
+			this.printClock(active.game().game().getClock());
+			this.printBoard(active);
 			if (printCmdHeader) {
 				this.appState.printPrompt();
 			}
@@ -321,6 +454,48 @@ public class Client implements NotificationHandler {
 
 	}
 
+	public void printAnalysis(String analysisStr) {
+		AnalysisMessage analysis = GSON.fromJson(analysisStr, AnalysisMessage.class);
+
+		// Only show the final line, not every depth on the way there
+		if (!analysis.isComplete()) {
+			return;
+		}
+
+		String score;
+		if (analysis.getMateIn() != null) {
+			score = String.format("mate in %d", analysis.getMateIn());
+		} else {
+			score = String.format("%+.2f", analysis.getScore() / 100.0);
+		}
+
+		StringBuilder output = new StringBuilder();
+
+		output.append("\n\t");
+
+		output.append(NOTIFICATION_HEADER_BG_COLOR);
+		output.append(NOTIFICATION_HEADER_TEXT_COLOR);
+
+		output.append("[ANALYSIS]");
+		output.append(RESET_BG_COLOR);
+
+		output.append(": ");
+
+		output.append(NOTIFICATION_TEXT_COLOR);
+
+		output.append(String.format("depth %d, %s: ", analysis.getDepth(), score));
+		for (ChessMove move : analysis.getMoves()) {
+			output.append(move.toString());
+			output.append(" ");
+		}
+
+		output.append(RESET_TEXT_COLOR);
+
+		System.out.println(output.toString());
+
+		this.appState.printPrompt();
+	}
+
 	public void inactivateGame() {
 		System.out.println(ERASE_LINE);
 		System.out.println(GAME_OVER_MSG);
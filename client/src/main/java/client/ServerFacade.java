@@ -1,6 +1,11 @@
 package client;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.GZIPInputStream;
 
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
@@ -8,7 +13,10 @@ import java.net.http.HttpResponse;
 import java.net.http.HttpRequest.BodyPublishers;
 import java.net.http.HttpRequest.BodyPublisher;
 import java.net.http.HttpResponse.BodyHandlers;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.net.ConnectException;
 import java.net.URI;
 import java.util.Locale;
@@ -24,6 +32,7 @@ import client.exception.*;
 
 import command.ListGameCommand.ListGameResult;
 import command.JoinGameCommand.JoinGameRequest;
+import command.HintCommand.HintResult;
 
 public class ServerFacade {
 
@@ -34,6 +43,7 @@ public class ServerFacade {
 		.create();
 
 	private static final int HTTP_CODE_OK = 200;
+	private static final int HTTP_CODE_NOT_MODIFIED = 304;
 	private static final int HTTP_CODE_BAD_REQUEST = 400;
 	private static final int HTTP_CODE_UNAUTH = 401;
 	private static final int HTTP_CODE_TAKEN = 403;
@@ -48,11 +58,24 @@ public class ServerFacade {
 	private static final String USER_END_PNT = "/user";
 	private static final String GAME_END_PNT = "/game";
 	private static final String SESSION_END_PNT = "/session";
+	private static final String HINT_END_PNT = "/hint";
+
+	private static final int LIST_PAGE_SIZE = 100;
 
 	private final String serverDomain;
 	private final int port;
 	private final String serverAddr;
 
+	/**
+	 * A listing page and the ETag it came with
+	 */
+	private static record CachedPage(String etag, ListGameResult page) {}
+
+	/**
+	 * The last listing pages fetched, by URL, so unchanged pages aren't downloaded again
+	 */
+	private final Map<String, CachedPage> listCache = new ConcurrentHashMap<>();
+
 	public ServerFacade(String serverAddr, int port) {
 		this.serverDomain = serverAddr;
 		this.port = port;
@@ -82,12 +105,56 @@ public class ServerFacade {
 		}
 	}
 
+	/**
+	 * Makes a GET request that the server may answer with 304 Not Modified if the client
+	 * already has the resource, and with a gzip compressed body.
+	 *
+	 * @param etag The ETag of the copy the client has, or null
+	 */
+	private HttpResponse<byte[]> sendConditionalGet(String url, String authToken, String etag) throws DataAccessException {
+		try {
+			HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(url))
+				.GET()
+				.header("Authorization", authToken)
+				.header("Accept-Encoding", "gzip");
+			if (etag != null) {
+				request.header("If-None-Match", etag);
+			}
+
+			return HTTP_CLIENT.send(request.build(), BodyHandlers.ofByteArray());
+		} catch (IOException ex) {
+			throw new DataAccessException("Internal Error");
+		} catch (InterruptedException ex) {
+			throw new ConnectionException("Server connection error");
+		}
+	}
+
+	/**
+	 * Reads a response body, decompressing it if the server compressed it
+	 */
+	private String readBody(HttpResponse<byte[]> response) throws DataAccessException {
+		boolean gzipped = response.headers().firstValue("Content-Encoding")
+			.map(encoding -> encoding.equalsIgnoreCase("gzip"))
+			.orElse(false);
+
+		try (InputStream body = gzipped
+				? new GZIPInputStream(new ByteArrayInputStream(response.body()))
+				: new ByteArrayInputStream(response.body())) {
+			return new String(body.readAllBytes(), StandardCharsets.UTF_8);
+		} catch (IOException ex) {
+			throw new DataAccessException("Internal Error");
+		}
+	}
+
 	private HttpResponse<String> sendHttpRequest(String url, String method, String body) throws DataAccessException {
 		return this.sendHttpRequest(url, method, body, "");
 	}
 
 	private <T> T readHttpResponse(HttpResponse<String> response, Class<T> type) throws DataAccessException {
-		int httpCode = response.statusCode();
+		return this.readHttpResponse(response.statusCode(), response.body(), type);
+	}
+
+	private <T> T readHttpResponse(int httpCode, String responseBody, Class<T> type) throws DataAccessException {
 		switch (httpCode) {
 			case HTTP_CODE_OK:
 				break;
@@ -105,7 +172,7 @@ public class ServerFacade {
 			return null;
 		}
 
-		T body = GSON.fromJson(response.body(), type);
+		T body = GSON.fromJson(responseBody, type);
 		return body;
 	}
 
@@ -153,15 +220,45 @@ public class ServerFacade {
 		return game.gameID();
 	}
 	
-	public Collection<GameData> listGames(String authToken) throws DataAccessException {
-		String urlStr = this.serverAddr + GAME_END_PNT;
-		String body = "";
+	/**
+	 * Lists every game, fetching one page at a time until the server runs out.
+	 * Pages that haven't changed since they were last fetched aren't downloaded again.
+	 */
+	public Collection<GameSummary> listGames(String authToken) throws DataAccessException {
+		List<GameSummary> games = new ArrayList<>();
+		String cursor = null;
+
+		do {
+			String urlStr = String.format("%s%s?limit=%d", this.serverAddr, GAME_END_PNT, LIST_PAGE_SIZE);
+			if (cursor != null) {
+				urlStr += "&cursor=" + cursor;
+			}
+
+			ListGameResult page = this.getListPage(urlStr, authToken);
+
+			games.addAll(page.games());
+			cursor = page.nextCursor();
+		} while (cursor != null);
+
+		return games;
+	}
 
-		HttpResponse<String> response = this.sendHttpRequest(urlStr, GET, body, authToken);
+	private ListGameResult getListPage(String urlStr, String authToken) throws DataAccessException {
+		CachedPage cached = this.listCache.get(urlStr);
 
-		ListGameResult games = this.readHttpResponse(response, ListGameResult.class);
+		HttpResponse<byte[]> response = this.sendConditionalGet(urlStr, authToken,
+				cached == null ? null : cached.etag());
+		if (response.statusCode() == HTTP_CODE_NOT_MODIFIED && cached != null) {
+			return cached.page();
+		}
+
+		ListGameResult page = this.readHttpResponse(response.statusCode(), this.readBody(response), ListGameResult.class);
 
-		return games.games();
+		String etag = response.headers().firstValue("ETag").orElse(null);
+		if (etag != null) {
+			this.listCache.put(urlStr, new CachedPage(etag, page));
+		}
+		return page;
 	}
 
 	public void joinGame(String authToken, String gameID, TeamColor teamColor) throws DataAccessException {
@@ -172,4 +269,12 @@ public class ServerFacade {
 
 		this.readHttpResponse(response, null);
 	}
+
+	public HintResult getHints(String authToken, String gameID, int count) throws DataAccessException {
+		String urlStr = String.format("%s%s?gameID=%s&count=%d", this.serverAddr, HINT_END_PNT, gameID, count);
+
+		HttpResponse<String> response = this.sendHttpRequest(urlStr, GET, null, authToken);
+
+		return this.readHttpResponse(response, HintResult.class);
+	}
 }
@@ -3,5 +3,9 @@ package client.websocket;
 import websocket.messages.ServerMessage;
 
 public interface NotificationHandler {
+	/**
+	 * @param notification The message, as its own class if it came as a binary frame
+	 * @param origMsg The message's JSON, or null if it came as a binary frame
+	 */
 	public void manageMsg(ServerMessage notification, String origMsg);
 }	
@@ -4,6 +4,7 @@ import com.google.gson.Gson;
 
 import jakarta.websocket.*;
 
+import websocket.BinaryFrame;
 import websocket.messages.*;
 import websocket.commands.*;
 
@@ -11,12 +12,19 @@ import chess.ChessMove;
 
 import java.io.IOException;
 import java.net.URI;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
 import java.net.URISyntaxException;
 
 public class WebSocketFacade extends Endpoint {
 	private Session session;
 	private NotificationHandler notificationHandler;
 
+	/**
+	 * True once moves are sent, and move updates received, as binary frames
+	 */
+	private boolean binaryFrames = false;
+
 	public WebSocketFacade(String serverDomain, int serverPort, NotificationHandler notificationHandler) {
         try {
 			// Process the URL and convert it to a web socket one
@@ -36,6 +44,12 @@ public class WebSocketFacade extends Endpoint {
                     notificationHandler.manageMsg(msg, message);
                 }
             });
+            this.session.addMessageHandler(new MessageHandler.Whole<ByteBuffer>() {
+                @Override
+                public void onMessage(ByteBuffer frame) {
+                    manageFrame(frame);
+                }
+            });
         } catch (DeploymentException | IOException | URISyntaxException ex) {
 			System.out.print("ERROR in WebSocketFacade initialization: ");
         }
@@ -45,10 +59,31 @@ public class WebSocketFacade extends Endpoint {
 	public void onOpen(Session session, EndpointConfig endpointConfig) {
 	}
 
+	/**
+	 * Hands a binary move update over like any other message. Frames that can't be read
+	 * are dropped; the next move finds the gap and asks for the board.
+	 */
+	private void manageFrame(ByteBuffer frame) {
+		try {
+			if (BinaryFrame.readType(frame) == BinaryFrame.MOVE_APPLIED) {
+				this.notificationHandler.manageMsg(BinaryFrame.readMoveApplied(frame), null);
+			}
+		} catch (IllegalArgumentException | BufferUnderflowException ex) {
+			// Dropped, as above
+		}
+	}
+
 	private void sendCommand(UserGameCommand cmd) throws IOException {
 		this.session.getBasicRemote().sendText(cmd.toJson());
 	}
 
+	/**
+	 * @return False if the connection couldn't be made or has dropped since
+	 */
+	public boolean isOpen() {
+		return this.session != null && this.session.isOpen();
+	}
+
 	public void closeSession() throws IOException {
 		this.session.close();
 	}
@@ -56,11 +91,30 @@ public class WebSocketFacade extends Endpoint {
 	/************* WEBSOCKET ENDPOINTS **********************/
 
 	public void connect(String authToken, int gameID) throws IOException {
-		UserGameCommand cmd = new ConnectCommand(authToken, gameID);
+		// Moves come back as binary MOVE_APPLIED frames, and are played onto the board locally
+		UserGameCommand cmd = new ConnectCommand(authToken, gameID, true, null, true);
+		this.sendCommand(cmd);
+		this.binaryFrames = true;
+	}
+
+	/**
+	 * Reconnects to a game, asking for only the events since the last one seen
+	 *
+	 * @param lastSeenSeq The sequence number of the last game event received
+	 */
+	public void resume(String authToken, int gameID, long lastSeenSeq) throws IOException {
+		UserGameCommand cmd = new ConnectCommand(authToken, gameID, true, lastSeenSeq, true);
 		this.sendCommand(cmd);
+		this.binaryFrames = true;
 	}
 
 	public void makeMove(String authToken, int gameID, ChessMove move) throws IOException{
+		// A binary move is made as the user the session connected as
+		if (this.binaryFrames) {
+			this.session.getBasicRemote().sendBinary(BinaryFrame.makeMove(gameID, move));
+			return;
+		}
+
 		UserGameCommand cmd = new MakeMoveCommand(authToken, gameID, move);
 		this.sendCommand(cmd);
 	}
@@ -74,4 +128,17 @@ public class WebSocketFacade extends Endpoint {
 		UserGameCommand cmd = new LeaveCommand(authToken, gameID);
 		this.sendCommand(cmd);
 	}	
+
+	/**
+	 * Asks for the whole board again, after a move update was missed
+	 */
+	public void sync(String authToken, int gameID) throws IOException {
+		UserGameCommand cmd = new SyncCommand(authToken, gameID);
+		this.sendCommand(cmd);
+	}
+
+	public void analyze(String authToken, int gameID) throws IOException {
+		UserGameCommand cmd = new AnalyzeCommand(authToken, gameID, null, null, null);
+		this.sendCommand(cmd);
+	}
 }
@@ -0,0 +1,38 @@
+package command;
+
+import java.util.List;
+
+import appstate.*;
+
+import client.*;
+
+import java.io.IOException;
+
+public class AnalyzeGameCommand extends CommandBase {
+	private static final String COMMAND_STR = "analyze";
+	private static final String DESC_STR = """
+		Ask the server's engine for the best line in the current position.""";
+	private static final String[] PARAMS = {
+	};
+
+	public AnalyzeGameCommand(Client app) {
+		super(COMMAND_STR, DESC_STR, PARAMS, app);
+	}
+
+	public boolean executeCommand(List<String> parameters) {
+		if (!this.verifyParameters(parameters, PARAMS.length)) {
+			return false;
+		}
+
+		// The result comes back asynchronously as an ANALYSIS message
+		try {
+			int gameID = Integer.parseInt(this.app.getActiveGame().game().gameID());
+			this.app.getWebSocket().analyze(this.app.getAuthToken(), gameID);
+		} catch (IOException ex) {
+			System.out.println(SERVER_ERROR_MSG);
+			return false;
+		}
+
+		return false;
+	}
+}
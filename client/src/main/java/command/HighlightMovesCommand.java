@@ -70,7 +70,7 @@ public class HighlightMovesCommand extends CommandBase {
 		}
 
 		ActiveGame game = this.app.getActiveGame();
-		if (game == null) {
+		if (game == null || game.game().game() == null) {
 			System.out.println("Game null");
 			return false;
 		}
@@ -0,0 +1,59 @@
+package command;
+
+import java.util.List;
+
+import chess.ChessMove;
+
+import client.Client;
+import client.exception.AuthenticationException;
+import client.exception.DataAccessException;
+
+public class HintCommand extends CommandBase {
+
+	public static record Hint(ChessMove move, int score, Integer mateIn, List<ChessMove> line) {}
+	public static record HintResult(int depth, List<Hint> hints) {}
+
+	private static final String COMMAND_STR = "hint";
+	private static final String DESC_STR = """
+		Show the engine's best moves in the current position.""";
+	private static final String[] PARAMS = {};
+
+	private static final int HINT_NUM = 3;
+
+	public HintCommand(Client app) {
+		super(COMMAND_STR, DESC_STR, PARAMS, app);
+	}
+
+	public boolean executeCommand(List<String> parameters) {
+		if (!this.verifyParameters(parameters, PARAMS.length)) {
+			return false;
+		}
+
+		HintResult result;
+		try {
+			String gameID = this.app.getActiveGame().game().gameID();
+			result = this.app.getServer().getHints(this.app.getAuthToken(), gameID, HINT_NUM);
+		} catch (AuthenticationException ex) {
+			System.out.println(NOT_AUTH_MSG);
+			return false;
+		} catch (DataAccessException ex) {
+			System.out.println(SERVER_ERROR_MSG);
+			return false;
+		}
+
+		System.out.println(String.format("\n\tBest moves (depth %d):\n", result.depth()));
+		for (Hint hint : result.hints()) {
+			String score;
+			if (hint.mateIn() != null) {
+				score = String.format("mate in %d", hint.mateIn());
+			} else {
+				score = String.format("%+.2f", hint.score() / 100.0);
+			}
+
+			System.out.println(String.format("\t%-20s %s", hint.move().toString(), score));
+		}
+		System.out.println("");
+
+		return false;
+	}
+}
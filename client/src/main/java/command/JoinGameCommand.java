@@ -9,7 +9,7 @@ import java.util.List;
 import chess.ChessGame.TeamColor;
 import client.Client;
 import client.exception.*;
-import model.GameData;
+import model.GameSummary;
 import command.exception.*;
 
 import appstate.*;
@@ -114,7 +114,7 @@ public class JoinGameCommand extends CommandBase {
 		}
 
 		// Check to see if we already have a game cache.
-		List<GameData> games;
+		List<GameSummary> games;
 		try {
 			games = this.app.getGamesCache();
 		} catch (AuthenticationException ex) {
@@ -126,7 +126,7 @@ public class JoinGameCommand extends CommandBase {
 		}
 
 		// Get the specific game that we want
-		GameData game;
+		GameSummary game;
 		try {
 			game = games.get(gameIdLocal);
 		} catch (IndexOutOfBoundsException ex) {
@@ -141,6 +141,9 @@ public class JoinGameCommand extends CommandBase {
 			String gameID = game.gameID();
 
 			this.app.getServer().joinGame(this.app.getAuthToken(), game.gameID(), teamColor);
+
+			// The board arrives over the web socket once connected
+			this.app.setActiveGame(game, teamColor);
 			this.app.getWebSocket().connect(authToken, Integer.parseInt(gameID));
 		} catch (AuthenticationException ex) {
 			System.out.println(NOT_AUTH_MSG);
@@ -149,14 +152,14 @@ public class JoinGameCommand extends CommandBase {
 			System.out.println(String.format(ALREADY_TAKEN_MSG, teamColor));
 			return false;
 		} catch (DataAccessException | IOException ex) {
+			this.app.resetActiveGame();
 			System.out.println(SERVER_ERROR_MSG);
 			return false;
 		}
 
 		System.out.println(String.format(JOINED_GAME_MSG, game.gameName()));
 
-		this.app.setActiveGame(game, teamColor);
-		this.app.changeAppState(new GameplayState(this.app, game, teamColor));
+		this.app.changeAppState(new GameplayState(this.app, this.app.getActiveGame().game(), teamColor));
 
 		return true;
 	}
@@ -8,11 +8,11 @@ import java.util.List;
 import client.Client;
 import client.exception.AuthenticationException;
 import client.exception.DataAccessException;
-import model.GameData;
+import model.GameSummary;
 
 public class ListGameCommand extends CommandBase {
 
-	public static record ListGameResult(Collection<GameData> games) {}
+	public static record ListGameResult(Collection<GameSummary> games, String nextCursor) {}
 
 	private static final String COMMAND_STR = "list-games";
 	private static final String DESC_STR = """
@@ -31,7 +31,7 @@ public class ListGameCommand extends CommandBase {
 		
 		System.out.println("\n\tGames: \n");
 
-		ArrayList<GameData> games;
+		ArrayList<GameSummary> games;
 		try {
 			// get the games
 			games = new ArrayList<>(this.app.generateGamesCache());
@@ -50,7 +50,7 @@ public class ListGameCommand extends CommandBase {
 		return true;
 	}
 
-	private void printGameTable(List<GameData> games) {
+	private void printGameTable(List<GameSummary> games) {
 		String[] headers = {"Game ID", "Game Name", "White Player", "Black Player"};
 		int[] colWidths = new int[headers.length];
 
@@ -59,7 +59,7 @@ public class ListGameCommand extends CommandBase {
 		}	
 		
 		for (int i = 0; i < games.size(); i++) {
-			GameData game = games.get(i);
+			GameSummary game = games.get(i);
 			colWidths[0] = Math.max(colWidths[0], Integer.toString(i + 1).length());
 			colWidths[1] = Math.max(colWidths[1], game.gameName().length());
 			if (game.whiteUsername() != null) {
@@ -97,7 +97,7 @@ public class ListGameCommand extends CommandBase {
 		System.out.println(b.toString());
 		
 		// Print the actual games
-		for (GameData game : games) {
+		for (GameSummary game : games) {
 			String id = game.gameID();
 			String name = game.gameName();
 			String white = game.whiteUsername() == null ? "" : game.whiteUsername();
@@ -14,7 +14,7 @@ import chess.ChessGame.TeamColor;
 import client.Client;
 import client.exception.*;
 
-import model.GameData;
+import model.GameSummary;
 
 import util.Debugger;
 
@@ -88,7 +88,7 @@ public class ObserveGameCommand extends CommandBase {
 		System.out.println(String.format(OBSERVE_GAME_MSG, gameIndex + 1));
 
 		// fetch the games cache
-		ArrayList<GameData> games;
+		ArrayList<GameSummary> games;
 		try {
 			games = new ArrayList<>(this.app.getGamesCache());
 		} catch (AuthenticationException ex) {
@@ -104,28 +104,26 @@ public class ObserveGameCommand extends CommandBase {
 			return false;
 		}
 
-		GameData game = games.get(gameIndex);
+		GameSummary game = games.get(gameIndex);
 		
-		// Connect to the web socket 
+		// Connect to the web socket. The board arrives over it once connected.
+		this.app.setActiveGame(game, TeamColor.WHITE);
 		try {
 			int gameID = Integer.parseInt(game.gameID());
 			this.app.getWebSocket().connect(this.app.getAuthToken(), gameID);
 		} catch (IOException ex) {
+			this.app.resetActiveGame();
 			System.out.println(INT_ERROR_MSG);
 			return false;
 		}
 
 		// Transition to the observeGameState
-		this.app.changeAppState(new ObserveGameState(this.app, game, TeamColor.WHITE));
-		this.app.setActiveGame(game, TeamColor.WHITE);
+		this.app.changeAppState(new ObserveGameState(this.app, this.app.getActiveGame()));
 
 		String whiteUsername = game.whiteUsername() == null ? "<Empty>" : game.whiteUsername();
 		String blackUsername = game.blackUsername() == null ? "<Empty>" : game.blackUsername();
 
 		System.out.println(String.format(GAME_MSG, game.gameName(), whiteUsername, blackUsername));
-
-		System.out.println(String.format("\tIt is %s's turn.\n", game.game().getTeamTurn()));
-		this.app.printBoard(game.game(), TeamColor.WHITE);
 		System.out.println("");
 
 		return true;
@@ -10,6 +10,7 @@ import chess.ChessGame.TeamColor;
 import dataaccess.sqldao.*;
 import model.AuthData;
 import model.GameData;
+import model.GameSummary;
 import server.Server;
 
 import service.ClearDataService;
@@ -152,11 +153,11 @@ public class ServerFacadeTests {
 	@Test
 	@Order(9)
 	public void listGamesPosTest() {
-		Collection<GameData> games = Assertions.assertDoesNotThrow(
+		Collection<GameSummary> games = Assertions.assertDoesNotThrow(
 				() -> facade.listGames(authToken1));
 
 		List<String> dbGameNames = new ArrayList<>();
-		for (GameData game : games) {
+		for (GameSummary game : games) {
 			dbGameNames.add(game.gameID());
 		}
 
@@ -0,0 +1,569 @@
+package dataaccess;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import chess.ChessGame;
+
+import model.GameData;
+import model.GameSummary;
+
+/**
+ * Keeps the games being played in memory and writes them back to a slower GameDAO
+ * in the background.
+ *
+ * A game is pinned while any WebSocket session is connected to it. A pinned game is read
+ * from the store once and then served from memory, so every reader sees the same live
+ * GameData. Updates to any game only queue a write. Several updates to one game waiting in
+ * the queue collapse into one write of the newest data. Queued writes are flushed once the
+ * game has gone quiet for idleMillis, at most flushIntervalMillis after the first one, when
+ * the game's last session leaves, and on shutdown.
+ *
+ * Anyone using a live ChessGame must hold its monitor, which the flush also takes while
+ * it copies the game, so a half-made move is never written. That includes readers:
+ * validMoves and the mate checks try moves on the board, so they run on a copy taken
+ * with ChessGame.copy(), or under the monitor.
+ *
+ * Each update bumps the game's version in memory. A flush is a compare-and-set against
+ * the version the store held when the update was queued, so if another server process
+ * changed the game in the meantime, this process's unwritten changes are dropped and the
+ * game is read from the store again. Those changes may already have been shown to players,
+ * so the ConflictListener is told, to send everyone the game as it now stands.
+ */
+public class ActiveGameRegistry implements GameDAO {
+	//
+	// ================== STATIC ATTRIBUTES =====================
+	//
+
+	public static final long DEFAULT_IDLE_MILLIS = 250;
+	public static final long DEFAULT_FLUSH_INTERVAL_MILLIS = 2_000;
+
+	private static final long MIN_TICK_MILLIS = 5;
+
+	private static final int LOCK_STRIPES = 64;
+
+	public static interface ConflictListener {
+		/**
+		 * Called on the writer thread once a game's unwritten changes were dropped. The next
+		 * read of the game loads it from the store.
+		 *
+		 * @param gameID The game
+		 */
+		void conflicted(int gameID);
+	}
+
+	/**
+	 * The newest unwritten data of a game
+	 *
+	 * @param baseVersion The version the store holds, which the write replaces
+	 * @param firstMillis When the game first became dirty
+	 * @param lastMillis When the game was last updated
+	 */
+	private static record PendingWrite(GameData data, long baseVersion, long firstMillis, long lastMillis) {}
+
+	/**
+	 * A pinned game, loaded on first read
+	 */
+	private static class ActiveGame {
+		int pins = 0;
+		volatile GameData data;
+	}
+
+	//
+	// ================== CONSTRUCTORS =====================
+	//
+
+	private final GameDAO store;
+	private final long idleMillis;
+	private final long flushIntervalMillis;
+
+	private final ConcurrentHashMap<Integer, ActiveGame> active = new ConcurrentHashMap<>();
+	private final ConcurrentHashMap<Integer, PendingWrite> pending = new ConcurrentHashMap<>();
+	private final ConcurrentHashMap<Integer, GameData> writing = new ConcurrentHashMap<>();
+
+	private final LongAdder writeCount = new LongAdder();
+	private final LongAdder coalescedCount = new LongAdder();
+	private final LongAdder failureCount = new LongAdder();
+	private final LongAdder conflictCount = new LongAdder();
+
+	/**
+	 * Makes each game's read-compare-write atomic without one lock for every game
+	 */
+	private final Object[] locks = new Object[LOCK_STRIPES];
+
+	private final ScheduledExecutorService writer;
+
+	private volatile ConflictListener conflictListener = gameID -> { };
+
+	public ActiveGameRegistry(GameDAO store) {
+		this(store, DEFAULT_IDLE_MILLIS, DEFAULT_FLUSH_INTERVAL_MILLIS);
+	}
+
+	/**
+	 * @param store Where games are persisted
+	 * @param idleMillis How long a game must go without updates before it is written
+	 * @param flushIntervalMillis The longest a game's update may wait to be written
+	 */
+	public ActiveGameRegistry(GameDAO store, long idleMillis, long flushIntervalMillis) {
+		if (idleMillis < 0 || flushIntervalMillis < 0) {
+			throw new IllegalArgumentException("Flush delays must not be negative");
+		}
+		this.store = store;
+		this.idleMillis = idleMillis;
+		this.flushIntervalMillis = flushIntervalMillis;
+
+		for (int i = 0; i < this.locks.length; i++) {
+			this.locks[i] = new Object();
+		}
+
+		this.writer = Executors.newSingleThreadScheduledExecutor(task -> {
+			Thread thread = new Thread(task, "game-write-behind");
+			thread.setDaemon(true);
+			return thread;
+		});
+
+		long tick = Math.max(MIN_TICK_MILLIS, Math.min(idleMillis, flushIntervalMillis) / 2);
+		this.writer.scheduleWithFixedDelay(this::flushDue, tick, tick, TimeUnit.MILLISECONDS);
+	}
+
+	//
+	// ================== ACTIVE GAMES =====================
+	//
+
+	/**
+	 * Keeps a game in memory until a matching unpin. Pins nest, one per connected session.
+	 */
+	public void pin(int gameID) {
+		this.active.compute(gameID, (id, game) -> {
+			if (game == null) {
+				game = new ActiveGame();
+			}
+			game.pins++;
+			return game;
+		});
+	}
+
+	/**
+	 * Releases a pin. Once the last one is gone the game is dropped from memory and its
+	 * queued update, if any, is written right away.
+	 */
+	public void unpin(int gameID) {
+		ActiveGame released = this.active.computeIfPresent(gameID, (id, game) -> --game.pins > 0 ? game : null);
+		if (released == null) {
+			this.flushSoon(gameID);
+		}
+	}
+
+	public boolean isActive(int gameID) {
+		return this.active.containsKey(gameID);
+	}
+
+	/**
+	 * @return The number of games held in memory
+	 */
+	public int getActiveNum() {
+		return this.active.size();
+	}
+
+	/**
+	 * @return The number of games with an update waiting to be written
+	 */
+	public int getPendingNum() {
+		return this.pending.size();
+	}
+
+	public long getWriteCount() {
+		return this.writeCount.sum();
+	}
+
+	/**
+	 * @return The number of updates replaced by a newer one before they were written
+	 */
+	public long getCoalescedCount() {
+		return this.coalescedCount.sum();
+	}
+
+	public long getFailureCount() {
+		return this.failureCount.sum();
+	}
+
+	/**
+	 * @return The number of writes dropped because another process changed the game first
+	 */
+	public long getConflictCount() {
+		return this.conflictCount.sum();
+	}
+
+	public void setConflictListener(ConflictListener listener) {
+		this.conflictListener = listener;
+	}
+
+	/**
+	 * Writes every queued update and stops the writer thread
+	 */
+	public void shutdown() {
+		this.writer.shutdown();
+		try {
+			this.writer.awaitTermination(this.flushIntervalMillis, TimeUnit.MILLISECONDS);
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		}
+
+		for (Map.Entry<Integer, PendingWrite> entry : this.pending.entrySet()) {
+			this.flush(entry.getKey(), entry.getValue());
+		}
+	}
+
+	//
+	// ================== DATA ACCESS =====================
+	//
+
+	public GameData getGame(String gameID) throws DataAccessException {
+		return this.getGame(parseID(gameID));
+	}
+
+	private GameData getGame(int id) throws DataAccessException {
+		ActiveGame game = this.active.get(id);
+		if (game == null) {
+			return this.load(id);
+		}
+
+		// Load a pinned game only once, so every reader shares the same live game
+		synchronized (game) {
+			if (game.data == null) {
+				game.data = this.load(id);
+			}
+			return game.data;
+		}
+	}
+
+	public Collection<GameData> getAllGames() throws DataAccessException {
+		LinkedHashMap<String, GameData> games = new LinkedHashMap<>();
+		for (GameData gameData : this.store.getAllGames()) {
+			games.put(gameData.gameID(), gameData);
+		}
+
+		// Updates not written yet are newer than the rows they replace
+		this.writing.forEach((id, gameData) -> games.replace(gameData.gameID(), gameData));
+		this.pending.forEach((id, write) -> games.replace(write.data().gameID(), write.data()));
+		this.active.forEach((id, game) -> {
+			GameData gameData = game.data;
+			if (gameData != null) {
+				games.replace(gameData.gameID(), gameData);
+			}
+		});
+
+		return games.values();
+	}
+
+	/**
+	 * Lists a page from the store, with the games changed in memory summarized from their
+	 * newest data instead.
+	 */
+	public List<GameSummary> listGames(int afterGameID, int limit, GameFilter filter) throws DataAccessException {
+		Map<Integer, GameData> unwritten = this.unwritten();
+		unwritten.keySet().removeIf(id -> id <= afterGameID);
+
+		// Each game changed in memory may drop out of the store's page, so ask for that many
+		// more. The first limit of the merged games then all come from the store's range.
+		TreeMap<Integer, GameSummary> games = new TreeMap<>();
+		for (GameSummary summary : this.store.listGames(afterGameID, limit + unwritten.size(), filter)) {
+			if (!unwritten.containsKey(summary.getGameID())) {
+				games.put(summary.getGameID(), summary);
+			}
+		}
+
+		unwritten.forEach((id, gameData) -> {
+			GameSummary summary = summarize(gameData);
+			if (filter.matches(summary)) {
+				games.put(id, summary);
+			}
+		});
+
+		List<GameSummary> page = new ArrayList<>(games.values());
+		return page.size() > limit ? page.subList(0, limit) : page;
+	}
+
+	/**
+	 * Takes the running clocks from the store, with the games changed in memory read from
+	 * their newest data instead
+	 */
+	public Map<Integer, Long> getClockDeadlines() throws DataAccessException {
+		Map<Integer, GameData> unwritten = this.unwritten();
+		Map<Integer, Long> deadlines = new HashMap<>(this.store.getClockDeadlines());
+
+		unwritten.forEach((id, gameData) -> {
+			long deadline = clockDeadline(gameData);
+			if (deadline == Long.MAX_VALUE || summarize(gameData).status() == GameSummary.Status.FINISHED) {
+				deadlines.remove(id);
+			} else {
+				deadlines.put(id, deadline);
+			}
+		});
+
+		return deadlines;
+	}
+
+	/**
+	 * @return The newest data of each game whose changes may not be in the store yet
+	 */
+	private Map<Integer, GameData> unwritten() {
+		Map<Integer, GameData> unwritten = new HashMap<>();
+		this.writing.forEach((id, gameData) -> unwritten.put(id, gameData));
+		this.pending.forEach((id, write) -> unwritten.put(id, write.data()));
+		this.active.forEach((id, game) -> {
+			GameData gameData = game.data;
+			if (gameData != null) {
+				unwritten.put(id, gameData);
+			}
+		});
+		return unwritten;
+	}
+
+	public GameData createGame(String gameName) throws DataAccessException {
+		return this.store.createGame(gameName);
+	}
+
+	/**
+	 * Replaces a game's data in memory and queues it to be written
+	 */
+	public void updateGame(String gameID, GameData newGameData) throws DataAccessException {
+		int id = parseID(gameID);
+
+		synchronized (this.lockFor(id)) {
+			GameData current = this.getGame(id);
+			this.replace(id, current, newGameData.withVersion(current.version() + 1));
+		}
+	}
+
+	/**
+	 * Replaces a game's data in memory and queues it to be written, if the in-memory
+	 * version is still the expected one
+	 */
+	public void compareAndSetGame(String gameID, long expectedVersion, GameData newGameData)
+			throws DataAccessException, VersionConflictException {
+		int id = parseID(gameID);
+
+		synchronized (this.lockFor(id)) {
+			GameData current = this.getGame(id);
+			if (current.version() != expectedVersion) {
+				throw new VersionConflictException("Game was updated by someone else");
+			}
+			this.replace(id, current, newGameData);
+		}
+	}
+
+	/*
+	 * Must be called holding the game's lock
+	 */
+	private void replace(int gameID, GameData current, GameData newGameData) {
+		ActiveGame game = this.active.get(gameID);
+		if (game != null) {
+			synchronized (game) {
+				game.data = newGameData;
+			}
+		}
+
+		// With nothing queued, the current data is what the store holds or is about to
+		long now = System.currentTimeMillis();
+		this.pending.merge(gameID, new PendingWrite(newGameData, current.version(), now, now), (queued, update) -> {
+			this.coalescedCount.increment();
+			return new PendingWrite(update.data(), queued.baseVersion(), queued.firstMillis(), update.lastMillis());
+		});
+	}
+
+	public void removeGame(GameData gameData) throws DataAccessException {
+		int id = parseID(gameData.gameID());
+
+		synchronized (this.lockFor(id)) {
+			this.pending.remove(id);
+
+			ActiveGame game = this.active.get(id);
+			if (game != null) {
+				synchronized (game) {
+					game.data = null;
+				}
+			}
+		}
+
+		this.store.removeGame(gameData);
+	}
+
+	public void clearAllGameData() throws DataAccessException {
+		this.pending.clear();
+		this.active.forEach((id, game) -> {
+			synchronized (game) {
+				game.data = null;
+			}
+		});
+
+		this.store.clearAllGameData();
+	}
+
+	//
+	// ================== WRITE BEHIND =====================
+	//
+
+	/**
+	 * Reads a game that isn't in memory, preferring updates that haven't been written yet
+	 */
+	private GameData load(int gameID) throws DataAccessException {
+		PendingWrite write = this.pending.get(gameID);
+		if (write != null) {
+			return write.data();
+		}
+
+		GameData inFlight = this.writing.get(gameID);
+		if (inFlight != null) {
+			return inFlight;
+		}
+
+		return this.store.getGame(String.valueOf(gameID));
+	}
+
+	private void flushDue() {
+		long now = System.currentTimeMillis();
+
+		for (Map.Entry<Integer, PendingWrite> entry : this.pending.entrySet()) {
+			PendingWrite write = entry.getValue();
+			if (now - write.lastMillis() >= this.idleMillis || now - write.firstMillis() >= this.flushIntervalMillis) {
+				this.flush(entry.getKey(), write);
+			}
+		}
+	}
+
+	private void flushSoon(int gameID) {
+		try {
+			this.writer.execute(() -> {
+				PendingWrite write = this.pending.get(gameID);
+				if (write != null) {
+					this.flush(gameID, write);
+				}
+			});
+		} catch (RuntimeException ex) {
+			// Shutting down, which flushes everything anyway
+		}
+	}
+
+	/**
+	 * Writes one queued update, unless a newer one replaced it in the meantime
+	 */
+	private void flush(int gameID, PendingWrite write) {
+		GameData gameData = write.data();
+		this.writing.put(gameID, gameData);
+		if (!this.pending.remove(gameID, write)) {
+			this.writing.remove(gameID, gameData);
+			return;
+		}
+
+		try {
+			this.store.compareAndSetGame(gameData.gameID(), write.baseVersion(), this.snapshot(gameData));
+			this.writeCount.increment();
+		} catch (VersionConflictException ex) {
+			this.dropConflicted(gameID);
+		} catch (DataAccessException | RuntimeException ex) {
+			// Requeue it for the next round. Anything queued since builds on this write, so
+			// it takes over this write's base version.
+			this.failureCount.increment();
+			this.pending.merge(gameID, write, (newer, failed) ->
+					new PendingWrite(newer.data(), failed.baseVersion(), failed.firstMillis(), newer.lastMillis()));
+			ex.printStackTrace();
+		} finally {
+			this.writing.remove(gameID, gameData);
+		}
+	}
+
+	/**
+	 * Another process changed the game in the store, so this process's changes are lost.
+	 * Forget them, so the next read starts from what the store holds, and tell the listener
+	 * so nobody is left looking at moves that were never saved.
+	 */
+	private void dropConflicted(int gameID) {
+		this.conflictCount.increment();
+
+		synchronized (this.lockFor(gameID)) {
+			this.pending.remove(gameID);
+
+			ActiveGame game = this.active.get(gameID);
+			if (game != null) {
+				synchronized (game) {
+					game.data = null;
+				}
+			}
+		}
+
+		try {
+			this.conflictListener.conflicted(gameID);
+		} catch (RuntimeException ex) {
+			ex.printStackTrace();
+		}
+	}
+
+	private Object lockFor(int gameID) {
+		return this.locks[Math.floorMod(gameID, this.locks.length)];
+	}
+
+	private static int parseID(String gameID) throws DataAccessException {
+		try {
+			return Integer.parseInt(gameID);
+		} catch (NumberFormatException ex) {
+			throw new DataAccessException("Invalid gameID: " + gameID);
+		}
+	}
+
+	/**
+	 * Summarizes a game that may be live, so its board must not change mid-read
+	 */
+	private static GameSummary summarize(GameData gameData) {
+		ChessGame game = gameData.game();
+		if (game == null) {
+			return GameSummary.of(gameData);
+		}
+
+		synchronized (game) {
+			return GameSummary.of(gameData);
+		}
+	}
+
+	/**
+	 * Reads the clock of a game that may be live
+	 */
+	private static long clockDeadline(GameData gameData) {
+		ChessGame game = gameData.game();
+		if (game == null) {
+			return Long.MAX_VALUE;
+		}
+
+		synchronized (game) {
+			return gameData.getClockDeadline();
+		}
+	}
+
+	/**
+	 * Copies a game so the store can serialize it while the live one keeps changing
+	 */
+	private GameData snapshot(GameData gameData) {
+		ChessGame game = gameData.game();
+		if (game == null) {
+			return gameData;
+		}
+
+		ChessGame copy;
+		synchronized (game) {
+			copy = game.copy();
+		}
+
+		return new GameData(gameData.gameID(), gameData.whiteUsername(), gameData.blackUsername(),
+				gameData.gameName(), copy, gameData.version());
+	}
+}
@@ -1,11 +1,24 @@
 package dataaccess;
 
+import java.util.UUID;
+
 import model.AuthData;
 
 /**
  * Interface for Authentication Data Access
  */
 public interface AuthDAO {
+	/**
+	 * Makes up a new token for a user. It is only valid once passed to createAuth.
+	 *
+	 * @param username The user the token is for
+	 *
+	 * @return The token, random unless the implementation says otherwise
+	 */
+	public default String generateAuthToken(String username) {
+		return UUID.randomUUID().toString();
+	}
+
 	/**
 	 * Given an authentication token, will return the AuthData
 	 * associated with it, if it exists. Otherwise, will return false.
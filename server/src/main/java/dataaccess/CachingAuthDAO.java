@@ -0,0 +1,188 @@
+package dataaccess;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import model.AuthData;
+import util.LruCache;
+
+/**
+ * Answers token lookups from memory, so authenticating a request isn't a database query.
+ *
+ * Valid tokens are remembered for ttlMillis. Unknown tokens are remembered too, for the
+ * shorter negativeTtlMillis, so a client retrying a bad token doesn't reach the database
+ * either. The two are kept in separate caches, so a flood of bad tokens can't push the
+ * valid ones out.
+ *
+ * Logging out and clearing the data go through this class and drop the cached tokens at
+ * once. A token removed by another server process stays valid here until its entry expires.
+ */
+public class CachingAuthDAO implements AuthDAO {
+	//
+	// ================== STATIC ATTRIBUTES =====================
+	//
+
+	public static final long DEFAULT_TTL_MILLIS = 60_000;
+	public static final long DEFAULT_NEGATIVE_TTL_MILLIS = 5_000;
+	public static final long DEFAULT_CACHE_BYTES = 16L * 1024 * 1024;
+	public static final long DEFAULT_NEGATIVE_CACHE_BYTES = 1024L * 1024;
+
+	/**
+	 * The width of the authToken column. Longer tokens can't exist, so they're rejected
+	 * without being looked up or cached.
+	 */
+	public static final int MAX_TOKEN_LENGTH = 512;
+
+	/**
+	 * @param auth The token's data, or null if the token doesn't exist
+	 * @param expiresMillis When the entry stops being trusted
+	 */
+	private static record CachedAuth(AuthData auth, long expiresMillis) {}
+
+	//
+	// ================== CONSTRUCTORS =====================
+	//
+
+	private final AuthDAO store;
+	private final long ttlMillis;
+	private final long negativeTtlMillis;
+
+	private final LruCache<String, CachedAuth> tokens;
+	private final LruCache<String, CachedAuth> unknownTokens;
+
+	/**
+	 * Bumped by every removal, so a lookup racing with one doesn't cache the removed token
+	 */
+	private final AtomicLong generation = new AtomicLong();
+
+	public CachingAuthDAO(AuthDAO store) {
+		this(store, DEFAULT_TTL_MILLIS, DEFAULT_NEGATIVE_TTL_MILLIS, DEFAULT_CACHE_BYTES,
+				DEFAULT_NEGATIVE_CACHE_BYTES);
+	}
+
+	/**
+	 * @param store Where tokens are persisted
+	 * @param ttlMillis How long a valid token is trusted without asking the store
+	 * @param negativeTtlMillis How long an unknown token is rejected without asking the store
+	 * @param cacheBytes The memory budget of the valid tokens
+	 * @param negativeCacheBytes The memory budget of the unknown tokens
+	 */
+	public CachingAuthDAO(AuthDAO store, long ttlMillis, long negativeTtlMillis, long cacheBytes,
+			long negativeCacheBytes) {
+		this.store = store;
+		this.ttlMillis = ttlMillis;
+		this.negativeTtlMillis = negativeTtlMillis;
+
+		this.tokens = new LruCache<>(cacheBytes, CachingAuthDAO::estimateBytes);
+		this.unknownTokens = new LruCache<>(negativeCacheBytes, CachingAuthDAO::estimateBytes);
+	}
+
+	/**
+	 * @return The valid tokens, for monitoring
+	 */
+	public LruCache<String, ?> getTokenCache() {
+		return this.tokens;
+	}
+
+	/**
+	 * @return The unknown tokens, for monitoring
+	 */
+	public LruCache<String, ?> getUnknownTokenCache() {
+		return this.unknownTokens;
+	}
+
+	//
+	// ================== DATA ACCESS =====================
+	//
+
+	public String generateAuthToken(String username) {
+		return this.store.generateAuthToken(username);
+	}
+
+	public AuthData getAuth(String authToken) throws DataAccessException, AuthenticationException {
+		AuthData auth = this.lookup(authToken);
+		if (auth == null) {
+			throw new AuthenticationException("Auth token doesn't exist");
+		}
+		return auth;
+	}
+
+	public boolean authExists(String authToken) throws DataAccessException {
+		return this.lookup(authToken) != null;
+	}
+
+	public void createAuth(AuthData authData) throws DataAccessException, AlreadyTakenException {
+		this.store.createAuth(authData);
+
+		this.unknownTokens.remove(authData.authToken());
+	}
+
+	public void removeAuth(AuthData authData) throws DataAccessException {
+		this.generation.incrementAndGet();
+		this.tokens.remove(authData.authToken());
+
+		this.store.removeAuth(authData);
+
+		// Also drop a lookup that read the token just before it was deleted
+		this.tokens.remove(authData.authToken());
+	}
+
+	public void clearAllAuthData() throws DataAccessException {
+		this.generation.incrementAndGet();
+		this.tokens.clear();
+		this.unknownTokens.clear();
+
+		this.store.clearAllAuthData();
+	}
+
+	//
+	// ================== CACHING =====================
+	//
+
+	/**
+	 * @return The token's data, or null if it doesn't exist
+	 */
+	private AuthData lookup(String authToken) throws DataAccessException {
+		if (authToken == null || authToken.length() > MAX_TOKEN_LENGTH) {
+			return null;
+		}
+
+		long now = System.currentTimeMillis();
+
+		CachedAuth cached = this.tokens.get(authToken);
+		if (cached == null) {
+			cached = this.unknownTokens.get(authToken);
+		}
+		if (cached != null && cached.expiresMillis() > now) {
+			return cached.auth();
+		}
+
+		// Read the generation first, so a removal during the query keeps the result out
+		long readGeneration = this.generation.get();
+
+		AuthData auth;
+		try {
+			auth = this.store.getAuth(authToken);
+		} catch (AuthenticationException ex) {
+			auth = null;
+		}
+
+		if (auth != null) {
+			if (readGeneration == this.generation.get()) {
+				this.tokens.put(authToken, new CachedAuth(auth, now + this.ttlMillis));
+			}
+			this.unknownTokens.remove(authToken);
+		} else {
+			this.tokens.remove(authToken);
+			this.unknownTokens.put(authToken, new CachedAuth(null, now + this.negativeTtlMillis));
+		}
+
+		return auth;
+	}
+
+	private static long estimateBytes(CachedAuth cached) {
+		// The key is counted as a token of the longest length, at two bytes a character
+		AuthData auth = cached.auth();
+		long usernameBytes = auth == null ? 0 : 2L * auth.username().length();
+		return 2L * MAX_TOKEN_LENGTH + usernameBytes + 64;
+	}
+}
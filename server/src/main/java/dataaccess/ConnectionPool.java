@@ -0,0 +1,433 @@
+package dataaccess;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Iterator;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bounded pool of open database connections.
+ *
+ * Borrowed connections are handed out wrapped, so closing one returns it to the pool instead
+ * of closing the socket. At most maxSize connections are borrowed at once; a caller beyond
+ * that waits up to the acquire timeout and then gets a DataAccessException. A connection that
+ * has sat idle for a while is checked with the validation query before it is handed out.
+ *
+ * A background thread closes connections idle past the idle timeout, down to minSize, and
+ * reports connections held longer than the leak threshold, with the thread that borrowed
+ * them. Recording where each was borrowed costs a stack trace per borrow, so the stack is
+ * only captured when traceLeaks is set.
+ */
+public class ConnectionPool {
+	//
+	// ================== STATIC PUBLIC CLASSES =====================
+	//
+
+	/**
+	 * Opens a new raw connection for the pool
+	 */
+	@FunctionalInterface
+	public static interface ConnectionFactory {
+		public Connection open() throws SQLException;
+	}
+
+	/**
+	 * @param minSize Connections kept open even when idle
+	 * @param maxSize Connections that may be borrowed at once
+	 * @param acquireTimeoutMillis How long a borrower waits for a free connection
+	 * @param idleTimeoutMillis How long a connection above minSize may sit idle before it is closed
+	 * @param validationQuery Run on connections idle longer than the validation interval;
+	 * if empty, the driver's own check is used
+	 * @param validationIntervalMillis How long a connection may sit idle before it is validated
+	 * @param leakThresholdMillis How long a connection may be held before it is reported as leaked
+	 * @param traceLeaks Whether to capture the stack of every borrow, to report with leaks
+	 */
+	public static record PoolConfig(int minSize, int maxSize, long acquireTimeoutMillis,
+			long idleTimeoutMillis, String validationQuery, long validationIntervalMillis,
+			long leakThresholdMillis, boolean traceLeaks) {
+
+		public static final PoolConfig DEFAULT = new PoolConfig(2, 10, 5_000, 60_000, "SELECT 1", 5_000, 30_000);
+
+		public PoolConfig(int minSize, int maxSize, long acquireTimeoutMillis, long idleTimeoutMillis,
+				String validationQuery, long validationIntervalMillis, long leakThresholdMillis) {
+			this(minSize, maxSize, acquireTimeoutMillis, idleTimeoutMillis, validationQuery,
+					validationIntervalMillis, leakThresholdMillis, false);
+		}
+
+		public PoolConfig {
+			if (minSize < 0 || maxSize < 1 || minSize > maxSize) {
+				throw new IllegalArgumentException("Pool sizes must satisfy 0 <= min <= max and max >= 1");
+			}
+			if (acquireTimeoutMillis < 0 || idleTimeoutMillis < 0 || validationIntervalMillis < 0
+					|| leakThresholdMillis < 0) {
+				throw new IllegalArgumentException("Pool timeouts must not be negative");
+			}
+		}
+
+		/**
+		 * Reads the db.pool.* keys, using the defaults for any that are missing:
+		 * minSize, maxSize, acquireTimeoutMillis, idleTimeoutMillis, validationQuery,
+		 * validationIntervalMillis, leakThresholdMillis and traceLeaks.
+		 */
+		public static PoolConfig fromProperties(Properties props) {
+			return new PoolConfig(
+					Integer.parseInt(props.getProperty("db.pool.minSize", String.valueOf(DEFAULT.minSize()))),
+					Integer.parseInt(props.getProperty("db.pool.maxSize", String.valueOf(DEFAULT.maxSize()))),
+					Long.parseLong(props.getProperty("db.pool.acquireTimeoutMillis", String.valueOf(DEFAULT.acquireTimeoutMillis()))),
+					Long.parseLong(props.getProperty("db.pool.idleTimeoutMillis", String.valueOf(DEFAULT.idleTimeoutMillis()))),
+					props.getProperty("db.pool.validationQuery", DEFAULT.validationQuery()),
+					Long.parseLong(props.getProperty("db.pool.validationIntervalMillis", String.valueOf(DEFAULT.validationIntervalMillis()))),
+					Long.parseLong(props.getProperty("db.pool.leakThresholdMillis", String.valueOf(DEFAULT.leakThresholdMillis()))),
+					Boolean.parseBoolean(props.getProperty("db.pool.traceLeaks", String.valueOf(DEFAULT.traceLeaks()))));
+		}
+	}
+
+	//
+	// ================== STATIC ATTRIBUTES =====================
+	//
+
+	private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+	private static final long MIN_MAINTENANCE_MILLIS = 500;
+
+	/**
+	 * A raw connection and its bookkeeping
+	 */
+	private static class PooledConnection {
+		final Connection raw;
+		volatile long lastReturnedMillis = System.currentTimeMillis();
+		volatile long borrowedMillis;
+		volatile String borrowedBy;
+		/**
+		 * Where it was borrowed, or null unless leaks are traced
+		 */
+		volatile Throwable borrowedAt;
+		volatile boolean leakReported;
+
+		PooledConnection(Connection raw) {
+			this.raw = raw;
+		}
+	}
+
+	//
+	// ================== CONSTRUCTORS =====================
+	//
+
+	private final ConnectionFactory factory;
+	private final PoolConfig config;
+
+	private final Semaphore permits;
+	private final LinkedBlockingDeque<PooledConnection> idle = new LinkedBlockingDeque<>();
+	private final Set<PooledConnection> borrowed = ConcurrentHashMap.newKeySet();
+	private final AtomicInteger openCount = new AtomicInteger();
+	private final AtomicInteger waitingCount = new AtomicInteger();
+
+	private final LongAdder acquireCount = new LongAdder();
+	private final LongAdder waitNanos = new LongAdder();
+	private final LongAdder timeoutCount = new LongAdder();
+	private final LongAdder leakCount = new LongAdder();
+
+	private final ScheduledExecutorService maintenance;
+	private volatile boolean closed = false;
+
+	/**
+	 * @param factory Opens the raw connections
+	 * @param config The pool's sizes and timeouts
+	 */
+	public ConnectionPool(ConnectionFactory factory, PoolConfig config) {
+		this.factory = factory;
+		this.config = config;
+		this.permits = new Semaphore(config.maxSize(), true);
+
+		this.maintenance = Executors.newSingleThreadScheduledExecutor(task -> {
+			Thread thread = new Thread(task, "db-pool-maintenance");
+			thread.setDaemon(true);
+			return thread;
+		});
+
+		long period = Math.max(MIN_MAINTENANCE_MILLIS,
+				Math.min(config.idleTimeoutMillis(), config.leakThresholdMillis()) / 2);
+		this.maintenance.scheduleWithFixedDelay(this::maintain, period, period, TimeUnit.MILLISECONDS);
+	}
+
+	//
+	// ================== MEMBER METHODS =====================
+	//
+
+	/**
+	 * Borrows a connection, waiting up to the acquire timeout for one to be free.
+	 * Closing the returned connection gives it back to the pool.
+	 *
+	 * @throws DataAccessException if the pool is closed, no connection came free in time,
+	 * or a new connection couldn't be opened
+	 */
+	public Connection borrow() throws DataAccessException {
+		if (this.closed) {
+			throw new DataAccessException("Connection pool is closed");
+		}
+
+		long start = System.nanoTime();
+		this.waitingCount.incrementAndGet();
+		boolean acquired;
+		try {
+			acquired = this.permits.tryAcquire(this.config.acquireTimeoutMillis(), TimeUnit.MILLISECONDS);
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new DataAccessException("Interrupted waiting for a database connection", ex);
+		} finally {
+			this.waitingCount.decrementAndGet();
+			this.waitNanos.add(System.nanoTime() - start);
+		}
+
+		if (!acquired) {
+			this.timeoutCount.increment();
+			String msg = String.format("No database connection free after %d ms", this.config.acquireTimeoutMillis());
+			throw new DataAccessException(msg);
+		}
+
+		try {
+			PooledConnection conn = this.takeIdleOrOpen();
+			conn.borrowedMillis = System.currentTimeMillis();
+			conn.borrowedBy = Thread.currentThread().getName();
+			conn.borrowedAt = this.config.traceLeaks() ? new Throwable("Connection borrowed here") : null;
+			conn.leakReported = false;
+			this.borrowed.add(conn);
+			this.acquireCount.increment();
+			return this.wrap(conn);
+		} catch (SQLException | RuntimeException ex) {
+			this.permits.release();
+			throw new DataAccessException("Failed to open a database connection", ex);
+		}
+	}
+
+	/**
+	 * Closes every idle connection and stops the maintenance thread. Borrowed connections
+	 * are closed as they are returned.
+	 */
+	public void close() {
+		this.closed = true;
+		this.maintenance.shutdownNow();
+
+		PooledConnection conn;
+		while ((conn = this.idle.pollFirst()) != null) {
+			this.destroy(conn);
+		}
+	}
+
+	public PoolConfig getConfig() {
+		return this.config;
+	}
+
+	/**
+	 * @return Connections currently open, borrowed or idle
+	 */
+	public int getOpenNum() {
+		return this.openCount.get();
+	}
+
+	public int getActiveNum() {
+		return this.borrowed.size();
+	}
+
+	public int getIdleNum() {
+		return this.idle.size();
+	}
+
+	/**
+	 * @return Threads waiting for a connection to come free
+	 */
+	public int getWaitingNum() {
+		return this.waitingCount.get();
+	}
+
+	public long getAcquireCount() {
+		return this.acquireCount.sum();
+	}
+
+	/**
+	 * @return The total time borrowers have spent waiting for a connection
+	 */
+	public long getWaitMillis() {
+		return TimeUnit.NANOSECONDS.toMillis(this.waitNanos.sum());
+	}
+
+	public long getTimeoutCount() {
+		return this.timeoutCount.sum();
+	}
+
+	public long getLeakCount() {
+		return this.leakCount.sum();
+	}
+
+	/*
+	 * Must be called holding a permit
+	 */
+	private PooledConnection takeIdleOrOpen() throws SQLException {
+		PooledConnection conn;
+		while ((conn = this.idle.pollFirst()) != null) {
+			long idleMillis = System.currentTimeMillis() - conn.lastReturnedMillis;
+			if (idleMillis < this.config.validationIntervalMillis() || this.isValid(conn)) {
+				return conn;
+			}
+			this.destroy(conn);
+		}
+
+		conn = new PooledConnection(this.factory.open());
+		this.openCount.incrementAndGet();
+		return conn;
+	}
+
+	private boolean isValid(PooledConnection conn) {
+		try {
+			String query = this.config.validationQuery();
+			if (query == null || query.isEmpty()) {
+				return conn.raw.isValid(VALIDATION_TIMEOUT_SECONDS);
+			}
+
+			try (Statement statement = conn.raw.createStatement()) {
+				statement.setQueryTimeout(VALIDATION_TIMEOUT_SECONDS);
+				statement.execute(query);
+			}
+			return true;
+		} catch (SQLException ex) {
+			return false;
+		}
+	}
+
+	private void release(PooledConnection conn) {
+		this.borrowed.remove(conn);
+		conn.borrowedBy = null;
+		conn.borrowedAt = null;
+
+		try {
+			// Don't hand the next borrower someone else's half-finished transaction
+			if (conn.raw.isClosed()) {
+				this.destroy(conn);
+			} else {
+				if (!conn.raw.getAutoCommit()) {
+					conn.raw.rollback();
+					conn.raw.setAutoCommit(true);
+				}
+
+				if (this.closed) {
+					this.destroy(conn);
+				} else {
+					conn.lastReturnedMillis = System.currentTimeMillis();
+					this.idle.offerFirst(conn);
+				}
+			}
+		} catch (SQLException ex) {
+			this.destroy(conn);
+		} finally {
+			this.permits.release();
+		}
+	}
+
+	private void destroy(PooledConnection conn) {
+		this.openCount.decrementAndGet();
+		try {
+			conn.raw.close();
+		} catch (SQLException ex) {
+			// Already gone
+		}
+	}
+
+	/**
+	 * Closes connections idle too long, tops the pool back up to its minimum and reports leaks
+	 */
+	private void maintain() {
+		long now = System.currentTimeMillis();
+
+		// The least recently returned connections are at the back of the deque
+		Iterator<PooledConnection> oldest = this.idle.descendingIterator();
+		while (oldest.hasNext() && this.openCount.get() > this.config.minSize()) {
+			PooledConnection conn = oldest.next();
+			if (now - conn.lastReturnedMillis > this.config.idleTimeoutMillis() && this.idle.remove(conn)) {
+				this.destroy(conn);
+			}
+		}
+
+		while (!this.closed && this.openCount.get() < this.config.minSize()) {
+			try {
+				PooledConnection conn = new PooledConnection(this.factory.open());
+				this.openCount.incrementAndGet();
+				this.idle.offerLast(conn);
+			} catch (SQLException ex) {
+				// The database is unreachable; try again next round
+				break;
+			}
+		}
+
+		for (PooledConnection conn : this.borrowed) {
+			String borrowedBy = conn.borrowedBy;
+			if (borrowedBy != null && !conn.leakReported
+					&& now - conn.borrowedMillis > this.config.leakThresholdMillis()) {
+				conn.leakReported = true;
+				this.leakCount.increment();
+
+				System.err.printf("WARNING: database connection held for %d ms by %s, possible leak%n",
+						now - conn.borrowedMillis, borrowedBy);
+				Throwable borrowedAt = conn.borrowedAt;
+				if (borrowedAt != null) {
+					borrowedAt.printStackTrace();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Wraps a pooled connection so that close() returns it to the pool, and so it can't be
+	 * used after it has been returned
+	 */
+	private Connection wrap(PooledConnection conn) {
+		InvocationHandler handler = new InvocationHandler() {
+			private boolean returned = false;
+
+			@Override
+			public synchronized Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+				switch (method.getName()) {
+					case "close":
+						if (!this.returned) {
+							this.returned = true;
+							ConnectionPool.this.release(conn);
+						}
+						return null;
+					case "isClosed":
+						return this.returned || conn.raw.isClosed();
+					case "equals":
+						return proxy == args[0];
+					case "hashCode":
+						return System.identityHashCode(proxy);
+					case "toString":
+						return "Pooled" + conn.raw.toString();
+					default:
+						if (this.returned) {
+							throw new SQLException("Connection has been returned to the pool");
+						}
+				}
+
+				try {
+					return method.invoke(conn.raw, args);
+				} catch (InvocationTargetException ex) {
+					throw ex.getCause();
+				}
+			}
+		};
+
+		return (Connection)Proxy.newProxyInstance(Connection.class.getClassLoader(),
+				new Class<?>[] { Connection.class }, handler);
+	}
+}
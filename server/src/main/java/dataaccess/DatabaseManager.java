@@ -2,6 +2,7 @@ package dataaccess;
 
 import java.sql.*;
 import java.util.Properties;
+import chess.search.SearchEngine;
 import util.Debugger;
 
 public class DatabaseManager {
@@ -9,6 +10,11 @@ public class DatabaseManager {
     private static String dbUsername;
     private static String dbPassword;
     private static String connectionUrl;
+    private static ConnectionPool.PoolConfig poolConfig;
+    private static SignedTokenAuthDAO.SigningConfig signingConfig;
+    private static SearchEngine.EngineConfig engineConfig;
+
+    private static ConnectionPool pool;
 
     /*
      * Load the database information for the db.properties file.
@@ -31,10 +37,11 @@ public class DatabaseManager {
     }
 
     /**
-     * Create a connection to the database and sets the catalog based upon the
-     * properties specified in db.properties. Connections to the database should
-     * be short-lived, and you must close the connection when you are done with it.
-     * The easiest way to do that is with a try-with-resource block.
+     * Borrows a connection to the database from the connection pool, with the catalog
+     * set based upon the properties specified in db.properties. Connections to the
+     * database should be short-lived, and you must close the connection when you are
+     * done with it, which returns it to the pool. The easiest way to do that is with a
+     * try-with-resource block.
      * <br/>
      * <code>
      * try (var conn = DatabaseManager.getConnection()) {
@@ -44,15 +51,55 @@ public class DatabaseManager {
      */
     static public Connection getConnection() throws DataAccessException {
         try {
-            var conn = DriverManager.getConnection(connectionUrl, dbUsername, dbPassword);
-            conn.setCatalog(databaseName);
-            return conn;
-        } catch (SQLException ex) {
-			String msg = String.format("Failed to get connection to %s", connectionUrl);
+            return getPool().borrow();
+        } catch (DataAccessException ex) {
+			String msg = String.format("Failed to get connection to %s: %s", connectionUrl, ex.getMessage());
             throw new DataAccessException(msg, ex);
         }
     }
 
+    /**
+     * @return The connection pool, created on first use and configured by the db.pool.*
+     * keys in db.properties
+     */
+    static public synchronized ConnectionPool getPool() {
+        if (pool == null) {
+            pool = new ConnectionPool(DatabaseManager::openConnection, poolConfig);
+        }
+        return pool;
+    }
+
+    /**
+     * Closes every pooled connection. The pool is recreated if a connection is needed again.
+     */
+    static public synchronized void closePool() {
+        if (pool != null) {
+            pool.close();
+            pool = null;
+        }
+    }
+
+    /**
+     * @return The auth.signing.* keys in db.properties, or null if auth tokens aren't signed
+     */
+    static public SignedTokenAuthDAO.SigningConfig getSigningConfig() {
+        return signingConfig;
+    }
+
+    /**
+     * @return The engine.* keys in db.properties, naming where the search engine loads
+     * its opening book and endgame tablebases from
+     */
+    static public SearchEngine.EngineConfig getEngineConfig() {
+        return engineConfig;
+    }
+
+    private static Connection openConnection() throws SQLException {
+        var conn = DriverManager.getConnection(connectionUrl, dbUsername, dbPassword);
+        conn.setCatalog(databaseName);
+        return conn;
+    }
+
     private static void loadPropertiesFromResources() {
         try (var propStream = Thread.currentThread().getContextClassLoader().getResourceAsStream("db.properties")) {
             if (propStream == null) {
@@ -74,5 +121,9 @@ public class DatabaseManager {
         var host = props.getProperty("db.host");
         var port = Integer.parseInt(props.getProperty("db.port"));
         connectionUrl = String.format("jdbc:mysql://%s:%d", host, port);
+
+        poolConfig = ConnectionPool.PoolConfig.fromProperties(props);
+        signingConfig = SignedTokenAuthDAO.SigningConfig.fromProperties(props);
+        engineConfig = SearchEngine.EngineConfig.fromProperties(props);
     }
 }
@@ -1,19 +1,75 @@
 package dataaccess;
 
 import model.GameData;
+import model.GameSummary;
 
 import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 
 /**
  * The interface for providing access to game data
  */
 public interface GameDAO {
+	/**
+	 * How many times modifyGame re-reads a game that keeps changing under it
+	 */
+	public static final int MAX_MODIFY_ATTEMPTS = 16;
+
+	/**
+	 * Computes a game's new data from its current data
+	 */
+	@FunctionalInterface
+	public static interface GameChange<E extends Exception> {
+		/**
+		 * @return The new data, or null to leave the game as it is
+		 */
+		public GameData apply(GameData current) throws E;
+	}
+
+	/**
+	 * Narrows a game listing. Each set field must hold for a game to be listed.
+	 *
+	 * @param openSeatsOnly Only games with a free seat
+	 * @param player Only games this user holds a seat in, or null for anyone's
+	 * @param activeOnly Only games that aren't finished
+	 */
+	public static record GameFilter(boolean openSeatsOnly, String player, boolean activeOnly) {
+		public static final GameFilter NONE = new GameFilter(false, null, false);
+
+		public boolean matches(GameSummary summary) {
+			return (!this.openSeatsOnly || summary.hasOpenSeat()) &&
+				(this.player == null || summary.isPlayer(this.player)) &&
+				(!this.activeOnly || summary.status() != GameSummary.Status.FINISHED);
+		}
+	}
+
 	/**
 	 * Will return a collection of all games in the database
 	 *
 	 * @return A Collection containing all data from games.
 	 */
-	public Collection<GameData> getAllGames() throws DataAccessException;	
+	public Collection<GameData> getAllGames() throws DataAccessException;
+
+	/**
+	 * Lists one page of games, without their boards, in gameID order. The next page
+	 * starts after the last gameID of this one.
+	 *
+	 * @param afterGameID Only games with a greater gameID are listed; 0 starts from the beginning
+	 * @param limit The most games to list
+	 * @param filter Which games to list
+	 *
+	 * @return Up to limit summaries, ordered by gameID
+	 */
+	public List<GameSummary> listGames(int afterGameID, int limit, GameFilter filter) throws DataAccessException;
+
+	/**
+	 * Finds the games whose clocks are running, without reading every board where the
+	 * store can avoid it. Finished games are left out.
+	 *
+	 * @return Each such game's gameID, mapped to when its clock runs out in epoch milliseconds
+	 */
+	public Map<Integer, Long> getClockDeadlines() throws DataAccessException;
 
 	/**
 	 * Creates a game with given data.
@@ -33,6 +89,51 @@ public interface GameDAO {
 	 * @return An object containing relevant info to JoinGame
 	 */
 	public void updateGame(String gameID, GameData newGameData) throws DataAccessException;
+
+	/**
+	 * Updates a game only if nobody has updated it since it was read.
+	 *
+	 * @param gameID The id of the game to update
+	 * @param expectedVersion The version the new data was derived from
+	 * @param newGameData The new data, carrying its new version, usually expectedVersion + 1
+	 *
+	 * @throws VersionConflictException if the game's version is no longer expectedVersion
+	 */
+	public void compareAndSetGame(String gameID, long expectedVersion, GameData newGameData)
+			throws DataAccessException, VersionConflictException;
+
+	/**
+	 * Reads a game, applies a change and writes it back with compareAndSetGame, starting
+	 * over from fresh data whenever another writer got there first.
+	 *
+	 * @param gameID The id of the game to update
+	 * @param change Computes the new data; it may run more than once
+	 *
+	 * @return The data written, or the current data if the change returned null
+	 *
+	 * @throws DataAccessException if the game doesn't exist or kept changing
+	 */
+	public default <E extends Exception> GameData modifyGame(String gameID, GameChange<E> change)
+			throws DataAccessException, E {
+		for (int attempt = 0; attempt < MAX_MODIFY_ATTEMPTS; attempt++) {
+			GameData current = this.getGame(gameID);
+			GameData changed = change.apply(current);
+			if (changed == null) {
+				return current;
+			}
+
+			changed = changed.withVersion(current.version() + 1);
+			try {
+				this.compareAndSetGame(gameID, current.version(), changed);
+				return changed;
+			} catch (VersionConflictException ex) {
+				continue;
+			}
+		}
+
+		throw new DataAccessException("Game " + gameID + " kept changing during the update");
+	}
+
 	/**
 	 * Gets a given game, given its id
 	 *
@@ -0,0 +1,81 @@
+package dataaccess;
+
+import model.AuthData;
+
+/**
+ * Passes everything through to another AuthDAO, and tells a listener once a token has
+ * been removed, so anything holding on to it, like an open WebSocket, can let it go.
+ */
+public class NotifyingAuthDAO implements AuthDAO {
+	//
+	// ================== STATIC ATTRIBUTES =====================
+	//
+
+	public static interface RemovalListener {
+		/**
+		 * Called once a token was removed, as by logging out or being revoked
+		 *
+		 * @param authToken The token
+		 */
+		void removed(String authToken);
+
+		/**
+		 * Called once every token was removed
+		 */
+		void cleared();
+	}
+
+	//
+	// ================== CONSTRUCTORS =====================
+	//
+
+	private final AuthDAO store;
+
+	private volatile RemovalListener listener = null;
+
+	public NotifyingAuthDAO(AuthDAO store) {
+		this.store = store;
+	}
+
+	//
+	// ================== MEMBER METHODS =====================
+	//
+
+	public void setRemovalListener(RemovalListener listener) {
+		this.listener = listener;
+	}
+
+	public String generateAuthToken(String username) {
+		return this.store.generateAuthToken(username);
+	}
+
+	public AuthData getAuth(String authToken) throws DataAccessException, AuthenticationException {
+		return this.store.getAuth(authToken);
+	}
+
+	public boolean authExists(String authToken) throws DataAccessException {
+		return this.store.authExists(authToken);
+	}
+
+	public void createAuth(AuthData authData) throws DataAccessException, AlreadyTakenException {
+		this.store.createAuth(authData);
+	}
+
+	public void removeAuth(AuthData authData) throws DataAccessException {
+		this.store.removeAuth(authData);
+
+		RemovalListener listener = this.listener;
+		if (listener != null) {
+			listener.removed(authData.authToken());
+		}
+	}
+
+	public void clearAllAuthData() throws DataAccessException {
+		this.store.clearAllAuthData();
+
+		RemovalListener listener = this.listener;
+		if (listener != null) {
+			listener.cleared();
+		}
+	}
+}
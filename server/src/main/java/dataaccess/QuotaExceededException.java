@@ -0,0 +1,13 @@
+package dataaccess;
+
+public class QuotaExceededException extends Exception {
+	private static final long serialVersionUID = 1L;
+
+	public QuotaExceededException(String msg) {
+		super(msg); 
+	}
+
+	public QuotaExceededException(String msg, Throwable th) {
+		super(msg, th);
+	}
+}
@@ -0,0 +1,296 @@
+package dataaccess;
+
+import java.nio.charset.StandardCharsets;
+import java.security.InvalidKeyException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import model.AuthData;
+
+/**
+ * Issues tokens that carry their own username and expiry, signed with a server key, so
+ * they are validated in memory instead of by the database.
+ *
+ * A signed token reads s1.[username].[issued].[expires].[signature], with the username
+ * and signature base64url encoded and the signature an HMAC-SHA256 of everything before
+ * it. Any server process holding the same key accepts it. Signed tokens are never
+ * written to the store.
+ *
+ * A token is only accepted with its signature written exactly as it was issued. Base64
+ * decoding tolerates padding and spare low bits, so a signature compared only after
+ * decoding would accept other spellings of the same token.
+ *
+ * Logging out adds the token to a revocation set until it would have expired anyway, so
+ * the set only holds tokens logged out within the last ttlMillis. The set is kept by this
+ * process alone; another process sharing the key accepts a logged out token until it
+ * expires. Clearing the data rejects every token issued before the clear.
+ *
+ * Tokens in any other format, such as ones issued before signing was turned on, are
+ * passed through to the store.
+ */
+public class SignedTokenAuthDAO implements AuthDAO {
+	//
+	// ================== STATIC ATTRIBUTES =====================
+	//
+
+	public static final long DEFAULT_TTL_MILLIS = 24L * 60 * 60 * 1000;
+	public static final int MIN_KEY_BYTES = 32;
+
+	private static final String PREFIX = "s1.";
+	private static final String ALGORITHM = "HmacSHA256";
+
+	private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+	private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+	/**
+	 * @param key The signing key, shared by every server process
+	 * @param ttlMillis How long a token is valid after it is issued
+	 */
+	public static record SigningConfig(byte[] key, long ttlMillis) {
+		public SigningConfig {
+			if (key == null || key.length < MIN_KEY_BYTES) {
+				throw new IllegalArgumentException("The signing key must be at least " + MIN_KEY_BYTES + " bytes");
+			}
+			if (ttlMillis <= 0) {
+				throw new IllegalArgumentException("Token lifetime must be positive");
+			}
+		}
+
+		/**
+		 * Reads auth.signing.key, base64 encoded, and auth.signing.ttlMillis
+		 *
+		 * @return The config, or null if no key is set and tokens aren't signed
+		 */
+		public static SigningConfig fromProperties(Properties props) {
+			String key = props.getProperty("auth.signing.key");
+			if (key == null || key.isBlank()) {
+				return null;
+			}
+			return new SigningConfig(
+					Base64.getDecoder().decode(key.trim()),
+					Long.parseLong(props.getProperty("auth.signing.ttlMillis", String.valueOf(DEFAULT_TTL_MILLIS))));
+		}
+	}
+
+	//
+	// ================== CONSTRUCTORS =====================
+	//
+
+	private final AuthDAO store;
+	private final SecretKeySpec key;
+	private final long ttlMillis;
+
+	/**
+	 * A Mac isn't thread safe, so every thread signs with its own
+	 */
+	private final ThreadLocal<Mac> macs;
+
+	/**
+	 * The signed part of each logged out token, with when it would have expired
+	 */
+	private final ConcurrentHashMap<String, Long> revoked = new ConcurrentHashMap<>();
+
+	/**
+	 * Tokens issued at or before this time were cleared
+	 */
+	private volatile long clearedMillis = 0;
+
+	private final LongAdder verifyCount = new LongAdder();
+	private final LongAdder verifyNanos = new LongAdder();
+	private final LongAdder rejectedCount = new LongAdder();
+
+	/**
+	 * @param store Where tokens in other formats are looked up
+	 * @param config The signing key and token lifetime
+	 */
+	public SignedTokenAuthDAO(AuthDAO store, SigningConfig config) {
+		this.store = store;
+		this.key = new SecretKeySpec(config.key(), ALGORITHM);
+		this.ttlMillis = config.ttlMillis();
+
+		this.macs = ThreadLocal.withInitial(this::newMac);
+		// Fail now, not on the first login, if the key can't be used
+		this.macs.get();
+	}
+
+	/**
+	 * @return How many signed tokens have been verified
+	 */
+	public long getVerifyCount() {
+		return this.verifyCount.sum();
+	}
+
+	/**
+	 * @return The total time spent verifying signed tokens
+	 */
+	public long getVerifyNanos() {
+		return this.verifyNanos.sum();
+	}
+
+	/**
+	 * @return How many signed tokens were rejected as forged, expired or revoked
+	 */
+	public long getRejectedCount() {
+		return this.rejectedCount.sum();
+	}
+
+	/**
+	 * @return How many logged out tokens are remembered
+	 */
+	public int getRevokedNum() {
+		return this.revoked.size();
+	}
+
+	//
+	// ================== DATA ACCESS =====================
+	//
+
+	public String generateAuthToken(String username) {
+		// A token issued in the same millisecond as a clear would be cleared with it
+		long issuedMillis = Math.max(System.currentTimeMillis(), this.clearedMillis + 1);
+		long expiresMillis = issuedMillis + this.ttlMillis;
+
+		String payload = PREFIX + ENCODER.encodeToString(username.getBytes(StandardCharsets.UTF_8)) + "." +
+			issuedMillis + "." + expiresMillis;
+		return payload + "." + ENCODER.encodeToString(this.sign(payload));
+	}
+
+	public AuthData getAuth(String authToken) throws DataAccessException, AuthenticationException {
+		if (!isSigned(authToken)) {
+			return this.store.getAuth(authToken);
+		}
+
+		AuthData auth = this.verify(authToken);
+		if (auth == null) {
+			throw new AuthenticationException("Auth token doesn't exist");
+		}
+		return auth;
+	}
+
+	public boolean authExists(String authToken) throws DataAccessException {
+		if (!isSigned(authToken)) {
+			return this.store.authExists(authToken);
+		}
+		return this.verify(authToken) != null;
+	}
+
+	public void createAuth(AuthData authData) throws DataAccessException, AlreadyTakenException {
+		if (!isSigned(authData.authToken())) {
+			this.store.createAuth(authData);
+		}
+	}
+
+	public void removeAuth(AuthData authData) throws DataAccessException {
+		String authToken = authData.authToken();
+		if (!isSigned(authToken)) {
+			this.store.removeAuth(authData);
+			return;
+		}
+
+		long now = System.currentTimeMillis();
+		this.revoked.values().removeIf(expiresMillis -> expiresMillis <= now);
+
+		// A forged or expired token isn't valid anyway, so it isn't worth remembering
+		if (this.parse(authToken) != null) {
+			this.revoked.put(signedPart(authToken), parseExpiry(authToken));
+		}
+	}
+
+	public void clearAllAuthData() throws DataAccessException {
+		this.clearedMillis = System.currentTimeMillis();
+		this.revoked.clear();
+
+		this.store.clearAllAuthData();
+	}
+
+	//
+	// ================== SIGNING =====================
+	//
+
+	private static boolean isSigned(String authToken) {
+		return authToken != null && authToken.startsWith(PREFIX);
+	}
+
+	/**
+	 * @return The token's data, or null if it is forged, expired or revoked
+	 */
+	private AuthData verify(String authToken) {
+		long startNanos = System.nanoTime();
+		try {
+			AuthData auth = this.parse(authToken);
+			if (auth == null) {
+				this.rejectedCount.increment();
+			}
+			return auth;
+		} finally {
+			this.verifyCount.increment();
+			this.verifyNanos.add(System.nanoTime() - startNanos);
+		}
+	}
+
+	private AuthData parse(String authToken) {
+		int signatureStart = authToken.lastIndexOf('.');
+		if (signatureStart < PREFIX.length()) {
+			return null;
+		}
+		String[] fields = authToken.substring(PREFIX.length(), signatureStart).split("\\.");
+		if (fields.length != 3) {
+			return null;
+		}
+
+		// The signature text must be exactly as issued, compared in constant time so the
+		// time taken gives away nothing about it
+		String payload = authToken.substring(0, signatureStart);
+		byte[] expected = ENCODER.encodeToString(this.sign(payload)).getBytes(StandardCharsets.US_ASCII);
+		byte[] signature = authToken.substring(signatureStart + 1).getBytes(StandardCharsets.US_ASCII);
+		if (!MessageDigest.isEqual(signature, expected)) {
+			return null;
+		}
+
+		// The fields are only trusted once the signature holds
+		long issuedMillis = Long.parseLong(fields[1]);
+		long expiresMillis = Long.parseLong(fields[2]);
+		if (expiresMillis <= System.currentTimeMillis() || issuedMillis <= this.clearedMillis ||
+			this.revoked.containsKey(payload)) {
+			return null;
+		}
+
+		String username = new String(DECODER.decode(fields[0]), StandardCharsets.UTF_8);
+		return new AuthData(authToken, username);
+	}
+
+	/**
+	 * @return Everything a token's signature covers
+	 */
+	private static String signedPart(String authToken) {
+		return authToken.substring(0, authToken.lastIndexOf('.'));
+	}
+
+	/**
+	 * @return When a verified token expires
+	 */
+	private static long parseExpiry(String authToken) {
+		return Long.parseLong(authToken.split("\\.")[3]);
+	}
+
+	private byte[] sign(String payload) {
+		return this.macs.get().doFinal(payload.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private Mac newMac() {
+		try {
+			Mac mac = Mac.getInstance(ALGORITHM);
+			mac.init(this.key);
+			return mac;
+		} catch (NoSuchAlgorithmException | InvalidKeyException ex) {
+			throw new IllegalStateException(ALGORITHM + " is unavailable", ex);
+		}
+	}
+}
@@ -0,0 +1,17 @@
+package dataaccess;
+
+/**
+ * Indicates a compare-and-set update lost to another writer, so the caller should
+ * re-read and try again
+ */
+public class VersionConflictException extends Exception {
+	private static final long serialVersionUID = 1L;
+
+	public VersionConflictException(String msg) {
+		super(msg);
+	}
+
+	public VersionConflictException(String msg, Throwable th) {
+		super(msg, th);
+	}
+}
@@ -1,12 +1,17 @@
 package dataaccess.memorydao;
 
 import java.util.Collection;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 import chess.ChessGame;
 import dataaccess.GameDAO;
 import dataaccess.DataAccessException;
+import dataaccess.VersionConflictException;
 import model.GameData;
+import model.GameSummary;
 
 public class MemoryGameDAO implements GameDAO {
 	//
@@ -29,6 +34,27 @@ public class MemoryGameDAO implements GameDAO {
 		return this.db.values();
 	}
 
+	public List<GameSummary> listGames(int afterGameID, int limit, GameFilter filter) throws DataAccessException {
+		return this.db.values().stream()
+			.filter(data -> data.getGameID() > afterGameID)
+			.map(GameSummary::of)
+			.filter(filter::matches)
+			.sorted(Comparator.comparingInt(GameSummary::getGameID))
+			.limit(limit)
+			.toList();
+	}
+
+	public Map<Integer, Long> getClockDeadlines() throws DataAccessException {
+		Map<Integer, Long> deadlines = new HashMap<>();
+		for (GameData data : this.db.values()) {
+			long deadline = data.getClockDeadline();
+			if (deadline != Long.MAX_VALUE && GameSummary.statusOf(data) != GameSummary.Status.FINISHED) {
+				deadlines.put(data.getGameID(), deadline);
+			}
+		}
+		return deadlines;
+	}
+
 	private String getNextGameID() {
 		this.nextOpenID++;
 		return String.valueOf(this.nextOpenID - 1);
@@ -51,6 +77,16 @@ public class MemoryGameDAO implements GameDAO {
 		GameData data = this.getGame(gameID);	
 		this.removeGame(data);
 
+		this.db.put(gameID, newGameData.withVersion(data.version() + 1));
+	}
+
+	public void compareAndSetGame(String gameID, long expectedVersion, GameData newGameData)
+			throws DataAccessException, VersionConflictException {
+		GameData data = this.getGame(gameID);
+		if (data.version() != expectedVersion) {
+			throw new VersionConflictException("Game was updated by someone else");
+		}
+
 		this.db.put(gameID, newGameData);
 	}
 
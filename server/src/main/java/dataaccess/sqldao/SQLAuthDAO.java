@@ -95,16 +95,15 @@ public class SQLAuthDAO extends SQLDatabaseDAO implements AuthDAO {
 	 * @return The requested AuthData object
 	 */
 	public AuthData getAuth(String authToken) throws DataAccessException, AuthenticationException {
-		if (!this.authExists(authToken)) {
-			throw new AuthenticationException("Auth token doesn't exist");
-		}
-
 		ArrayList<AuthData> authData = this.executeQuery(
 												DB_SELECT_AUTH_STATEMENT,
 												rs -> this.readAuth(rs),
 												authToken);
 
-		// There should only ever be one user with a given authToken
+		// authToken is the primary key, so there is at most one match
+		if (authData.isEmpty()) {
+			throw new AuthenticationException("Auth token doesn't exist");
+		}
 		return authData.get(0);
 	}
 
@@ -114,10 +113,8 @@ public class SQLAuthDAO extends SQLDatabaseDAO implements AuthDAO {
 	 * @param authData The AuthData to store
 	 */
 	public void createAuth(AuthData authData) throws DataAccessException, AlreadyTakenException {
-		if (this.authExists(authData.authToken())) {
-			throw new AlreadyTakenException("Auth Token already exists");
-		}
-		this.executeUpdate(DB_INSERT_AUTH_STATEMENT,
+		this.executeInsert(DB_INSERT_AUTH_STATEMENT,
+				"Auth Token already exists",
 				authData.authToken(),
 				authData.username());
 	}
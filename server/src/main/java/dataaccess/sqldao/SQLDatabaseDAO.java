@@ -1,5 +1,6 @@
 package dataaccess.sqldao;
 
+import dataaccess.AlreadyTakenException;
 import dataaccess.DataAccessException;
 import util.Debugger;
 import chess.ChessPiece;
@@ -14,6 +15,11 @@ import java.util.ArrayList;
 import com.google.gson.*;
 
 public abstract class SQLDatabaseDAO {
+	/**
+	 * MySQL's error code for an insert that collides with an existing primary or unique key
+	 */
+	private static final int MYSQL_DUPLICATE_KEY_ERROR = 1062;
+
 	//
 	// =========================== CONSTRUCTORS =========================== 
 	// 
@@ -146,31 +152,111 @@ public abstract class SQLDatabaseDAO {
 		}
 	}
 
+	/*
+	 * Receives each row of a streamed query as it is read.
+	 */
+	@FunctionalInterface
+	public interface RowConsumer<T> {
+		void accept(T row) throws Exception;
+	}
+
+	/**
+	 * Will execute a SQL query and hand each row to a consumer as it arrives, instead of
+	 * collecting every row in memory. Use for scans over entire tables.
+	 *
+	 * @param statement The SQL statement
+	 * @param mapper The function that maps the output of the ResultSet to a given object
+	 * @param consumer The function receiving each mapped row
+	 */
+	protected <T> void streamQuery(final String statement, RowMapper<T> mapper, RowConsumer<T> consumer) throws DataAccessException {
+		try (Connection conn = DatabaseManager.getConnection()) {
+			try (PreparedStatement ps = conn.prepareStatement(statement,
+						ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+				// Tells the MySQL driver to stream rows instead of buffering the whole result
+				ps.setFetchSize(Integer.MIN_VALUE);
+
+				try (ResultSet rs = ps.executeQuery()) {
+					while (rs.next()) {
+						consumer.accept(mapper.mapRow(rs));
+					}
+				}
+			}
+		} catch (Exception ex) {
+			throw new DataAccessException(ex.getMessage());
+		}
+	}
+
 	/**
 	 * Will take a SQL statement and a set of object parameters and will format the statement and 
 	 * submit it to the SQL database. 
 	 *
 	 * @param statement The SQL statement
 	 * @params params Arbitrary objects to pass into the statement. Recognized data tyes include
-	 * Strings, Integers, and ChessGames
+	 * Strings, Integers, Longs, ChessGames, and null for SQL NULL
 	 *
-	 * @return int status code
+	 * @return The generated key of the affected row, or 0 if there isn't one
 	 */
 	protected int executeUpdate(final String statement, Object... params) throws DataAccessException {
+		try {
+			return this.runUpdate(statement, params);
+		} catch (Exception ex) {
+			throw new DataAccessException(ex.getMessage());
+		}
+	}
+
+	/**
+	 * Like executeUpdate, but for inserts that rely on a primary or unique key to reject
+	 * duplicates, so no existence check is needed beforehand.
+	 *
+	 * @param statement The SQL INSERT statement
+	 * @param duplicateMsg The message of the exception thrown on a duplicate key
+	 * @param params Arbitrary objects to pass into the statement
+	 *
+	 * @return The generated key of the inserted row, or 0 if there isn't one
+	 *
+	 * @throws AlreadyTakenException if a row with the same key already exists
+	 */
+	protected int executeInsert(final String statement, String duplicateMsg, Object... params)
+			throws DataAccessException, AlreadyTakenException {
+		try {
+			return this.runUpdate(statement, params);
+		} catch (SQLException ex) {
+			if (ex.getErrorCode() == MYSQL_DUPLICATE_KEY_ERROR) {
+				throw new AlreadyTakenException(duplicateMsg, ex);
+			}
+			throw new DataAccessException(ex.getMessage());
+		} catch (Exception ex) {
+			throw new DataAccessException(ex.getMessage());
+		}
+	}
+
+	/**
+	 * Like executeUpdate, but reports how many rows the statement matched, so a
+	 * conditional UPDATE can tell whether its condition held.
+	 *
+	 * @param statement The SQL statement
+	 * @param params Arbitrary objects to pass into the statement
+	 *
+	 * @return The number of rows matched
+	 */
+	protected int executeUpdateCount(final String statement, Object... params) throws DataAccessException {
+		try (Connection conn = DatabaseManager.getConnection()) {
+			try (PreparedStatement ps = conn.prepareStatement(statement)) {
+				this.setUpdateParams(ps, params);
+				return ps.executeUpdate();
+			}
+		} catch (Exception ex) {
+			throw new DataAccessException(ex.getMessage());
+		}
+	}
+
+	private int runUpdate(final String statement, Object... params) throws SQLException, DataAccessException {
 		try (Connection conn = DatabaseManager.getConnection()) {
 			if (conn == null) {
 				throw new DataAccessException("Connection failed");
 			}
 			try (PreparedStatement ps = conn.prepareStatement(statement, RETURN_GENERATED_KEYS)) {
-				for (int i = 0; i < params.length; i++) {
-					Object param = params[i];
-					switch (param) {
-						case String s -> ps.setString(i + 1, s);
-						case Integer n -> ps.setInt(i + 1, n);
-						case ChessGame g -> ps.setString(i + 1, new Gson().toJson(g));
-						default -> throwUnsupportedDBType(param.getClass());
-					}
-				}
+				this.setUpdateParams(ps, params);
 				ps.executeUpdate();
 
 				try (ResultSet rs = ps.getGeneratedKeys()) {
@@ -181,8 +267,20 @@ public abstract class SQLDatabaseDAO {
 
 				return 0;
 			}
-		} catch (Exception ex) {
-			throw new DataAccessException(ex.getMessage());
+		}
+	}
+
+	private void setUpdateParams(PreparedStatement ps, Object... params) throws SQLException, DataAccessException {
+		for (int i = 0; i < params.length; i++) {
+			Object param = params[i];
+			switch (param) {
+				case String s -> ps.setString(i + 1, s);
+				case Integer n -> ps.setInt(i + 1, n);
+				case Long n -> ps.setLong(i + 1, n);
+				case ChessGame g -> ps.setString(i + 1, new Gson().toJson(g));
+				case null -> ps.setNull(i + 1, Types.NULL);
+				default -> throwUnsupportedDBType(param.getClass());
+			}
 		}
 	}
 }
@@ -3,11 +3,16 @@ package dataaccess.sqldao;
 import java.sql.*;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 import chess.ChessGame;
 import dataaccess.DataAccessException;
 import dataaccess.GameDAO;
+import dataaccess.VersionConflictException;
 import model.GameData;
+import model.GameSummary;
 import util.Debugger;
 
 public class SQLGameDAO extends SQLDatabaseDAO implements GameDAO {
@@ -24,9 +29,13 @@ public class SQLGameDAO extends SQLDatabaseDAO implements GameDAO {
 				`blackUsername` varchar(256) NOT NULL,
 				`gameName` varchar(256) NOT NULL,
 				`game` LONGTEXT NOT NULL,
+				`version` bigint NOT NULL DEFAULT 0,
+				`status` varchar(16) NOT NULL DEFAULT 'OPEN',
+				`deadline` bigint NULL DEFAULT NULL,
 				PRIMARY KEY (`gameID`),
 				INDEX(whiteUsername),
-				INDEX(blackUsername)
+				INDEX(blackUsername),
+				INDEX(deadline)
 				) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci
 			""", DB_NAME);
 
@@ -43,11 +52,62 @@ public class SQLGameDAO extends SQLDatabaseDAO implements GameDAO {
 			SELECT * FROM %s
 			""", DB_NAME);
 
+	// Never selects the game column, so listing costs the same however big the boards get.
+	// Filters and the page size are appended by listGames.
+	private static final String DB_LIST_GAMES_STATEMENT = String.format("""
+			SELECT gameID, whiteUsername, blackUsername, gameName, status FROM %s WHERE gameID > ?
+			""", DB_NAME);
+
+	// Reads the running clocks from the deadline column alone, so no board is deserialized
+	private static final String DB_SELECT_DEADLINES_STATEMENT = String.format("""
+			SELECT gameID, deadline FROM %s WHERE deadline IS NOT NULL AND status <> 'FINISHED'
+			""", DB_NAME);
+
 	private static final String DB_UPDATE_GAME_STATEMENT = String.format("""
 			UPDATE %s SET whiteUsername = ?,
 			blackUsername = ?,
 			gameName = ?,
-			game = ? WHERE gameID=?
+			game = ?,
+			status = ?,
+			deadline = ?,
+			version = version + 1 WHERE gameID=?
+			""", DB_NAME);
+
+	private static final String DB_CAS_GAME_STATEMENT = String.format("""
+			UPDATE %s SET whiteUsername = ?,
+			blackUsername = ?,
+			gameName = ?,
+			game = ?,
+			status = ?,
+			deadline = ?,
+			version = ? WHERE gameID=? AND version=?
+			""", DB_NAME);
+
+	// Tables created before games were versioned or summarized need the columns added
+	private static final String DB_CHECK_COLUMN_STATEMENT = """
+			SELECT 1 FROM information_schema.COLUMNS
+			WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? AND COLUMN_NAME = ?
+			""";
+
+	private static final String DB_ADD_VERSION_STATEMENT = String.format("""
+			ALTER TABLE %s ADD COLUMN `version` bigint NOT NULL DEFAULT 0
+			""", DB_NAME);
+
+	private static final String DB_ADD_STATUS_STATEMENT = String.format("""
+			ALTER TABLE %s ADD COLUMN `status` varchar(16) NOT NULL DEFAULT 'OPEN'
+			""", DB_NAME);
+
+	private static final String DB_ADD_DEADLINE_STATEMENT = String.format("""
+			ALTER TABLE %s ADD COLUMN `deadline` bigint NULL DEFAULT NULL, ADD INDEX(deadline)
+			""", DB_NAME);
+
+	private static final String DB_FILL_DEADLINE_STATEMENT = String.format("""
+			UPDATE %s SET deadline = ? WHERE gameID = ?
+			""", DB_NAME);
+
+	// Finished games can only be told apart by their boards, so those are caught on their next write
+	private static final String DB_FILL_STATUS_STATEMENT = String.format("""
+			UPDATE %s SET status = 'PLAYING' WHERE whiteUsername <> '' AND blackUsername <> ''
 			""", DB_NAME);
 
 	private static final String DB_CLEAR_DATA_STATEMENT = String.format("""
@@ -64,6 +124,43 @@ public class SQLGameDAO extends SQLDatabaseDAO implements GameDAO {
 	
 	public SQLGameDAO() throws DataAccessException {
 		super(DB_INIT_STATEMENT);
+
+		if (!this.checkExists(DB_CHECK_COLUMN_STATEMENT, DB_NAME, "version")) {
+			this.executeStatement(DB_ADD_VERSION_STATEMENT);
+		}
+		if (!this.checkExists(DB_CHECK_COLUMN_STATEMENT, DB_NAME, "status")) {
+			this.executeStatement(DB_ADD_STATUS_STATEMENT);
+			this.executeStatement(DB_FILL_STATUS_STATEMENT);
+		}
+		if (!this.checkExists(DB_CHECK_COLUMN_STATEMENT, DB_NAME, "deadline")) {
+			this.executeStatement(DB_ADD_DEADLINE_STATEMENT);
+			this.fillDeadlines();
+		}
+	}
+
+	/**
+	 * Reads each board once to fill in the deadline column of a table that predates it
+	 */
+	private void fillDeadlines() throws DataAccessException {
+		Map<Integer, Long> deadlines = new HashMap<>();
+		this.forEachGame(gameData -> {
+			Long deadline = deadlineOf(gameData);
+			if (deadline != null) {
+				deadlines.put(gameData.getGameID(), deadline);
+			}
+		});
+
+		for (Map.Entry<Integer, Long> entry : deadlines.entrySet()) {
+			this.executeUpdate(DB_FILL_DEADLINE_STATEMENT, entry.getValue(), entry.getKey());
+		}
+	}
+
+	/**
+	 * @return The value of a game's deadline column, which is NULL unless its clock is running
+	 */
+	private static Long deadlineOf(GameData gameData) {
+		long deadline = gameData.getClockDeadline();
+		return deadline == Long.MAX_VALUE ? null : deadline;
 	}
 
 	//
@@ -85,8 +182,21 @@ public class SQLGameDAO extends SQLDatabaseDAO implements GameDAO {
 		String gameName = rs.getString("gameName");
 		String gameJson = rs.getString("game");
 		ChessGame game = this.gson.fromJson(gameJson, ChessGame.class);
+		long version = rs.getLong("version");
+
+		return new GameData(gameID, whiteUsername, blackUsername, gameName, game, version);
+	}
 
-		return new GameData(gameID, whiteUsername, blackUsername, gameName, game);
+	/**
+	 * Reads a row of DB_LIST_GAMES_STATEMENT into a GameSummary
+	 */
+	private GameSummary readSummary(ResultSet rs) throws SQLException {
+		return new GameSummary(
+				rs.getString("gameID"),
+				GameSummary.seat(rs.getString("whiteUsername")),
+				GameSummary.seat(rs.getString("blackUsername")),
+				rs.getString("gameName"),
+				GameSummary.Status.valueOf(rs.getString("status")));
 	}
 
 	/**
@@ -101,8 +211,9 @@ public class SQLGameDAO extends SQLDatabaseDAO implements GameDAO {
 														rs -> this.readGame(rs),
 														gameID);
 
-		if (games.size() != 1) {
-			throw new DataAccessException("More than one game with given gameID!");
+		// gameID is the primary key, so there is at most one match
+		if (games.isEmpty()) {
+			throw new DataAccessException("Game doesn't exist");
 		}
 
 		return games.get(0);
@@ -130,6 +241,63 @@ public class SQLGameDAO extends SQLDatabaseDAO implements GameDAO {
 									rs -> this.readGame(rs));
 	}
 
+	/**
+	 * Lists one page of games in gameID order. The cursor is the primary key, so the page
+	 * is found with an index seek rather than by skipping earlier rows.
+	 *
+	 * @param afterGameID Only games with a greater gameID are listed
+	 * @param limit The most games to list
+	 * @param filter Which games to list
+	 *
+	 * @return Up to limit summaries, ordered by gameID
+	 */
+	public List<GameSummary> listGames(int afterGameID, int limit, GameFilter filter) throws DataAccessException {
+		StringBuilder statement = new StringBuilder(DB_LIST_GAMES_STATEMENT);
+		List<Object> params = new ArrayList<>();
+		params.add(afterGameID);
+
+		if (filter.openSeatsOnly()) {
+			statement.append(" AND (whiteUsername = '' OR blackUsername = '')");
+		}
+		if (filter.player() != null) {
+			statement.append(" AND (whiteUsername = ? OR blackUsername = ?)");
+			params.add(filter.player());
+			params.add(filter.player());
+		}
+		if (filter.activeOnly()) {
+			statement.append(" AND status <> 'FINISHED'");
+		}
+
+		statement.append(" ORDER BY gameID LIMIT ?");
+		params.add(limit);
+
+		return this.executeQuery(statement.toString(), rs -> this.readSummary(rs), params.toArray());
+	}
+
+	/**
+	 * Streams every game in the database to a consumer, one row at a time, without
+	 * loading the whole table into memory.
+	 *
+	 * @param consumer Receives each game
+	 */
+	public void forEachGame(RowConsumer<GameData> consumer) throws DataAccessException {
+		this.streamQuery(DB_SELECT_ALL_GAMES_STATEMENT, rs -> this.readGame(rs), consumer);
+	}
+
+	/**
+	 * Finds the running clocks of unfinished games from the deadline column
+	 *
+	 * @return Each such game's gameID, mapped to when its clock runs out in epoch milliseconds
+	 */
+	public Map<Integer, Long> getClockDeadlines() throws DataAccessException {
+		Map<Integer, Long> deadlines = new HashMap<>();
+		for (Map.Entry<Integer, Long> entry : this.executeQuery(DB_SELECT_DEADLINES_STATEMENT,
+				rs -> Map.entry(rs.getInt("gameID"), rs.getLong("deadline")))) {
+			deadlines.put(entry.getKey(), entry.getValue());
+		}
+		return deadlines;
+	}
+
 	/**
 	 * Takes a game name and will create a new, empty game with a new gameID.
 	 *
@@ -138,15 +306,19 @@ public class SQLGameDAO extends SQLDatabaseDAO implements GameDAO {
 	 * @param The GameData of the new game
 	 */
 	public GameData createGame(String gameName) throws DataAccessException {
+		ChessGame game = new ChessGame();
 		int gameID = this.executeUpdate(DB_INSERT_GAME_STATEMENT,
 						"",
 						"",
 						gameName,
-						this.gson.toJson(new ChessGame())
+						this.gson.toJson(game)
 						);
+		if (gameID == 0) {
+			throw new DataAccessException("No gameID was generated for the new game");
+		}
 
-		GameData outData = this.getGame(gameID);
-		return outData;
+		// The row holds exactly what was inserted, so there's no need to read it back
+		return new GameData(String.valueOf(gameID), "", "", gameName, game);
 	}
 
 	/**
@@ -166,9 +338,38 @@ public class SQLGameDAO extends SQLDatabaseDAO implements GameDAO {
 				blackUsername,
 				gameName,
 				gameJSON,
+				GameSummary.statusOf(newGameData).name(),
+				deadlineOf(newGameData),
 				Integer.parseInt(gameID));  // WHERE clause
 	}
 
+	/**
+	 * Will update the entry of a game with new data, if its version is still the expected one.
+	 *
+	 * @param gameID The id of the game to update
+	 * @param expectedVersion The version the new data was derived from
+	 * @param newGameData The updated game data, carrying its new version
+	 */
+	public void compareAndSetGame(String gameID, long expectedVersion, GameData newGameData)
+			throws DataAccessException, VersionConflictException {
+		int rowNum = this.executeUpdateCount(DB_CAS_GAME_STATEMENT,
+				newGameData.whiteUsername(),
+				newGameData.blackUsername(),
+				newGameData.gameName(),
+				this.gson.toJson(newGameData.game()),
+				GameSummary.statusOf(newGameData).name(),
+				deadlineOf(newGameData),
+				newGameData.version(),
+				Integer.parseInt(gameID),  // WHERE clause
+				expectedVersion);
+
+		if (rowNum == 0) {
+			// Throws if the game doesn't exist at all
+			this.getGame(gameID);
+			throw new VersionConflictException("Game was updated by someone else");
+		}
+	}
+
 
 	/**
 	 * Clears all game data from the database.
@@ -92,12 +92,11 @@ public class SQLUserDAO extends SQLDatabaseDAO implements UserDAO {
 	 * @return The requested UserData object
 	 */
 	public UserData getUser(String username) throws DataAccessException, AuthenticationException {
-		if (!this.checkUser(username)) {
-			throw new AuthenticationException("User does not exist!");
-		}
-
 		ArrayList<UserData> users = this.executeQuery(DB_SELECT_USER_STATEMENT, rs -> this.readUser(rs), username);
 
+		if (users.isEmpty()) {
+			throw new AuthenticationException("User does not exist!");
+		}
 		return users.get(0);
 	}
 
@@ -130,10 +129,8 @@ public class SQLUserDAO extends SQLDatabaseDAO implements UserDAO {
 	 * @param userData The UserData object to store
 	 */
 	public void createUser(UserData userData) throws AlreadyTakenException, DataAccessException {
-		if (this.checkUser(userData.username())) {
-			throw new AlreadyTakenException("Username already taken");
-		}
-		this.executeUpdate(DB_INSERT_USER_STATEMENT,
+		this.executeInsert(DB_INSERT_USER_STATEMENT,
+					"Username already taken",
 					userData.username(),
 					userData.password(),
 					userData.email());
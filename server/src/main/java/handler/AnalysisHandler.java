@@ -0,0 +1,208 @@
+package handler;
+
+import service.AnalysisService;
+import service.AnalysisService.AnalysisJob;
+import service.AnalysisService.AnalysisRequest;
+import service.AnalysisService.AnalysisResult;
+
+import service.HintService;
+import service.HintService.HintRequest;
+import service.HintService.HintResult;
+
+import dataaccess.*;
+import io.javalin.http.Context;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+
+public class AnalysisHandler extends Handler {
+
+	//
+	// =============================== CONSTRUCTORS ============================
+	//
+
+	private AnalysisService analysisService;
+	private HintService hintService;
+
+	public AnalysisHandler(AnalysisService analysisService, HintService hintService) {
+		this.analysisService = analysisService;
+		this.hintService = hintService;
+	}
+
+	//
+	// ================================ MEMBER METHODS ==========================
+	//
+
+	/**
+	 * Takes a HTTP request to analyze a game and hands it to the AnalysisService.
+	 * The search runs off the request thread; the response is written once it finishes.
+	 *
+	 * Query parameters: gameID, and optionally depth, time (milliseconds) and nodes.
+	 *
+	 * @param ctx The javalin HTTP context
+	 *
+	 * @return True if the analysis was started, false otherwise
+	 */
+	public boolean analysisRequest(Context ctx) {
+		String authToken = ctx.header(HTTP_HEADER_AUTH);
+
+		ctx.contentType("application/json");
+
+		AnalysisRequest request;
+		try {
+			request = new AnalysisRequest(
+					authToken,
+					ctx.queryParam("gameID"),
+					parseOptional(ctx.queryParam("depth"), Integer::valueOf),
+					parseOptional(ctx.queryParam("time"), Long::valueOf),
+					parseOptional(ctx.queryParam("nodes"), Long::valueOf));
+		} catch (NumberFormatException ex) {
+			request = null;
+		}
+		if (request == null || request.gameID() == null) {
+			ctx.status(HTTP_CODE_ERROR);
+			ctx.result(this.errorHTTPMsg);
+			return false;
+		}
+
+		AnalysisJob job;
+		try {
+			job = this.analysisService.submit(request, pv -> { });
+		} catch (AuthenticationException ex) {
+			ctx.status(HTTP_CODE_UNAUTH);
+			ctx.result(this.unauthorizedHTTPMsg);
+			return false;
+		} catch (QuotaExceededException ex) {
+			ctx.status(HTTP_CODE_TOO_MANY);
+			ctx.result(this.tooManyHTTPMsg);
+			return false;
+		} catch (IllegalArgumentException ex) {
+			ctx.status(HTTP_CODE_ERROR);
+			ctx.result(this.errorHTTPMsg);
+			return false;
+		} catch (DataAccessException ex) {
+			ctx.status(HTTP_CODE_NO_EXIST);
+			ctx.result(this.noExistHTTPMsg);
+			return false;
+		}
+
+		ctx.future(() -> {
+			cancelWhenRequestEnds(ctx, job);
+
+			CompletableFuture<Void> response = job.result().handle((pv, ex) -> {
+				if (ex != null) {
+					ctx.status(HTTP_CODE_INT_ERROR);
+					ctx.result(this.intErrorHTTPMsg);
+				} else {
+					ctx.status(HTTP_CODE_OK);
+					ctx.result(toJson(new AnalysisResult(pv)));
+				}
+				return null;
+			});
+
+			// Javalin cancels the response future when the request times out
+			response.whenComplete((ignored, ex) -> {
+				if (ex instanceof CancellationException) {
+					job.cancel();
+				}
+			});
+			return response;
+		});
+		return true;
+	}
+
+	/**
+	 * Stops an analysis once its request is over, whether answered, timed out or dropped by
+	 * a client that hung up, so it doesn't keep searching and holding its user's permit
+	 */
+	private static void cancelWhenRequestEnds(Context ctx, AnalysisJob job) {
+		if (!ctx.req().isAsyncStarted()) {
+			return;
+		}
+
+		ctx.req().getAsyncContext().addListener(new AsyncListener() {
+			@Override
+			public void onComplete(AsyncEvent event) {
+				job.cancel();
+			}
+
+			@Override
+			public void onTimeout(AsyncEvent event) {
+				job.cancel();
+			}
+
+			@Override
+			public void onError(AsyncEvent event) {
+				job.cancel();
+			}
+
+			@Override
+			public void onStartAsync(AsyncEvent event) {
+			}
+		});
+	}
+
+	/**
+	 * Takes a HTTP request for move hints and hands it to the HintService.
+	 * Cached hints are answered at once; otherwise the response is written once the
+	 * search finishes, off the request thread.
+	 *
+	 * Query parameters: gameID, and optionally count and depth.
+	 *
+	 * @param ctx The javalin HTTP context
+	 *
+	 * @return True if the hints were found or are being searched for, false otherwise
+	 */
+	public boolean hintRequest(Context ctx) {
+		String authToken = ctx.header(HTTP_HEADER_AUTH);
+
+		ctx.contentType("application/json");
+
+		HintRequest request;
+		try {
+			request = new HintRequest(
+					authToken,
+					ctx.queryParam("gameID"),
+					parseOptional(ctx.queryParam("count"), Integer::valueOf),
+					parseOptional(ctx.queryParam("depth"), Integer::valueOf));
+		} catch (NumberFormatException ex) {
+			request = null;
+		}
+		if (request == null || request.gameID() == null) {
+			ctx.status(HTTP_CODE_ERROR);
+			ctx.result(this.errorHTTPMsg);
+			return false;
+		}
+
+		CompletableFuture<HintResult> result;
+		try {
+			result = this.hintService.getHints(request);
+		} catch (AuthenticationException ex) {
+			ctx.status(HTTP_CODE_UNAUTH);
+			ctx.result(this.unauthorizedHTTPMsg);
+			return false;
+		} catch (IllegalArgumentException ex) {
+			ctx.status(HTTP_CODE_ERROR);
+			ctx.result(this.errorHTTPMsg);
+			return false;
+		} catch (DataAccessException ex) {
+			ctx.status(HTTP_CODE_NO_EXIST);
+			ctx.result(this.noExistHTTPMsg);
+			return false;
+		}
+
+		ctx.future(() -> result.handle((hints, ex) -> {
+			if (ex != null) {
+				ctx.status(HTTP_CODE_INT_ERROR);
+				ctx.result(this.intErrorHTTPMsg);
+			} else {
+				ctx.status(HTTP_CODE_OK);
+				ctx.result(toJson(hints));
+			}
+			return null;
+		}));
+		return true;
+	}
+}
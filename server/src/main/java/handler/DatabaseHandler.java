@@ -3,6 +3,7 @@ package handler;
 import service.ClearDataService;
 import service.ClearDataService.ClearDataRequest;
 import service.ClearDataService.ClearDataResult;
+import service.LobbyCache;
 
 import com.google.gson.Gson;
 
@@ -26,9 +27,10 @@ public class DatabaseHandler extends Handler {
 	 * @param authDAO The data access object for the authentication data
 	 * @param gameDAO The data access object for the game data
 	 * @param userDAO The data access object for the user data
+	 * @param lobbyCache The cached game listings, invalidated by a clear
 	 */
-	public DatabaseHandler(AuthDAO authDAO, GameDAO gameDAO, UserDAO userDAO) {
-		this.clearDataService = new ClearDataService(authDAO, gameDAO, userDAO);
+	public DatabaseHandler(AuthDAO authDAO, GameDAO gameDAO, UserDAO userDAO, LobbyCache lobbyCache) {
+		this.clearDataService = new ClearDataService(authDAO, gameDAO, userDAO, lobbyCache);
 	}
 
 	//
@@ -10,16 +10,14 @@ import service.JoinGameService.JoinGameResult;
 
 import service.ListGameService;
 import service.ListGameService.ListGameRequest;
-// import service.ListGameService.GameData;
-import model.GameData;
-import service.ListGameService.ListGameResult;
+
+import service.LobbyCache;
+import service.LobbyCache.LobbySnapshot;
 
 import dataaccess.DataAccessException;
 
 import dataaccess.*;
 import io.javalin.http.Context;
-import java.util.Collection;
-import java.util.HashSet;
 
 public class GamesHandler extends Handler {
 
@@ -31,10 +29,13 @@ public class GamesHandler extends Handler {
 	private JoinGameService joinGameService;
 	private ListGameService listGameService;
 
-	public GamesHandler(AuthDAO authDAO, GameDAO gameDAO) {
-		this.createGameService = new CreateGameService(authDAO, gameDAO);
-		this.joinGameService = new JoinGameService(authDAO, gameDAO);
-		this.listGameService = new ListGameService(authDAO, gameDAO);
+	/**
+	 * @param lobbyCache The cached game listings, shared by every service that changes them
+	 */
+	public GamesHandler(AuthDAO authDAO, GameDAO gameDAO, LobbyCache lobbyCache) {
+		this.createGameService = new CreateGameService(authDAO, gameDAO, lobbyCache);
+		this.joinGameService = new JoinGameService(authDAO, gameDAO, lobbyCache);
+		this.listGameService = new ListGameService(authDAO, gameDAO, lobbyCache);
 	}
 
 	//
@@ -67,7 +68,11 @@ public class GamesHandler extends Handler {
 		try {
 			result = this.createGameService.createGame(request);
 		}
-		catch (AuthenticationException ex) {
+		catch (IllegalArgumentException ex) {
+			ctx.status(HTTP_CODE_ERROR);
+			ctx.result(this.errorHTTPMsg);
+			return false;
+		} catch (AuthenticationException ex) {
 			ctx.status(HTTP_CODE_UNAUTH);
 			ctx.result(this.unauthorizedHTTPMsg);
 			return false;
@@ -126,59 +131,49 @@ public class GamesHandler extends Handler {
 		return true;
 	}
 
-	/** Takes a listGameResult and replaces all empty strings with null.
-	 *
-	 * @param result
-	 */
-	private ListGameResult formatGames(ListGameResult result) {
-		Collection<GameData> newGames = new HashSet<>();
-
-		if (result.games() == null) {
-			return result;
-		}
-
-		for (GameData game : result.games()) {
-			String blackUsername = game.blackUsername();
-			String whiteUsername = game.whiteUsername();
-
-			if (blackUsername == null || blackUsername.isEmpty()) {
-				blackUsername = null;				
-			}
-			if (whiteUsername == null || whiteUsername.isEmpty()) {
-				whiteUsername = null;
-			}
-
-			GameData newGame;
-			if (whiteUsername == null || blackUsername == null) {
-				newGame = new GameData(game.gameID(), whiteUsername, blackUsername, game.gameName(), game.game());
-			} else {
-				newGame = game;
-			}
-
-			newGames.add(newGame);
-		}
-
-		return new ListGameResult(newGames);	
-	}
-
 	/**
 	 * Takes a HTTP json request and translates it into a format that the 
 	 * ListGamesService can understand. Makes the request and puts the response 
 	 * in a Javalin context result.
 	 *
+	 * Query parameters, all optional: cursor, limit, open (only games with a free seat),
+	 * player (only games this user is playing) and active (only unfinished games).
+	 *
+	 * Listings are served from the LobbyCache. A client sending the ETag it last got in
+	 * If-None-Match gets a 304 with no body if nothing changed, and a client accepting gzip
+	 * gets the body compressed ahead of time.
+	 *
 	 * @param ctx Javalin HTTP context
 	 *
 	 * @return True if listGame request successfull, false otherwise
 	 */
 	public boolean listGameRequest(Context ctx) {
 		String authToken = ctx.header(HTTP_HEADER_AUTH);
-		ListGameRequest request = new ListGameRequest(authToken);
 
 		ctx.contentType("application/json");
 
-		ListGameResult result;
+		ListGameRequest request;
+		try {
+			request = new ListGameRequest(
+					authToken,
+					ctx.queryParam("cursor"),
+					parseOptional(ctx.queryParam("limit"), Integer::valueOf),
+					parseOptional(ctx.queryParam("open"), Boolean::valueOf),
+					parseOptional(ctx.queryParam("player"), player -> player),
+					parseOptional(ctx.queryParam("active"), Boolean::valueOf));
+		} catch (NumberFormatException ex) {
+			ctx.status(HTTP_CODE_ERROR);
+			ctx.result(this.errorHTTPMsg);
+			return false;
+		}
+
+		LobbySnapshot snapshot;
 		try {
-			result = this.listGameService.listGames(request);
+			snapshot = this.listGameService.listGamesSnapshot(request);
+		} catch (IllegalArgumentException ex) {
+			ctx.status(HTTP_CODE_ERROR);
+			ctx.result(this.errorHTTPMsg);
+			return false;
 		} catch (AuthenticationException ex) {
 			ctx.status(HTTP_CODE_UNAUTH);
 			ctx.result(this.unauthorizedHTTPMsg);
@@ -189,10 +184,26 @@ public class GamesHandler extends Handler {
 			return false;
 		}
 
+		ctx.header(HTTP_HEADER_ETAG, snapshot.etag());
+		ctx.header(HTTP_HEADER_CACHE_CONTROL, "no-cache");
+		ctx.header(HTTP_HEADER_VARY, HTTP_HEADER_ACCEPT_ENCODING);
+
+		if (snapshot.matches(ctx.header(HTTP_HEADER_IF_NONE_MATCH))) {
+			ctx.status(HTTP_CODE_NOT_MODIFIED);
+			return true;
+		}
+
 		ctx.status(HTTP_CODE_OK);
-		result = formatGames(result);
 
-		ctx.result(toJson(result));
+		String acceptEncoding = ctx.header(HTTP_HEADER_ACCEPT_ENCODING);
+		if (acceptEncoding != null && acceptEncoding.contains("gzip")) {
+			// Already compressed, so Javalin mustn't compress it again
+			ctx.disableCompression();
+			ctx.header(HTTP_HEADER_CONTENT_ENCODING, "gzip");
+			ctx.result(snapshot.gzip());
+		} else {
+			ctx.result(snapshot.json());
+		}
 		return true;
 	}
 }
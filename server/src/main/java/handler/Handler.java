@@ -1,7 +1,9 @@
 package handler;
 
 import util.Debugger;
+import service.OptionalField;
 import java.util.Map;
+import java.util.function.Function;
 import java.lang.reflect.Field;
 
 import com.google.gson.Gson;
@@ -23,16 +25,24 @@ public abstract class Handler {
 	//
 	
 	protected static final String HTTP_HEADER_AUTH = "Authorization";
+	protected static final String HTTP_HEADER_ETAG = "ETag";
+	protected static final String HTTP_HEADER_IF_NONE_MATCH = "If-None-Match";
+	protected static final String HTTP_HEADER_CACHE_CONTROL = "Cache-Control";
+	protected static final String HTTP_HEADER_VARY = "Vary";
+	protected static final String HTTP_HEADER_ACCEPT_ENCODING = "Accept-Encoding";
+	protected static final String HTTP_HEADER_CONTENT_ENCODING = "Content-Encoding";
 	
 	//
 	// ====================== HTTP CODE DEFINITIONS ===========================
 	//
 
 	protected static final int HTTP_CODE_OK = 200;
+	protected static final int HTTP_CODE_NOT_MODIFIED = 304;
 	protected static final int HTTP_CODE_ERROR = 400;
 	protected static final int HTTP_CODE_UNAUTH = 401;
 	protected static final int HTTP_CODE_TAKEN = 403;
 	protected static final int HTTP_CODE_NO_EXIST = 404;
+	protected static final int HTTP_CODE_TOO_MANY = 429;
 	protected static final int HTTP_CODE_INT_ERROR = 500;
 
 	//
@@ -52,6 +62,7 @@ public abstract class Handler {
 	protected final String unauthorizedHTTPMsg = toJson(Map.of(MSG_REPLY_TOKEN, "Error: unauthorized"));
 	protected final String takenHTTPMsg = toJson(Map.of(MSG_REPLY_TOKEN, "Error: Already taken"));
 	protected final String noExistHTTPMsg = toJson(Map.of(MSG_REPLY_TOKEN, "Error: Requested resource doesn't exist"));
+	protected final String tooManyHTTPMsg = toJson(Map.of(MSG_REPLY_TOKEN, "Error: Too many requests"));
 	protected final String intErrorHTTPMsg = toJson(Map.of(MSG_REPLY_TOKEN, "Error: Internal error"));
 	
 	//
@@ -114,6 +125,10 @@ public abstract class Handler {
 		// Iterate through each public attribute and make sure it is not null
 		Field[] attributes = requestClass.getDeclaredFields();
 		for (Field field : attributes) {
+			if (field.isAnnotationPresent(OptionalField.class)) {
+				continue;
+			}
+
 			field.setAccessible(true);
             try {
                 Object value = field.get(request); 
@@ -130,4 +145,16 @@ public abstract class Handler {
 		// all is good, return the request
 		return request;
 	}
+
+	/**
+	 * Parses an optional query parameter
+	 *
+	 * @param value The raw parameter, possibly null or empty
+	 * @param parser Converts the raw parameter, throwing if it is malformed
+	 *
+	 * @return The parsed value, or null if the parameter wasn't given
+	 */
+	protected static <T> T parseOptional(String value, Function<String, T> parser) {
+		return value == null || value.isEmpty() ? null : parser.apply(value);
+	}
 }
@@ -0,0 +1,154 @@
+package handler;
+
+import service.MatchmakingService;
+import service.MatchmakingService.MatchRequest;
+import service.MatchmakingService.MatchResult;
+
+import dataaccess.*;
+import io.javalin.http.Context;
+
+public class MatchHandler extends Handler {
+
+	//
+	// =============================== CONSTRUCTORS ============================
+	//
+
+	private MatchmakingService matchmakingService;
+
+	public MatchHandler(MatchmakingService matchmakingService) {
+		this.matchmakingService = matchmakingService;
+	}
+
+	//
+	// ================================ MEMBER METHODS ==========================
+	//
+
+	/**
+	 * Takes a HTTP request to be matched with an opponent and hands it to the
+	 * MatchmakingService. The body may give a rating; an empty body uses the default.
+	 *
+	 * The response holds the gameID and playerColor if an opponent was found right away,
+	 * and is empty if the user is waiting; they then poll with matchPollRequest. A user
+	 * being seated in a match at that moment gets a 403.
+	 *
+	 * @param ctx The javalin HTTP context
+	 *
+	 * @return True if the user was queued or matched, false otherwise
+	 */
+	public boolean matchRequest(Context ctx) {
+		String authToken = ctx.header(HTTP_HEADER_AUTH);
+		String body = ctx.body().isBlank() ? "{}" : ctx.body();
+
+		MatchRequest request;
+		try {
+			request = extractJsonRequest(this.addAuthTokenJsonProperty(body, authToken), MatchRequest.class);
+		} catch (RuntimeException ex) {
+			request = null;
+		}
+		if (request == null) {
+			ctx.status(HTTP_CODE_ERROR);
+			ctx.result(this.errorHTTPMsg);
+			return false;
+		}
+
+		ctx.contentType("application/json");
+
+		MatchResult result;
+		try {
+			result = this.matchmakingService.enqueue(request);
+		} catch (AuthenticationException ex) {
+			ctx.status(HTTP_CODE_UNAUTH);
+			ctx.result(this.unauthorizedHTTPMsg);
+			return false;
+		} catch (IllegalArgumentException ex) {
+			ctx.status(HTTP_CODE_ERROR);
+			ctx.result(this.errorHTTPMsg);
+			return false;
+		} catch (AlreadyTakenException ex) {
+			ctx.status(HTTP_CODE_TAKEN);
+			ctx.result(this.takenHTTPMsg);
+			return false;
+		} catch (DataAccessException ex) {
+			ctx.status(HTTP_CODE_INT_ERROR);
+			ctx.result(this.intErrorHTTPMsg);
+			return false;
+		}
+
+		ctx.status(HTTP_CODE_OK);
+		ctx.result(toJson(result));
+		return true;
+	}
+
+	/**
+	 * Tells a queued user whether they have been matched yet, in the same form as
+	 * matchRequest. A user who isn't queued, or has already been told, gets a 404.
+	 *
+	 * @param ctx The javalin HTTP context
+	 *
+	 * @return True if the user is queued or was matched, false otherwise
+	 */
+	public boolean matchPollRequest(Context ctx) {
+		String authToken = ctx.header(HTTP_HEADER_AUTH);
+
+		ctx.contentType("application/json");
+
+		MatchResult result;
+		try {
+			result = this.matchmakingService.poll(authToken);
+		} catch (AuthenticationException ex) {
+			ctx.status(HTTP_CODE_UNAUTH);
+			ctx.result(this.unauthorizedHTTPMsg);
+			return false;
+		} catch (DataAccessException ex) {
+			ctx.status(HTTP_CODE_INT_ERROR);
+			ctx.result(this.intErrorHTTPMsg);
+			return false;
+		}
+
+		if (result == null) {
+			ctx.status(HTTP_CODE_NO_EXIST);
+			ctx.result(this.noExistHTTPMsg);
+			return false;
+		}
+
+		ctx.status(HTTP_CODE_OK);
+		ctx.result(toJson(result));
+		return true;
+	}
+
+	/**
+	 * Takes a queued user out of the matchmaking queue. A user who wasn't waiting gets a 404.
+	 *
+	 * @param ctx The javalin HTTP context
+	 *
+	 * @return True if the user was taken out of the queue, false otherwise
+	 */
+	public boolean cancelMatchRequest(Context ctx) {
+		String authToken = ctx.header(HTTP_HEADER_AUTH);
+
+		ctx.contentType("application/json");
+
+		boolean cancelled;
+		try {
+			cancelled = this.matchmakingService.cancel(authToken);
+		} catch (AuthenticationException ex) {
+			ctx.status(HTTP_CODE_UNAUTH);
+			ctx.result(this.unauthorizedHTTPMsg);
+			return false;
+		} catch (DataAccessException ex) {
+			ctx.status(HTTP_CODE_INT_ERROR);
+			ctx.result(this.intErrorHTTPMsg);
+			return false;
+		}
+
+		if (!cancelled) {
+			ctx.status(HTTP_CODE_NO_EXIST);
+			ctx.result(this.noExistHTTPMsg);
+			return false;
+		}
+
+		ctx.status(HTTP_CODE_OK);
+		ctx.result(this.successHTTPMsg);
+		return true;
+	}
+}
@@ -0,0 +1,36 @@
+package handler;
+
+import server.metrics.MetricsRegistry;
+
+import io.javalin.http.Context;
+
+public class MetricsHandler extends Handler {
+
+	//
+	// =============================== CONSTRUCTORS ============================
+	//
+
+	private MetricsRegistry metrics;
+
+	public MetricsHandler(MetricsRegistry metrics) {
+		this.metrics = metrics;
+	}
+
+	//
+	// ================================ MEMBER METHODS ==========================
+	//
+
+	/**
+	 * Writes a snapshot of the server metrics as a JSON object of name to value.
+	 *
+	 * @param ctx The javalin HTTP context
+	 *
+	 * @return True
+	 */
+	public boolean metricsRequest(Context ctx) {
+		ctx.contentType("application/json");
+		ctx.status(HTTP_CODE_OK);
+		ctx.result(toJson(this.metrics.snapshot()));
+		return true;
+	}
+}
@@ -0,0 +1,66 @@
+package server;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+import chess.book.OpeningBookBuilder;
+import dataaccess.DataAccessException;
+import dataaccess.sqldao.SQLGameDAO;
+
+/**
+ * Builds the opening book file.
+ *
+ * Usage: BookBuilderMain <book file> [pgn file...]
+ *
+ * With no PGN files, every finished game stored in the SQL database is used.
+ */
+public class BookBuilderMain {
+	private static final int MIN_GAMES = 2;
+
+	public static void main(String[] args) throws IOException, DataAccessException {
+		if (args.length < 1) {
+			System.out.println("Usage: BookBuilderMain <book file> [pgn file...]");
+			return;
+		}
+
+		Path bookFile = Path.of(args[0]);
+		Path workDir = Files.createTempDirectory("book");
+		OpeningBookBuilder builder = new OpeningBookBuilder(workDir);
+
+		try {
+			if (args.length == 1) {
+				new SQLGameDAO().forEachGame(gameData -> builder.addGame(gameData.game()));
+			}
+
+			for (int i = 1; i < args.length; i++) {
+				try (Reader reader = Files.newBufferedReader(Path.of(args[i]))) {
+					builder.addPgn(reader);
+				}
+			}
+
+			long records = builder.write(bookFile, MIN_GAMES);
+			System.out.println(String.format("%d games, %d book moves written to %s",
+						builder.getGameCount(), records, bookFile));
+		} finally {
+			deleteWorkDir(workDir);
+		}
+	}
+
+	/**
+	 * Deletes the working directory and any run files left in it. A failure is only
+	 * reported, so it never hides an error from building the book.
+	 */
+	private static void deleteWorkDir(Path workDir) {
+		try (Stream<Path> files = Files.walk(workDir)) {
+			for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+				Files.deleteIfExists(file);
+			}
+		} catch (IOException ex) {
+			System.err.println(String.format("Couldn't delete %s: %s", workDir, ex.getMessage()));
+		}
+	}
+}
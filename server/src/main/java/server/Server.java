@@ -1,11 +1,23 @@
 package server;
 
 import io.javalin.*;
+import java.io.IOException;
+import server.websocket.GameSequencer;
+import server.websocket.OutboundQueues;
+import server.websocket.SpectatorStreams;
+import server.websocket.TimingWheel;
 import server.websocket.WebSocketHandler;
 import dataaccess.*;
 import dataaccess.memorydao.*;
 import dataaccess.sqldao.*;
 import handler.*;
+import chess.search.SearchEngine;
+import service.AnalysisService;
+import service.BotService;
+import service.HintService;
+import service.LobbyCache;
+import service.MatchmakingService;
+import server.metrics.MetricsRegistry;
 
 public class Server {
 
@@ -15,8 +27,8 @@ public class Server {
 	// ================= DATABASE ACCESS INTERFACES ============ 
 	//
 	
-	private final AuthDAO authDAO;
-	private final GameDAO gameDAO;
+	private final NotifyingAuthDAO authDAO;
+	private final ActiveGameRegistry gameDAO;
 	private final UserDAO userDAO;
 
 	//
@@ -27,7 +39,24 @@ public class Server {
 	private final GamesHandler gamesHandler;
 	private final LoginCtlHandler loginCtlHandler;
 	private final UserAccountHandler accountHandler;
+	private final AnalysisHandler analysisHandler;
+	private final MetricsHandler metricsHandler;
+	private final MatchHandler matchHandler;
 
+	private final MetricsRegistry metrics = new MetricsRegistry();
+
+	private final LobbyCache lobbyCache;
+
+	private final SearchEngine searchEngine;
+	private final AnalysisService analysisService;
+	private final HintService hintService;
+	private final BotService botService;
+	private final MatchmakingService matchmakingService;
+
+	private final GameSequencer gameSequencer;
+	private final OutboundQueues outboundQueues;
+	private final SpectatorStreams spectatorStreams;
+	private final TimingWheel clockWheel;
 	private final WebSocketHandler wsHandler;
 
 	//
@@ -46,16 +75,40 @@ public class Server {
 		} catch (DataAccessException ex) {
 			throw new RuntimeException("Database failed to load: " + ex.getMessage(), ex);
 		}
+		this.metrics.registerPool("db.pool", DatabaseManager.getPool());
 
+		// Tokens are checked on every request, so they're answered from memory
+		CachingAuthDAO authCache;
 		try {
-			this.authDAO = new SQLAuthDAO();
+			authCache = new CachingAuthDAO(new SQLAuthDAO());
 		} catch (DataAccessException ex) {
 			String msg = String.format("AuthDAO failed to load the database...: %s", ex.getMessage());
 			throw new RuntimeException(msg);
 		}
 
+		this.metrics.registerCache("auth.cache", authCache.getTokenCache());
+		this.metrics.registerCache("auth.negativeCache", authCache.getUnknownTokenCache());
+
+		// With a signing key, new tokens are verified by their signature instead of looked up
+		SignedTokenAuthDAO.SigningConfig signingConfig = DatabaseManager.getSigningConfig();
+		AuthDAO tokenDAO;
+		if (signingConfig != null) {
+			SignedTokenAuthDAO signedAuth = new SignedTokenAuthDAO(authCache, signingConfig);
+			this.metrics.gauge("auth.signed.verifications", signedAuth::getVerifyCount);
+			this.metrics.gauge("auth.signed.verifyNanos", signedAuth::getVerifyNanos);
+			this.metrics.gauge("auth.signed.rejected", signedAuth::getRejectedCount);
+			this.metrics.gauge("auth.signed.revoked", signedAuth::getRevokedNum);
+			tokenDAO = signedAuth;
+		} else {
+			tokenDAO = authCache;
+		}
+
+		// WebSockets are closed once the token they connected with is removed
+		this.authDAO = new NotifyingAuthDAO(tokenDAO);
+
+		// Games being played are served from memory and written back in the background
 		try {
-			this.gameDAO = new SQLGameDAO();
+			this.gameDAO = new ActiveGameRegistry(new SQLGameDAO());
 		} catch (DataAccessException ex) {
 			String msg = String.format("GameDAO failed to load the database...: %s", ex.getMessage());
 			throw new RuntimeException(msg);
@@ -69,33 +122,87 @@ public class Server {
 			throw new RuntimeException(msg);
 		}
 
+		this.metrics.gauge("games.active", this.gameDAO::getActiveNum);
+		this.metrics.gauge("games.pendingWrites", this.gameDAO::getPendingNum);
+		this.metrics.gauge("games.writes", this.gameDAO::getWriteCount);
+		this.metrics.gauge("games.coalescedWrites", this.gameDAO::getCoalescedCount);
+		this.metrics.gauge("games.failedWrites", this.gameDAO::getFailureCount);
+		this.metrics.gauge("games.conflicts", this.gameDAO::getConflictCount);
+
+		// Lobby listings are cached until a game is created, joined, left or finished
+		this.lobbyCache = new LobbyCache(this.metrics);
+
 		// Request handler initialization
-		this.databaseHandler = new DatabaseHandler(authDAO, gameDAO, userDAO);
-		this.gamesHandler = new GamesHandler(authDAO, gameDAO);
+		this.databaseHandler = new DatabaseHandler(authDAO, gameDAO, userDAO, this.lobbyCache);
+		this.gamesHandler = new GamesHandler(authDAO, gameDAO, this.lobbyCache);
 		this.loginCtlHandler = new LoginCtlHandler(authDAO, userDAO);
 		this.accountHandler = new UserAccountHandler(this.authDAO, this.userDAO);
+
+		// Bots, analysis and hints search with one engine, and the book and tablebases it loads
+		try {
+			this.searchEngine = SearchEngine.open(DatabaseManager.getEngineConfig());
+		} catch (IOException ex) {
+			String msg = String.format("SearchEngine failed to load its book or tablebases...: %s", ex.getMessage());
+			throw new RuntimeException(msg);
+		}
+
+		// Engine analysis is shared by the HTTP and WebSocket endpoints so they share its limits
+		this.analysisService = new AnalysisService(this.authDAO, this.gameDAO, this.searchEngine,
+				AnalysisService.DEFAULT_MAX_CONCURRENT, AnalysisService.DEFAULT_QUEUE_SIZE,
+				AnalysisService.DEFAULT_USER_QUOTA, this.metrics);
+		this.hintService = new HintService(this.authDAO, this.gameDAO, this.searchEngine,
+				HintService.DEFAULT_MAX_CONCURRENT, HintService.DEFAULT_CACHE_BYTES, this.metrics);
+		this.analysisHandler = new AnalysisHandler(this.analysisService, this.hintService);
+		this.metricsHandler = new MetricsHandler(this.metrics);
+
+		// Bots think on their own threads, separate from analysis
+		this.botService = new BotService(this.gameDAO, this.searchEngine, BotService.DEFAULT_THREADS);
+
+		// Players waiting for an opponent, paired over HTTP or WebSocket alike
+		this.matchmakingService = new MatchmakingService(this.authDAO, this.gameDAO, this.lobbyCache,
+				MatchmakingService.MatchConfig.DEFAULT, this.metrics);
+		this.matchHandler = new MatchHandler(this.matchmakingService);
 		
 		// POST endpoints
 		javalin.post("/user", this.accountHandler::registerRequest);
 		javalin.post("/session", this.loginCtlHandler::loginRequest);
 		javalin.post("/game", this.gamesHandler::createGameRequest);
+		javalin.post("/match", this.matchHandler::matchRequest);
 
 		// GET endpoints
 		javalin.get("/game", this.gamesHandler::listGameRequest);
+		javalin.get("/analysis", this.analysisHandler::analysisRequest);
+		javalin.get("/hint", this.analysisHandler::hintRequest);
+		javalin.get("/metrics", this.metricsHandler::metricsRequest);
+		javalin.get("/match", this.matchHandler::matchPollRequest);
 		
 		// DELETE endpoints
 		javalin.delete("/session", this.loginCtlHandler::logoutRequest);
 		javalin.delete("/db", this.databaseHandler::clearDataRequest);
+		javalin.delete("/match", this.matchHandler::cancelMatchRequest);
 
 		// PUT endpoints
 		javalin.put("/game", this.gamesHandler::joinGameRequest);
 
 		// WebSocket handling
-		wsHandler = new WebSocketHandler(authDAO, userDAO, gameDAO);
+		this.gameSequencer = new GameSequencer(this.metrics);
+		// Each session is sent to from its own queue, so a slow spectator can't stall a move
+		this.outboundQueues = new OutboundQueues(this.metrics);
+		// Observers of large games are sent boards at a bounded rate instead of every move
+		this.spectatorStreams = new SpectatorStreams(this.metrics);
+		// Every running chess clock shares one timer thread
+		this.clockWheel = new TimingWheel(this.metrics);
+		wsHandler = new WebSocketHandler(authDAO, userDAO, gameDAO, this.analysisService, this.botService,
+				this.gameSequencer, this.lobbyCache, this.outboundQueues, this.spectatorStreams, this.clockWheel,
+				this.matchmakingService);
+		this.authDAO.setRemovalListener(wsHandler);
+		// Clocks left running by the last run still run out, whether or not anyone reconnects
+		wsHandler.resumeClocks();
 
 		javalin.ws("/ws", ws -> {
 			ws.onConnect(wsHandler);
 			ws.onMessage(wsHandler);
+			ws.onBinaryMessage(wsHandler);
 			ws.onClose(wsHandler);
 		});
     }
@@ -107,5 +214,15 @@ public class Server {
 
     public void stop() {
         javalin.stop();
+		this.analysisService.shutdown();
+		this.hintService.shutdown();
+		this.botService.shutdown();
+		this.matchmakingService.shutdown();
+		this.gameSequencer.shutdown();
+		this.outboundQueues.shutdown();
+		this.spectatorStreams.shutdown();
+		this.clockWheel.shutdown();
+		this.gameDAO.shutdown();
+		DatabaseManager.closePool();
     }
 }
@@ -0,0 +1,82 @@
+package server.metrics;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+import dataaccess.ConnectionPool;
+import util.LruCache;
+
+/**
+ * Named counters and gauges describing the running server, served at GET /metrics.
+ *
+ * Counters are incremented by the code being measured. Gauges are read only when a
+ * snapshot is taken, so they cost nothing in between.
+ */
+public class MetricsRegistry {
+	//
+	// ============================ MEMBER ATTRIBUTES =======================
+	//
+
+	private final ConcurrentHashMap<String, LongAdder> counters = new ConcurrentHashMap<>();
+	private final ConcurrentHashMap<String, LongSupplier> gauges = new ConcurrentHashMap<>();
+
+	//
+	// ============================ MEMBER METHODS =======================
+	//
+
+	/**
+	 * @return The counter with the given name, created at zero if it doesn't exist yet
+	 */
+	public LongAdder counter(String name) {
+		return this.counters.computeIfAbsent(name, k -> new LongAdder());
+	}
+
+	/**
+	 * Registers a value to be read at snapshot time, replacing any gauge of the same name
+	 */
+	public void gauge(String name, LongSupplier value) {
+		this.gauges.put(name, value);
+	}
+
+	/**
+	 * Registers the size and hit rate gauges of a cache under a common prefix
+	 */
+	public void registerCache(String prefix, LruCache<?, ?> cache) {
+		this.gauge(prefix + ".hits", cache::getHitCount);
+		this.gauge(prefix + ".misses", cache::getMissCount);
+		this.gauge(prefix + ".evictions", cache::getEvictionCount);
+		this.gauge(prefix + ".entries", cache::size);
+		this.gauge(prefix + ".bytes", cache::getBytes);
+		this.gauge(prefix + ".maxBytes", cache::getMaxBytes);
+	}
+
+	/**
+	 * Registers the size, wait time and failure gauges of a connection pool under a common prefix
+	 */
+	public void registerPool(String prefix, ConnectionPool pool) {
+		this.gauge(prefix + ".open", pool::getOpenNum);
+		this.gauge(prefix + ".active", pool::getActiveNum);
+		this.gauge(prefix + ".idle", pool::getIdleNum);
+		this.gauge(prefix + ".maxSize", () -> pool.getConfig().maxSize());
+		this.gauge(prefix + ".waiting", pool::getWaitingNum);
+		this.gauge(prefix + ".acquires", pool::getAcquireCount);
+		this.gauge(prefix + ".waitMillis", pool::getWaitMillis);
+		this.gauge(prefix + ".timeouts", pool::getTimeoutCount);
+		this.gauge(prefix + ".leaks", pool::getLeakCount);
+	}
+
+	/**
+	 * @return Every counter and gauge, sorted by name
+	 */
+	public Map<String, Long> snapshot() {
+		TreeMap<String, Long> values = new TreeMap<>();
+
+		this.counters.forEach((name, counter) -> values.put(name, counter.sum()));
+		this.gauges.forEach((name, gauge) -> values.put(name, gauge.getAsLong()));
+
+		return values;
+	}
+}
@@ -2,21 +2,74 @@ package server.websocket;
 
 import org.eclipse.jetty.websocket.api.Session;
 
+import dataaccess.ActiveGameRegistry;
+import model.GameData;
 import util.Debugger;
+import websocket.BinaryFrame;
+import websocket.messages.MoveAppliedMessage;
+import websocket.messages.RedrawBoardMessage;
 import websocket.messages.ServerMessage;
+import websocket.messages.ServerMessage.ServerMessageType;
 
-import java.io.IOException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 import java.util.Map;
 
 public class ConnectionsManager {
+	/**
+	 * How a session is told about moves
+	 */
+	public static enum MoveFormat {
+		/**
+		 * The whole board, as a LOAD_GAME
+		 */
+		BOARD,
+		/**
+		 * Just the move, as a MOVE_APPLIED
+		 */
+		JSON,
+		/**
+		 * Just the move, as a binary MOVE_APPLIED frame
+		 */
+		BINARY
+	}
+
+	/**
+	 * A game's board, serialized as a LOAD_GAME
+	 *
+	 * @param version The version of the game's data it was taken from, which changes with
+	 * every move, resignation, flag fall and clock stop
+	 */
+	private static record Snapshot(long version, String payload) {}
+
+	/**
+	 * A game's event log as it was when the game's last session left
+	 */
+	private static record IdleLog(int gameID, GameEventLog log, long idleSinceMillis) {}
+
 	public class Connection {
-		private ConcurrentHashMap<Session, Session> sessions;
+		/**
+		 * Each session, and how it asked to be told about moves
+		 */
+		private ConcurrentHashMap<Session, MoveFormat> sessions;
+
+		/**
+		 * The sessions watching the game rather than playing in it
+		 */
+		private Set<Session> observers;
 		private boolean active;
+
+		/**
+		 * The board sent to joining sessions, or null until someone needs it
+		 */
+		private volatile Snapshot snapshot;
 		
 		public Connection() {
 			this.sessions = new ConcurrentHashMap<>();
+			this.observers = ConcurrentHashMap.newKeySet();
 			this.active = true;
 		}
 
@@ -28,29 +81,107 @@ public class ConnectionsManager {
 			this.active = false;
 		}
 
-		public void addSession(Session session) {
-			this.sessions.put(session, session);
+		public void addSession(Session session, MoveFormat format, boolean observer) {
+			this.sessions.put(session, format);
+			if (observer) {
+				this.observers.add(session);
+			} else {
+				this.observers.remove(session);
+			}
 		}
 
 		public void removeSession(Session session) {
 			this.sessions.remove(session);
+			this.observers.remove(session);
+		}
+
+		public boolean isObserver(Session session) {
+			return this.observers.contains(session);
+		}
+
+		public Set<Session> getObservers() {
+			return this.observers;
+		}
+
+		public int getObserverNum() {
+			return this.observers.size();
 		}
 
 		public boolean contains(Session session) {
-			return this.sessions.contains(session);
+			return this.sessions.containsKey(session);
 		}
 
-		public ConcurrentHashMap<Session, Session> getSessions() {
+		public ConcurrentHashMap<Session, MoveFormat> getSessions() {
 			return this.sessions;
 		}
 
 		public boolean isEmpty() {
 			return this.sessions.isEmpty();
-		}	
+		}
+
+		private Snapshot getSnapshot() {
+			return this.snapshot;
+		}
+
+		private void setSnapshot(Snapshot snapshot) {
+			this.snapshot = snapshot;
+		}
 	}
 
 	public final ConcurrentHashMap<Integer, Connection> connections = new ConcurrentHashMap<>();
 
+	/**
+	 * The games each session is connected to, so closing it only visits those
+	 */
+	private final ConcurrentHashMap<Session, Set<Integer>> sessionGames = new ConcurrentHashMap<>();
+
+	/**
+	 * The recent events of each game, kept for a while after everyone leaves so a client
+	 * whose connection dropped can resume
+	 */
+	private final ConcurrentHashMap<Integer, GameEventLog> eventLogs = new ConcurrentHashMap<>();
+	private final long eventRetentionMillis;
+
+	/**
+	 * The logs of games everyone left, oldest first. Every log is kept for the same time,
+	 * so they expire in this order too.
+	 */
+	private final ConcurrentLinkedQueue<IdleLog> idleLogs = new ConcurrentLinkedQueue<>();
+
+	public static final long DEFAULT_EVENT_RETENTION_MILLIS = 5 * 60_000;
+
+	/**
+	 * Games stay pinned in memory while they have a connection
+	 */
+	private final ActiveGameRegistry activeGames;
+
+	/**
+	 * Every message goes out through here, so no send waits on a client's network
+	 */
+	private final OutboundQueues outbound;
+
+	/**
+	 * Sends the observers of large games their boards at a bounded rate
+	 */
+	private final SpectatorStreams spectators;
+
+	public ConnectionsManager(ActiveGameRegistry activeGames, OutboundQueues outbound, SpectatorStreams spectators) {
+		this(activeGames, outbound, spectators, DEFAULT_EVENT_RETENTION_MILLIS);
+	}
+
+	/**
+	 * @param eventRetentionMillis How long a game's events are kept once nobody is connected
+	 */
+	public ConnectionsManager(ActiveGameRegistry activeGames, OutboundQueues outbound, SpectatorStreams spectators,
+			long eventRetentionMillis) {
+		this.activeGames = activeGames;
+		this.outbound = outbound;
+		this.spectators = spectators;
+		this.eventRetentionMillis = eventRetentionMillis;
+
+		this.spectators.setFanout(this::sendToObservers);
+	}
+
 	public boolean connExists(int gameID) {
 		return connections.containsKey(gameID);
 	}
@@ -64,51 +195,328 @@ public class ConnectionsManager {
 	}
 
 	public void closeAllSessions(Session session) {
-		for (int gameID : this.connections.keySet()) {
-			if (this.connections.get(gameID).contains(session)) {
+		Set<Integer> gameIDs = this.sessionGames.remove(session);
+		if (gameIDs != null) {
+			for (int gameID : gameIDs) {
 				this.remove(gameID, session);
 			}
 		}
+		this.outbound.remove(session);
 	}
 
-	public void add(int gameID, Session session) {
-		if (!this.connExists(gameID)) {
-			this.createConn(gameID);
-		}
+	/**
+	 * @return The games a session is connected to
+	 */
+	Set<Integer> getSessionGames(Session session) {
+		Set<Integer> gameIDs = this.sessionGames.get(session);
+		return gameIDs == null ? Set.of() : Set.copyOf(gameIDs);
+	}
 
-		this.connections.get(gameID).addSession(session);
+	public boolean add(int gameID, Session session) {
+		return this.add(gameID, session, MoveFormat.BOARD, false);
 	}
 
-	public void remove(int gameID, Session session) {
-		if (this.connExists(gameID)) {
-			this.connections.get(gameID).removeSession(session);
+	/**
+	 * Adds a session to a game. A session closed meanwhile isn't kept: its close may already
+	 * have been handled, and nothing else would take it out again.
+	 *
+	 * @param format How to tell the session about moves
+	 * @param observer True if the session watches the game rather than playing in it
+	 *
+	 * @return False if the session had closed and was left out
+	 */
+	public boolean add(int gameID, Session session, MoveFormat format, boolean observer) {
+		this.connections.compute(gameID, (id, conn) -> {
+			if (conn == null) {
+				conn = new Connection();
+				this.activeGames.pin(gameID);
+				this.eventLog(gameID).setIdle(false);
+			}
+			conn.addSession(session, format, observer);
+			return conn;
+		});
 
-			if (this.connections.get(gameID).isEmpty()) {
-				this.deleteConn(gameID);
+		// Added inside compute, so a remove emptying the set can't drop it from under this
+		this.sessionGames.compute(session, (s, gameIDs) -> {
+			if (gameIDs == null) {
+				gameIDs = ConcurrentHashMap.newKeySet();
 			}
+			gameIDs.add(gameID);
+			return gameIDs;
+		});
+
+		// Checked after the session is listed, so either this sees it closed or its close
+		// handler sees it listed
+		if (!session.isOpen()) {
+			this.remove(gameID, session);
+			return false;
 		}
+		return true;
 	}
 
-	public void broadcast(int gameID, Session excludeSession, ServerMessage message) throws IOException {
-		if (this.connExists(gameID)) {
-			for (Session s : this.connections.get(gameID).getSessions().values()) {
-				if (s.isOpen() && !s.equals(excludeSession)) {
-					s.getRemote().sendString(message.toJson());
-				}
+	public void remove(int gameID, Session session) {
+		this.connections.computeIfPresent(gameID, (id, conn) -> {
+			conn.removeSession(session);
+			if (!conn.isEmpty()) {
+				return conn;
 			}
+
+			this.activeGames.unpin(gameID);
+			GameEventLog log = this.eventLog(gameID);
+			log.setIdle(true);
+			this.idleLogs.add(new IdleLog(gameID, log, log.getIdleSinceMillis()));
+			return null;
+		});
+
+		this.sessionGames.computeIfPresent(session, (s, gameIDs) -> {
+			gameIDs.remove(gameID);
+			return gameIDs.isEmpty() ? null : gameIDs;
+		});
+	}
+
+	/**
+	 * Queues a message to one session. Board updates replace any the session hasn't
+	 * been sent yet.
+	 */
+	public void send(Session session, ServerMessage message) {
+		this.outbound.send(session, message.toJson(), isConflatable(message));
+	}
+
+	/**
+	 * Queues an already serialized message to one session
+	 */
+	public void send(Session session, String payload) {
+		this.outbound.send(session, payload, false);
+	}
+
+	/**
+	 * Queues a message to everyone connected to a game but one session. The message is
+	 * serialized once, however many sessions it goes to, and recorded as the game's next
+	 * event, which isn't replayed to the excluded user when they reconnect.
+	 *
+	 * @param excludeUsername The user of excludeSession
+	 */
+	public void broadcast(int gameID, Session excludeSession, String excludeUsername, ServerMessage message) {
+		Connection conn = this.connections.get(gameID);
+		if (conn != null) {
+			this.queue(conn, excludeSession, this.record(gameID, message, excludeUsername), isConflatable(message));
+		}
+	}
+
+	/**
+	 * Queues a message to everyone connected to a game, serialized once and recorded as
+	 * the game's next event
+	 */
+	public void broadcastAll(int gameID, ServerMessage message) {
+		Connection conn = this.connections.get(gameID);
+		if (conn != null) {
+			this.queue(conn, null, this.record(gameID, message), isConflatable(message));
 		}
 	}
 
-	public void broadcastAll(int gameID, ServerMessage message) throws IOException {
-		if (this.connExists(gameID)) {
-			for (Session s : this.connections.get(gameID).getSessions().values()) {
-				if (s.isOpen()) {
-					s.getRemote().sendString(message.toJson());
+	/**
+	 * Queues a game's whole board to everyone connected to it, recorded as the game's next
+	 * event, for when the board changed other than by a move
+	 *
+	 * @param board The game as it is now, as a LOAD_GAME
+	 */
+	public void broadcastBoard(int gameID, ServerMessage board) {
+		Connection conn = this.connections.get(gameID);
+		if (conn == null) {
+			return;
+		}
+
+		conn.setSnapshot(null);
+		this.queue(conn, null, this.record(gameID, board), true);
+	}
+
+	/**
+	 * Tells everyone connected to a game about a move. Sessions that asked for move updates
+	 * get the update, as JSON or a binary frame, and the rest get the whole board. Each form
+	 * is serialized once, and only if some session needs it.
+	 *
+	 * The update is recorded as the game's next event, and the board carries the same
+	 * sequence number. In a game with a large audience the observers are left out, and
+	 * sent the board by the game's spectator stream instead.
+	 *
+	 * @param version The version of the game's data after the move
+	 * @param board The game after the move, as a LOAD_GAME
+	 * @param update The move, as a MOVE_APPLIED
+	 */
+	public void broadcastMove(int gameID, long version, RedrawBoardMessage board, MoveAppliedMessage update) {
+		Connection conn = this.connections.get(gameID);
+		if (conn == null) {
+			return;
+		}
+
+		String updatePayload = this.record(gameID, update);
+		board.setSequence(update.getSequence());
+
+		// The cached board is out of date; whoever serializes the new one caches it
+		conn.setSnapshot(null);
+
+		boolean conflated = this.spectators.isConflated(conn.getObserverNum());
+		if (conflated) {
+			this.spectators.publish(gameID, board.getGame(), update.getSequence());
+		}
+
+		String boardPayload = null;
+		byte[] updateFrame = null;
+		for (Map.Entry<Session, MoveFormat> entry : conn.getSessions().entrySet()) {
+			Session s = entry.getKey();
+			if (!s.isOpen() || (conflated && conn.isObserver(s))) {
+				continue;
+			}
+
+			switch (entry.getValue()) {
+				case JSON -> this.outbound.send(s, updatePayload, false);
+				case BINARY -> {
+					if (updateFrame == null) {
+						updateFrame = BinaryFrame.moveApplied(update);
+					}
+					this.outbound.sendBinary(s, updateFrame);
+				}
+				case BOARD -> {
+					if (boardPayload == null) {
+						boardPayload = board.toJson();
+						conn.setSnapshot(new Snapshot(version, boardPayload));
+					}
+					this.outbound.send(s, boardPayload, true);
 				}
 			}
 		}
 	}
 
+	/**
+	 * Queues a game's board to one session. The board is serialized once per version of the
+	 * game's data and the same payload sent to everyone who joins or syncs until the game
+	 * changes, so a crowd joining a game costs one serialization.
+	 *
+	 * The board carries the sequence number of the game's last event when it was
+	 * serialized. Notifications since then, like other sessions joining, aren't counted,
+	 * so a client resuming from it may be sent those again.
+	 *
+	 * @param gameData The game as it is now. Must be called from the game's own commands, so
+	 * the game doesn't change while it is serialized.
+	 */
+	public void sendSnapshot(int gameID, Session session, GameData gameData) {
+		long version = gameData.version();
+
+		Connection conn = this.connections.get(gameID);
+		Snapshot snapshot = conn == null ? null : conn.getSnapshot();
+		if (snapshot == null || snapshot.version() != version) {
+			snapshot = new Snapshot(version,
+					new RedrawBoardMessage(gameData.game(), this.getSequence(gameID)).toJson());
+			if (conn != null) {
+				conn.setSnapshot(snapshot);
+			}
+		}
+
+		this.outbound.send(session, snapshot.payload(), true);
+	}
+
+	/**
+	 * Sends a game's latest board to its observers, whatever format they asked for moves
+	 * in. Called by the spectator stream.
+	 */
+	private void sendToObservers(int gameID, String payload) {
+		Connection conn = this.connections.get(gameID);
+		if (conn == null) {
+			return;
+		}
+
+		for (Session s : conn.getObservers()) {
+			if (s.isOpen()) {
+				this.outbound.send(s, payload, true);
+			}
+		}
+	}
+
+	/**
+	 * @return The sequence number of the game's last event
+	 */
+	public long getSequence(int gameID) {
+		return this.eventLog(gameID).getSequence();
+	}
+
+	/**
+	 * @param lastSeenSeq The last event of the game a reconnecting client saw
+	 * @param username The user the client reconnected as
+	 *
+	 * @return The serialized events it missed, in order, or null if they aren't all known
+	 * and it needs the whole board
+	 */
+	public List<String> eventsAfter(int gameID, long lastSeenSeq, String username) {
+		GameEventLog log = this.eventLogs.get(gameID);
+		return log == null ? null : log.eventsAfter(lastSeenSeq, username);
+	}
+
+	/**
+	 * Numbers a game event and remembers it. Events are only broadcast from the game's own
+	 * commands, so they are numbered in the order they happened.
+	 *
+	 * @return The serialized event
+	 */
+	private String record(int gameID, ServerMessage message) {
+		return this.record(gameID, message, null);
+	}
+
+	/**
+	 * @param excludedUser The user the event isn't sent to, or null
+	 */
+	private String record(int gameID, ServerMessage message, String excludedUser) {
+		GameEventLog log = this.eventLog(gameID);
+
+		long sequence = log.nextSequence();
+		message.setSequence(sequence);
+		String payload = message.toJson();
+		log.record(sequence, payload, excludedUser);
+		return payload;
+	}
+
+	private GameEventLog eventLog(int gameID) {
+		GameEventLog log = this.eventLogs.get(gameID);
+		if (log != null) {
+			return log;
+		}
+
+		// A new log is a good time to forget the games nobody has come back to
+		this.expireIdleLogs(System.currentTimeMillis());
+		return this.eventLogs.computeIfAbsent(gameID, id -> new GameEventLog());
+	}
+
+	/**
+	 * Drops the logs of games nobody has been connected to for the retention time. Only
+	 * the expired head of the idle queue is visited.
+	 */
+	private void expireIdleLogs(long nowMillis) {
+		IdleLog idle;
+		while ((idle = this.idleLogs.peek()) != null && nowMillis - idle.idleSinceMillis() >= this.eventRetentionMillis) {
+			this.idleLogs.remove(idle);
+
+			// A game someone came back to has gone active since, or left again later and
+			// has a newer entry further back
+			if (idle.log().getIdleSinceMillis() == idle.idleSinceMillis()) {
+				this.eventLogs.remove(idle.gameID(), idle.log());
+			}
+		}
+	}
+
+	/**
+	 * @param payload The serialized message, the same String for every session
+	 */
+	private void queue(Connection conn, Session excludeSession, String payload, boolean conflatable) {
+		for (Session s : conn.getSessions().keySet()) {
+			if (s.isOpen() && !s.equals(excludeSession)) {
+				this.outbound.send(s, payload, conflatable);
+			}
+		}
+	}
+
+	private static boolean isConflatable(ServerMessage message) {
+		return message.getServerMessageType() == ServerMessageType.LOAD_GAME;
+	}
+
 	public boolean isGameActive(int gameID) {
 		return this.connections.get(gameID).isActive();
 	}
@@ -0,0 +1,139 @@
+package server.websocket;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The last few events of a game, already serialized, so a client that dropped its
+ * connection can be sent just what it missed.
+ *
+ * Every event gets the next sequence number. The first one continues from the time the
+ * log was created, in milliseconds, so a number handed out by an earlier log for the same
+ * game is always behind this one's and never mistaken for one of its events. A log holds
+ * at most capacity events; older ones are forgotten, and a client that missed them gets
+ * the whole board instead.
+ *
+ * An event that wasn't sent to the user who caused it, like their own move notification,
+ * isn't replayed to them either.
+ */
+public class GameEventLog {
+	//
+	// ================== STATIC ATTRIBUTES =====================
+	//
+
+	public static final int DEFAULT_CAPACITY = 256;
+
+	/**
+	 * @param payload The event as sent to clients that asked for move updates
+	 * @param excludedUser The user the event wasn't sent to, or null if it went to everyone
+	 */
+	private static record Event(long sequence, String payload, String excludedUser) {}
+
+	//
+	// ================== CONSTRUCTORS =====================
+	//
+
+	private final int capacity;
+	private final ArrayDeque<Event> events;
+
+	private long sequence;
+
+	/**
+	 * When the game's last session left, or 0 while anyone is connected
+	 */
+	private volatile long idleSinceMillis = 0;
+
+	public GameEventLog() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * @param capacity How many events to remember
+	 */
+	public GameEventLog(int capacity) {
+		if (capacity < 1) {
+			throw new IllegalArgumentException("Event log capacity must be positive");
+		}
+		this.capacity = capacity;
+		this.events = new ArrayDeque<>(capacity);
+		this.sequence = System.currentTimeMillis();
+	}
+
+	//
+	// ================== MEMBER METHODS =====================
+	//
+
+	/**
+	 * @return The sequence number of the next event
+	 */
+	public synchronized long nextSequence() {
+		return ++this.sequence;
+	}
+
+	/**
+	 * @return The sequence number of the last event
+	 */
+	public synchronized long getSequence() {
+		return this.sequence;
+	}
+
+	/**
+	 * Remembers an event sent to everyone
+	 */
+	public void record(long sequence, String payload) {
+		this.record(sequence, payload, null);
+	}
+
+	/**
+	 * Remembers an event, forgetting the oldest one if the log is full
+	 *
+	 * @param sequence The number nextSequence gave it
+	 * @param payload The serialized event
+	 * @param excludedUser The user it wasn't sent to, or null
+	 */
+	public synchronized void record(long sequence, String payload, String excludedUser) {
+		if (this.events.size() >= this.capacity) {
+			this.events.poll();
+		}
+		this.events.add(new Event(sequence, payload, excludedUser));
+	}
+
+	/**
+	 * @param lastSeenSeq The last event a client saw
+	 * @param username The user the client is connected as
+	 *
+	 * @return The events after it the user would have been sent, in order, or null if some
+	 * have been forgotten or the number didn't come from this log
+	 */
+	public synchronized List<String> eventsAfter(long lastSeenSeq, String username) {
+		if (lastSeenSeq > this.sequence) {
+			return null;
+		}
+
+		// Every event after lastSeenSeq must still be held, or the client would miss some
+		long oldestHeld = this.events.isEmpty() ? this.sequence + 1 : this.events.peek().sequence();
+		if (lastSeenSeq + 1 < oldestHeld && lastSeenSeq != this.sequence) {
+			return null;
+		}
+
+		List<String> missed = new ArrayList<>();
+		for (Event event : this.events) {
+			if (event.sequence() > lastSeenSeq && !username.equals(event.excludedUser())) {
+				missed.add(event.payload());
+			}
+		}
+		return missed;
+	}
+
+	public void setIdle(boolean idle) {
+		this.idleSinceMillis = idle ? System.currentTimeMillis() : 0;
+	}
+
+	/**
+	 * @return When the game's last session left, or 0 while anyone is connected
+	 */
+	public long getIdleSinceMillis() {
+		return this.idleSinceMillis;
+	}
+}
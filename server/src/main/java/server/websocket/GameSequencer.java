@@ -0,0 +1,162 @@
+package server.websocket;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import server.metrics.MetricsRegistry;
+
+/**
+ * Runs the commands of each game one at a time, in the order they arrived.
+ *
+ * Every game has a mailbox of waiting commands. While it has any, one task drains it on
+ * a virtual thread, so a game's commands never overlap while different games run in
+ * parallel. A mailbox holds at most maxDepth commands; more are rejected so one flooded
+ * game can't pile up unbounded work.
+ */
+public class GameSequencer {
+	//
+	// ================== STATIC ATTRIBUTES =====================
+	//
+
+	public static final int DEFAULT_MAX_DEPTH = 64;
+
+	private static record Command(Runnable task, long queuedNanos) {}
+
+	private static class Mailbox {
+		final ArrayDeque<Command> commands = new ArrayDeque<>();
+		boolean draining = false;
+	}
+
+	//
+	// ================== CONSTRUCTORS =====================
+	//
+
+	private final int maxDepth;
+	private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+	private final ConcurrentHashMap<Integer, Mailbox> mailboxes = new ConcurrentHashMap<>();
+
+	private final AtomicInteger queuedNum = new AtomicInteger();
+	private final LongAdder waitNanos = new LongAdder();
+	private final LongAdder commandCount;
+	private final LongAdder rejectedCount;
+
+	public GameSequencer(MetricsRegistry metrics) {
+		this(DEFAULT_MAX_DEPTH, metrics);
+	}
+
+	/**
+	 * @param maxDepth How many commands may wait on one game
+	 * @param metrics Where to report queue depth and wait time
+	 */
+	public GameSequencer(int maxDepth, MetricsRegistry metrics) {
+		if (maxDepth < 1) {
+			throw new IllegalArgumentException("Mailbox depth must be positive");
+		}
+		this.maxDepth = maxDepth;
+
+		this.commandCount = metrics.counter("ws.mailbox.commands");
+		this.rejectedCount = metrics.counter("ws.mailbox.rejected");
+		metrics.gauge("ws.mailbox.queued", this.queuedNum::get);
+		metrics.gauge("ws.mailbox.games", this.mailboxes::size);
+		metrics.gauge("ws.mailbox.waitMillis", () -> TimeUnit.NANOSECONDS.toMillis(this.waitNanos.sum()));
+	}
+
+	//
+	// ================== MEMBER METHODS =====================
+	//
+
+	/**
+	 * Queues a command behind the game's other commands
+	 *
+	 * @param gameID The game the command acts on
+	 * @param task The command
+	 *
+	 * @return False if the game's mailbox is full and the command was dropped
+	 */
+	public boolean submit(int gameID, Runnable task) {
+		boolean[] accepted = { false };
+		boolean[] startDrain = { false };
+
+		this.mailboxes.compute(gameID, (id, mailbox) -> {
+			if (mailbox == null) {
+				mailbox = new Mailbox();
+			}
+			if (mailbox.commands.size() >= this.maxDepth) {
+				return mailbox;
+			}
+
+			mailbox.commands.add(new Command(task, System.nanoTime()));
+			accepted[0] = true;
+			if (!mailbox.draining) {
+				mailbox.draining = true;
+				startDrain[0] = true;
+			}
+			return mailbox;
+		});
+
+		if (!accepted[0]) {
+			this.rejectedCount.increment();
+			return false;
+		}
+
+		this.queuedNum.incrementAndGet();
+		if (startDrain[0]) {
+			this.executor.execute(() -> this.drain(gameID));
+		}
+		return true;
+	}
+
+	/**
+	 * @return The number of commands waiting on a game
+	 */
+	public int getQueuedNum(int gameID) {
+		// Mailboxes are only touched inside compute, which locks the game's entry
+		int[] size = { 0 };
+		this.mailboxes.computeIfPresent(gameID, (id, mailbox) -> {
+			size[0] = mailbox.commands.size();
+			return mailbox;
+		});
+		return size[0];
+	}
+
+	/**
+	 * Stops running commands, dropping any still queued
+	 */
+	public void shutdown() {
+		this.executor.shutdownNow();
+	}
+
+	private void drain(int gameID) {
+		while (true) {
+			Command[] next = { null };
+			this.mailboxes.computeIfPresent(gameID, (id, mailbox) -> {
+				next[0] = mailbox.commands.poll();
+				if (next[0] == null) {
+					// Nothing left; the next submit starts a new drain
+					return null;
+				}
+				return mailbox;
+			});
+
+			Command command = next[0];
+			if (command == null) {
+				return;
+			}
+
+			this.queuedNum.decrementAndGet();
+			this.waitNanos.add(System.nanoTime() - command.queuedNanos());
+			this.commandCount.increment();
+
+			try {
+				command.task().run();
+			} catch (RuntimeException ex) {
+				ex.printStackTrace();
+			}
+		}
+	}
+}
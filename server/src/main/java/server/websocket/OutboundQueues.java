@@ -0,0 +1,264 @@
+package server.websocket;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.eclipse.jetty.websocket.api.Session;
+
+import server.metrics.MetricsRegistry;
+
+/**
+ * Sends each session's messages from its own queue, so a slow client only holds up itself.
+ *
+ * Queuing never blocks. While a session has queued messages, one task sends them on a
+ * virtual thread, in the order they were queued. A board update replaces any board update
+ * still waiting, since only the latest board is worth drawing. Once a session has maxDepth
+ * messages waiting, the overflow policy decides what gives: the oldest message, the new
+ * one, or the session itself. A session that has dropped more than maxDrops messages is
+ * disconnected too. Its count starts over once it catches up.
+ */
+public class OutboundQueues {
+	//
+	// ================== STATIC ATTRIBUTES =====================
+	//
+
+	/**
+	 * The close code sent to a session that can't keep up
+	 */
+	public static final int POLICY_VIOLATION = 1008;
+
+	public static enum OverflowPolicy {
+		DROP_OLDEST,
+		DROP_NEWEST,
+		DISCONNECT
+	}
+
+	/**
+	 * @param maxDepth How many messages may wait on one session
+	 * @param policy What happens to a message that would go past maxDepth
+	 * @param maxDrops How many messages a session may lose before it's disconnected
+	 */
+	public static record OutboundConfig(int maxDepth, OverflowPolicy policy, int maxDrops) {
+		public static final OutboundConfig DEFAULT = new OutboundConfig(256, OverflowPolicy.DISCONNECT, 0);
+
+		public OutboundConfig {
+			if (maxDepth < 1) {
+				throw new IllegalArgumentException("Queue depth must be positive");
+			}
+			if (policy == null || maxDrops < 0) {
+				throw new IllegalArgumentException("A policy and a non-negative drop limit are required");
+			}
+		}
+	}
+
+	/**
+	 * @param payload The serialized message, possibly shared with other sessions, or null
+	 * for a binary frame
+	 * @param frame The binary frame, possibly shared with other sessions, or null
+	 * @param conflatable True if a newer conflatable message makes this one worthless
+	 */
+	private static record Outbound(String payload, byte[] frame, boolean conflatable, long queuedNanos) {}
+
+	private static class Outbox {
+		final ArrayDeque<Outbound> messages = new ArrayDeque<>();
+		boolean draining = false;
+		int dropNum = 0;
+	}
+
+	//
+	// ================== CONSTRUCTORS =====================
+	//
+
+	private final OutboundConfig config;
+	private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+	private final ConcurrentHashMap<Session, Outbox> outboxes = new ConcurrentHashMap<>();
+
+	private final AtomicInteger queuedNum = new AtomicInteger();
+	private final LongAdder waitNanos = new LongAdder();
+	private final LongAdder sendNanos = new LongAdder();
+	private final LongAdder sentCount;
+	private final LongAdder conflatedCount;
+	private final LongAdder droppedCount;
+	private final LongAdder disconnectedCount;
+	private final LongAdder failedCount;
+
+	public OutboundQueues(MetricsRegistry metrics) {
+		this(OutboundConfig.DEFAULT, metrics);
+	}
+
+	/**
+	 * @param config The queue limits and overflow policy
+	 * @param metrics Where to report queue depth and send latency
+	 */
+	public OutboundQueues(OutboundConfig config, MetricsRegistry metrics) {
+		this.config = config;
+
+		this.sentCount = metrics.counter("ws.outbound.sent");
+		this.conflatedCount = metrics.counter("ws.outbound.conflated");
+		this.droppedCount = metrics.counter("ws.outbound.dropped");
+		this.disconnectedCount = metrics.counter("ws.outbound.disconnected");
+		this.failedCount = metrics.counter("ws.outbound.failed");
+		metrics.gauge("ws.outbound.queued", this.queuedNum::get);
+		metrics.gauge("ws.outbound.sessions", this.outboxes::size);
+		metrics.gauge("ws.outbound.waitMillis", () -> TimeUnit.NANOSECONDS.toMillis(this.waitNanos.sum()));
+		metrics.gauge("ws.outbound.sendMillis", () -> TimeUnit.NANOSECONDS.toMillis(this.sendNanos.sum()));
+	}
+
+	//
+	// ================== MEMBER METHODS =====================
+	//
+
+	/**
+	 * Queues a message to a session, without waiting for it to be sent
+	 *
+	 * @param session Where to send it
+	 * @param payload The serialized message
+	 * @param conflatable True if it can be replaced by the next conflatable message, like
+	 * a board update
+	 */
+	public void send(Session session, String payload, boolean conflatable) {
+		this.enqueue(session, new Outbound(payload, null, conflatable, System.nanoTime()));
+	}
+
+	/**
+	 * Queues a binary frame to a session, without waiting for it to be sent
+	 *
+	 * @param frame The frame, which must not change once queued
+	 */
+	public void sendBinary(Session session, byte[] frame) {
+		this.enqueue(session, new Outbound(null, frame, false, System.nanoTime()));
+	}
+
+	private void enqueue(Session session, Outbound message) {
+		if (!session.isOpen()) {
+			return;
+		}
+
+		boolean[] startDrain = { false };
+		boolean[] disconnect = { false };
+
+		this.outboxes.compute(session, (s, outbox) -> {
+			if (outbox == null) {
+				outbox = new Outbox();
+			}
+
+			if (message.conflatable()) {
+				int queued = outbox.messages.size();
+				outbox.messages.removeIf(Outbound::conflatable);
+				this.queuedNum.addAndGet(outbox.messages.size() - queued);
+				this.conflatedCount.add(queued - outbox.messages.size());
+			}
+
+			if (outbox.messages.size() < this.config.maxDepth()) {
+				outbox.messages.add(message);
+				this.queuedNum.incrementAndGet();
+			} else {
+				switch (this.config.policy()) {
+					case DROP_OLDEST -> {
+						outbox.messages.poll();
+						outbox.messages.add(message);
+					}
+					case DROP_NEWEST -> {}
+					case DISCONNECT -> disconnect[0] = true;
+				}
+				outbox.dropNum++;
+				this.droppedCount.increment();
+				disconnect[0] |= outbox.dropNum > this.config.maxDrops();
+			}
+
+			if (disconnect[0]) {
+				// Nothing more is sent to it; the drain stops at its next message
+				this.queuedNum.addAndGet(-outbox.messages.size());
+				return null;
+			}
+
+			if (!outbox.draining) {
+				outbox.draining = true;
+				startDrain[0] = true;
+			}
+			return outbox;
+		});
+
+		if (disconnect[0]) {
+			this.disconnectedCount.increment();
+			session.close(POLICY_VIOLATION, "Too slow to keep up with the game");
+		} else if (startDrain[0]) {
+			this.executor.execute(() -> this.drain(session));
+		}
+	}
+
+	/**
+	 * Drops a closed session's queue
+	 */
+	public void remove(Session session) {
+		// Once it's out of the map nothing else touches it, and its drain stops
+		Outbox outbox = this.outboxes.remove(session);
+		if (outbox != null) {
+			this.queuedNum.addAndGet(-outbox.messages.size());
+		}
+	}
+
+	/**
+	 * @return The number of messages waiting on a session
+	 */
+	public int getQueuedNum(Session session) {
+		int[] size = { 0 };
+		this.outboxes.computeIfPresent(session, (s, outbox) -> {
+			size[0] = outbox.messages.size();
+			return outbox;
+		});
+		return size[0];
+	}
+
+	/**
+	 * Stops sending, dropping anything still queued
+	 */
+	public void shutdown() {
+		this.executor.shutdownNow();
+	}
+
+	private void drain(Session session) {
+		while (true) {
+			Outbound[] next = { null };
+			this.outboxes.computeIfPresent(session, (s, outbox) -> {
+				next[0] = outbox.messages.poll();
+				if (next[0] == null) {
+					// Caught up; the next send starts a new drain
+					return null;
+				}
+				return outbox;
+			});
+
+			Outbound message = next[0];
+			if (message == null) {
+				return;
+			}
+
+			this.queuedNum.decrementAndGet();
+			long startNanos = System.nanoTime();
+			this.waitNanos.add(startNanos - message.queuedNanos());
+
+			try {
+				if (message.frame() != null) {
+					// Wrapped for each send, since sending moves the buffer's position
+					session.getRemote().sendBytes(ByteBuffer.wrap(message.frame()));
+				} else {
+					session.getRemote().sendString(message.payload());
+				}
+				this.sentCount.increment();
+			} catch (IOException | RuntimeException ex) {
+				// The session is closing; its close handler drops the rest
+				this.failedCount.increment();
+			} finally {
+				this.sendNanos.add(System.nanoTime() - startNanos);
+			}
+		}
+	}
+}
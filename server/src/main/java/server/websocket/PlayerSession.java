@@ -0,0 +1,29 @@
+package server.websocket;
+
+import chess.ChessGame.TeamColor;
+
+/**
+ * Who is on the other end of a websocket, as established when it connected to a game.
+ *
+ * Binary frames carry no token, so they are taken as this user while the token is still
+ * valid. JSON commands carrying the same token are taken as this user without looking the
+ * token up, and only for this game. The seat is the one held when the session connected;
+ * moves, resignations and leaving act for it alone.
+ *
+ * @param authToken The token the session connected with
+ * @param username The user the token belongs to
+ * @param gameID The game the session connected to
+ * @param seat The color the user plays, or null for an observer
+ */
+public record PlayerSession(String authToken, String username, int gameID, TeamColor seat) {
+	public boolean isObserver() {
+		return this.seat == null;
+	}
+
+	/**
+	 * @return The name the seat is announced by when the user joins
+	 */
+	public String seatName() {
+		return this.seat == null ? "observer" : this.seat.toString();
+	}
+}
@@ -0,0 +1,183 @@
+package server.websocket;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import chess.ChessGame;
+import server.metrics.MetricsRegistry;
+import websocket.messages.RedrawBoardMessage;
+
+/**
+ * The board updates sent to the observers of games with a large audience, at a bounded rate.
+ *
+ * Players are always sent every move. Once a game has more than audienceThreshold
+ * observers, its observers are instead sent the latest board at most maxUpdatesPerSecond
+ * times a second. A board published before the last one was sent replaces it. On each
+ * tick every game's latest board is serialized once and the same payload handed to all of
+ * its observers, so a game costs the same each second however many people watch it or
+ * however fast it is played.
+ *
+ * The board is the live game, so it is serialized holding the game's monitor, and only if
+ * no move has been made since it was published. The next publish is then on its way, so
+ * the board sent always carries the sequence number of its own last move.
+ */
+public class SpectatorStreams {
+	//
+	// ================== STATIC ATTRIBUTES =====================
+	//
+
+	/**
+	 * @param audienceThreshold How many observers a game may have before their boards are conflated
+	 * @param maxUpdatesPerSecond How many boards a second each observer of a large game is sent
+	 */
+	public static record SpectatorConfig(int audienceThreshold, int maxUpdatesPerSecond) {
+		public static final SpectatorConfig DEFAULT = new SpectatorConfig(100, 2);
+
+		public SpectatorConfig {
+			if (audienceThreshold < 0) {
+				throw new IllegalArgumentException("Audience threshold must not be negative");
+			}
+			if (maxUpdatesPerSecond < 1 || maxUpdatesPerSecond > 1000) {
+				throw new IllegalArgumentException("Updates per second must be between 1 and 1000");
+			}
+		}
+	}
+
+	public static interface SpectatorFanout {
+		/**
+		 * Called on the stream thread with a game's latest board
+		 *
+		 * @param gameID The game
+		 * @param payload The serialized board, the same String for every observer
+		 */
+		void sendToObservers(int gameID, String payload);
+	}
+
+	/**
+	 * A game's board as of one move
+	 *
+	 * @param game The live game
+	 * @param moveNum How many moves the game had when it was published
+	 * @param sequence The sequence number of that move's update
+	 */
+	private static record Board(ChessGame game, int moveNum, long sequence) {}
+
+	//
+	// ================== CONSTRUCTORS =====================
+	//
+
+	private final SpectatorConfig config;
+
+	/**
+	 * The latest board of each game waiting for the next tick
+	 */
+	private final ConcurrentHashMap<Integer, Board> pending = new ConcurrentHashMap<>();
+
+	private final ScheduledExecutorService ticker;
+
+	private volatile SpectatorFanout fanout = (gameID, payload) -> { };
+
+	private final LongAdder publishedCount;
+	private final LongAdder conflatedCount;
+	private final LongAdder streamedCount;
+
+	public SpectatorStreams(MetricsRegistry metrics) {
+		this(SpectatorConfig.DEFAULT, metrics);
+	}
+
+	/**
+	 * @param config When observers are conflated, and to how many boards a second
+	 * @param metrics Where to report how many boards were conflated away
+	 */
+	public SpectatorStreams(SpectatorConfig config, MetricsRegistry metrics) {
+		this.config = config;
+
+		this.publishedCount = metrics.counter("ws.spectators.published");
+		this.conflatedCount = metrics.counter("ws.spectators.conflated");
+		this.streamedCount = metrics.counter("ws.spectators.streamed");
+		metrics.gauge("ws.spectators.pending", this.pending::size);
+
+		this.ticker = Executors.newSingleThreadScheduledExecutor(task -> {
+			Thread thread = new Thread(task, "spectator-streams");
+			thread.setDaemon(true);
+			return thread;
+		});
+
+		long tickMicros = TimeUnit.SECONDS.toMicros(1) / config.maxUpdatesPerSecond();
+		this.ticker.scheduleAtFixedRate(this::tick, tickMicros, tickMicros, TimeUnit.MICROSECONDS);
+	}
+
+	//
+	// ================== MEMBER METHODS =====================
+	//
+
+	/**
+	 * @param fanout Where each tick's boards are sent
+	 */
+	public void setFanout(SpectatorFanout fanout) {
+		this.fanout = fanout;
+	}
+
+	/**
+	 * @return True if a game with this many observers has its observers conflated
+	 */
+	public boolean isConflated(int observerNum) {
+		return observerNum > this.config.audienceThreshold();
+	}
+
+	/**
+	 * Queues a game's board for its observers, replacing any board not yet sent
+	 *
+	 * @param game The game, just after its latest move
+	 * @param sequence The sequence number of that move's update
+	 */
+	public void publish(int gameID, ChessGame game, long sequence) {
+		this.publishedCount.increment();
+		int moveNum;
+		synchronized (game) {
+			moveNum = game.getMoveHistory().size();
+		}
+		if (this.pending.put(gameID, new Board(game, moveNum, sequence)) != null) {
+			this.conflatedCount.increment();
+		}
+	}
+
+	/**
+	 * Stops streaming, dropping any boards not yet sent
+	 */
+	public void shutdown() {
+		this.ticker.shutdownNow();
+	}
+
+	void tick() {
+		for (Integer gameID : this.pending.keySet()) {
+			Board board = this.pending.get(gameID);
+			if (board == null) {
+				continue;
+			}
+
+			String payload;
+			synchronized (board.game()) {
+				// Moved since; that move's publish replaces this board
+				if (board.game().getMoveHistory().size() != board.moveNum()) {
+					continue;
+				}
+				payload = new RedrawBoardMessage(board.game(), board.sequence()).toJson();
+			}
+			if (!this.pending.remove(gameID, board)) {
+				continue;
+			}
+
+			try {
+				this.fanout.sendToObservers(gameID, payload);
+				this.streamedCount.increment();
+			} catch (RuntimeException ex) {
+				// A failure here would cancel every later tick
+				ex.printStackTrace();
+			}
+		}
+	}
+}
@@ -0,0 +1,266 @@
+package server.websocket;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import server.metrics.MetricsRegistry;
+
+/**
+ * Tells a listener when each game's clock runs out, on one thread however many clocks are
+ * running.
+ *
+ * Deadlines are kept in a hierarchical timing wheel: LEVELS rings of SLOTS slots, each
+ * level's slot spanning a whole turn of the level below it. A deadline goes in the lowest
+ * level that reaches it, so scheduling is a single add. Every tick empties one slot of the
+ * lowest level, and when that level comes round, the next level's current slot is spread
+ * back down. Each tick's work is the clocks that run out on it and the few moved down,
+ * not the number of clocks running.
+ *
+ * A game has at most one deadline. Scheduling it again or cancelling it marks the old one
+ * dead, and it is dropped when its slot comes up. Deadlines fire up to one tick late.
+ */
+public class TimingWheel {
+	//
+	// ================== STATIC ATTRIBUTES =====================
+	//
+
+	public static final long DEFAULT_TICK_MILLIS = 100;
+
+	private static final int SLOT_BITS = 8;
+	private static final int SLOTS = 1 << SLOT_BITS;
+	private static final int SLOT_MASK = SLOTS - 1;
+	private static final int LEVELS = 4;
+
+	/**
+	 * The furthest ahead a deadline can be placed; later ones are moved down and placed
+	 * again when they come into range
+	 */
+	private static final long MAX_DELTA_TICKS = (1L << (SLOT_BITS * LEVELS)) - 1;
+
+	public static interface ExpiryListener {
+		/**
+		 * Called on the wheel thread once a game's deadline has passed
+		 *
+		 * @param gameID The game
+		 */
+		void expired(int gameID);
+	}
+
+	private static class Deadline {
+		final int gameID;
+		final long tick;
+		volatile boolean cancelled = false;
+
+		Deadline(int gameID, long tick) {
+			this.gameID = gameID;
+			this.tick = tick;
+		}
+	}
+
+	//
+	// ================== CONSTRUCTORS =====================
+	//
+
+	private final long tickMillis;
+
+	/**
+	 * The slots of each level, guarded by the wheel's monitor
+	 */
+	private final ArrayDeque<Deadline>[][] wheel;
+	private long currentTick;
+
+	/**
+	 * Each game's live deadline
+	 */
+	private final ConcurrentHashMap<Integer, Deadline> deadlines = new ConcurrentHashMap<>();
+
+	private final ScheduledExecutorService ticker;
+
+	private volatile ExpiryListener listener = gameID -> { };
+
+	private final LongAdder expiredCount;
+	private final LongAdder cascadedCount;
+
+	public TimingWheel(MetricsRegistry metrics) {
+		this(DEFAULT_TICK_MILLIS, metrics);
+	}
+
+	/**
+	 * @param tickMillis How often the wheel turns, and so how late a deadline may fire
+	 * @param metrics Where to report the clocks running and run out
+	 */
+	public TimingWheel(long tickMillis, MetricsRegistry metrics) {
+		this(tickMillis, System.currentTimeMillis(), metrics);
+	}
+
+	/**
+	 * @param startMillis The time the wheel starts turning from
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	TimingWheel(long tickMillis, long startMillis, MetricsRegistry metrics) {
+		if (tickMillis < 1) {
+			throw new IllegalArgumentException("Tick must be at least a millisecond");
+		}
+		this.tickMillis = tickMillis;
+
+		this.wheel = new ArrayDeque[LEVELS][SLOTS];
+		for (ArrayDeque<Deadline>[] level : this.wheel) {
+			for (int i = 0; i < SLOTS; i++) {
+				level[i] = new ArrayDeque<>();
+			}
+		}
+		this.currentTick = startMillis / tickMillis;
+
+		this.expiredCount = metrics.counter("ws.clocks.expired");
+		this.cascadedCount = metrics.counter("ws.clocks.cascaded");
+		metrics.gauge("ws.clocks.scheduled", this.deadlines::size);
+
+		this.ticker = Executors.newSingleThreadScheduledExecutor(task -> {
+			Thread thread = new Thread(task, "clock-wheel");
+			thread.setDaemon(true);
+			return thread;
+		});
+		this.ticker.scheduleAtFixedRate(() -> this.advance(System.currentTimeMillis()), tickMillis, tickMillis,
+				TimeUnit.MILLISECONDS);
+	}
+
+	//
+	// ================== MEMBER METHODS =====================
+	//
+
+	public void setExpiryListener(ExpiryListener listener) {
+		this.listener = listener;
+	}
+
+	/**
+	 * Sets when a game's clock runs out, replacing any deadline it had
+	 *
+	 * @param deadlineMillis The epoch time it runs out; one already past fires on the next tick
+	 */
+	public void schedule(int gameID, long deadlineMillis) {
+		// Rounded up, so it never fires early
+		long tick = deadlineMillis / this.tickMillis + (deadlineMillis % this.tickMillis == 0 ? 0 : 1);
+		Deadline deadline = new Deadline(gameID, tick);
+
+		Deadline replaced = this.deadlines.put(gameID, deadline);
+		if (replaced != null) {
+			replaced.cancelled = true;
+		}
+
+		synchronized (this) {
+			// This tick's slot has already been emptied
+			this.place(deadline, this.currentTick + 1);
+		}
+	}
+
+	/**
+	 * Forgets a game's deadline, if it has one
+	 */
+	public void cancel(int gameID) {
+		Deadline deadline = this.deadlines.remove(gameID);
+		if (deadline != null) {
+			deadline.cancelled = true;
+		}
+	}
+
+	/**
+	 * @return How many games have a deadline
+	 */
+	public int getScheduledNum() {
+		return this.deadlines.size();
+	}
+
+	/**
+	 * Stops the wheel; no more deadlines fire
+	 */
+	public void shutdown() {
+		this.ticker.shutdownNow();
+	}
+
+	/**
+	 * Turns the wheel up to now, catching up on any ticks the thread was late for
+	 */
+	void advance(long nowMillis) {
+		long nowTick = nowMillis / this.tickMillis;
+
+		List<Integer> expired = new ArrayList<>();
+		synchronized (this) {
+			while (this.currentTick < nowTick) {
+				this.currentTick++;
+				this.cascade();
+				this.expire(this.wheel[0][(int) (this.currentTick & SLOT_MASK)], expired);
+			}
+		}
+
+		// Outside the lock, so the listener can schedule again
+		for (int gameID : expired) {
+			try {
+				this.listener.expired(gameID);
+			} catch (RuntimeException ex) {
+				// A failure here would cancel every later tick
+				ex.printStackTrace();
+			}
+		}
+		this.expiredCount.add(expired.size());
+	}
+
+	/**
+	 * Each time a level comes round, the current slot of the level above is spread down
+	 */
+	private void cascade() {
+		for (int level = 1; level < LEVELS; level++) {
+			if ((this.currentTick & ((1L << (SLOT_BITS * level)) - 1)) != 0) {
+				return;
+			}
+
+			ArrayDeque<Deadline> slot = this.wheel[level][(int) ((this.currentTick >>> (SLOT_BITS * level)) & SLOT_MASK)];
+			Deadline deadline;
+			while ((deadline = slot.poll()) != null) {
+				if (!deadline.cancelled) {
+					// This tick's slot is emptied right after, so it can still go there
+					this.place(deadline, this.currentTick);
+					this.cascadedCount.increment();
+				}
+			}
+		}
+	}
+
+	private void expire(ArrayDeque<Deadline> slot, List<Integer> expired) {
+		Deadline deadline;
+		while ((deadline = slot.poll()) != null) {
+			if (deadline.cancelled) {
+				continue;
+			}
+			if (deadline.tick > this.currentTick) {
+				// Placed a whole turn early by place(); it goes round again
+				this.place(deadline, this.currentTick + 1);
+			} else if (this.deadlines.remove(deadline.gameID, deadline)) {
+				expired.add(deadline.gameID);
+			}
+		}
+	}
+
+	/**
+	 * Puts a deadline in the lowest level that reaches it. Must hold the monitor.
+	 *
+	 * @param earliestTick The first tick whose slot hasn't been emptied; a deadline that
+	 * has already passed goes there
+	 */
+	private void place(Deadline deadline, long earliestTick) {
+		long tick = Math.max(deadline.tick, earliestTick);
+		long delta = Math.min(tick - this.currentTick, MAX_DELTA_TICKS);
+		tick = this.currentTick + delta;
+
+		int level = 0;
+		while (level < LEVELS - 1 && delta >= (1L << (SLOT_BITS * (level + 1)))) {
+			level++;
+		}
+		this.wheel[level][(int) ((tick >>> (SLOT_BITS * level)) & SLOT_MASK)].add(deadline);
+	}
+}
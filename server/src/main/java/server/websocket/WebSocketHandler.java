@@ -5,19 +5,44 @@ import model.*;
 import util.Debugger;
 
 import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.eclipse.jetty.websocket.api.Session;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
 
 import chess.*;
 import chess.ChessGame.TeamColor;
 
 import dataaccess.*;
+import dataaccess.NotifyingAuthDAO.RemovalListener;
+
+import service.AnalysisService;
+import service.BotProfile;
+import service.BotService;
+import service.LobbyCache;
+import service.MatchmakingService;
+import service.AnalysisService.AnalysisJob;
+import service.AnalysisService.AnalysisRequest;
+import service.MatchmakingService.MatchListener;
+import service.MatchmakingService.MatchRequest;
+import service.MatchmakingService.MatchResult;
+
+import server.metrics.MetricsRegistry;
+import server.websocket.ConnectionsManager.MoveFormat;
+
+import websocket.BinaryFrame;
 
 import websocket.commands.*;
+import websocket.commands.UserGameCommand.CommandType;
 import websocket.messages.*;
 import websocket.messages.error.*;
 import websocket.messages.notification.*;
@@ -25,8 +50,9 @@ import websocket.messages.notification.*;
 /**
  * A class that will translate web socket requests into ones the server can understand
  */
-public class WebSocketHandler implements WsConnectHandler, WsMessageHandler, WsCloseHandler {
-	private final ConnectionsManager connections = new ConnectionsManager();
+public class WebSocketHandler
+		implements WsConnectHandler, WsMessageHandler, WsBinaryMessageHandler, WsCloseHandler, RemovalListener {
+	private final ConnectionsManager connections;
 
 	private final static String GAME_NO_EXIST_MSG = new GameNoExistError().toJson();
 	private final static String NO_AUTH_MSG = new NoAuthError().toJson();
@@ -35,28 +61,96 @@ public class WebSocketHandler implements WsConnectHandler, WsMessageHandler, WsC
 	private final static String GAME_CLOSED_MSG = new GameClosedError().toJson();
 	private final static String NOT_TURN_MSG = new NotYourTurnError().toJson();
 	private final static String NOT_PLAYING_ERROR = new NotPlayingError().toJson();
+	private final static String ANALYSIS_BUSY_MSG = new AnalysisBusyError().toJson();
+	private final static String INVALID_LIMITS_MSG = new InvalidLimitsError().toJson();
+	private final static String GAME_BUSY_MSG = new GameBusyError().toJson();
+	private final static String INVALID_FRAME_MSG = new InvalidFrameError().toJson();
+	private final static String INVALID_RATING_MSG = new InvalidRatingError().toJson();
+	private final static String MATCH_PENDING_MSG = new MatchPendingError().toJson();
+	private final static String WRONG_GAME_MSG = new WrongGameError().toJson();
 
 	private AuthDAO authDAO;
 	private GameDAO gameDAO;
 	private UserDAO userDAO;
 
+	private AnalysisService analysisService;
+	private BotService botService;
+	private MatchmakingService matchmakingService;
+
+	/**
+	 * Runs each game's commands one at a time, so concurrent commands can't lose updates
+	 */
+	private final GameSequencer sequencer;
+
+	/**
+	 * Invalidated when a player leaves or a game ends, since the lobby shows both
+	 */
+	private final LobbyCache lobbyCache;
+
+	/**
+	 * When each timed game's running clock runs out
+	 */
+	private final TimingWheel clockWheel;
+
+	/**
+	 * The analyses each session has running, so they can be cancelled when it closes
+	 */
+	private final ConcurrentHashMap<Session, Set<AnalysisJob>> analysisJobs = new ConcurrentHashMap<>();
+
+	/**
+	 * Who each session connected as, so its later commands aren't authenticated again
+	 */
+	private final ConcurrentHashMap<Session, PlayerSession> sessions = new ConcurrentHashMap<>();
+
+	private static record QueuedMatch(String username, MatchListener listener) {}
+
+	/**
+	 * Who each session is waiting to be matched for, so they leave the queue when it closes
+	 */
+	private final ConcurrentHashMap<Session, QueuedMatch> queuedMatches = new ConcurrentHashMap<>();
+
 	private final static Gson GSON = new GsonBuilder()
 		.registerTypeAdapter(ChessGame.class, new ChessGame.ChessGameDeserializer())
 		.registerTypeAdapter(ChessPiece.class, new ChessPiece.ChessPieceDeserializer())
 		.create();
 
 	public WebSocketHandler(AuthDAO authDAO, UserDAO userDAO, GameDAO gameDAO) {
-		this.authDAO = authDAO;
-		this.userDAO = userDAO;
-		this.gameDAO = gameDAO;
+		this(authDAO, userDAO, new ActiveGameRegistry(gameDAO));
 	}
 
-	private boolean isAuthenticated(String authToken) {
-		try {
-			return this.authDAO.authExists(authToken);
-		} catch (DataAccessException ex) {
-			return false;
-		}
+	private WebSocketHandler(AuthDAO authDAO, UserDAO userDAO, ActiveGameRegistry activeGames) {
+		this(authDAO, userDAO, activeGames, new AnalysisService(authDAO, activeGames), new BotService(activeGames),
+				new GameSequencer(new MetricsRegistry()), new LobbyCache(), new OutboundQueues(new MetricsRegistry()),
+				new SpectatorStreams(new MetricsRegistry()), new TimingWheel(new MetricsRegistry()),
+				new MatchmakingService(authDAO, activeGames));
+	}
+
+	/**
+	 * @param activeGames The games, kept in memory while anyone is connected to them. It
+	 * should be the same GameDAO the HTTP services use, so both see the same games.
+	 * @param outbound Sends every message, so commands never wait on a client's network
+	 * @param spectators Sends the observers of large games their boards at a bounded rate
+	 * @param clockWheel Ends timed games whose clock runs out
+	 * @param matchmakingService Pairs the sessions that ask to be matched
+	 */
+	public WebSocketHandler(AuthDAO authDAO, UserDAO userDAO, ActiveGameRegistry activeGames,
+			AnalysisService analysisService, BotService botService, GameSequencer sequencer, LobbyCache lobbyCache,
+			OutboundQueues outbound, SpectatorStreams spectators, TimingWheel clockWheel,
+			MatchmakingService matchmakingService) {
+		this.authDAO = authDAO;
+		this.userDAO = userDAO;
+		this.gameDAO = activeGames;
+		this.connections = new ConnectionsManager(activeGames, outbound, spectators);
+		this.analysisService = analysisService;
+		this.botService = botService;
+		this.sequencer = sequencer;
+		this.lobbyCache = lobbyCache;
+		this.clockWheel = clockWheel;
+		this.matchmakingService = matchmakingService;
+
+		this.botService.setMoveListener(this::botMove);
+		this.clockWheel.setExpiryListener(this::clockExpired);
+		activeGames.setConflictListener(this::gameConflicted);
 	}
 
 	@Override
@@ -66,123 +160,332 @@ public class WebSocketHandler implements WsConnectHandler, WsMessageHandler, WsC
 
 	@Override
 	public void handleMessage(WsMessageContext ctx) {
-		UserGameCommand cmd = GSON.fromJson(ctx.message(), UserGameCommand.class);
+		UserGameCommand cmd = parseCommand(ctx.message());
 
 		Session session = ctx.session;
 
-		String authToken = cmd.getAuthToken();
-		
 		try {
-			if (!this.isAuthenticated(authToken)) {
-				session.getRemote().sendString(NO_AUTH_MSG);
+			// A session that connected with this token is taken as the user and seat it
+			// connected as; logging out closes it. Any other token is looked up, so one logged
+			// out or expired since is refused.
+			PlayerSession bound = this.sessions.get(session);
+			PlayerSession player = bound != null && bound.authToken().equals(cmd.getAuthToken()) ? bound : null;
+			String username = player != null ? player.username() : this.authenticate(session, cmd.getAuthToken());
+			if (username == null || !this.checkBinding(session, cmd, player)) {
 				return;
 			}
+
 			switch (cmd.getCommandType()) {
-				case CONNECT -> connect(ctx);
-				case MAKE_MOVE -> makeMove(ctx);
-				case LEAVE -> leave(ctx);
-				case RESIGN -> resign(ctx);
+				case CONNECT -> this.sequence(cmd.getGameID(), session, () -> connect(session, cmd, username));
+				case MAKE_MOVE -> this.sequence(cmd.getGameID(), session,
+						() -> makeMove(session, (MakeMoveCommand) cmd, username, player));
+				case LEAVE -> this.sequence(cmd.getGameID(), session, () -> leave(session, cmd, username, player));
+				case RESIGN -> this.sequence(cmd.getGameID(), session, () -> resign(session, cmd, username, player));
+				case SYNC -> this.sequence(cmd.getGameID(), session, () -> sync(session, cmd));
+				case ANALYZE -> analyze(session, (AnalyzeCommand) cmd);
+				case MATCH -> match(session, (MatchCommand) cmd, username);
 			}
 		} catch (IOException ex) {
 			ex.printStackTrace();
 		}
 	}
 
-	@Override
-	public void handleClose(WsCloseContext ctx) {
-		this.connections.closeAllSessions(ctx.session);
+	/**
+	 * Refuses a game command from a bound session that names another game, or a move or
+	 * resignation from one that connected as an observer. A CONNECT rebinds the session.
+	 *
+	 * @param player The session's binding, or null if its commands are checked against the game
+	 *
+	 * @return True if the command may run
+	 */
+	private boolean checkBinding(Session session, UserGameCommand cmd, PlayerSession player) throws IOException {
+		if (player == null) {
+			return true;
+		}
+
+		CommandType type = cmd.getCommandType();
+		if (type != CommandType.MAKE_MOVE && type != CommandType.LEAVE && type != CommandType.RESIGN &&
+				type != CommandType.SYNC) {
+			return true;
+		}
+
+		if (cmd.getGameID() != player.gameID()) {
+			this.connections.send(session, WRONG_GAME_MSG);
+			return false;
+		}
+		if (player.isObserver() && (type == CommandType.MAKE_MOVE || type == CommandType.RESIGN)) {
+			this.connections.send(session, NOT_PLAYING_ERROR);
+			return false;
+		}
+		return true;
 	}
 
-	// ENDPOINTS
+	/**
+	 * Handles a binary MAKE_MOVE frame, see websocket.BinaryFrame. The frame carries no
+	 * token, so it is only taken from a session that has connected to a game, as the user
+	 * it connected as, while the token it connected with is still valid, and only for the
+	 * game it connected to.
+	 */
+	@Override
+	public void handleBinaryMessage(WsBinaryMessageContext ctx) {
+		Session session = ctx.session;
+		ByteBuffer frame = ByteBuffer.wrap(ctx.data(), ctx.offset(), ctx.length());
 
-	private void connect(WsMessageContext ctx) throws IOException {
+		try {
+			PlayerSession player = this.sessions.get(session);
+			if (player == null) {
+				this.connections.send(session, NO_AUTH_MSG);
+				return;
+			}
+			if (this.authenticate(session, player.authToken()) == null) {
+				return;
+			}
 
-		// Extract relevant info from context
-		UserGameCommand cmd = GSON.fromJson(ctx.message(), UserGameCommand.class);
+			if (BinaryFrame.readType(frame) != BinaryFrame.MAKE_MOVE) {
+				this.connections.send(session, INVALID_FRAME_MSG);
+				return;
+			}
+			int gameID = BinaryFrame.readInt(frame);
+			if (gameID != player.gameID()) {
+				this.connections.send(session, INVALID_FRAME_MSG);
+				return;
+			}
+			if (player.isObserver()) {
+				this.connections.send(session, NOT_PLAYING_ERROR);
+				return;
+			}
+			int move = BinaryFrame.readMove(frame);
 
+			this.sequence(gameID, session,
+					() -> this.applyMove(gameID, player.username(), player.seat(), ChessMove.unpack(move), session));
+		} catch (IllegalArgumentException | BufferUnderflowException ex) {
+			this.connections.send(session, INVALID_FRAME_MSG);
+		} catch (IOException ex) {
+			ex.printStackTrace();
+		}
+	}
 
-		String authToken = cmd.getAuthToken();
-		int gameID = cmd.getGameID();
-		Session session = ctx.session;
+	/**
+	 * Parses a command once, as the class its type calls for
+	 */
+	private static UserGameCommand parseCommand(String message) {
+		JsonObject json = JsonParser.parseString(message).getAsJsonObject();
+		CommandType type = GSON.fromJson(json.get("commandType"), CommandType.class);
+
+		Class<? extends UserGameCommand> commandClass = switch (type) {
+			case CONNECT -> ConnectCommand.class;
+			case MAKE_MOVE -> MakeMoveCommand.class;
+			case ANALYZE -> AnalyzeCommand.class;
+			case MATCH -> MatchCommand.class;
+			case null, default -> UserGameCommand.class;
+		};
+		return GSON.fromJson(json, commandClass);
+	}
 
-		
-		// Get the auth data for the username
-		AuthData authData;
+	/**
+	 * Looks up the user a token belongs to, telling the session if it can't
+	 *
+	 * @return The username, or null if the session was sent an error
+	 */
+	private String authenticate(Session session, String authToken) throws IOException {
 		try {
-			authData = this.authDAO.getAuth(authToken);
+			return this.authDAO.getAuth(authToken).username();
 		} catch (AuthenticationException ex) {
-			session.getRemote().sendString(NO_AUTH_MSG);
-			return;
+			this.connections.send(session, NO_AUTH_MSG);
 		} catch (DataAccessException ex) {
-			session.getRemote().sendString(INT_ERROR_MSG);
+			this.connections.send(session, INT_ERROR_MSG);
 			ex.printStackTrace();
-			return;
 		}
+		return null;
+	}
+
+	@FunctionalInterface
+	private interface GameCommand {
+		void run() throws IOException;
+	}
+
+	/**
+	 * Queues a command behind the game's other commands, or tells the sender the game is busy
+	 */
+	private void sequence(int gameID, Session session, GameCommand command) throws IOException {
+		boolean accepted = this.sequencer.submit(gameID, () -> {
+			try {
+				command.run();
+			} catch (IOException ex) {
+				ex.printStackTrace();
+			}
+		});
+
+		if (!accepted) {
+			this.sendError(session, GAME_BUSY_MSG);
+		}
+	}
+
+	@Override
+	public void handleClose(WsCloseContext ctx) {
+		this.connections.closeAllSessions(ctx.session);
+		this.sessions.remove(ctx.session);
+
+		QueuedMatch queued = this.queuedMatches.remove(ctx.session);
+		if (queued != null) {
+			this.matchmakingService.cancelUser(queued.username(), queued.listener());
+		}
+
+		Set<AnalysisJob> jobs = this.analysisJobs.remove(ctx.session);
+		if (jobs != null) {
+			jobs.forEach(AnalysisJob::cancel);
+		}
+	}
+
+	/**
+	 * Closes the sessions that connected with a token once it is removed
+	 */
+	@Override
+	public void removed(String authToken) {
+		this.sessions.forEach((session, player) -> {
+			if (player.authToken().equals(authToken)) {
+				session.close(OutboundQueues.POLICY_VIOLATION, "Logged out");
+			}
+		});
+	}
+
+	/**
+	 * Closes every session that connected to a game once all tokens are removed
+	 */
+	@Override
+	public void cleared() {
+		this.sessions.keySet().forEach(session -> session.close(OutboundQueues.POLICY_VIOLATION, "Logged out"));
+	}
+
+	// ENDPOINTS
+
+	private void connect(Session session, UserGameCommand cmd, String username) throws IOException {
+		int gameID = cmd.getGameID();
+
 		// Get the game data and verify that it exists
 		GameData gameData;
 		try {
 			gameData = this.gameDAO.getGame(String.valueOf(gameID));
 		} catch (DataAccessException ex) {
-			session.getRemote().sendString(GAME_NO_EXIST_MSG);
+			this.connections.send(session, GAME_NO_EXIST_MSG);
 			return;
 		}
 
-		this.connections.add(gameID, session);
-
-		String username = authData.username();
+		ConnectCommand connectCmd = cmd instanceof ConnectCommand c ? c : new ConnectCommand(cmd.getAuthToken(), gameID);
 
-		String teamColor;
+		TeamColor seat;
 		if (username.equals(gameData.whiteUsername())) {
-			teamColor = TeamColor.WHITE.toString();
+			seat = TeamColor.WHITE;
 		} else if (username.equals(gameData.blackUsername())) {
-			teamColor = TeamColor.BLACK.toString();
+			seat = TeamColor.BLACK;
 		} else {
-			teamColor = "observer";
+			seat = null;
 		}
 
+		// Later commands on this session are checked against who it connected as
+		PlayerSession player = new PlayerSession(cmd.getAuthToken(), username, gameID, seat);
+		this.sessions.put(session, player);
+		if (!this.connections.add(gameID, session, moveFormat(connectCmd), player.isObserver())) {
+			// Closed while this waited behind the game's other commands
+			this.sessions.remove(session, player);
+			return;
+		}
+		this.resumeClock(gameID, gameData.game());
 
-		ServerMessage notification = new PlayerJoinNotification(username, teamColor); 
+		// A resigned game stays over for everyone who connects later
+		synchronized (gameData.game()) {
+			if (gameData.game().getResigned() != null) {
+				this.connections.setGameInactive(gameID);
+			}
+		}
 
-		this.connections.broadcast(gameID, session, notification);
+		// A client coming back from a dropped connection only needs what it missed. Nobody
+		// was told it left, so nobody is told it's back.
+		List<String> missed = this.missedEvents(gameID, connectCmd, username);
+		if (missed != null) {
+			missed.forEach(event -> this.connections.send(session, event));
+			this.requestBotMove(gameID, gameData);
+			return;
+		}
+
+		ServerMessage notification = new PlayerJoinNotification(username, player.seatName()); 
 
-		notification = new RedrawBoardMessage(gameData.game());
+		this.connections.broadcast(gameID, session, username, notification);
 
-		session.getRemote().sendString(notification.toJson());
+		// The board comes with the sequence number later move updates follow on from. It is
+		// serialized once per move, however many sessions join.
+		this.connections.sendSnapshot(gameID, session, gameData);
+
+		// A bot playing white waits for someone to show up before its first move
+		this.requestBotMove(gameID, gameData);
 	}
 
-	private void makeMove(WsMessageContext ctx) throws IOException {
-		// Extract relevant info from the context
-		MakeMoveCommand cmd = GSON.fromJson(ctx.message(), MakeMoveCommand.class);
-		String authToken = cmd.getAuthToken();
-		int gameID = cmd.getGameID();
-		ChessMove move = cmd.getMove();
+	/**
+	 * @return How a client asked to be told about moves
+	 */
+	private static MoveFormat moveFormat(ConnectCommand cmd) {
+		if (cmd.wantsBinaryFrames()) {
+			return MoveFormat.BINARY;
+		}
+		return cmd.wantsMoveUpdates() ? MoveFormat.JSON : MoveFormat.BOARD;
+	}
 
+	/**
+	 * @return The events a resuming client missed, or null if it needs the whole board
+	 */
+	private List<String> missedEvents(int gameID, ConnectCommand cmd, String username) {
+		// Clients taking whole boards can't be caught up with move updates
+		if (cmd.getLastSeenSeq() == null || !cmd.wantsMoveUpdates()) {
+			return null;
+		}
+		return this.connections.eventsAfter(gameID, cmd.getLastSeenSeq(), username);
+	}
 
-		Session session = ctx.session;
-		// Get the auth data for the username
-		AuthData authData;
-		try {
-			authData = this.authDAO.getAuth(authToken);
-		} catch (AuthenticationException ex) {
-			session.getRemote().sendString(NO_AUTH_MSG);
-			return;
-		} catch (DataAccessException ex) {
-			session.getRemote().sendString(INT_ERROR_MSG);
-			ex.printStackTrace();
-			return;
+	private void makeMove(Session session, MakeMoveCommand cmd, String username, PlayerSession player)
+			throws IOException {
+		this.applyMove(cmd.getGameID(), username, player == null ? null : player.seat(), cmd.getMove(), session);
+	}
+
+	/**
+	 * Called on a bot thread with the move a bot chose
+	 */
+	private void botMove(int gameID, String botUsername, ChessMove move) {
+		boolean accepted = this.sequencer.submit(gameID, () -> {
+			try {
+				this.applyMove(gameID, botUsername, null, move, null);
+			} catch (IOException ex) {
+				ex.printStackTrace();
+			}
+		});
+
+		// The game is flooded; the bot thinks again once it has room
+		if (!accepted) {
+			this.botService.requestMove(gameID);
 		}
+	}
 
+	/**
+	 * Validates a move, makes it, and tells everyone connected to the game. Players and
+	 * bots both move through here.
+	 *
+	 * @param gameID The game
+	 * @param username The player making the move
+	 * @param seat The color the player's session connected as, or null for whichever they hold
+	 * @param move The move
+	 * @param session The player's session, for error replies, or null for a bot
+	 */
+	private void applyMove(int gameID, String username, TeamColor seat, ChessMove move, Session session)
+			throws IOException {
 		// Get the game data and verify that it exists
 		GameData gameData;
 		try {
 			gameData = this.gameDAO.getGame(String.valueOf(gameID));
 		} catch (DataAccessException ex) {
-			session.getRemote().sendString(GAME_NO_EXIST_MSG);
+			this.sendError(session, GAME_NO_EXIST_MSG);
 			return;
 		}
 
 		// Verify that it is the player's turn who is trying to make the move
-		String username = authData.username();
 		TeamColor activeTeam = gameData.game().getTeamTurn();
 
 		String activeUser;
@@ -194,43 +497,89 @@ public class WebSocketHandler implements WsConnectHandler, WsMessageHandler, WsC
 				activeUser = gameData.blackUsername();
 				break;
 			default:
-				session.getRemote().sendString(INT_ERROR_MSG);
+				this.sendError(session, INT_ERROR_MSG);
 				return;
 		}
 
-		// make sure that the activeUser matches the username
-		if (!activeUser.equals(username)) {
-			session.getRemote().sendString(NOT_TURN_MSG);
+		// make sure that the activeUser matches the username, and the seat it connected as
+		if (!activeUser.equals(username) || (seat != null && seat != activeTeam)) {
+			this.sendError(session, NOT_TURN_MSG);
+			return;
+		}
+
+		// A bot only moves while someone is connected; it is asked again when they reconnect
+		if (session == null && !this.connections.connExists(gameID)) {
 			return;
 		}
 
 		// Verify that the game hasn't ended allready
 		if (!this.connections.isGameActive(gameID)) {
-			session.getRemote().sendString(GAME_CLOSED_MSG);
+			this.sendError(session, GAME_CLOSED_MSG);
 			return;
 		}
 
-		// Make the move
+		// Make the move and punch the clock. The game is shared with the write-behind flush,
+		// which copies it while holding the same lock.
+		ChessClock clock = gameData.game().getClock();
+		MoveAppliedMessage.Status status;
+		long deadlineMillis;
 		try {
-			gameData.game().makeMove(move);
+			synchronized (gameData.game()) {
+				long nowMillis = System.currentTimeMillis();
+				if (clock != null && clock.isOutOfTime(nowMillis)) {
+					status = null;
+				} else {
+					gameData.game().makeMove(move);
+
+					status = MoveAppliedMessage.statusOf(gameData.game());
+					if (clock != null) {
+						if (status == MoveAppliedMessage.Status.CHECKMATE || status == MoveAppliedMessage.Status.STALEMATE) {
+							clock.stop(nowMillis);
+						} else {
+							clock.punch(activeTeam, nowMillis);
+						}
+					}
+				}
+				deadlineMillis = clock == null ? Long.MAX_VALUE : clock.getDeadlineMillis();
+			}
 		} catch (InvalidMoveException ex) {
-			session.getRemote().sendString(INVALID_MOVE_MSG);
+			this.sendError(session, INVALID_MOVE_MSG);
 			return;
 		}
 
-		// Update the game in the database
+		// The mover's flag fell before the wheel got to it
+		if (status == null) {
+			this.flagFall(gameID);
+			this.sendError(session, GAME_CLOSED_MSG);
+			return;
+		}
+
+		// Update the game in memory and queue it to be written to the database. Only the board
+		// changes, so seats taken or freed since the game was read are kept.
+		ChessGame movedGame = gameData.game();
 		try {
-			this.gameDAO.updateGame(Integer.toString(gameID), gameData);
+			gameData = this.gameDAO.modifyGame(Integer.toString(gameID), current -> new GameData(
+					current.gameID(), current.whiteUsername(), current.blackUsername(), current.gameName(), movedGame));
 		} catch (DataAccessException ex) {
-			session.getRemote().sendString(INT_ERROR_MSG);
+			this.sendError(session, INT_ERROR_MSG);
 			return;
 		}
 
-		// Tell all connected players to redraw their screen
-		this.connections.broadcastAll(gameID, new RedrawBoardMessage());
+		// Tell all connected players to redraw their screen. Clients that asked for move
+		// updates are sent just the move and apply it themselves; the rest get the board,
+		// since game listings no longer carry boards.
+		if (deadlineMillis != Long.MAX_VALUE) {
+			this.clockWheel.schedule(gameID, deadlineMillis);
+		} else {
+			this.clockWheel.cancel(gameID);
+		}
+
+		ChessGame game = gameData.game();
+		this.connections.broadcastMove(gameID, gameData.version(), new RedrawBoardMessage(game),
+				new MoveAppliedMessage(gameID, game.getMoveHistory().size(), move, status));
 		// Send out notifications to all connected players
 		ServerMessage moveNotification = new PlayerMoveNotification(username, move); 
-		this.connections.broadcast(gameID, session, moveNotification);
+		this.connections.broadcast(gameID, session, username, moveNotification);
 
 		// check to see if there is a player in check/checkmate/stalemate
 		String otherUsername;
@@ -240,6 +589,30 @@ public class WebSocketHandler implements WsConnectHandler, WsMessageHandler, WsC
 			otherUsername = gameData.whiteUsername();
 		}
 		checkMateStalemateCheck(gameData, otherUsername, session);
+
+		this.requestBotMove(gameID, gameData);
+	}
+
+	/**
+	 * Queues a bot move if it is a bot's turn in an active game
+	 */
+	private void requestBotMove(int gameID, GameData gameData) {
+		TeamColor activeTeam = gameData.game().getTeamTurn();
+		String activeUser = activeTeam == TeamColor.WHITE ? gameData.whiteUsername() : gameData.blackUsername();
+
+		if (BotProfile.fromUsername(activeUser) != null && this.connections.connExists(gameID) &&
+			this.connections.isGameActive(gameID)) {
+			this.botService.requestMove(gameID);
+		}
+	}
+
+	/**
+	 * Sends an error to a player, or drops it if the move came from a bot
+	 */
+	private void sendError(Session session, String errorMsg) throws IOException {
+		if (session != null) {
+			this.connections.send(session, errorMsg);
+		}
 	}
 
 	private void checkMateStalemateCheck(GameData gameData, String username, Session session) throws IOException {
@@ -248,18 +621,21 @@ public class WebSocketHandler implements WsConnectHandler, WsMessageHandler, WsC
 		boolean gameOver = false;
 		int gameID = Integer.parseInt(gameData.gameID());
 
-		for (ChessGame.TeamColor color : TeamColor.values()) {
-			if (game.isInCheckmate(color)) {
-				msg = new CheckmateNotification(username);
-				gameOver = true;
-				break;
-			} else if (game.isInCheck(color)) {
-				msg = new CheckNotification(username);
-				break;
-			} else if (game.isInStalemate(color)) {
-				msg = new StalemateNotification(username);
-				gameOver = true;
-				break;
+		// The mate checks try moves on the live board, which the flush may be copying
+		synchronized (game) {
+			for (ChessGame.TeamColor color : TeamColor.values()) {
+				if (game.isInCheckmate(color)) {
+					msg = new CheckmateNotification(username);
+					gameOver = true;
+					break;
+				} else if (game.isInCheck(color)) {
+					msg = new CheckNotification(username);
+					break;
+				} else if (game.isInStalemate(color)) {
+					msg = new StalemateNotification(username);
+					gameOver = true;
+					break;
+				}
 			}
 		}
 
@@ -271,117 +647,128 @@ public class WebSocketHandler implements WsConnectHandler, WsMessageHandler, WsC
 			// ServerMessage gameOverMsg = new GameOverMessage();
 			// this.connections.broadcastAll(gameID, gameOverMsg);
 			this.connections.setGameInactive(gameID);
+			this.lobbyCache.invalidate();
 		}
 	}
 
-	private void leave(WsMessageContext ctx) throws IOException {
-		UserGameCommand cmd = GSON.fromJson(ctx.message(), UserGameCommand.class);
-
+	private void leave(Session session, UserGameCommand cmd, String username, PlayerSession player)
+			throws IOException {
 		int gameID = cmd.getGameID();
-		String authToken = cmd.getAuthToken();
-		Session session = ctx.session;
-
-		this.connections.remove(gameID, session);
-
-		AuthData auth;
-		try {
-			auth = this.authDAO.getAuth(authToken);
-		} catch (DataAccessException ex) {
-			ex.printStackTrace();
-			return;
-		} catch (AuthenticationException ex) {
-			ex.printStackTrace();
-			return;
-		}
-
-		String username = auth.username();
 
-		// open up the game for another user to join, if the player is actively playing
+		// The game stays in memory until the connection is removed, so look at it first
 		GameData gameData;
 		try {
 			gameData = this.gameDAO.getGame(Integer.toString(gameID));
 		} catch (DataAccessException ex) {
-			session.getRemote().sendString(INT_ERROR_MSG);
+			this.connections.remove(gameID, session);
+			this.connections.send(session, GAME_NO_EXIST_MSG);
 			return;
 		}
 
-		GameData newGameData = null;
-		if (gameData.whiteUsername().equals(username)) {
-			newGameData = new GameData(
-					gameData.gameID(),
-					"",
-					gameData.blackUsername(),
-					gameData.gameName(),
-					gameData.game());
-
-		} else if (gameData.blackUsername().equals(username)) {
-			newGameData = new GameData(
-					gameData.gameID(),
-					gameData.whiteUsername(),
-					"",
-					gameData.gameName(),
-					gameData.game());
-		}
-
-		if (newGameData != null) {
+		// open up the game for another user to join, if the player is actively playing
+		if (seatOf(gameData, username, player) != null) {
 			try {
-				this.gameDAO.updateGame(gameData.gameID(), newGameData);
+				this.gameDAO.modifyGame(Integer.toString(gameID), current -> {
+					TeamColor seat = seatOf(current, username, player);
+					if (seat == TeamColor.WHITE) {
+						return new GameData(
+								current.gameID(),
+								"",
+								current.blackUsername(),
+								current.gameName(),
+								current.game());
+
+					} else if (seat == TeamColor.BLACK) {
+						return new GameData(
+								current.gameID(),
+								current.whiteUsername(),
+								"",
+								current.gameName(),
+								current.game());
+					}
+					return null;
+				});
 			} catch (DataAccessException ex) {
-				session.getRemote().sendString(INT_ERROR_MSG);
+				this.connections.remove(gameID, session);
+				this.connections.send(session, INT_ERROR_MSG);
+				return;
 			}
+			this.lobbyCache.invalidate();
 		}
+
+		this.connections.remove(gameID, session);
+		this.sessions.computeIfPresent(session, (key, bound) -> bound.gameID() == gameID ? null : bound);
 		
 		ServerMessage notification = new PlayerLeaveNotification(username);
 
-		this.connections.broadcast(gameID, session, notification);
+		this.connections.broadcast(gameID, session, username, notification);
 	}
 
-	private void resign(WsMessageContext ctx) throws IOException {
-		// Extract necessary info from the context object
-		UserGameCommand cmd = GSON.fromJson(ctx.message(), UserGameCommand.class);
+	private void resign(Session session, UserGameCommand cmd, String username, PlayerSession player)
+			throws IOException {
 		int gameID = cmd.getGameID();
-		String authToken = cmd.getAuthToken();
-		Session session = ctx.session;
-		
-		// Verify authData
-		AuthData auth;
-		try {
-			auth = this.authDAO.getAuth(authToken);
-		} catch (DataAccessException ex) {
-			session.getRemote().sendString(INT_ERROR_MSG);
-			return;
-		} catch (AuthenticationException ex) {
-			session.getRemote().sendString(NO_AUTH_MSG);
-			return;
-		}
 
 		// get the game data
 		GameData gameData;
 		try {
 			gameData = this.gameDAO.getGame(Integer.toString(gameID));
 		} catch (DataAccessException ex) {
-			session.getRemote().sendString(INT_ERROR_MSG);
+			this.connections.send(session, INT_ERROR_MSG);
 			return;
 		}
 
 		// Make sure that the game isn't already over
 		if (!this.connections.isGameActive(gameID)) {
-			session.getRemote().sendString(GAME_CLOSED_MSG);
+			this.connections.send(session, GAME_CLOSED_MSG);
+			return;
+		}
+
+		// verify that the player resigning is still in the seat the session connected as
+		if (seatOf(gameData, username, player) == null) {
+			this.connections.send(session, NOT_PLAYING_ERROR);
 			return;
 		}
 
-		// verify that the player resigning is actually playing in the game
-		String username = auth.username();
-		String blackUsername = gameData.blackUsername();
-		String whiteUsername = gameData.whiteUsername();
+		// The resignation is recorded on the data being written, so the game is stored as
+		// finished. A pinned game resigned by an attempt that lost its write is still ours.
+		long nowMillis = System.currentTimeMillis();
+		String[] error = { null };
+		try {
+			this.gameDAO.modifyGame(Integer.toString(gameID), current -> {
+				error[0] = NOT_PLAYING_ERROR;
+				TeamColor color = seatOf(current, username, player);
+				if (color == null) {
+					return null;
+				}
+
+				ChessGame game = current.game();
+				synchronized (game) {
+					if (game.getResigned() != color && !game.resign(color)) {
+						error[0] = GAME_CLOSED_MSG;
+						return null;
+					}
+					ChessClock clock = game.getClock();
+					if (clock != null && clock.isRunning()) {
+						clock.stop(nowMillis);
+					}
+				}
+				error[0] = null;
+				return new GameData(current.gameID(), current.whiteUsername(), current.blackUsername(),
+						current.gameName(), game);
+			});
+		} catch (DataAccessException ex) {
+			this.connections.send(session, INT_ERROR_MSG);
+			return;
+		}
 
-		if (!username.equals(blackUsername) && 
-				!username.equals(whiteUsername)) {
-			session.getRemote().sendString(NOT_PLAYING_ERROR);
+		if (error[0] != null) {
+			this.connections.send(session, error[0]);
 			return;
 		}
 
+		this.clockWheel.cancel(gameID);
 		this.connections.setGameInactive(gameID);
+		this.lobbyCache.invalidate();
 
 		ServerMessage notification = new PlayerResignNotification(username);
 
@@ -392,4 +779,286 @@ public class WebSocketHandler implements WsConnectHandler, WsMessageHandler, WsC
 
 		// this.connections.broadcastAll(gameID, gameOverMsg);
 	}
+
+	/**
+	 * Finds the seat a command acts for. The seat is read from the game, since it may have
+	 * changed since the session connected.
+	 *
+	 * @param player The session's binding, or null to take whichever seat the user holds
+	 *
+	 * @return The seat, or null if the user doesn't hold it
+	 */
+	private static TeamColor seatOf(GameData gameData, String username, PlayerSession player) {
+		if (player != null) {
+			TeamColor seat = player.seat();
+			if (seat == null) {
+				return null;
+			}
+			String seated = seat == TeamColor.WHITE ? gameData.whiteUsername() : gameData.blackUsername();
+			return username.equals(seated) ? seat : null;
+		}
+
+		if (username.equals(gameData.whiteUsername())) {
+			return TeamColor.WHITE;
+		} else if (username.equals(gameData.blackUsername())) {
+			return TeamColor.BLACK;
+		}
+		return null;
+	}
+
+	//
+	// ===== CLOCKS =====
+	//
+
+	/**
+	 * Picks up a timed game's clock when someone connects. A game that ran out of time is
+	 * over, and a running clock goes back on the wheel, as it must after a restart.
+	 */
+	private void resumeClock(int gameID, ChessGame game) {
+		ChessClock clock = game.getClock();
+		if (clock == null) {
+			return;
+		}
+
+		long deadlineMillis;
+		synchronized (game) {
+			if (clock.getFlagged() != null) {
+				this.connections.setGameInactive(gameID);
+				return;
+			}
+			deadlineMillis = clock.getDeadlineMillis();
+		}
+
+		if (deadlineMillis != Long.MAX_VALUE) {
+			this.clockWheel.schedule(gameID, deadlineMillis);
+		}
+	}
+
+	/**
+	 * Puts the clock of every timed game still running back on the wheel, so a game nobody
+	 * reconnects to after a restart still ends when its time runs out
+	 */
+	public void resumeClocks() {
+		Map<Integer, Long> deadlines;
+		try {
+			deadlines = this.gameDAO.getClockDeadlines();
+		} catch (DataAccessException ex) {
+			ex.printStackTrace();
+			return;
+		}
+
+		deadlines.forEach(this.clockWheel::schedule);
+	}
+
+	/**
+	 * Called on the wheel thread when a game's clock may have run out
+	 */
+	private void clockExpired(int gameID) {
+		boolean accepted = this.sequencer.submit(gameID, () -> this.flagFall(gameID));
+
+		// The game is flooded; the wheel tries again on its next tick
+		if (!accepted) {
+			this.clockWheel.schedule(gameID, System.currentTimeMillis());
+		}
+	}
+
+	/**
+	 * Ends a game whose side to move is out of time, telling everyone connected to it like
+	 * any other game over. Does nothing if a move got in first.
+	 */
+	private void flagFall(int gameID) {
+		// The flag is set on the data being written, which is a fresh copy unless the game
+		// is pinned. A pinned game flagged by an attempt that lost its write is still ours.
+		long nowMillis = System.currentTimeMillis();
+		TeamColor[] loser = { null };
+		long[] deadlineMillis = { Long.MAX_VALUE };
+		GameData gameData;
+		try {
+			gameData = this.gameDAO.modifyGame(Integer.toString(gameID), current -> {
+				ChessClock clock = current.game().getClock();
+				if (clock == null) {
+					return null;
+				}
+				synchronized (current.game()) {
+					if (clock.getFlagged() == null) {
+						loser[0] = null;
+						deadlineMillis[0] = clock.getDeadlineMillis();
+						if (!clock.isOutOfTime(nowMillis)) {
+							return null;
+						}
+						loser[0] = clock.flag();
+					} else if (clock.getFlagged() != loser[0]) {
+						loser[0] = null;
+						return null;
+					}
+				}
+				return new GameData(current.gameID(), current.whiteUsername(), current.blackUsername(),
+						current.gameName(), current.game());
+			});
+		} catch (DataAccessException ex) {
+			ex.printStackTrace();
+			return;
+		}
+
+		if (loser[0] == null) {
+			// Moved in time; the clock is on a new deadline, or stopped
+			if (deadlineMillis[0] != Long.MAX_VALUE) {
+				this.clockWheel.schedule(gameID, deadlineMillis[0]);
+			}
+			return;
+		}
+
+		this.lobbyCache.invalidate();
+
+		if (this.connections.connExists(gameID)) {
+			String username = loser[0] == TeamColor.WHITE ? gameData.whiteUsername() : gameData.blackUsername();
+
+			this.connections.setGameInactive(gameID);
+			this.connections.broadcastAll(gameID, new TimeoutNotification(username));
+		}
+	}
+
+	/**
+	 * Called on the write-behind thread when a game's unwritten moves were dropped because
+	 * another server changed it first
+	 */
+	private void gameConflicted(int gameID) {
+		boolean accepted = this.sequencer.submit(gameID, () -> this.resync(gameID));
+		if (!accepted) {
+			// Flooded; drop what the clients were shown, which is as stale either way
+			this.connections.broadcastAll(gameID, new GameResyncedError());
+		}
+	}
+
+	/**
+	 * Sends everyone connected to a game the game as it was saved, after moves they were
+	 * shown were dropped
+	 */
+	private void resync(int gameID) {
+		GameData gameData;
+		try {
+			gameData = this.gameDAO.getGame(Integer.toString(gameID));
+		} catch (DataAccessException ex) {
+			ex.printStackTrace();
+			return;
+		}
+
+		this.lobbyCache.invalidate();
+		if (!this.connections.connExists(gameID)) {
+			return;
+		}
+
+		this.connections.broadcastAll(gameID, new GameResyncedError());
+		this.connections.broadcastBoard(gameID, new RedrawBoardMessage(gameData.game()));
+		this.resumeClock(gameID, gameData.game());
+	}
+
+	/**
+	 * Sends the whole board again to a client that missed a move update
+	 */
+	private void sync(Session session, UserGameCommand cmd) throws IOException {
+		int gameID = cmd.getGameID();
+
+		GameData gameData;
+		try {
+			gameData = this.gameDAO.getGame(Integer.toString(gameID));
+		} catch (DataAccessException ex) {
+			this.connections.send(session, GAME_NO_EXIST_MSG);
+			return;
+		}
+
+		// Sequenced behind the game's moves, so the number matches the board
+		this.connections.sendSnapshot(gameID, session, gameData);
+	}
+
+	private void analyze(Session session, AnalyzeCommand cmd) throws IOException {
+		int gameID = cmd.getGameID();
+
+		AnalysisRequest request = new AnalysisRequest(cmd.getAuthToken(), String.valueOf(gameID),
+				cmd.getDepth(), cmd.getTimeMillis(), cmd.getNodes());
+
+		// The search runs on the analysis executor; each finished depth is streamed back from there
+		AnalysisJob job;
+		try {
+			job = this.analysisService.submit(request, pv -> this.sendAnalysis(session, new AnalysisMessage(gameID, pv, false)));
+		} catch (AuthenticationException ex) {
+			this.connections.send(session, NO_AUTH_MSG);
+			return;
+		} catch (QuotaExceededException ex) {
+			this.connections.send(session, ANALYSIS_BUSY_MSG);
+			return;
+		} catch (IllegalArgumentException ex) {
+			this.connections.send(session, INVALID_LIMITS_MSG);
+			return;
+		} catch (DataAccessException ex) {
+			this.connections.send(session, GAME_NO_EXIST_MSG);
+			return;
+		}
+
+		Set<AnalysisJob> jobs = this.analysisJobs.computeIfAbsent(session, k -> ConcurrentHashMap.newKeySet());
+		jobs.add(job);
+
+		job.result().whenComplete((pv, ex) -> {
+			jobs.remove(job);
+			if (pv != null) {
+				this.sendAnalysis(session, new AnalysisMessage(gameID, pv, true));
+			}
+		});
+	}
+
+	/**
+	 * Queues the session's user for a game, telling them which once they are seated
+	 */
+	private void match(Session session, MatchCommand cmd, String username) throws IOException {
+		MatchListener listener = result -> {
+			this.queuedMatches.computeIfPresent(session, (s, queued) -> queued.username().equals(username) ? null : queued);
+			this.sendMatch(session, result);
+		};
+
+		// Put first, so a pairing made as soon as it's queued can't leave it behind
+		QueuedMatch queued = new QueuedMatch(username, listener);
+		QueuedMatch replaced = this.queuedMatches.put(session, queued);
+		if (replaced != null && !replaced.username().equals(username)) {
+			this.matchmakingService.cancelUser(replaced.username(), replaced.listener());
+		}
+
+		MatchResult result;
+		try {
+			result = this.matchmakingService.enqueue(new MatchRequest(cmd.getAuthToken(), cmd.getRating()), listener);
+		} catch (AuthenticationException ex) {
+			this.queuedMatches.remove(session);
+			this.connections.send(session, NO_AUTH_MSG);
+			return;
+		} catch (IllegalArgumentException ex) {
+			this.queuedMatches.remove(session);
+			this.connections.send(session, INVALID_RATING_MSG);
+			return;
+		} catch (AlreadyTakenException ex) {
+			// The match being seated tells the listener it was queued with, so that stays
+			if (replaced != null && replaced.username().equals(username)) {
+				this.queuedMatches.replace(session, queued, replaced);
+			} else {
+				this.queuedMatches.remove(session, queued);
+			}
+			this.connections.send(session, MATCH_PENDING_MSG);
+			return;
+		} catch (DataAccessException ex) {
+			this.queuedMatches.remove(session);
+			this.connections.send(session, INT_ERROR_MSG);
+			return;
+		}
+
+		if (!result.isWaiting()) {
+			this.queuedMatches.remove(session);
+			this.sendMatch(session, result);
+		}
+	}
+
+	private void sendMatch(Session session, MatchResult result) {
+		this.connections.send(session, new MatchFoundMessage(Integer.parseInt(result.gameID()), result.playerColor()));
+	}
+
+	private void sendAnalysis(Session session, AnalysisMessage msg) {
+		this.connections.send(session, msg);
+	}
 }
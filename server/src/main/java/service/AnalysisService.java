@@ -0,0 +1,285 @@
+package service;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import chess.ChessGame;
+import chess.ZobristHash;
+import chess.search.PrincipalVariation;
+import chess.search.SearchEngine;
+import chess.search.SearchLimits;
+
+import dataaccess.*;
+
+import model.GameData;
+
+import server.metrics.MetricsRegistry;
+import util.LruCache;
+
+/**
+ * Runs engine analysis of game positions off the request threads.
+ *
+ * Every analysis runs on its own virtual thread, but only maxConcurrent of them search at
+ * once; the rest wait for a permit. Requests beyond queueSize, or beyond userQuota running
+ * analyses for one user, are refused with a QuotaExceededException rather than queued.
+ * Requested limits are clamped to MAX_LIMITS, and finished results are cached by position,
+ * castling and en passant rights, and depth. Lines only hold moves the game allows.
+ */
+public class AnalysisService extends AuthenticableService {
+
+	//
+	// ================== STATIC PUBLIC CLASSES =====================
+	//
+
+	/**
+	 * Any of the limits may be null to use the defaults
+	 */
+	public static record AnalysisRequest(String authToken, String gameID, Integer depth, Long timeMillis, Long nodes) {}
+	public static record AnalysisResult(PrincipalVariation analysis) {}
+
+	/**
+	 * A submitted analysis.
+	 */
+	public static class AnalysisJob {
+		private final CompletableFuture<PrincipalVariation> result = new CompletableFuture<>();
+		private volatile boolean cancelled = false;
+
+		/**
+		 * @return Completes with the final line, or exceptionally if the analysis failed
+		 */
+		public CompletableFuture<PrincipalVariation> result() {
+			return this.result;
+		}
+
+		/**
+		 * Stops the search. The result completes with the best line found so far.
+		 */
+		public void cancel() {
+			this.cancelled = true;
+		}
+
+		public boolean isCancelled() {
+			return this.cancelled;
+		}
+	}
+
+	//
+	// ================== STATIC ATTRIBUTES =====================
+	//
+
+	public static final SearchLimits MAX_LIMITS = new SearchLimits(8, 2_000_000, 10_000);
+	public static final SearchLimits DEFAULT_LIMITS = new SearchLimits(5, 500_000, 3_000);
+
+	public static final int DEFAULT_MAX_CONCURRENT = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+	public static final int DEFAULT_QUEUE_SIZE = 64;
+	public static final int DEFAULT_USER_QUOTA = 2;
+
+	public static final long DEFAULT_CACHE_BYTES = 8L << 20;
+
+	private static record CacheKey(long hash, int rights, int depth) {}
+
+	//
+	// ================== CONSTRUCTORS =====================
+	//
+
+	private final AuthDAO authDAO;
+	private final GameDAO gameDAO;
+	private final SearchEngine engine;
+
+	private final int queueSize;
+	private final int userQuota;
+
+	private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+	private final Semaphore searchPermits;
+	private final AtomicInteger pending = new AtomicInteger();
+	private final ConcurrentHashMap<String, Integer> runningByUser = new ConcurrentHashMap<>();
+
+	private final LruCache<CacheKey, PrincipalVariation> cache =
+		new LruCache<>(DEFAULT_CACHE_BYTES, PrincipalVariation::estimateBytes);
+
+	public AnalysisService(AuthDAO authDAO, GameDAO gameDAO) {
+		this(authDAO, gameDAO, new MetricsRegistry());
+	}
+
+	public AnalysisService(AuthDAO authDAO, GameDAO gameDAO, MetricsRegistry metrics) {
+		this(authDAO, gameDAO, new SearchEngine(), DEFAULT_MAX_CONCURRENT, DEFAULT_QUEUE_SIZE, DEFAULT_USER_QUOTA, metrics);
+	}
+
+	public AnalysisService(AuthDAO authDAO, GameDAO gameDAO, SearchEngine engine,
+			int maxConcurrent, int queueSize, int userQuota) {
+		this(authDAO, gameDAO, engine, maxConcurrent, queueSize, userQuota, new MetricsRegistry());
+	}
+
+	/**
+	 * @param engine The engine to search with
+	 * @param maxConcurrent How many searches may run at once
+	 * @param queueSize How many analyses may be running or waiting in total
+	 * @param userQuota How many analyses one user may have running or waiting
+	 * @param metrics Where to report cache and queue statistics
+	 */
+	public AnalysisService(AuthDAO authDAO, GameDAO gameDAO, SearchEngine engine,
+			int maxConcurrent, int queueSize, int userQuota, MetricsRegistry metrics) {
+		this.authDAO = authDAO;
+		this.gameDAO = gameDAO;
+		this.engine = engine;
+		this.searchPermits = new Semaphore(maxConcurrent, true);
+		this.queueSize = queueSize;
+		this.userQuota = userQuota;
+
+		metrics.registerCache("analysis.cache", this.cache);
+		metrics.gauge("analysis.pending", this.pending::get);
+	}
+
+	//
+	// ================== MEMBER METHODS =====================
+	//
+
+	public SearchEngine getEngine() {
+		return this.engine;
+	}
+
+	/**
+	 * Starts analyzing the current position of a game.
+	 *
+	 * @param request The request
+	 * @param listener Receives the best line after each finished depth, on the search thread
+	 *
+	 * @return The running analysis
+	 *
+	 * @throws IllegalArgumentException if a requested limit is out of range
+	 */
+	public AnalysisJob submit(AnalysisRequest request, Consumer<PrincipalVariation> listener)
+			throws AuthenticationException, DataAccessException, QuotaExceededException {
+		// Throws an AuthenticationException if the token doesn't exist
+		String username = this.authDAO.getAuth(request.authToken()).username();
+		GameData gameData = this.gameDAO.getGame(request.gameID());
+		SearchLimits limits = resolveLimits(request);
+
+		// Search a copy, since the stored game may keep changing while the analysis runs.
+		// It is taken under the game's monitor, so it never catches a half-made move.
+		ChessGame game;
+		synchronized (gameData.game()) {
+			game = gameData.game().copy();
+		}
+
+		AnalysisJob job = new AnalysisJob();
+
+		CacheKey key = new CacheKey(ZobristHash.hash(game), game.getMoveRights(), limits.maxDepth());
+		PrincipalVariation cached = this.cache.get(key);
+		if (cached != null) {
+			listener.accept(cached);
+			job.result.complete(cached);
+			return job;
+		}
+
+		this.reserve(username);
+		try {
+			this.executor.execute(() -> this.run(job, game, limits, key, listener, username));
+		} catch (RuntimeException ex) {
+			this.release(username);
+			throw new DataAccessException("Analysis executor rejected the request", ex);
+		}
+
+		return job;
+	}
+
+	/**
+	 * Analyzes the current position of a game and waits for the result
+	 *
+	 * @param request The request
+	 *
+	 * @return The final line
+	 */
+	public AnalysisResult analyze(AnalysisRequest request)
+			throws AuthenticationException, DataAccessException, QuotaExceededException {
+		AnalysisJob job = this.submit(request, pv -> { });
+
+		try {
+			return new AnalysisResult(job.result().join());
+		} catch (RuntimeException ex) {
+			throw new DataAccessException("Analysis failed", ex);
+		}
+	}
+
+	/**
+	 * Cancels every running analysis and stops accepting new ones
+	 */
+	public void shutdown() {
+		this.executor.shutdownNow();
+	}
+
+	/**
+	 * Fills in missing limits with the defaults and clamps them to the server maximums
+	 *
+	 * @throws IllegalArgumentException if a requested limit is out of range
+	 */
+	private static SearchLimits resolveLimits(AnalysisRequest request) {
+		SearchLimits requested = new SearchLimits(
+				request.depth() != null ? Math.min(request.depth(), SearchLimits.MAX_DEPTH) : DEFAULT_LIMITS.maxDepth(),
+				request.nodes() != null ? request.nodes() : DEFAULT_LIMITS.maxNodes(),
+				request.timeMillis() != null ? request.timeMillis() : DEFAULT_LIMITS.maxTimeMillis());
+
+		return requested.clamp(MAX_LIMITS);
+	}
+
+	private void reserve(String username) throws QuotaExceededException {
+		if (this.pending.incrementAndGet() > this.queueSize) {
+			this.pending.decrementAndGet();
+			throw new QuotaExceededException("Analysis queue is full");
+		}
+
+		boolean[] allowed = { false };
+		this.runningByUser.compute(username, (k, running) -> {
+			int count = running == null ? 0 : running;
+			if (count >= this.userQuota) {
+				return running;
+			}
+			allowed[0] = true;
+			return count + 1;
+		});
+
+		if (!allowed[0]) {
+			this.pending.decrementAndGet();
+			throw new QuotaExceededException("Too many analyses running for " + username);
+		}
+	}
+
+	private void release(String username) {
+		this.pending.decrementAndGet();
+		this.runningByUser.computeIfPresent(username, (k, running) -> running <= 1 ? null : running - 1);
+	}
+
+	private void run(AnalysisJob job, ChessGame game, SearchLimits limits, CacheKey key,
+			Consumer<PrincipalVariation> listener, String username) {
+		boolean acquired = false;
+		try {
+			this.searchPermits.acquire();
+			acquired = true;
+
+			// Searched by the game's rules, so no line castles after the king or rook has moved
+			PrincipalVariation pv = this.engine.search(game, limits, listener, job::isCancelled);
+
+			// Only full-depth results can stand in for a later search to the same depth
+			if (pv.depth() >= limits.maxDepth() || pv.source() != PrincipalVariation.Source.SEARCH || pv.isMate()) {
+				this.cache.put(key, pv);
+			}
+
+			job.result.complete(pv);
+		} catch (InterruptedException ex) {
+			job.result.cancel(false);
+			Thread.currentThread().interrupt();
+		} catch (RuntimeException ex) {
+			job.result.completeExceptionally(ex);
+		} finally {
+			if (acquired) {
+				this.searchPermits.release();
+			}
+			this.release(username);
+		}
+	}
+}
@@ -1,7 +1,5 @@
 package service;
 
-import java.util.UUID;
-
 import dataaccess.AuthDAO;
 import dataaccess.AuthenticationException;
 import dataaccess.DataAccessException;
@@ -9,16 +7,18 @@ import dataaccess.AlreadyTakenException;
 import model.AuthData;
 
 public abstract class AuthenticableService {
+	private final static int MAX_GEN_ATTEMPT_NUM = 512;
+
 	/**
-	 * Generates a new, random authentication token
+	 * Generates a new authentication token, in whatever format the auth database issues
+	 *
+	 * @param dao The data access interface for the auth database
+	 * @param username The user the token is for
 	 *
 	 * @return The auth token
 	 */
-
-	private final static int MAX_GEN_ATTEMPT_NUM = 512;
-
-	protected String generateNewAuthToken() {
-		return UUID.randomUUID().toString();	
+	protected String generateNewAuthToken(AuthDAO dao, String username) {
+		return dao.generateAuthToken(username);
 	}
 
 	/**
@@ -36,7 +36,7 @@ public abstract class AuthenticableService {
 		// Keep generating new authTokens until we find one that is unique
 		int attemptNum = 0;
 		while (attemptNum < MAX_GEN_ATTEMPT_NUM) {
-			data = new AuthData(generateNewAuthToken(), username);
+			data = new AuthData(generateNewAuthToken(dao, username), username);
 
 			// If successfull, won't throw an error and we return the data
 			try {
@@ -0,0 +1,85 @@
+package service;
+
+import chess.search.SearchLimits;
+
+/**
+ * The strength settings of a computer opponent.
+ *
+ * A bot sits in a game under a reserved username, BOT_PREFIX followed by the lower case
+ * profile name, e.g. "@bot-medium". Registration refuses usernames with that prefix.
+ */
+public enum BotProfile {
+	EASY(1, 20_000, 250),
+	MEDIUM(3, 200_000, 1_000),
+	HARD(5, 1_000_000, 3_000);
+
+	//
+	// ============================ STATIC ATTRIBUTES =======================
+	//
+
+	public static final String BOT_PREFIX = "@bot-";
+
+	//
+	// ============================ STATIC METHODS =======================
+	//
+
+	/**
+	 * @return true if a username belongs to a bot, or is reserved for bots
+	 */
+	public static boolean isBotUsername(String username) {
+		return username != null && username.startsWith(BOT_PREFIX);
+	}
+
+	/**
+	 * @return The profile playing under a username, or null if it isn't a bot
+	 */
+	public static BotProfile fromUsername(String username) {
+		if (!isBotUsername(username)) {
+			return null;
+		}
+
+		try {
+			return fromName(username.substring(BOT_PREFIX.length()));
+		} catch (IllegalArgumentException ex) {
+			return null;
+		}
+	}
+
+	/**
+	 * @param name The profile name, in any case; null for the default
+	 *
+	 * @throws IllegalArgumentException if there is no such profile
+	 */
+	public static BotProfile fromName(String name) {
+		return name == null ? MEDIUM : valueOf(name.toUpperCase());
+	}
+
+	//
+	// ============================ MEMBER ATTRIBUTES =======================
+	//
+
+	private final SearchLimits limits;
+
+	//
+	// ============================ CONSTRUCTORS =======================
+	//
+
+	BotProfile(int depth, long nodes, long timeMillis) {
+		this.limits = new SearchLimits(depth, nodes, timeMillis);
+	}
+
+	//
+	// ============================ MEMBER METHODS =======================
+	//
+
+	/**
+	 * @return The most the bot searches for a single move
+	 */
+	public SearchLimits getLimits() {
+		return this.limits;
+	}
+
+	public String getUsername() {
+		return BOT_PREFIX + this.name().toLowerCase();
+	}
+}
@@ -0,0 +1,199 @@
+package service;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessGame.TeamColor;
+import chess.search.PrincipalVariation;
+import chess.search.SearchEngine;
+import chess.search.SearchLimits;
+
+import dataaccess.DataAccessException;
+import dataaccess.GameDAO;
+
+import model.GameData;
+
+/**
+ * Thinks for the bots seated in games.
+ *
+ * Games waiting on a bot move are queued in arrival order, at most once each, and served by
+ * a small pool of dedicated threads so bot thinking never runs on request threads. Each move
+ * is limited by the bot's BotProfile, and when more games are waiting than there are
+ * threads, every move's time and node budget shrinks in proportion so all games keep moving.
+ *
+ * The chosen move is handed to a BotMoveListener, which applies it like any player's move.
+ */
+public class BotService {
+	//
+	// ================== STATIC PUBLIC CLASSES =====================
+	//
+
+	public static interface BotMoveListener {
+		/**
+		 * Called on a bot thread once a bot has chosen its move
+		 *
+		 * @param gameID The game
+		 * @param botUsername The bot's username
+		 * @param move The move to play
+		 */
+		public void onBotMove(int gameID, String botUsername, ChessMove move);
+	}
+
+	//
+	// ================== STATIC ATTRIBUTES =====================
+	//
+
+	public static final int DEFAULT_THREADS = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+
+	/**
+	 * A bot always gets at least this long per move, however busy the server is
+	 */
+	private static final long MIN_TIME_MILLIS = 50;
+	private static final long MIN_NODES = 2_000;
+
+	//
+	// ================== CONSTRUCTORS =====================
+	//
+
+	private final GameDAO gameDAO;
+	private final SearchEngine engine;
+	private final int threadNum;
+
+	private final LinkedBlockingQueue<Integer> turns = new LinkedBlockingQueue<>();
+	private final Set<Integer> queued = ConcurrentHashMap.newKeySet();
+	private final ExecutorService workers;
+
+	private volatile BotMoveListener listener = (gameID, botUsername, move) -> { };
+	private volatile boolean running = true;
+
+	public BotService(GameDAO gameDAO) {
+		this(gameDAO, new SearchEngine(), DEFAULT_THREADS);
+	}
+
+	/**
+	 * @param gameDAO Where to read games from
+	 * @param engine The engine the bots search with
+	 * @param threadNum How many bot moves may be computed at once
+	 */
+	public BotService(GameDAO gameDAO, SearchEngine engine, int threadNum) {
+		this.gameDAO = gameDAO;
+		this.engine = engine;
+		this.threadNum = threadNum;
+
+		AtomicInteger threadCount = new AtomicInteger();
+		this.workers = Executors.newFixedThreadPool(threadNum, task -> {
+			Thread thread = new Thread(task, "bot-" + threadCount.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+
+		for (int i = 0; i < threadNum; i++) {
+			this.workers.execute(this::work);
+		}
+	}
+
+	//
+	// ================== MEMBER METHODS =====================
+	//
+
+	public void setMoveListener(BotMoveListener listener) {
+		this.listener = listener;
+	}
+
+	/**
+	 * Queues a game for a bot move. Does nothing if the game is already queued; if it isn't
+	 * a bot's turn once the game comes up, it is skipped.
+	 *
+	 * @param gameID The game
+	 */
+	public void requestMove(int gameID) {
+		if (this.running && this.queued.add(gameID)) {
+			this.turns.add(gameID);
+		}
+	}
+
+	/**
+	 * @return The number of games waiting on a bot move
+	 */
+	public int getQueuedNum() {
+		return this.turns.size();
+	}
+
+	/**
+	 * Stops the bot threads, abandoning any queued moves
+	 */
+	public void shutdown() {
+		this.running = false;
+		this.workers.shutdownNow();
+	}
+
+	/**
+	 * Scales a bot's limits down when more games are waiting than there are threads
+	 */
+	SearchLimits budget(BotProfile profile, int waiting) {
+		SearchLimits limits = profile.getLimits();
+		if (waiting <= this.threadNum) {
+			return limits;
+		}
+
+		double share = (double)this.threadNum / waiting;
+		return new SearchLimits(
+				limits.maxDepth(),
+				Math.max(MIN_NODES, (long)(limits.maxNodes() * share)),
+				Math.max(MIN_TIME_MILLIS, (long)(limits.maxTimeMillis() * share)));
+	}
+
+	private void work() {
+		while (this.running) {
+			int gameID;
+			try {
+				gameID = this.turns.take();
+			} catch (InterruptedException ex) {
+				return;
+			}
+			this.queued.remove(gameID);
+
+			try {
+				this.playTurn(gameID);
+			} catch (DataAccessException | RuntimeException ex) {
+				ex.printStackTrace();
+			}
+		}
+	}
+
+	private void playTurn(int gameID) throws DataAccessException {
+		GameData gameData = this.gameDAO.getGame(String.valueOf(gameID));
+		// Validating a move tries it on the board, so everything here works on a copy, taken
+		// under the game's monitor since the stored game may be live and shared
+		ChessGame game;
+		synchronized (gameData.game()) {
+			game = gameData.game().copy();
+		}
+		TeamColor toMove = game.getTeamTurn();
+
+		String username = toMove == TeamColor.WHITE ? gameData.whiteUsername() : gameData.blackUsername();
+		BotProfile profile = BotProfile.fromUsername(username);
+		if (profile == null) {
+			return;
+		}
+
+		// Searching the game rather than its board keeps the bot from castling after the king
+		// or rook has moved; the moves the game forbids are never searched
+		SearchLimits limits = this.budget(profile, this.turns.size() + 1);
+		PrincipalVariation pv = this.engine.search(game, limits, line -> { }, () -> !this.running);
+
+		// No move means the game is already over
+		ChessMove move = pv.bestMove();
+		if (move == null || !this.running) {
+			return;
+		}
+
+		this.listener.onBotMove(gameID, username, move);
+	}
+}
@@ -20,11 +20,20 @@ public class ClearDataService {
 	private AuthDAO authDAO;
 	private GameDAO gameDAO;
 	private UserDAO userDAO;
+	private LobbyCache lobbyCache;
 
 	public ClearDataService(AuthDAO authDAO, GameDAO gameDAO, UserDAO userDAO) {
+		this(authDAO, gameDAO, userDAO, new LobbyCache());
+	}
+
+	/**
+	 * @param lobbyCache Invalidated once the games are gone
+	 */
+	public ClearDataService(AuthDAO authDAO, GameDAO gameDAO, UserDAO userDAO, LobbyCache lobbyCache) {
 		this.authDAO = authDAO;
 		this.gameDAO = gameDAO;
 		this.userDAO = userDAO;
+		this.lobbyCache = lobbyCache;
 	}
 
 	//
@@ -40,6 +49,7 @@ public class ClearDataService {
 		this.authDAO.clearAllAuthData();
 		this.gameDAO.clearAllGameData();
 		this.userDAO.clearAllUserData();
+		this.lobbyCache.invalidate();
 
 		return new ClearDataResult();
 	}
@@ -8,6 +8,10 @@ import dataaccess.GameDAO;
 import dataaccess.DataAccessException;
 
 import model.GameData;
+
+import chess.ChessClock;
+import chess.ChessGame;
+import chess.ChessGame.TeamColor;
 import util.Debugger;
 
 public class CreateGameService extends AuthenticableService {
@@ -15,7 +19,21 @@ public class CreateGameService extends AuthenticableService {
 	// ================== PUBLIC STATIC CLASS ====================
 	//
 	
-	public static record CreateGameRequest(String authToken, String gameName) {}
+	/**
+	 * Set botColor to seat a computer opponent of strength botLevel (see BotProfile) in that color.
+	 * Set baseMillis to time the game, with incrementMillis added after every move.
+	 */
+	public static record CreateGameRequest(String authToken, String gameName,
+			@OptionalField TeamColor botColor, @OptionalField String botLevel,
+			@OptionalField Long baseMillis, @OptionalField Long incrementMillis) {
+		public CreateGameRequest(String authToken, String gameName) {
+			this(authToken, gameName, null, null);
+		}
+
+		public CreateGameRequest(String authToken, String gameName, TeamColor botColor, String botLevel) {
+			this(authToken, gameName, botColor, botLevel, null, null);
+		}
+	}
 	public static record CreateGameResult(String gameID) {}
 	
 	//
@@ -24,24 +42,78 @@ public class CreateGameService extends AuthenticableService {
 	
 	private AuthDAO authDAO;
 	private GameDAO gameDAO;
+	private LobbyCache lobbyCache;
 
 	public CreateGameService(AuthDAO authDAO, GameDAO gameDAO) {
+		this(authDAO, gameDAO, new LobbyCache());
+	}
+
+	/**
+	 * @param lobbyCache Invalidated whenever a game is created
+	 */
+	public CreateGameService(AuthDAO authDAO, GameDAO gameDAO, LobbyCache lobbyCache) {
 		this.authDAO = authDAO;
 		this.gameDAO = gameDAO;
+		this.lobbyCache = lobbyCache;
 	}
 
 	//
 	// ================== MEMBER METHODS ====================
 	//
 	
+	/**
+	 * @throws IllegalArgumentException if the bot level doesn't exist or the time control is invalid
+	 */
 	public CreateGameResult createGame(CreateGameRequest request) throws AuthenticationException, DataAccessException{
 		if (!this.isAuthenticated(authDAO, request.authToken())) {
 			throw new AuthenticationException("User is not authenticated");
 		}
 
+		BotProfile bot = null;
+		if (request.botColor() != null) {
+			bot = BotProfile.fromName(request.botLevel());
+		}
+
+		ChessClock clock = null;
+		if (request.baseMillis() != null) {
+			long incrementMillis = request.incrementMillis() == null ? 0 : request.incrementMillis();
+			clock = new ChessClock(request.baseMillis(), incrementMillis);
+		}
+
 		// If this throws a DataAccessException, it will propotate
 		GameData data = this.gameDAO.createGame(request.gameName());
 
+		// The bot's seat and the clock go in with one versioned write, so a player joining
+		// the new game in the meantime is neither overwritten nor overwrites them
+		if (bot != null || clock != null) {
+			BotProfile seatedBot = bot;
+			ChessClock gameClock = clock;
+			data = this.gameDAO.modifyGame(data.gameID(), current -> {
+				// The bot makes its first move once someone connects to the game
+				String whiteUsername = current.whiteUsername();
+				String blackUsername = current.blackUsername();
+				if (seatedBot != null && request.botColor() == TeamColor.WHITE && whiteUsername.isEmpty()) {
+					whiteUsername = seatedBot.getUsername();
+				} else if (seatedBot != null && request.botColor() == TeamColor.BLACK && blackUsername.isEmpty()) {
+					blackUsername = seatedBot.getUsername();
+				}
+
+				// The clock is stored with the game; it starts once white has moved. It is set
+				// on a copy since the change may be retried and the stored game may be live.
+				ChessGame game = current.game();
+				if (gameClock != null) {
+					synchronized (current.game()) {
+						game = current.game().copy();
+					}
+					game.setClock(new ChessClock(gameClock));
+				}
+
+				return new GameData(current.gameID(), whiteUsername, blackUsername, current.gameName(), game);
+			});
+		}
+
+		this.lobbyCache.invalidate();
+
 		CreateGameResult result = new CreateGameResult(data.gameID());
 
 		return result;
@@ -0,0 +1,224 @@
+package service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.LongAdder;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ZobristHash;
+import chess.search.PrincipalVariation;
+import chess.search.SearchEngine;
+import chess.search.SearchLimits;
+
+import dataaccess.*;
+
+import model.GameData;
+
+import server.metrics.MetricsRegistry;
+import util.LruCache;
+
+/**
+ * Suggests the best few moves in a game's current position.
+ *
+ * Every search finds MAX_HINTS lines, so requests for any count share one cache entry per
+ * position and depth. A position includes the castling and en passant rights, since the
+ * hints only suggest moves the game allows. Results go into an LRU cache bounded by memory, and identical
+ * requests that arrive while a search is running wait on that search instead of starting
+ * their own, so many observers of one game cost a single search.
+ */
+public class HintService extends AuthenticableService {
+
+	//
+	// ================== STATIC PUBLIC CLASSES =====================
+	//
+
+	public static record HintRequest(String authToken, String gameID,
+			@OptionalField Integer count, @OptionalField Integer depth) {}
+
+	/**
+	 * @param move The suggested move
+	 * @param score The score after the move in centipawns, from the mover's point of view
+	 * @param mateIn Moves until mate, negative if the mover gets mated, or null
+	 * @param line The expected continuation, starting with the move
+	 */
+	public static record Hint(ChessMove move, int score, Integer mateIn, List<ChessMove> line) {}
+	public static record HintResult(int depth, List<Hint> hints) {}
+
+	//
+	// ================== STATIC ATTRIBUTES =====================
+	//
+
+	public static final int MAX_HINTS = 5;
+	public static final int DEFAULT_HINTS = 3;
+	public static final int MAX_DEPTH = 4;
+	public static final int DEFAULT_DEPTH = 3;
+
+	public static final long DEFAULT_CACHE_BYTES = 16L << 20;
+	public static final int DEFAULT_MAX_CONCURRENT = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+
+	private static final long NODE_LIMIT = 500_000;
+	private static final long TIME_LIMIT_MILLIS = 5_000;
+
+	private static record HintKey(long hash, int rights, int depth) {}
+
+	//
+	// ================== CONSTRUCTORS =====================
+	//
+
+	private final AuthDAO authDAO;
+	private final GameDAO gameDAO;
+	private final SearchEngine engine;
+
+	private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+	private final Semaphore searchPermits;
+
+	private final LruCache<HintKey, List<PrincipalVariation>> cache;
+	private final ConcurrentHashMap<HintKey, CompletableFuture<List<PrincipalVariation>>> inFlight = new ConcurrentHashMap<>();
+
+	private final LongAdder requestCount;
+	private final LongAdder searchCount;
+
+	public HintService(AuthDAO authDAO, GameDAO gameDAO, MetricsRegistry metrics) {
+		this(authDAO, gameDAO, new SearchEngine(), DEFAULT_MAX_CONCURRENT, DEFAULT_CACHE_BYTES, metrics);
+	}
+
+	/**
+	 * @param engine The engine to search with
+	 * @param maxConcurrent How many hint searches may run at once
+	 * @param cacheBytes The memory budget of the result cache
+	 * @param metrics Where to report cache and request counts
+	 */
+	public HintService(AuthDAO authDAO, GameDAO gameDAO, SearchEngine engine, int maxConcurrent,
+			long cacheBytes, MetricsRegistry metrics) {
+		this.authDAO = authDAO;
+		this.gameDAO = gameDAO;
+		this.engine = engine;
+		this.searchPermits = new Semaphore(maxConcurrent, true);
+
+		this.cache = new LruCache<>(cacheBytes, lines -> {
+			long bytes = 0;
+			for (PrincipalVariation pv : lines) {
+				bytes += pv.estimateBytes();
+			}
+			return bytes;
+		});
+
+		metrics.registerCache("hint.cache", this.cache);
+		this.requestCount = metrics.counter("hint.requests");
+		this.searchCount = metrics.counter("hint.searches");
+	}
+
+	//
+	// ================== MEMBER METHODS =====================
+	//
+
+	/**
+	 * Finds the best moves of a game's current position.
+	 *
+	 * @param request The request; count and depth default when null
+	 *
+	 * @return Completes with the hints, immediately on a cache hit
+	 *
+	 * @throws IllegalArgumentException if count or depth is less than 1
+	 */
+	public CompletableFuture<HintResult> getHints(HintRequest request) throws AuthenticationException, DataAccessException {
+		if (!this.isAuthenticated(this.authDAO, request.authToken())) {
+			throw new AuthenticationException("User is not authenticated");
+		}
+
+		int count = request.count() != null ? request.count() : DEFAULT_HINTS;
+		int depth = request.depth() != null ? request.depth() : DEFAULT_DEPTH;
+		if (count < 1 || depth < 1) {
+			throw new IllegalArgumentException("Hint count and depth must be positive");
+		}
+		int hintNum = Math.min(count, MAX_HINTS);
+		int searchDepth = Math.min(depth, MAX_DEPTH);
+
+		this.requestCount.increment();
+
+		// Copied under the game's monitor, since a live game may be mid-move
+		GameData gameData = this.gameDAO.getGame(request.gameID());
+		ChessGame game;
+		synchronized (gameData.game()) {
+			game = gameData.game().copy();
+		}
+		HintKey key = new HintKey(ZobristHash.hash(game), game.getMoveRights(), searchDepth);
+
+		List<PrincipalVariation> cached = this.cache.get(key);
+		if (cached != null) {
+			return CompletableFuture.completedFuture(toResult(cached, searchDepth, hintNum));
+		}
+
+		// Join a search for the same position if one is already running
+		CompletableFuture<List<PrincipalVariation>> search = new CompletableFuture<>();
+		CompletableFuture<List<PrincipalVariation>> running = this.inFlight.putIfAbsent(key, search);
+		if (running == null) {
+			running = search;
+			try {
+				this.executor.execute(() -> this.search(key, game, search));
+			} catch (RuntimeException ex) {
+				this.inFlight.remove(key);
+				throw new DataAccessException("Hint executor rejected the request", ex);
+			}
+		}
+
+		return running.thenApply(lines -> toResult(lines, searchDepth, hintNum));
+	}
+
+	/**
+	 * Stops accepting hint requests
+	 */
+	public void shutdown() {
+		this.executor.shutdownNow();
+	}
+
+	private void search(HintKey key, ChessGame game, CompletableFuture<List<PrincipalVariation>> result) {
+		try {
+			this.searchPermits.acquire();
+		} catch (InterruptedException ex) {
+			this.inFlight.remove(key);
+			result.completeExceptionally(ex);
+			return;
+		}
+
+		try {
+			this.searchCount.increment();
+
+			SearchLimits limits = new SearchLimits(key.depth(), NODE_LIMIT, TIME_LIMIT_MILLIS);
+			// Searched by the game's rules, so no line castles after the king or rook has moved
+			List<PrincipalVariation> lines = this.engine.searchLines(game, limits, MAX_HINTS,
+					() -> Thread.currentThread().isInterrupted());
+
+			// Lines cut short by the node or time limit aren't what a later request would get
+			if (lines.isEmpty() || lines.get(0).depth() >= key.depth() || lines.get(0).isMate()) {
+				this.cache.put(key, lines);
+			}
+
+			this.inFlight.remove(key);
+			result.complete(lines);
+		} catch (RuntimeException ex) {
+			this.inFlight.remove(key);
+			result.completeExceptionally(ex);
+		} finally {
+			this.searchPermits.release();
+		}
+	}
+
+	private static HintResult toResult(List<PrincipalVariation> lines, int depth, int hintNum) {
+		ArrayList<Hint> hints = new ArrayList<>();
+
+		for (PrincipalVariation pv : lines.subList(0, Math.min(hintNum, lines.size()))) {
+			Integer mateIn = pv.isMate() ? pv.mateDistance() : null;
+			hints.add(new Hint(pv.bestMove(), pv.score(), mateIn, pv.moves()));
+		}
+
+		int searched = lines.isEmpty() ? depth : lines.get(0).depth();
+		return new HintResult(searched, hints);
+	}
+}
@@ -20,10 +20,19 @@ public class JoinGameService extends AuthenticableService {
 	
 	private AuthDAO authDAO;
 	private GameDAO gameDAO;
+	private LobbyCache lobbyCache;
 
 	public JoinGameService(AuthDAO authDAO, GameDAO gameDAO) {
+		this(authDAO, gameDAO, new LobbyCache());
+	}
+
+	/**
+	 * @param lobbyCache Invalidated whenever a seat is taken
+	 */
+	public JoinGameService(AuthDAO authDAO, GameDAO gameDAO, LobbyCache lobbyCache) {
 		this.authDAO = authDAO;
 		this.gameDAO = gameDAO;
+		this.lobbyCache = lobbyCache;
 	}
 
 	//
@@ -31,40 +40,37 @@ public class JoinGameService extends AuthenticableService {
 	//
 	
 	public JoinGameResult joinGame(JoinGameRequest request) throws DataAccessException, AuthenticationException, AlreadyTakenException {
-		if (!this.isAuthenticated(this.authDAO, request.authToken())) {
-			throw new AuthenticationException("User is not authenticated");
-		}
+		// Throws an AuthenticationException if the token doesn't exist
+		String username = this.authDAO.getAuth(request.authToken()).username();
 		
-		// Will throw an error if the game doesn't exist. 
-		// We will let it propogate up.
-		GameData game = this.gameDAO.getGame(request.gameID);
-
 		TeamColor playerColor = request.playerColor();
-		String username = this.authDAO.getAuth(request.authToken()).username();
-
-		String blackUsername, whiteUsername;
-		switch (playerColor) {
-			case TeamColor.WHITE:
-				blackUsername = game.blackUsername();
-				if (!game.whiteUsername().isEmpty()) {
-					throw new AlreadyTakenException("White already taken");
-				}
-				whiteUsername = username;
-				break;
-			case TeamColor.BLACK:
-				whiteUsername = game.whiteUsername();
-				if (!game.blackUsername().isEmpty()) {
-					throw new AlreadyTakenException("Black already taken");
-				}
-				blackUsername = username;
-				break;
-			default:
-				throw new AlreadyTakenException("Only black and white teams currently supported");
-		}
 
-		GameData newGameData = new GameData(game.gameID(), whiteUsername, blackUsername, game.gameName(), game.game());
+		// Will throw an error if the game doesn't exist. We will let it propogate up.
+		// If someone else updates the game first, this reads it again and rechecks the seat.
+		this.gameDAO.modifyGame(request.gameID, game -> {
+			String blackUsername, whiteUsername;
+			switch (playerColor) {
+				case TeamColor.WHITE:
+					blackUsername = game.blackUsername();
+					if (!game.whiteUsername().isEmpty()) {
+						throw new AlreadyTakenException("White already taken");
+					}
+					whiteUsername = username;
+					break;
+				case TeamColor.BLACK:
+					whiteUsername = game.whiteUsername();
+					if (!game.blackUsername().isEmpty()) {
+						throw new AlreadyTakenException("Black already taken");
+					}
+					blackUsername = username;
+					break;
+				default:
+					throw new AlreadyTakenException("Only black and white teams currently supported");
+			}
 
-		this.gameDAO.updateGame(game.gameID(), newGameData);
+			return new GameData(game.gameID(), whiteUsername, blackUsername, game.gameName(), game.game());
+		});
+		this.lobbyCache.invalidate();
 
 		return new JoinGameResult();
 	}
@@ -1,56 +1,145 @@
 package service;
 
 import java.util.Collection;
-import java.util.HashSet;
+import java.util.List;
 
 import dataaccess.AuthDAO;
 import dataaccess.AuthenticationException;
 import dataaccess.GameDAO;
+import dataaccess.GameDAO.GameFilter;
 import dataaccess.DataAccessException;
 
-import model.GameData;
+import model.GameSummary;
+
+import service.LobbyCache.LobbySnapshot;
 
 public class ListGameService extends AuthenticableService {
 	//
 	// ================= PUBLIC STATIC CLASSES ==================
 	//
-	
-	public static record ListGameRequest(String authToken) {}
 
-	public static record ListGameResult(Collection<GameData> games) {}
-	
+	/**
+	 * Every field but the authToken is optional.
+	 *
+	 * @param cursor The nextCursor of the previous page, or null for the first page
+	 * @param limit The most games to list, up to MAX_PAGE_SIZE
+	 * @param openSeats Only list games with a free seat
+	 * @param player Only list games this user is playing
+	 * @param activeOnly Only list games that aren't finished
+	 */
+	public static record ListGameRequest(String authToken, String cursor, Integer limit, Boolean openSeats,
+			String player, Boolean activeOnly) {
+
+		public ListGameRequest(String authToken) {
+			this(authToken, null, null, null, null, null);
+		}
+	}
+
+	/**
+	 * @param nextCursor Where the next page starts, or null if this is the last page
+	 */
+	public static record ListGameResult(Collection<GameSummary> games, String nextCursor) {}
+
+	public static final int DEFAULT_PAGE_SIZE = 100;
+	public static final int MAX_PAGE_SIZE = 500;
+
 	//
 	// ================= CONSTRUCTORS ==================
 	//
-	
+
 	private AuthDAO authDAO;
 	private GameDAO gameDAO;
+	private LobbyCache lobbyCache;
 
 	public ListGameService(AuthDAO authDAO, GameDAO gameDAO) {
+		this(authDAO, gameDAO, new LobbyCache());
+	}
+
+	/**
+	 * @param lobbyCache Where serialized listings are kept. It must be the one the services
+	 * changing games invalidate.
+	 */
+	public ListGameService(AuthDAO authDAO, GameDAO gameDAO, LobbyCache lobbyCache) {
 		this.authDAO = authDAO;
 		this.gameDAO = gameDAO;
+		this.lobbyCache = lobbyCache;
 	}
 
 	//
 	// ================= MEMBER METHODS ==================
 	//
-	
+
 	/**
-	 * Takes a valid ListGamesRequest and returns a Response that includes the formated 
-	 * data of all games in the database ready to be serialized into a HTTP response.
+	 * Takes a valid ListGamesRequest and returns one page of game summaries, ready to be
+	 * serialized into a HTTP response. Boards aren't included.
 	 *
-	 * @param request The ListGamesRequest 
+	 * @param request The ListGamesRequest
 	 *
 	 * @return The response containing revelant data
+	 *
+	 * @throws IllegalArgumentException if the cursor or limit is invalid
 	 */
 	public ListGameResult listGames(ListGameRequest request) throws AuthenticationException, DataAccessException {
 		if (!this.isAuthenticated(this.authDAO, request.authToken())) {
 			throw new AuthenticationException("User is not authenticated");
 		}
 
-		Collection<GameData> games = this.gameDAO.getAllGames();
+		return this.listPage(request);
+	}
+
+	/**
+	 * Like listGames, but returns the page already serialized, from the LobbyCache when
+	 * nothing has changed since it was last listed.
+	 *
+	 * @param request The ListGamesRequest
+	 *
+	 * @return The serialized ListGameResult
+	 *
+	 * @throws IllegalArgumentException if the cursor or limit is invalid
+	 */
+	public LobbySnapshot listGamesSnapshot(ListGameRequest request) throws AuthenticationException, DataAccessException {
+		if (!this.isAuthenticated(this.authDAO, request.authToken())) {
+			throw new AuthenticationException("User is not authenticated");
+		}
+
+		// Every user sees the same page, so the token isn't part of the key
+		ListGameRequest key = new ListGameRequest(null, request.cursor(), request.limit(), request.openSeats(),
+				request.player(), request.activeOnly());
+		return this.lobbyCache.get(key, () -> this.listPage(request));
+	}
+
+	private ListGameResult listPage(ListGameRequest request) throws DataAccessException {
+		int afterGameID = parseCursor(request.cursor());
 
-		ListGameResult result = new ListGameResult(games); 
-		return result;
+		int limit = request.limit() == null ? DEFAULT_PAGE_SIZE : request.limit();
+		if (limit < 1 || limit > MAX_PAGE_SIZE) {
+			throw new IllegalArgumentException("Page size must be between 1 and " + MAX_PAGE_SIZE);
+		}
+
+		GameFilter filter = new GameFilter(
+				Boolean.TRUE.equals(request.openSeats()),
+				request.player(),
+				Boolean.TRUE.equals(request.activeOnly()));
+
+		// One extra game tells whether there is another page
+		List<GameSummary> games = this.gameDAO.listGames(afterGameID, limit + 1, filter);
+		if (games.size() <= limit) {
+			return new ListGameResult(games, null);
+		}
+
+		games = games.subList(0, limit);
+		return new ListGameResult(games, games.get(limit - 1).gameID());
+	}
+
+	private static int parseCursor(String cursor) {
+		if (cursor == null || cursor.isEmpty()) {
+			return 0;
+		}
+
+		try {
+			return Integer.parseInt(cursor);
+		} catch (NumberFormatException ex) {
+			throw new IllegalArgumentException("Invalid cursor: " + cursor);
+		}
 	}
 }
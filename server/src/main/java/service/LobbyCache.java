@@ -0,0 +1,192 @@
+package service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.GZIPOutputStream;
+
+import com.google.gson.Gson;
+
+import dataaccess.DataAccessException;
+import server.metrics.MetricsRegistry;
+import util.LruCache;
+
+/**
+ * Holds game listings already serialized and compressed, so clients polling the lobby
+ * are answered from memory instead of the database.
+ *
+ * The lobby has a version, bumped whenever a game is created, joined, left or finished.
+ * A cached listing is served until the version moves past the one it was built at. It is
+ * also rebuilt once it is maxAgeMillis old, to pick up changes made by other server
+ * processes. Each listing carries an ETag derived from its body, so a client that already
+ * has it can be answered with a 304 and no body at all.
+ */
+public class LobbyCache {
+	//
+	// ================== STATIC ATTRIBUTES =====================
+	//
+
+	public static final long DEFAULT_MAX_AGE_MILLIS = 10_000;
+	public static final long DEFAULT_CACHE_BYTES = 4L * 1024 * 1024;
+
+	private static final Gson GSON = new Gson();
+
+	/**
+	 * A listing serialized once and served to everyone asking for it
+	 *
+	 * @param version The lobby version it was built at
+	 * @param builtMillis When it was built
+	 * @param etag A weak entity tag, the same for the plain and compressed body
+	 * @param json The body
+	 * @param gzip The body, gzip compressed
+	 */
+	public static record LobbySnapshot(long version, long builtMillis, String etag, byte[] json, byte[] gzip) {
+		/**
+		 * @param ifNoneMatch The If-None-Match header of a request, possibly null
+		 *
+		 * @return True if the client already has this listing
+		 */
+		public boolean matches(String ifNoneMatch) {
+			if (ifNoneMatch == null) {
+				return false;
+			}
+
+			String tag = opaqueTag(this.etag);
+			for (String candidate : ifNoneMatch.split(",")) {
+				candidate = candidate.trim();
+				if (candidate.equals("*") || opaqueTag(candidate).equals(tag)) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		private static String opaqueTag(String etag) {
+			return etag.startsWith("W/") ? etag.substring(2) : etag;
+		}
+	}
+
+	/**
+	 * Reads the listing to cache
+	 */
+	@FunctionalInterface
+	public static interface Loader {
+		public Object load() throws DataAccessException;
+	}
+
+	//
+	// ================== CONSTRUCTORS =====================
+	//
+
+	private final long maxAgeMillis;
+	private final LruCache<Object, LobbySnapshot> snapshots;
+
+	private final AtomicLong version = new AtomicLong();
+
+	/**
+	 * Held while a listing is rebuilt, so a burst of requests after a change costs one query
+	 */
+	private final Object rebuildLock = new Object();
+
+	private final LongAdder rebuildCount;
+
+	public LobbyCache() {
+		this(new MetricsRegistry());
+	}
+
+	public LobbyCache(MetricsRegistry metrics) {
+		this(DEFAULT_MAX_AGE_MILLIS, DEFAULT_CACHE_BYTES, metrics);
+	}
+
+	/**
+	 * @param maxAgeMillis The longest a listing is served without being rebuilt
+	 * @param cacheBytes The memory budget of the cached listings
+	 * @param metrics Where to report cache hits and rebuilds
+	 */
+	public LobbyCache(long maxAgeMillis, long cacheBytes, MetricsRegistry metrics) {
+		this.maxAgeMillis = maxAgeMillis;
+		this.snapshots = new LruCache<>(cacheBytes, snapshot -> snapshot.json().length + snapshot.gzip().length);
+
+		metrics.registerCache("lobby.cache", this.snapshots);
+		metrics.gauge("lobby.version", this.version::get);
+		this.rebuildCount = metrics.counter("lobby.rebuilds");
+	}
+
+	//
+	// ================== MEMBER METHODS =====================
+	//
+
+	/**
+	 * Marks every cached listing out of date
+	 */
+	public void invalidate() {
+		this.version.incrementAndGet();
+	}
+
+	public long getVersion() {
+		return this.version.get();
+	}
+
+	/**
+	 * Gets a listing, building it if it isn't cached or is out of date.
+	 *
+	 * @param key Identifies the listing, such as its page and filters
+	 * @param loader Reads the listing when it has to be built
+	 */
+	public LobbySnapshot get(Object key, Loader loader) throws DataAccessException {
+		LobbySnapshot snapshot = this.snapshots.get(key);
+		if (this.isFresh(snapshot)) {
+			return snapshot;
+		}
+
+		synchronized (this.rebuildLock) {
+			// Someone else may have rebuilt it while this thread waited
+			snapshot = this.snapshots.get(key);
+			if (this.isFresh(snapshot)) {
+				return snapshot;
+			}
+
+			// Read the version first, so a change made during the load leaves the listing stale
+			long builtVersion = this.version.get();
+			byte[] json = GSON.toJson(loader.load()).getBytes(StandardCharsets.UTF_8);
+
+			snapshot = new LobbySnapshot(builtVersion, System.currentTimeMillis(), etag(json), json, gzip(json));
+			this.snapshots.put(key, snapshot);
+			this.rebuildCount.increment();
+			return snapshot;
+		}
+	}
+
+	private boolean isFresh(LobbySnapshot snapshot) {
+		return snapshot != null && snapshot.version() == this.version.get() &&
+			System.currentTimeMillis() - snapshot.builtMillis() < this.maxAgeMillis;
+	}
+
+	/**
+	 * Tags a body by its content, so the tag survives restarts and rebuilds that change nothing
+	 */
+	private static String etag(byte[] body) {
+		try {
+			byte[] digest = MessageDigest.getInstance("SHA-256").digest(body);
+			return "W/\"" + HexFormat.of().formatHex(digest, 0, 16) + "\"";
+		} catch (NoSuchAlgorithmException ex) {
+			throw new IllegalStateException("SHA-256 is unavailable", ex);
+		}
+	}
+
+	private static byte[] gzip(byte[] body) {
+		ByteArrayOutputStream out = new ByteArrayOutputStream(body.length / 4 + 64);
+		try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+			gzip.write(body);
+		} catch (IOException ex) {
+			throw new UncheckedIOException(ex);
+		}
+		return out.toByteArray();
+	}
+}
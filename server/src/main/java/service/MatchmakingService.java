@@ -0,0 +1,507 @@
+package service;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import chess.ChessGame.TeamColor;
+
+import dataaccess.*;
+
+import model.GameData;
+
+import server.metrics.MetricsRegistry;
+
+/**
+ * Pairs players looking for a game with opponents of similar strength, and seats them in
+ * a new game.
+ *
+ * Waiting players are kept in buckets of bucketWidth rating points, oldest first, in a
+ * skip list keyed by bucket. A player is paired with the longest waiting player of the
+ * nearest bucket within their window, each bucket found in O(log n). The window starts
+ * baseWindow points either side of their rating and widens by widenPerSecond for every
+ * second they wait, up to maxWindow. Every sweepMillis, everyone still waiting searches
+ * again with their wider window.
+ *
+ * Searches take no lock. Each waiting player is claimed with a compare-and-set, so they
+ * are paired at most once however many searches find them at the same time.
+ *
+ * Ratings are the ones players give when they queue; the server doesn't keep any.
+ */
+public class MatchmakingService extends AuthenticableService {
+	//
+	// ================== STATIC PUBLIC CLASSES =====================
+	//
+
+	/**
+	 * @param rating The player's rating, or null for DEFAULT_RATING
+	 */
+	public static record MatchRequest(String authToken, @OptionalField Integer rating) {}
+
+	/**
+	 * @param gameID The game the player was seated in, or null while still waiting
+	 * @param playerColor The player's seat, or null while still waiting
+	 */
+	public static record MatchResult(String gameID, TeamColor playerColor) {
+		public static final MatchResult WAITING = new MatchResult(null, null);
+
+		public boolean isWaiting() {
+			return this.gameID == null;
+		}
+	}
+
+	/**
+	 * @param bucketWidth How many rating points each bucket holds
+	 * @param baseWindow How far from their rating a player's opponent may be at first
+	 * @param widenPerSecond How much further for every second waited
+	 * @param maxWindow How far the window widens at most
+	 * @param sweepMillis How often waiting players search again
+	 */
+	public static record MatchConfig(int bucketWidth, int baseWindow, int widenPerSecond, int maxWindow,
+			long sweepMillis) {
+		public static final MatchConfig DEFAULT = new MatchConfig(100, 100, 25, 800, 1_000);
+
+		public MatchConfig {
+			if (bucketWidth < 1 || sweepMillis < 1) {
+				throw new IllegalArgumentException("Bucket width and sweep interval must be positive");
+			}
+			if (baseWindow < 0 || widenPerSecond < 0 || maxWindow < baseWindow) {
+				throw new IllegalArgumentException("Search windows must not be negative or shrink");
+			}
+		}
+	}
+
+	public static interface MatchListener {
+		/**
+		 * Called once a waiting player has been seated, on whichever thread paired them
+		 *
+		 * @param result The game and seat
+		 */
+		void matched(MatchResult result);
+	}
+
+	public static final int DEFAULT_RATING = 1500;
+	public static final int MAX_RATING = 4000;
+
+	//
+	// ================== STATIC ATTRIBUTES =====================
+	//
+
+	private static final int WAITING = 0;
+	private static final int CLAIMED = 1;
+	private static final int DONE = 2;
+
+	/**
+	 * How many new games are tried if someone takes a seat before the pair is seated
+	 */
+	private static final int MAX_SEAT_ATTEMPTS = 4;
+
+	/**
+	 * How long a pairing made over HTTP waits to be polled before it is dropped, as when the
+	 * player logged out or went away without asking
+	 */
+	static final long PAIRING_TTL_MILLIS = 5 * 60_000;
+
+	private static record Pairing(MatchResult result, long pairedMillis) {}
+
+	private static class Ticket {
+		final String username;
+		final int rating;
+		final int bucket;
+		final long enqueuedMillis;
+		final MatchListener listener;
+		final AtomicInteger state = new AtomicInteger(WAITING);
+
+		Ticket(String username, int rating, int bucket, long enqueuedMillis, MatchListener listener) {
+			this.username = username;
+			this.rating = rating;
+			this.bucket = bucket;
+			this.enqueuedMillis = enqueuedMillis;
+			this.listener = listener;
+		}
+	}
+
+	//
+	// ================== CONSTRUCTORS =====================
+	//
+
+	private final AuthDAO authDAO;
+	private final GameDAO gameDAO;
+	private final LobbyCache lobbyCache;
+	private final MatchConfig config;
+
+	private final ConcurrentSkipListMap<Integer, ConcurrentLinkedQueue<Ticket>> buckets = new ConcurrentSkipListMap<>();
+
+	/**
+	 * Each waiting player's ticket
+	 */
+	private final ConcurrentHashMap<String, Ticket> waiting = new ConcurrentHashMap<>();
+
+	/**
+	 * Pairings made for players queued over HTTP, until they ask for them
+	 */
+	private final ConcurrentHashMap<String, Pairing> matches = new ConcurrentHashMap<>();
+
+	private final ScheduledExecutorService sweeper;
+
+	private final LongAdder pairedCount;
+	private final LongAdder sweptCount;
+
+	public MatchmakingService(AuthDAO authDAO, GameDAO gameDAO) {
+		this(authDAO, gameDAO, new LobbyCache(), MatchConfig.DEFAULT, new MetricsRegistry());
+	}
+
+	/**
+	 * @param lobbyCache Invalidated whenever a pair is seated
+	 * @param config The buckets and search windows
+	 * @param metrics Where to report the queue length and pairings
+	 */
+	public MatchmakingService(AuthDAO authDAO, GameDAO gameDAO, LobbyCache lobbyCache, MatchConfig config,
+			MetricsRegistry metrics) {
+		this.authDAO = authDAO;
+		this.gameDAO = gameDAO;
+		this.lobbyCache = lobbyCache;
+		this.config = config;
+
+		this.pairedCount = metrics.counter("match.paired");
+		this.sweptCount = metrics.counter("match.sweepPaired");
+		metrics.gauge("match.waiting", this.waiting::size);
+
+		this.sweeper = Executors.newSingleThreadScheduledExecutor(task -> {
+			Thread thread = new Thread(task, "matchmaking-sweep");
+			thread.setDaemon(true);
+			return thread;
+		});
+		this.sweeper.scheduleWithFixedDelay(() -> this.sweep(System.currentTimeMillis()),
+				config.sweepMillis(), config.sweepMillis(), TimeUnit.MILLISECONDS);
+	}
+
+	//
+	// ================== MEMBER METHODS =====================
+	//
+
+	/**
+	 * Queues a player over HTTP. If they aren't paired right away, poll() hands over their
+	 * game once they are.
+	 */
+	public MatchResult enqueue(MatchRequest request)
+			throws AuthenticationException, AlreadyTakenException, DataAccessException {
+		String username = this.authDAO.getAuth(request.authToken()).username();
+		return this.enqueue(username, request.rating(),
+				result -> this.matches.put(username, new Pairing(result, System.currentTimeMillis())));
+	}
+
+	/**
+	 * Queues a player, pairing them right away if someone close enough is waiting. A player
+	 * already queued is queued again with the new rating.
+	 *
+	 * @param listener Told the game once the player is paired later
+	 *
+	 * @return The player's game and seat, or MatchResult.WAITING if nobody was close enough
+	 *
+	 * @throws IllegalArgumentException If the rating is out of range
+	 * @throws AlreadyTakenException If the player is being seated in a match right now
+	 */
+	public MatchResult enqueue(MatchRequest request, MatchListener listener)
+			throws AuthenticationException, AlreadyTakenException, DataAccessException {
+		String username = this.authDAO.getAuth(request.authToken()).username();
+		return this.enqueue(username, request.rating(), listener);
+	}
+
+	/**
+	 * @return The player's game once they've been paired, MatchResult.WAITING while they
+	 * are still queued, or null if they aren't queued
+	 */
+	public MatchResult poll(String authToken) throws AuthenticationException, DataAccessException {
+		String username = this.authDAO.getAuth(authToken).username();
+
+		Pairing pairing = this.matches.remove(username);
+		if (pairing != null) {
+			return pairing.result();
+		}
+		return this.waiting.containsKey(username) ? MatchResult.WAITING : null;
+	}
+
+	/**
+	 * Takes a player out of the queue, forgetting any pairing they haven't polled for
+	 *
+	 * @return True if they were waiting
+	 */
+	public boolean cancel(String authToken) throws AuthenticationException, DataAccessException {
+		String username = this.authDAO.getAuth(authToken).username();
+		this.matches.remove(username);
+		Ticket ticket = this.waiting.remove(username);
+		// A ticket claimed by a pairing that then fails sees it was removed, and stays out
+		return ticket != null && ticket.state.compareAndSet(WAITING, DONE);
+	}
+
+	/**
+	 * Takes a player out of the queue if they are still waiting on the ticket that tells
+	 * this listener, as when the connection they queued on closes
+	 *
+	 * @return True if they were waiting
+	 */
+	public boolean cancelUser(String username, MatchListener listener) {
+		Ticket ticket = this.waiting.get(username);
+		if (ticket == null || ticket.listener != listener || !this.waiting.remove(username, ticket)) {
+			return false;
+		}
+		return ticket.state.compareAndSet(WAITING, DONE);
+	}
+
+	/**
+	 * @return How many players are waiting
+	 */
+	public int getWaitingNum() {
+		return this.waiting.size();
+	}
+
+	public void shutdown() {
+		this.sweeper.shutdownNow();
+	}
+
+	//
+	// ================== PAIRING =====================
+	//
+
+	private MatchResult enqueue(String username, Integer requestedRating, MatchListener listener)
+			throws AlreadyTakenException, DataAccessException {
+		int rating = requestedRating == null ? DEFAULT_RATING : requestedRating;
+		if (rating < 0 || rating > MAX_RATING) {
+			throw new IllegalArgumentException("Rating must be between 0 and " + MAX_RATING);
+		}
+
+		long nowMillis = System.currentTimeMillis();
+		Ticket ticket = new Ticket(username, rating, rating / this.config.bucketWidth(), nowMillis, listener);
+
+		// A waiting ticket is replaced, but one already claimed may be about to be seated,
+		// and replacing it would leave the player queued for a second game
+		boolean[] seating = { false };
+		this.waiting.compute(username, (name, queued) -> {
+			while (queued != null && !queued.state.compareAndSet(WAITING, DONE)) {
+				if (queued.state.get() == CLAIMED) {
+					seating[0] = true;
+					return queued;
+				}
+				if (queued.state.get() == DONE) {
+					break;
+				}
+			}
+			return ticket;
+		});
+		if (seating[0]) {
+			throw new AlreadyTakenException(username + " is already being seated in a match");
+		}
+		this.matches.remove(username);
+
+		Ticket opponent = this.claimOpponent(ticket, nowMillis);
+		if (opponent != null) {
+			return this.seat(ticket, opponent);
+		}
+
+		// Anyone who queued nearby while this searched is found by the next sweep
+		this.bucket(ticket.bucket).add(ticket);
+		return MatchResult.WAITING;
+	}
+
+	/**
+	 * Searches again for everyone waiting, with the window their wait has earned, and drops
+	 * pairings nobody polled for in time
+	 */
+	void sweep(long nowMillis) {
+		this.matches.values().removeIf(pairing -> nowMillis - pairing.pairedMillis() >= PAIRING_TTL_MILLIS);
+
+		for (ConcurrentLinkedQueue<Ticket> queue : this.buckets.values()) {
+			for (Ticket ticket : queue) {
+				if (ticket.state.get() != WAITING) {
+					continue;
+				}
+
+				Ticket opponent = this.claimOpponent(ticket, nowMillis);
+				if (opponent == null) {
+					continue;
+				}
+
+				queue.remove(ticket);
+				try {
+					MatchResult result = this.seat(ticket, opponent);
+					this.sweptCount.increment();
+					notify(ticket, result);
+				} catch (DataAccessException ex) {
+					// Both were put back, and are tried again next sweep
+					ex.printStackTrace();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Finds and claims the longest waiting player of the nearest bucket in a player's
+	 * window, claiming the player too
+	 *
+	 * @return The opponent, or null if there is none or the player was claimed by someone else
+	 */
+	private Ticket claimOpponent(Ticket ticket, long nowMillis) {
+		long waitedSeconds = Math.max(0, nowMillis - ticket.enqueuedMillis) / 1000;
+		long window = Math.min(this.config.maxWindow(),
+				this.config.baseWindow() + waitedSeconds * this.config.widenPerSecond());
+		int reach = (int) (window / this.config.bucketWidth());
+
+		for (int distance = 0; distance <= reach; distance++) {
+			Ticket opponent = this.claimHead(ticket, ticket.bucket + distance);
+			if (opponent == null && distance > 0) {
+				opponent = this.claimHead(ticket, ticket.bucket - distance);
+			}
+			if (opponent != null || ticket.state.get() != WAITING) {
+				return opponent;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Claims a player and the longest waiting other player of a bucket
+	 */
+	private Ticket claimHead(Ticket ticket, int bucket) {
+		ConcurrentLinkedQueue<Ticket> queue = this.buckets.get(bucket);
+		if (queue == null) {
+			return null;
+		}
+
+		for (Ticket head : queue) {
+			if (head.state.get() != WAITING) {
+				// Paired or cancelled; dropped here rather than searched past again
+				queue.remove(head);
+				continue;
+			}
+			if (head == ticket || head.username.equals(ticket.username)) {
+				continue;
+			}
+
+			if (!ticket.state.compareAndSet(WAITING, CLAIMED)) {
+				return null;
+			}
+			if (head.state.compareAndSet(WAITING, CLAIMED)) {
+				queue.remove(head);
+				return head;
+			}
+			this.release(ticket);
+			return null;
+		}
+		return null;
+	}
+
+	/**
+	 * Seats a claimed pair in a new game, with both seats filled in one write so nobody
+	 * can take one in between, and tells the opponent
+	 *
+	 * @return The player's game and seat
+	 *
+	 * @throws DataAccessException If the game couldn't be made; both are queued again
+	 */
+	private MatchResult seat(Ticket ticket, Ticket opponent) throws DataAccessException {
+		boolean ticketWhite = ThreadLocalRandom.current().nextBoolean();
+		String whiteUsername = ticketWhite ? ticket.username : opponent.username;
+		String blackUsername = ticketWhite ? opponent.username : ticket.username;
+
+		try {
+			for (int attempt = 0; attempt < MAX_SEAT_ATTEMPTS; attempt++) {
+				GameData created = this.gameDAO.createGame(whiteUsername + " vs " + blackUsername);
+
+				boolean[] seated = { false };
+				try {
+					this.gameDAO.modifyGame(created.gameID(), current -> {
+						seated[0] = current.whiteUsername().isEmpty() && current.blackUsername().isEmpty();
+						if (!seated[0]) {
+							return null;
+						}
+						return new GameData(current.gameID(), whiteUsername, blackUsername, current.gameName(),
+								current.game());
+					});
+				} catch (DataAccessException ex) {
+					this.discardIfEmpty(created.gameID());
+					throw ex;
+				}
+
+				if (seated[0]) {
+					this.finish(ticket);
+					this.finish(opponent);
+					this.lobbyCache.invalidate();
+					this.pairedCount.increment();
+
+					notify(opponent, new MatchResult(created.gameID(), ticketWhite ? TeamColor.BLACK : TeamColor.WHITE));
+					return new MatchResult(created.gameID(), ticketWhite ? TeamColor.WHITE : TeamColor.BLACK);
+				}
+
+				// Someone joined the new game by its ID first; it's theirs, and only dropped if
+				// they have already left it
+				this.discardIfEmpty(created.gameID());
+			}
+		} catch (DataAccessException ex) {
+			this.requeue(ticket);
+			this.requeue(opponent);
+			throw ex;
+		}
+
+		this.requeue(ticket);
+		this.requeue(opponent);
+		throw new DataAccessException("Couldn't seat " + whiteUsername + " and " + blackUsername);
+	}
+
+	/**
+	 * Removes a game made for a pair that couldn't be seated in it, unless someone else
+	 * holds a seat in it
+	 */
+	private void discardIfEmpty(String gameID) {
+		try {
+			GameData game = this.gameDAO.getGame(gameID);
+			if (game.whiteUsername().isEmpty() && game.blackUsername().isEmpty()) {
+				this.gameDAO.removeGame(game);
+				this.lobbyCache.invalidate();
+			}
+		} catch (DataAccessException ex) {
+			// The game is left behind, empty and open to anyone
+			ex.printStackTrace();
+		}
+	}
+
+	private static void notify(Ticket ticket, MatchResult result) {
+		try {
+			ticket.listener.matched(result);
+		} catch (RuntimeException ex) {
+			ex.printStackTrace();
+		}
+	}
+
+	private void finish(Ticket ticket) {
+		ticket.state.set(DONE);
+		this.waiting.remove(ticket.username, ticket);
+	}
+
+	/**
+	 * Lets a claimed player be found again, unless they left the queue meanwhile
+	 */
+	private void release(Ticket ticket) {
+		ticket.state.set(this.waiting.get(ticket.username) == ticket ? WAITING : DONE);
+	}
+
+	private void requeue(Ticket ticket) {
+		this.release(ticket);
+		if (ticket.state.get() == WAITING) {
+			ConcurrentLinkedQueue<Ticket> queue = this.bucket(ticket.bucket);
+			if (!queue.contains(ticket)) {
+				queue.add(ticket);
+			}
+		}
+	}
+
+	private ConcurrentLinkedQueue<Ticket> bucket(int bucket) {
+		return this.buckets.computeIfAbsent(bucket, b -> new ConcurrentLinkedQueue<>());
+	}
+}
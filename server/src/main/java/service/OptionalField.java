@@ -0,0 +1,15 @@
+package service;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a request record component that may be left out of a JSON request.
+ * Handler.extractJsonRequest rejects requests with any other field missing.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ ElementType.FIELD, ElementType.RECORD_COMPONENT })
+public @interface OptionalField {
+}
@@ -35,6 +35,10 @@ public class RegisterService extends AuthenticableService {
 	//
 	
 	public RegisterResult register(RegisterRequest request) throws AlreadyTakenException, DataAccessException {
+		if (BotProfile.isBotUsername(request.username())) {
+			throw new AlreadyTakenException("Username is reserved for bots");
+		}
+
 		String encrPasword = this.userDAO.encryptPassword(request.password());
 		UserData userData = new UserData(request.username(), encrPasword, request.email());
 
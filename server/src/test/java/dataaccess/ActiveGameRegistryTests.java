@@ -0,0 +1,252 @@
+package dataaccess;
+
+import org.junit.jupiter.api.*;
+
+import chess.ChessClock;
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPosition;
+import dataaccess.GameDAO.GameFilter;
+import dataaccess.memorydao.MemoryGameDAO;
+import model.GameData;
+import model.GameSummary;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+public class ActiveGameRegistryTests {
+	/**
+	 * Counts the writes that reach the store
+	 */
+	private static class CountingGameDAO extends MemoryGameDAO {
+		private int updateNum = 0;
+
+		@Override
+		public synchronized void updateGame(String gameID, GameData newGameData) throws DataAccessException {
+			this.updateNum++;
+			super.updateGame(gameID, newGameData);
+		}
+
+		@Override
+		public synchronized void compareAndSetGame(String gameID, long expectedVersion, GameData newGameData)
+				throws DataAccessException, VersionConflictException {
+			this.updateNum++;
+			super.compareAndSetGame(gameID, expectedVersion, newGameData);
+		}
+
+		@Override
+		public synchronized GameData getGame(String gameID) throws DataAccessException {
+			return super.getGame(gameID);
+		}
+
+		public synchronized int getUpdateNum() {
+			return this.updateNum;
+		}
+	}
+
+	private static CountingGameDAO store;
+	private static ActiveGameRegistry registry;
+	private static String gameID;
+	//
+	// ==================== TEST SETUP ===============
+	//
+
+	@BeforeEach
+	public void init() {
+		store = new CountingGameDAO();
+		// Long delays, so nothing is written until a test asks for it
+		registry = new ActiveGameRegistry(store, 60_000, 60_000);
+
+		GameData gameData = Assertions.assertDoesNotThrow(() -> registry.createGame("Live Game"));
+		gameID = gameData.gameID();
+	}
+
+	@AfterEach
+	public void cleanup() {
+		registry.shutdown();
+	}
+
+	private static GameData withWhite(GameData gameData, String whiteUsername) {
+		return new GameData(gameData.gameID(), whiteUsername, gameData.blackUsername(),
+				gameData.gameName(), gameData.game());
+	}
+
+	//
+	// ==================== TEST CASES ================
+	//
+
+	@Test
+	@Order(1)
+	public void registryPinnedGameShared() {
+		registry.pin(Integer.parseInt(gameID));
+
+		GameData first = Assertions.assertDoesNotThrow(() -> registry.getGame(gameID));
+		GameData second = Assertions.assertDoesNotThrow(() -> registry.getGame(gameID));
+
+		Assertions.assertTrue(first == second);
+		Assertions.assertTrue(registry.isActive(Integer.parseInt(gameID)));
+	}
+
+	@Test
+	@Order(2)
+	public void registryUpdatesCoalesced() {
+		GameData gameData = Assertions.assertDoesNotThrow(() -> registry.getGame(gameID));
+
+		for (int i = 0; i < 5; i++) {
+			GameData update = withWhite(gameData, "player" + i);
+			Assertions.assertDoesNotThrow(() -> registry.updateGame(gameID, update));
+		}
+
+		// Readers see the newest update before it is written
+		GameData read = Assertions.assertDoesNotThrow(() -> registry.getGame(gameID));
+		Assertions.assertEquals("player4", read.whiteUsername());
+		Assertions.assertEquals(0, store.getUpdateNum());
+		Assertions.assertEquals(1, registry.getPendingNum());
+
+		registry.shutdown();
+
+		GameData stored = Assertions.assertDoesNotThrow(() -> store.getGame(gameID));
+		Assertions.assertEquals("player4", stored.whiteUsername());
+		Assertions.assertEquals(1, store.getUpdateNum());
+		Assertions.assertEquals(4, registry.getCoalescedCount());
+	}
+
+	@Test
+	@Order(3)
+	public void registryFlushedOnUnpin() {
+		int id = Integer.parseInt(gameID);
+		registry.pin(id);
+
+		GameData gameData = Assertions.assertDoesNotThrow(() -> registry.getGame(gameID));
+		Assertions.assertDoesNotThrow(() -> gameData.game().makeMove(
+				new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null)));
+		Assertions.assertDoesNotThrow(() -> registry.updateGame(gameID, gameData));
+
+		registry.unpin(id);
+		Assertions.assertFalse(registry.isActive(id));
+
+		long deadline = System.currentTimeMillis() + 5_000;
+		while (store.getUpdateNum() == 0 && System.currentTimeMillis() < deadline) {
+			Thread.onSpinWait();
+		}
+
+		// The store holds a copy of the moved game, not the live one
+		GameData stored = Assertions.assertDoesNotThrow(() -> store.getGame(gameID));
+		Assertions.assertEquals(gameData.game(), stored.game());
+		Assertions.assertFalse(gameData.game() == stored.game());
+	}
+
+	@Test
+	@Order(4)
+	public void registryFlushedWhenIdle() {
+		registry.shutdown();
+		registry = new ActiveGameRegistry(store, 0, 60_000);
+
+		GameData gameData = Assertions.assertDoesNotThrow(() -> registry.getGame(gameID));
+		Assertions.assertDoesNotThrow(() -> registry.updateGame(gameID, withWhite(gameData, "idle")));
+
+		long deadline = System.currentTimeMillis() + 5_000;
+		while (store.getUpdateNum() == 0 && System.currentTimeMillis() < deadline) {
+			Thread.onSpinWait();
+		}
+
+		GameData stored = Assertions.assertDoesNotThrow(() -> store.getGame(gameID));
+		Assertions.assertEquals("idle", stored.whiteUsername());
+	}
+
+	@Test
+	@Order(5)
+	public void registryCompareAndSetConflict() {
+		GameData read = Assertions.assertDoesNotThrow(() -> registry.getGame(gameID));
+
+		Assertions.assertDoesNotThrow(() -> registry.updateGame(gameID, withWhite(read, "first")));
+
+		GameData late = withWhite(read, "second").withVersion(read.version() + 1);
+		Assertions.assertThrows(VersionConflictException.class,
+				() -> registry.compareAndSetGame(gameID, read.version(), late));
+
+		// modifyGame starts over from the current data instead
+		GameData modified = Assertions.assertDoesNotThrow(() -> registry.modifyGame(gameID,
+				current -> new GameData(current.gameID(), current.whiteUsername(), "second",
+						current.gameName(), current.game())));
+		Assertions.assertEquals("first", modified.whiteUsername());
+		Assertions.assertEquals(read.version() + 2, modified.version());
+	}
+
+	@Test
+	@Order(6)
+	public void registryFlushConflictDropsChanges() {
+		GameData read = Assertions.assertDoesNotThrow(() -> registry.getGame(gameID));
+		Assertions.assertDoesNotThrow(() -> registry.updateGame(gameID, withWhite(read, "mine")));
+
+		List<Integer> conflicted = new ArrayList<>();
+		registry.setConflictListener(conflicted::add);
+
+		// Another process writes the game to the store first
+		Assertions.assertDoesNotThrow(() -> store.updateGame(gameID, withWhite(read, "theirs")));
+
+		registry.shutdown();
+
+		GameData stored = Assertions.assertDoesNotThrow(() -> store.getGame(gameID));
+		Assertions.assertEquals("theirs", stored.whiteUsername());
+		Assertions.assertEquals(1, registry.getConflictCount());
+
+		// Whoever was shown the dropped change is told, and reads what the store holds
+		Assertions.assertEquals(List.of(Integer.parseInt(gameID)), conflicted);
+		GameData reloaded = Assertions.assertDoesNotThrow(() -> registry.getGame(gameID));
+		Assertions.assertEquals("theirs", reloaded.whiteUsername());
+	}
+
+	@Test
+	@Order(7)
+	public void registryListingShowsUnwritten() {
+		GameData other = Assertions.assertDoesNotThrow(() -> registry.createGame("Other Game"));
+		GameData read = Assertions.assertDoesNotThrow(() -> registry.getGame(gameID));
+
+		GameData full = new GameData(read.gameID(), "white", "black", read.gameName(), read.game());
+		Assertions.assertDoesNotThrow(() -> registry.updateGame(gameID, full));
+
+		// The store still lists both games as open
+		GameFilter openSeats = new GameFilter(true, null, false);
+		List<GameSummary> stored = Assertions.assertDoesNotThrow(() -> store.listGames(0, 10, openSeats));
+		Assertions.assertEquals(2, stored.size());
+
+		List<GameSummary> listed = Assertions.assertDoesNotThrow(() -> registry.listGames(0, 10, openSeats));
+		Assertions.assertEquals(1, listed.size());
+		Assertions.assertEquals(other.gameID(), listed.get(0).gameID());
+
+		List<GameSummary> playing = Assertions.assertDoesNotThrow(
+				() -> registry.listGames(0, 1, new GameFilter(false, "black", false)));
+		Assertions.assertEquals(1, playing.size());
+		Assertions.assertEquals(GameSummary.Status.PLAYING, playing.get(0).status());
+	}
+
+	@Test
+	@Order(8)
+	public void registryClockDeadlinesShowUnwritten() {
+		ChessGame game = new ChessGame();
+		ChessClock clock = new ChessClock(60_000, 0);
+		clock.punch(ChessGame.TeamColor.BLACK, 1_000);
+		game.setClock(clock);
+
+		GameData read = Assertions.assertDoesNotThrow(() -> registry.getGame(gameID));
+		GameData timed = new GameData(read.gameID(), "white", "black", read.gameName(), game);
+		Assertions.assertDoesNotThrow(() -> registry.updateGame(gameID, timed));
+
+		// Only the registry knows the clock is running until it is written
+		Map<Integer, Long> stored = Assertions.assertDoesNotThrow(() -> store.getClockDeadlines());
+		Assertions.assertTrue(stored.isEmpty());
+		Map<Integer, Long> deadlines = Assertions.assertDoesNotThrow(() -> registry.getClockDeadlines());
+		Assertions.assertEquals(Map.of(Integer.parseInt(gameID), 61_000L), deadlines);
+
+		registry.shutdown();
+		stored = Assertions.assertDoesNotThrow(() -> store.getClockDeadlines());
+		Assertions.assertEquals(deadlines, stored);
+
+		// A flagged clock is a finished game
+		clock.flag();
+		Assertions.assertDoesNotThrow(() -> store.updateGame(gameID, timed));
+		Assertions.assertTrue(Assertions.assertDoesNotThrow(() -> store.getClockDeadlines()).isEmpty());
+	}
+}
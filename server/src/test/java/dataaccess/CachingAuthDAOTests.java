@@ -0,0 +1,100 @@
+package dataaccess;
+
+import org.junit.jupiter.api.*;
+
+import dataaccess.memorydao.MemoryAuthDAO;
+import model.AuthData;
+
+public class CachingAuthDAOTests {
+	/**
+	 * Counts the lookups that reach the store
+	 */
+	private static class CountingAuthDAO extends MemoryAuthDAO {
+		private int lookupNum = 0;
+
+		@Override
+		public AuthData getAuth(String authToken) throws DataAccessException, AuthenticationException {
+			this.lookupNum++;
+			return super.getAuth(authToken);
+		}
+
+		public int getLookupNum() {
+			return this.lookupNum;
+		}
+	}
+
+	private static CountingAuthDAO store;
+	private static CachingAuthDAO authDAO;
+	private static AuthData auth;
+	//
+	// ==================== TEST SETUP ===============
+	//
+
+	@BeforeEach
+	public void init() {
+		store = new CountingAuthDAO();
+		authDAO = new CachingAuthDAO(store, 60_000, 60_000, 1024 * 1024, 1024 * 1024);
+
+		auth = new AuthData("token", "username");
+		Assertions.assertDoesNotThrow(() -> authDAO.createAuth(auth));
+	}
+
+	//
+	// ==================== TEST CASES ================
+	//
+
+	@Test
+	@Order(1)
+	public void authCacheHit() {
+		AuthData first = Assertions.assertDoesNotThrow(() -> authDAO.getAuth("token"));
+		Assertions.assertTrue(Assertions.assertDoesNotThrow(() -> authDAO.authExists("token")));
+		AuthData second = Assertions.assertDoesNotThrow(() -> authDAO.getAuth("token"));
+
+		Assertions.assertEquals(auth, first);
+		Assertions.assertEquals(auth, second);
+		Assertions.assertEquals(1, store.getLookupNum());
+		Assertions.assertEquals(2, authDAO.getTokenCache().getHitCount());
+	}
+
+	@Test
+	@Order(2)
+	public void authCacheUnknownToken() {
+		Assertions.assertThrows(AuthenticationException.class, () -> authDAO.getAuth("bad token"));
+		Assertions.assertFalse(Assertions.assertDoesNotThrow(() -> authDAO.authExists("bad token")));
+		Assertions.assertEquals(1, store.getLookupNum());
+
+		// A token longer than any stored one isn't even looked up
+		Assertions.assertFalse(Assertions.assertDoesNotThrow(
+				() -> authDAO.authExists("x".repeat(CachingAuthDAO.MAX_TOKEN_LENGTH + 1))));
+		Assertions.assertEquals(1, store.getLookupNum());
+	}
+
+	@Test
+	@Order(3)
+	public void authCacheRemoved() {
+		Assertions.assertDoesNotThrow(() -> authDAO.getAuth("token"));
+		Assertions.assertDoesNotThrow(() -> authDAO.removeAuth(auth));
+
+		Assertions.assertThrows(AuthenticationException.class, () -> authDAO.getAuth("token"));
+	}
+
+	@Test
+	@Order(4)
+	public void authCacheCleared() {
+		Assertions.assertDoesNotThrow(() -> authDAO.getAuth("token"));
+		Assertions.assertDoesNotThrow(() -> authDAO.clearAllAuthData());
+
+		Assertions.assertFalse(Assertions.assertDoesNotThrow(() -> authDAO.authExists("token")));
+	}
+
+	@Test
+	@Order(5)
+	public void authCacheExpired() {
+		authDAO = new CachingAuthDAO(store, 0, 0, 1024 * 1024, 1024 * 1024);
+
+		Assertions.assertDoesNotThrow(() -> authDAO.getAuth("token"));
+		Assertions.assertDoesNotThrow(() -> authDAO.getAuth("token"));
+
+		Assertions.assertEquals(2, store.getLookupNum());
+	}
+}
@@ -0,0 +1,155 @@
+package dataaccess;
+
+import org.junit.jupiter.api.*;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import dataaccess.ConnectionPool.PoolConfig;
+
+public class ConnectionPoolTests {
+	private static AtomicInteger openedNum;
+	private static AtomicBoolean broken;
+	//
+	// ==================== TEST SETUP ===============
+	//
+
+	@BeforeEach
+	public void init() {
+		openedNum = new AtomicInteger();
+		broken = new AtomicBoolean(false);
+	}
+
+	/**
+	 * Opens a stand-in connection whose validation query fails once broken is set
+	 */
+	private static Connection openFake() {
+		openedNum.incrementAndGet();
+		AtomicBoolean closed = new AtomicBoolean(false);
+
+		Statement statement = (Statement)Proxy.newProxyInstance(Statement.class.getClassLoader(),
+				new Class<?>[] { Statement.class }, (proxy, method, args) -> {
+					if (method.getName().equals("execute") && broken.get()) {
+						throw new SQLException("Connection reset");
+					}
+					return method.getReturnType() == boolean.class ? false : null;
+				});
+
+		return (Connection)Proxy.newProxyInstance(Connection.class.getClassLoader(),
+				new Class<?>[] { Connection.class }, (proxy, method, args) -> {
+					switch (method.getName()) {
+						case "close": closed.set(true); return null;
+						case "isClosed": return closed.get();
+						case "getAutoCommit": return true;
+						case "createStatement": return statement;
+						default: return null;
+					}
+				});
+	}
+
+	private static ConnectionPool createPool(int maxSize, long validationIntervalMillis) {
+		PoolConfig config = new PoolConfig(0, maxSize, 100, 60_000, "SELECT 1", validationIntervalMillis, 60_000);
+		return new ConnectionPool(ConnectionPoolTests::openFake, config);
+	}
+
+	//
+	// ==================== TEST CASES ================
+	//
+
+	@Test
+	@Order(1)
+	public void poolReusesConnection() {
+		ConnectionPool pool = createPool(2, 60_000);
+
+		Connection first = Assertions.assertDoesNotThrow(() -> pool.borrow());
+		Assertions.assertDoesNotThrow(() -> first.close());
+		Assertions.assertTrue(Assertions.assertDoesNotThrow(() -> first.isClosed()));
+
+		Connection second = Assertions.assertDoesNotThrow(() -> pool.borrow());
+		Assertions.assertEquals(1, openedNum.get());
+		Assertions.assertEquals(1, pool.getActiveNum());
+		Assertions.assertDoesNotThrow(() -> second.close());
+
+		Assertions.assertEquals(0, pool.getActiveNum());
+		Assertions.assertEquals(1, pool.getIdleNum());
+		pool.close();
+	}
+
+	@Test
+	@Order(2)
+	public void poolReturnedConnectionUnusable() {
+		ConnectionPool pool = createPool(1, 60_000);
+
+		Connection conn = Assertions.assertDoesNotThrow(() -> pool.borrow());
+		Assertions.assertDoesNotThrow(() -> conn.close());
+		Assertions.assertDoesNotThrow(() -> conn.close());
+
+		Assertions.assertThrows(SQLException.class, () -> conn.createStatement());
+		Assertions.assertEquals(1, pool.getIdleNum());
+		pool.close();
+	}
+
+	@Test
+	@Order(3)
+	public void poolExhaustedTimesOut() {
+		ConnectionPool pool = createPool(1, 60_000);
+
+		Connection conn = Assertions.assertDoesNotThrow(() -> pool.borrow());
+		Assertions.assertThrows(DataAccessException.class, () -> pool.borrow());
+		Assertions.assertEquals(1, pool.getTimeoutCount());
+
+		Assertions.assertDoesNotThrow(() -> conn.close());
+		Connection next = Assertions.assertDoesNotThrow(() -> pool.borrow());
+		Assertions.assertDoesNotThrow(() -> next.close());
+		pool.close();
+	}
+
+	@Test
+	@Order(4)
+	public void poolReplacesInvalidConnection() {
+		ConnectionPool pool = createPool(1, 0);
+
+		Connection conn = Assertions.assertDoesNotThrow(() -> pool.borrow());
+		Assertions.assertDoesNotThrow(() -> conn.close());
+
+		// The idle connection fails validation, so a new one is opened in its place
+		broken.set(true);
+		Connection next = Assertions.assertDoesNotThrow(() -> pool.borrow());
+		Assertions.assertEquals(2, openedNum.get());
+		Assertions.assertEquals(1, pool.getOpenNum());
+		Assertions.assertDoesNotThrow(() -> next.close());
+		pool.close();
+	}
+
+	@Test
+	@Order(5)
+	public void poolReportsLeakUntraced() throws InterruptedException {
+		// Leaks are still caught without a stack trace captured on every borrow
+		PoolConfig config = new PoolConfig(0, 1, 100, 60_000, "SELECT 1", 60_000, 1);
+		Assertions.assertFalse(config.traceLeaks());
+		ConnectionPool pool = new ConnectionPool(ConnectionPoolTests::openFake, config);
+
+		Connection conn = Assertions.assertDoesNotThrow(() -> pool.borrow());
+		long deadline = System.currentTimeMillis() + 5_000;
+		while (pool.getLeakCount() == 0 && System.currentTimeMillis() < deadline) {
+			Thread.sleep(50);
+		}
+		Assertions.assertEquals(1, pool.getLeakCount());
+
+		Assertions.assertDoesNotThrow(() -> conn.close());
+		pool.close();
+	}
+
+	@Test
+	@Order(6)
+	public void poolConfigIncorrect() {
+		Assertions.assertThrows(IllegalArgumentException.class,
+				() -> new PoolConfig(5, 2, 100, 100, "SELECT 1", 100, 100));
+		Assertions.assertThrows(IllegalArgumentException.class,
+				() -> new PoolConfig(0, 0, 100, 100, "SELECT 1", 100, 100));
+	}
+}
@@ -2,12 +2,14 @@ package dataaccess;
 
 import java.util.HashSet;
 import java.util.Collection;
+import java.util.List;
 
 import org.junit.jupiter.api.*;
 
 import dataaccess.sqldao.SQLGameDAO;
 
 import model.GameData;
+import model.GameSummary;
 
 import util.Debugger;
 
@@ -131,4 +133,68 @@ public class GameDAoTests extends DatabaseDAoTests {
 		GameData spoofedData = new GameData("39", "", "", "foo", new ChessGame());
 		Assertions.assertDoesNotThrow(() -> gameDAO.removeGame(spoofedData));
 	}
+
+	@Test
+	@Order(9)
+	public void gameDataCompareAndSet() {
+		GameData data = Assertions.assertDoesNotThrow(() -> gameDAO.createGame("Versioned Game"));
+		GameData newData = new GameData(data.gameID(), "white", "", data.gameName(), data.game(), data.version() + 1);
+
+		Assertions.assertDoesNotThrow(() -> gameDAO.compareAndSetGame(data.gameID(), data.version(), newData));
+
+		GameData updatedData = Assertions.assertDoesNotThrow(() -> gameDAO.getGame(data.gameID()));
+		Assertions.assertEquals("white", updatedData.whiteUsername());
+		Assertions.assertEquals(data.version() + 1, updatedData.version());
+	}
+
+	@Test
+	@Order(10)
+	public void gameDataCompareAndSetConflict() {
+		GameData data = Assertions.assertDoesNotThrow(() -> gameDAO.createGame("Contested Game"));
+
+		// Someone else updates the game after it was read
+		Assertions.assertDoesNotThrow(() -> gameDAO.updateGame(data.gameID(), data));
+
+		GameData staleData = new GameData(data.gameID(), "late", "", data.gameName(), data.game(), data.version() + 1);
+		Assertions.assertThrows(VersionConflictException.class,
+				() -> gameDAO.compareAndSetGame(data.gameID(), data.version(), staleData));
+
+		GameData currentData = Assertions.assertDoesNotThrow(() -> gameDAO.getGame(data.gameID()));
+		Assertions.assertEquals("", currentData.whiteUsername());
+	}
+
+	@Test
+	@Order(11)
+	public void gameDataListPage() {
+		GameData first = Assertions.assertDoesNotThrow(() -> gameDAO.createGame("First Page Game"));
+		GameData second = Assertions.assertDoesNotThrow(() -> gameDAO.createGame("Second Page Game"));
+
+		List<GameSummary> page = Assertions.assertDoesNotThrow(
+				() -> gameDAO.listGames(first.getGameID() - 1, 1, GameDAO.GameFilter.NONE));
+		Assertions.assertEquals(1, page.size());
+		Assertions.assertEquals(first.gameID(), page.get(0).gameID());
+		Assertions.assertNull(page.get(0).whiteUsername());
+		Assertions.assertEquals(GameSummary.Status.OPEN, page.get(0).status());
+
+		List<GameSummary> nextPage = Assertions.assertDoesNotThrow(
+				() -> gameDAO.listGames(first.getGameID(), 1, GameDAO.GameFilter.NONE));
+		Assertions.assertEquals(second.gameID(), nextPage.get(0).gameID());
+	}
+
+	@Test
+	@Order(12)
+	public void gameDataListFiltered() {
+		GameData data = Assertions.assertDoesNotThrow(() -> gameDAO.createGame("Filtered Game"));
+		GameData full = new GameData(data.gameID(), "white", "black", data.gameName(), data.game());
+		Assertions.assertDoesNotThrow(() -> gameDAO.updateGame(data.gameID(), full));
+
+		List<GameSummary> playing = Assertions.assertDoesNotThrow(() -> gameDAO.listGames(
+				data.getGameID() - 1, 10, new GameDAO.GameFilter(false, "black", true)));
+		Assertions.assertEquals(1, playing.size());
+		Assertions.assertEquals(GameSummary.Status.PLAYING, playing.get(0).status());
+
+		List<GameSummary> open = Assertions.assertDoesNotThrow(() -> gameDAO.listGames(
+				data.getGameID() - 1, 10, new GameDAO.GameFilter(true, null, false)));
+		Assertions.assertTrue(open.isEmpty());
+	}
 }
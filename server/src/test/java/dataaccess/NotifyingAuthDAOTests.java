@@ -0,0 +1,59 @@
+package dataaccess;
+
+import org.junit.jupiter.api.*;
+
+import dataaccess.memorydao.MemoryAuthDAO;
+import model.AuthData;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class NotifyingAuthDAOTests {
+	private static NotifyingAuthDAO authDAO;
+	private static List<String> removed;
+	//
+	// ==================== TEST SETUP ===============
+	//
+
+	@BeforeEach
+	public void init() {
+		authDAO = new NotifyingAuthDAO(new MemoryAuthDAO());
+		removed = new ArrayList<>();
+		authDAO.setRemovalListener(new NotifyingAuthDAO.RemovalListener() {
+			public void removed(String authToken) {
+				removed.add(authToken);
+			}
+
+			public void cleared() {
+				removed.add("*");
+			}
+		});
+
+		Assertions.assertDoesNotThrow(() -> authDAO.createAuth(new AuthData("token", "username")));
+		Assertions.assertDoesNotThrow(() -> authDAO.createAuth(new AuthData("other", "username")));
+	}
+
+	//
+	// ==================== TEST CASES ================
+	//
+
+	@Test
+	@Order(1)
+	public void notifyOnRemove() {
+		Assertions.assertDoesNotThrow(() -> authDAO.removeAuth(new AuthData("token", "username")));
+
+		// Told after the token is gone, so a lookup from the listener fails
+		Assertions.assertEquals(List.of("token"), removed);
+		Assertions.assertThrows(AuthenticationException.class, () -> authDAO.getAuth("token"));
+		Assertions.assertTrue(Assertions.assertDoesNotThrow(() -> authDAO.authExists("other")));
+	}
+
+	@Test
+	@Order(2)
+	public void notifyOnClear() {
+		Assertions.assertDoesNotThrow(() -> authDAO.clearAllAuthData());
+
+		Assertions.assertEquals(List.of("*"), removed);
+		Assertions.assertFalse(Assertions.assertDoesNotThrow(() -> authDAO.authExists("other")));
+	}
+}
@@ -0,0 +1,169 @@
+package dataaccess;
+
+import java.util.Arrays;
+import java.util.Base64;
+
+import org.junit.jupiter.api.*;
+
+import dataaccess.SignedTokenAuthDAO.SigningConfig;
+import dataaccess.memorydao.MemoryAuthDAO;
+import model.AuthData;
+
+public class SignedTokenAuthDAOTests {
+	/**
+	 * Counts the lookups that reach the store
+	 */
+	private static class CountingAuthDAO extends MemoryAuthDAO {
+		private int lookupNum = 0;
+
+		@Override
+		public AuthData getAuth(String authToken) throws DataAccessException, AuthenticationException {
+			this.lookupNum++;
+			return super.getAuth(authToken);
+		}
+
+		@Override
+		public boolean authExists(String authToken) throws DataAccessException {
+			this.lookupNum++;
+			return super.authExists(authToken);
+		}
+
+		public int getLookupNum() {
+			return this.lookupNum;
+		}
+	}
+
+	private static byte[] key;
+	private static CountingAuthDAO store;
+	private static SignedTokenAuthDAO authDAO;
+	private static String token;
+
+	//
+	// ==================== TEST SETUP ===============
+	//
+
+	@BeforeEach
+	public void init() {
+		key = new byte[SignedTokenAuthDAO.MIN_KEY_BYTES];
+		Arrays.fill(key, (byte) 7);
+
+		store = new CountingAuthDAO();
+		authDAO = new SignedTokenAuthDAO(store, new SigningConfig(key, 60_000));
+
+		token = authDAO.generateAuthToken("username");
+		Assertions.assertDoesNotThrow(() -> authDAO.createAuth(new AuthData(token, "username")));
+	}
+
+	private static byte[] decodeSignature(String authToken) {
+		return Base64.getUrlDecoder().decode(authToken.substring(authToken.lastIndexOf('.') + 1));
+	}
+
+	//
+	// ==================== TEST CASES ================
+	//
+
+	@Test
+	@Order(1)
+	public void signedTokenValid() {
+		AuthData auth = Assertions.assertDoesNotThrow(() -> authDAO.getAuth(token));
+		Assertions.assertTrue(Assertions.assertDoesNotThrow(() -> authDAO.authExists(token)));
+
+		Assertions.assertEquals(new AuthData(token, "username"), auth);
+		Assertions.assertEquals(0, store.getLookupNum());
+		Assertions.assertEquals(2, authDAO.getVerifyCount());
+
+		// Another server holding the same key accepts it too
+		SignedTokenAuthDAO otherServer = new SignedTokenAuthDAO(new MemoryAuthDAO(), new SigningConfig(key, 60_000));
+		Assertions.assertTrue(Assertions.assertDoesNotThrow(() -> otherServer.authExists(token)));
+	}
+
+	@Test
+	@Order(2)
+	public void signedTokenForged() {
+		String otherUser = token.replaceFirst("^s1\\.[^.]+", "s1.b3RoZXI");
+		Assertions.assertThrows(AuthenticationException.class, () -> authDAO.getAuth(otherUser));
+		Assertions.assertFalse(Assertions.assertDoesNotThrow(() -> authDAO.authExists("s1.garbage")));
+
+		byte[] otherKey = new byte[SignedTokenAuthDAO.MIN_KEY_BYTES];
+		SignedTokenAuthDAO otherServer = new SignedTokenAuthDAO(new MemoryAuthDAO(), new SigningConfig(otherKey, 60_000));
+		Assertions.assertFalse(Assertions.assertDoesNotThrow(() -> otherServer.authExists(token)));
+
+		Assertions.assertEquals(2, authDAO.getRejectedCount());
+		Assertions.assertEquals(0, store.getLookupNum());
+	}
+
+	@Test
+	@Order(3)
+	public void signedTokenRevoked() {
+		Assertions.assertDoesNotThrow(() -> authDAO.removeAuth(new AuthData(token, "username")));
+
+		Assertions.assertThrows(AuthenticationException.class, () -> authDAO.getAuth(token));
+		Assertions.assertEquals(1, authDAO.getRevokedNum());
+
+		// The user's other tokens stay valid
+		String otherToken = authDAO.generateAuthToken("username");
+		Assertions.assertTrue(Assertions.assertDoesNotThrow(() -> authDAO.authExists(otherToken)));
+	}
+
+	@Test
+	@Order(4)
+	public void signedTokenRevokedRespelled() {
+		Assertions.assertDoesNotThrow(() -> authDAO.removeAuth(new AuthData(token, "username")));
+
+		// Lenient base64 decoding reads these signatures the same as the original
+		Assertions.assertFalse(Assertions.assertDoesNotThrow(() -> authDAO.authExists(token + "=")));
+		Assertions.assertFalse(Assertions.assertDoesNotThrow(() -> authDAO.authExists(token + "==")));
+
+		// So does flipping a spare low bit of the last character
+		String alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_";
+		char last = token.charAt(token.length() - 1);
+		String respelled = token.substring(0, token.length() - 1) + alphabet.charAt(alphabet.indexOf(last) ^ 1);
+		Assertions.assertArrayEquals(decodeSignature(token), decodeSignature(respelled));
+		Assertions.assertFalse(Assertions.assertDoesNotThrow(() -> authDAO.authExists(respelled)));
+	}
+
+	@Test
+	@Order(5)
+	public void signedTokenRespelled() {
+		Assertions.assertFalse(Assertions.assertDoesNotThrow(() -> authDAO.authExists(token + "=")));
+		Assertions.assertTrue(Assertions.assertDoesNotThrow(() -> authDAO.authExists(token)));
+	}
+
+	@Test
+	@Order(6)
+	public void signedTokenCleared() {
+		Assertions.assertDoesNotThrow(() -> authDAO.clearAllAuthData());
+
+		Assertions.assertFalse(Assertions.assertDoesNotThrow(() -> authDAO.authExists(token)));
+
+		String newToken = authDAO.generateAuthToken("username");
+		Assertions.assertTrue(Assertions.assertDoesNotThrow(() -> authDAO.authExists(newToken)));
+	}
+
+	@Test
+	@Order(7)
+	public void signedTokenExpired() throws InterruptedException {
+		authDAO = new SignedTokenAuthDAO(store, new SigningConfig(key, 1));
+		String shortToken = authDAO.generateAuthToken("username");
+
+		Thread.sleep(5);
+
+		Assertions.assertFalse(Assertions.assertDoesNotThrow(() -> authDAO.authExists(shortToken)));
+	}
+
+	@Test
+	@Order(8)
+	public void unsignedTokenLookedUp() {
+		AuthData auth = new AuthData("plain token", "username");
+		Assertions.assertDoesNotThrow(() -> authDAO.createAuth(auth));
+
+		Assertions.assertEquals(auth, Assertions.assertDoesNotThrow(() -> authDAO.getAuth("plain token")));
+		Assertions.assertEquals(1, store.getLookupNum());
+	}
+
+	@Test
+	@Order(9)
+	public void signingKeyTooShort() {
+		Assertions.assertThrows(IllegalArgumentException.class, () -> new SigningConfig(new byte[8], 60_000));
+	}
+}
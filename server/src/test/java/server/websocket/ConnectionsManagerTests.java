@@ -0,0 +1,145 @@
+package server.websocket;
+
+import org.junit.jupiter.api.*;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPosition;
+import chess.InvalidMoveException;
+import dataaccess.ActiveGameRegistry;
+import dataaccess.memorydao.MemoryGameDAO;
+import model.GameData;
+import server.metrics.MetricsRegistry;
+import websocket.messages.MoveAppliedMessage;
+import websocket.messages.RedrawBoardMessage;
+
+import java.util.List;
+import java.util.Set;
+
+import com.google.gson.Gson;
+
+public class ConnectionsManagerTests {
+	private static final ChessMove E4 = new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null);
+	private static final ChessMove E5 = new ChessMove(new ChessPosition(7, 5), new ChessPosition(5, 5), null);
+
+	private static ActiveGameRegistry activeGames;
+	private static OutboundQueues outbound;
+	private static SpectatorStreams spectators;
+	//
+	// ==================== TEST SETUP ===============
+	//
+
+	@BeforeEach
+	public void init() {
+		MetricsRegistry metrics = new MetricsRegistry();
+		activeGames = new ActiveGameRegistry(new MemoryGameDAO());
+		outbound = new OutboundQueues(metrics);
+		spectators = new SpectatorStreams(metrics);
+	}
+
+	@AfterEach
+	public void shutdown() {
+		spectators.shutdown();
+		outbound.shutdown();
+		activeGames.shutdown();
+	}
+
+	//
+	// ==================== TEST CASES ================
+	//
+
+	@Test
+	@Order(1)
+	public void eventLogsExpireOnceIdle() {
+		// Logs are kept no time at all once everyone leaves
+		ConnectionsManager connections = new ConnectionsManager(activeGames, outbound, spectators, 0);
+		FakeSession session = new FakeSession();
+
+		connections.add(1, session.session());
+		long firstSeq = connections.getSequence(1);
+		connections.remove(1, session.session());
+
+		connections.add(2, session.session());
+		long secondSeq = connections.getSequence(2);
+		Assertions.assertNull(connections.eventsAfter(1, firstSeq, "user"));
+
+		// A game someone came back to keeps its log past its old idle time
+		connections.remove(2, session.session());
+		connections.add(2, session.session());
+		connections.getSequence(3);
+		Assertions.assertEquals(List.of(), connections.eventsAfter(2, secondSeq, "user"));
+	}
+
+	@Test
+	@Order(2)
+	public void closeVisitsOnlySessionGames() {
+		ConnectionsManager connections = new ConnectionsManager(activeGames, outbound, spectators);
+		FakeSession leaving = new FakeSession();
+		FakeSession staying = new FakeSession();
+
+		for (int gameID = 1; gameID <= 3; gameID++) {
+			Assertions.assertTrue(connections.add(gameID, leaving.session()));
+		}
+		connections.add(2, staying.session());
+		connections.remove(3, leaving.session());
+		Assertions.assertEquals(Set.of(1, 2), connections.getSessionGames(leaving.session()));
+		Assertions.assertEquals(Set.of(2), connections.getSessionGames(staying.session()));
+
+		// Games left empty are dropped and unpinned, and the others keep their sessions
+		connections.closeAllSessions(leaving.session());
+		Assertions.assertEquals(Set.of(), connections.getSessionGames(leaving.session()));
+		Assertions.assertFalse(connections.connExists(1));
+		Assertions.assertFalse(activeGames.isActive(1));
+		Assertions.assertTrue(connections.connExists(2));
+		Assertions.assertFalse(connections.connections.get(2).contains(leaving.session()));
+		Assertions.assertTrue(connections.connections.get(2).contains(staying.session()));
+
+		// A session that closed before it was added isn't kept anywhere
+		FakeSession closed = new FakeSession();
+		closed.session().close(1000, "done");
+		Assertions.assertFalse(connections.add(4, closed.session()));
+		Assertions.assertFalse(connections.connExists(4));
+		Assertions.assertEquals(Set.of(), connections.getSessionGames(closed.session()));
+	}
+
+	@Test
+	@Order(3)
+	public void snapshotFollowsVersion() throws InvalidMoveException, InterruptedException {
+		ConnectionsManager connections = new ConnectionsManager(activeGames, outbound, spectators);
+		FakeSession first = new FakeSession();
+		FakeSession second = new FakeSession();
+		connections.add(1, first.session());
+		connections.add(1, second.session());
+
+		ChessGame game = new ChessGame();
+		GameData gameData = new GameData("1", "", "", "game", game).withVersion(1);
+		connections.sendSnapshot(1, first.session(), gameData);
+
+		// The same version is served from the cache, even when handed a changed board
+		game.makeMove(E4);
+		connections.sendSnapshot(1, second.session(), gameData);
+		Assertions.assertTrue(first.awaitSent(1) && second.awaitSent(1));
+		Assertions.assertSame(first.sent().get(0), second.sent().get(0));
+
+		// A new version is serialized again
+		connections.sendSnapshot(1, first.session(), gameData.withVersion(2));
+		Assertions.assertTrue(first.awaitSent(2));
+		Assertions.assertNotEquals(first.sent().get(0), first.sent().get(1));
+		Assertions.assertEquals(E4, board(first.sent().get(1)).getMoveHistory().get(0));
+
+		// A move broadcast as a board caches it for the version after the move. Each send waits
+		// for the last, since a board still queued would be replaced by the next.
+		game.makeMove(E5);
+		RedrawBoardMessage board = new RedrawBoardMessage(game);
+		MoveAppliedMessage update = new MoveAppliedMessage(1, 2, E5, MoveAppliedMessage.Status.IN_PROGRESS);
+		connections.broadcastMove(1, 3, board, update);
+		Assertions.assertTrue(first.awaitSent(3) && second.awaitSent(2));
+		connections.sendSnapshot(1, first.session(), new GameData("1", "", "", "game", new ChessGame()).withVersion(3));
+		Assertions.assertTrue(first.awaitSent(4));
+		Assertions.assertSame(second.sent().get(1), first.sent().get(3));
+	}
+
+	private static ChessGame board(String payload) {
+		return new Gson().fromJson(payload, RedrawBoardMessage.class).getGame();
+	}
+}
@@ -0,0 +1,93 @@
+package server.websocket;
+
+import org.eclipse.jetty.websocket.api.RemoteEndpoint;
+import org.eclipse.jetty.websocket.api.Session;
+
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A WebSocket session that records what is sent to it instead of going over the network.
+ * Sends can be held until the test lets them through, to stand in for a slow client.
+ */
+class FakeSession {
+	private final List<String> sent = new CopyOnWriteArrayList<>();
+	private volatile CountDownLatch gate = new CountDownLatch(0);
+	private volatile boolean open = true;
+	private volatile int closeCode = 0;
+
+	private final Session session;
+
+	FakeSession() {
+		RemoteEndpoint remote = (RemoteEndpoint)Proxy.newProxyInstance(RemoteEndpoint.class.getClassLoader(),
+				new Class<?>[] { RemoteEndpoint.class }, (proxy, method, args) -> switch (method.getName()) {
+					case "sendString" -> {
+						this.gate.await();
+						this.sent.add((String)args[0]);
+						yield null;
+					}
+					case "hashCode" -> System.identityHashCode(proxy);
+					case "equals" -> proxy == args[0];
+					default -> null;
+				});
+
+		this.session = (Session)Proxy.newProxyInstance(Session.class.getClassLoader(),
+				new Class<?>[] { Session.class }, (proxy, method, args) -> switch (method.getName()) {
+					case "getRemote" -> remote;
+					case "isOpen" -> this.open;
+					case "close" -> {
+						this.open = false;
+						if (args != null && args.length == 2) {
+							this.closeCode = (int)args[0];
+						}
+						yield null;
+					}
+					case "hashCode" -> System.identityHashCode(proxy);
+					case "equals" -> proxy == args[0];
+					case "toString" -> "FakeSession@" + Integer.toHexString(System.identityHashCode(proxy));
+					default -> null;
+				});
+	}
+
+	Session session() {
+		return this.session;
+	}
+
+	List<String> sent() {
+		return this.sent;
+	}
+
+	int closeCode() {
+		return this.closeCode;
+	}
+
+	/**
+	 * Holds every send until release() is called
+	 */
+	void hold() {
+		this.gate = new CountDownLatch(1);
+	}
+
+	void release() {
+		this.gate.countDown();
+	}
+
+	/**
+	 * Waits until count messages have been sent
+	 *
+	 * @return True if they were sent within a few seconds
+	 */
+	boolean awaitSent(int count) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (this.sent.size() < count) {
+			if (System.nanoTime() > deadline) {
+				return false;
+			}
+			Thread.sleep(5);
+		}
+		return true;
+	}
+}
@@ -0,0 +1,51 @@
+package server.websocket;
+
+import org.junit.jupiter.api.*;
+
+import java.util.List;
+
+public class GameEventLogTests {
+	private static GameEventLog log;
+	private static long start;
+	//
+	// ==================== TEST SETUP ===============
+	//
+
+	@BeforeEach
+	public void init() {
+		log = new GameEventLog(3);
+		start = log.getSequence();
+	}
+
+	//
+	// ==================== TEST CASES ================
+	//
+
+	@Test
+	@Order(1)
+	public void eventLogReplaysMissed() {
+		for (int i = 1; i <= 3; i++) {
+			log.record(log.nextSequence(), "event " + i);
+		}
+
+		Assertions.assertEquals(List.of("event 2", "event 3"), log.eventsAfter(start + 1, "user"));
+		Assertions.assertEquals(List.of(), log.eventsAfter(start + 3, "user"));
+
+		// A number from the future, or from before the oldest event held, needs the board
+		Assertions.assertNull(log.eventsAfter(start + 4, "user"));
+		log.record(log.nextSequence(), "event 4");
+		Assertions.assertNull(log.eventsAfter(start, "user"));
+	}
+
+	@Test
+	@Order(2)
+	public void eventLogSkipsExcluded() {
+		log.record(log.nextSequence(), "joined", "mover");
+		log.record(log.nextSequence(), "board");
+		log.record(log.nextSequence(), "moved", "mover");
+
+		// The user an event wasn't sent to isn't sent it on reconnecting either
+		Assertions.assertEquals(List.of("board"), log.eventsAfter(start, "mover"));
+		Assertions.assertEquals(List.of("joined", "board", "moved"), log.eventsAfter(start, "watcher"));
+	}
+}
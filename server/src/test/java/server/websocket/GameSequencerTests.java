@@ -0,0 +1,160 @@
+package server.websocket;
+
+import org.junit.jupiter.api.*;
+
+import server.metrics.MetricsRegistry;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+public class GameSequencerTests {
+	private static final int COMMAND_NUM = 200;
+
+	private static MetricsRegistry metrics;
+	private static GameSequencer sequencer;
+	//
+	// ==================== TEST SETUP ===============
+	//
+
+	@BeforeEach
+	public void init() {
+		metrics = new MetricsRegistry();
+		sequencer = new GameSequencer(COMMAND_NUM, metrics);
+	}
+
+	@AfterEach
+	public void shutdown() {
+		sequencer.shutdown();
+	}
+
+	//
+	// ==================== TEST CASES ================
+	//
+
+	@Test
+	@Order(1)
+	public void sequencerKeepsOrder() throws InterruptedException {
+		List<Integer> ran = new CopyOnWriteArrayList<>();
+		CountDownLatch done = new CountDownLatch(COMMAND_NUM);
+
+		List<Integer> expected = new ArrayList<>();
+		for (int i = 0; i < COMMAND_NUM; i++) {
+			int command = i;
+			expected.add(command);
+			Assertions.assertTrue(sequencer.submit(1, () -> {
+				ran.add(command);
+				done.countDown();
+			}));
+		}
+
+		Assertions.assertTrue(done.await(5, TimeUnit.SECONDS));
+		Assertions.assertEquals(expected, ran);
+	}
+
+	@Test
+	@Order(2)
+	public void sequencerRunsGamesInParallel() throws InterruptedException {
+		CountDownLatch blocked = new CountDownLatch(1);
+		CountDownLatch otherRan = new CountDownLatch(1);
+		CountDownLatch queuedRan = new CountDownLatch(1);
+
+		// Game 1 is stuck on its first command, with a second waiting behind it
+		sequencer.submit(1, () -> awaitQuietly(blocked));
+		sequencer.submit(1, queuedRan::countDown);
+
+		// Game 2 doesn't wait on it
+		sequencer.submit(2, otherRan::countDown);
+		Assertions.assertTrue(otherRan.await(5, TimeUnit.SECONDS));
+		Assertions.assertEquals(1, queuedRan.getCount());
+
+		blocked.countDown();
+		Assertions.assertTrue(queuedRan.await(5, TimeUnit.SECONDS));
+	}
+
+	@Test
+	@Order(3)
+	public void sequencerRejectsPastMaxDepth() throws InterruptedException {
+		GameSequencer shallow = new GameSequencer(2, new MetricsRegistry());
+		try {
+			CountDownLatch started = new CountDownLatch(1);
+			CountDownLatch blocked = new CountDownLatch(1);
+			Assertions.assertTrue(shallow.submit(1, () -> {
+				started.countDown();
+				awaitQuietly(blocked);
+			}));
+			Assertions.assertTrue(started.await(5, TimeUnit.SECONDS));
+
+			// The running command no longer counts against the mailbox
+			Assertions.assertTrue(shallow.submit(1, () -> { }));
+			Assertions.assertTrue(shallow.submit(1, () -> { }));
+			Assertions.assertFalse(shallow.submit(1, () -> { }));
+			Assertions.assertEquals(2, shallow.getQueuedNum(1));
+
+			// Another game has its own mailbox
+			Assertions.assertTrue(shallow.submit(2, () -> { }));
+
+			blocked.countDown();
+			awaitMetric(() -> shallow.getQueuedNum(1), 0);
+			Assertions.assertTrue(shallow.submit(1, () -> { }));
+		} finally {
+			shallow.shutdown();
+		}
+	}
+
+	@Test
+	@Order(4)
+	public void sequencerCountsMetrics() throws InterruptedException {
+		MetricsRegistry shallowMetrics = new MetricsRegistry();
+		GameSequencer shallow = new GameSequencer(2, shallowMetrics);
+		try {
+			CountDownLatch started = new CountDownLatch(1);
+			CountDownLatch blocked = new CountDownLatch(1);
+			shallow.submit(1, () -> {
+				started.countDown();
+				awaitQuietly(blocked);
+			});
+			Assertions.assertTrue(started.await(5, TimeUnit.SECONDS));
+			shallow.submit(1, () -> { });
+			shallow.submit(1, () -> { });
+			shallow.submit(1, () -> { });
+
+			Map<String, Long> values = shallowMetrics.snapshot();
+			Assertions.assertEquals(2L, (long)values.get("ws.mailbox.queued"));
+			Assertions.assertEquals(1L, (long)values.get("ws.mailbox.games"));
+			Assertions.assertEquals(1L, (long)values.get("ws.mailbox.commands"));
+			Assertions.assertEquals(1L, (long)values.get("ws.mailbox.rejected"));
+
+			// Everything drains, and the empty mailbox is dropped
+			blocked.countDown();
+			awaitMetric(() -> shallowMetrics.snapshot().get("ws.mailbox.games"), 0);
+			values = shallowMetrics.snapshot();
+			Assertions.assertEquals(0L, (long)values.get("ws.mailbox.queued"));
+			Assertions.assertEquals(3L, (long)values.get("ws.mailbox.commands"));
+			Assertions.assertEquals(1L, (long)values.get("ws.mailbox.rejected"));
+			Assertions.assertTrue(values.get("ws.mailbox.waitMillis") >= 0);
+		} finally {
+			shallow.shutdown();
+		}
+	}
+
+	private static void awaitQuietly(CountDownLatch latch) {
+		try {
+			latch.await(5, TimeUnit.SECONDS);
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private static void awaitMetric(LongSupplier value, long expected) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (value.getAsLong() != expected && System.nanoTime() < deadline) {
+			Thread.sleep(5);
+		}
+		Assertions.assertEquals(expected, value.getAsLong());
+	}
+}
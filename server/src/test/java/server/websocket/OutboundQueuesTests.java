@@ -0,0 +1,175 @@
+package server.websocket;
+
+import org.junit.jupiter.api.*;
+
+import server.metrics.MetricsRegistry;
+import server.websocket.OutboundQueues.OutboundConfig;
+import server.websocket.OutboundQueues.OverflowPolicy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+public class OutboundQueuesTests {
+	private static MetricsRegistry metrics;
+	private static OutboundQueues outbound;
+	private static FakeSession session;
+	//
+	// ==================== TEST SETUP ===============
+	//
+
+	@BeforeEach
+	public void init() {
+		metrics = new MetricsRegistry();
+		session = new FakeSession();
+	}
+
+	@AfterEach
+	public void shutdown() {
+		session.release();
+		if (outbound != null) {
+			outbound.shutdown();
+		}
+	}
+
+	//
+	// ==================== TEST CASES ================
+	//
+
+	@Test
+	@Order(1)
+	public void outboundKeepsOrder() throws InterruptedException {
+		outbound = new OutboundQueues(metrics);
+
+		List<String> expected = new ArrayList<>();
+		for (int i = 0; i < 100; i++) {
+			expected.add("message " + i);
+			outbound.send(session.session(), "message " + i, false);
+		}
+
+		Assertions.assertTrue(session.awaitSent(expected.size()));
+		Assertions.assertEquals(expected, session.sent());
+		Assertions.assertEquals(100L, (long)metrics.snapshot().get("ws.outbound.sent"));
+	}
+
+	@Test
+	@Order(2)
+	public void outboundConflatesBoards() throws InterruptedException {
+		outbound = new OutboundQueues(metrics);
+		sendInFlight("sending");
+
+		// The newer board replaces the one still waiting, wherever it was queued
+		outbound.send(session.session(), "board 1", true);
+		outbound.send(session.session(), "joined", false);
+		outbound.send(session.session(), "board 2", true);
+		Assertions.assertEquals(2, outbound.getQueuedNum(session.session()));
+
+		session.release();
+		Assertions.assertTrue(session.awaitSent(3));
+		Assertions.assertEquals(List.of("sending", "joined", "board 2"), session.sent());
+		Assertions.assertEquals(1L, (long)metrics.snapshot().get("ws.outbound.conflated"));
+	}
+
+	@Test
+	@Order(3)
+	public void outboundDropsOldest() throws InterruptedException {
+		outbound = new OutboundQueues(new OutboundConfig(2, OverflowPolicy.DROP_OLDEST, 10), metrics);
+		sendInFlight("0");
+		for (int i = 1; i <= 3; i++) {
+			outbound.send(session.session(), String.valueOf(i), false);
+		}
+
+		session.release();
+		Assertions.assertTrue(session.awaitSent(3));
+		Assertions.assertEquals(List.of("0", "2", "3"), session.sent());
+		Assertions.assertEquals(1L, (long)metrics.snapshot().get("ws.outbound.dropped"));
+		Assertions.assertTrue(session.session().isOpen());
+	}
+
+	@Test
+	@Order(4)
+	public void outboundDropsNewest() throws InterruptedException {
+		outbound = new OutboundQueues(new OutboundConfig(2, OverflowPolicy.DROP_NEWEST, 10), metrics);
+		sendInFlight("0");
+		for (int i = 1; i <= 3; i++) {
+			outbound.send(session.session(), String.valueOf(i), false);
+		}
+
+		session.release();
+		Assertions.assertTrue(session.awaitSent(3));
+		Assertions.assertEquals(List.of("0", "1", "2"), session.sent());
+		Assertions.assertEquals(1L, (long)metrics.snapshot().get("ws.outbound.dropped"));
+		Assertions.assertTrue(session.session().isOpen());
+	}
+
+	@Test
+	@Order(5)
+	public void outboundDisconnectsWhenFull() throws InterruptedException {
+		outbound = new OutboundQueues(new OutboundConfig(2, OverflowPolicy.DISCONNECT, 10), metrics);
+		sendInFlight("0");
+		for (int i = 1; i <= 3; i++) {
+			outbound.send(session.session(), String.valueOf(i), false);
+		}
+
+		// Disconnecting doesn't wait on the drop limit, and the queued messages go with it
+		Assertions.assertFalse(session.session().isOpen());
+		Assertions.assertEquals(OutboundQueues.POLICY_VIOLATION, session.closeCode());
+		Assertions.assertEquals(0, outbound.getQueuedNum(session.session()));
+		Assertions.assertEquals(1L, (long)metrics.snapshot().get("ws.outbound.disconnected"));
+		Assertions.assertEquals(0L, (long)metrics.snapshot().get("ws.outbound.queued"));
+
+		// Only the message already being sent gets through
+		outbound.send(session.session(), "closed", false);
+		session.release();
+		Assertions.assertTrue(session.awaitSent(1));
+		Assertions.assertEquals(0L, (long)metrics.snapshot().get("ws.outbound.sessions"));
+		Assertions.assertEquals(List.of("0"), session.sent());
+	}
+
+	@Test
+	@Order(6)
+	public void outboundDisconnectsPastMaxDrops() throws InterruptedException {
+		outbound = new OutboundQueues(new OutboundConfig(1, OverflowPolicy.DROP_NEWEST, 1), metrics);
+
+		// One drop is allowed
+		sendInFlight("0");
+		outbound.send(session.session(), "1", false);
+		outbound.send(session.session(), "dropped", false);
+		Assertions.assertTrue(session.session().isOpen());
+
+		// Catching up starts the count over
+		session.release();
+		Assertions.assertTrue(session.awaitSent(2));
+		awaitValue(() -> metrics.snapshot().get("ws.outbound.sessions"), 0);
+
+		sendInFlight("2");
+		outbound.send(session.session(), "3", false);
+		outbound.send(session.session(), "dropped", false);
+		Assertions.assertTrue(session.session().isOpen());
+
+		// The second drop without catching up is one too many
+		outbound.send(session.session(), "dropped", false);
+		Assertions.assertFalse(session.session().isOpen());
+		Assertions.assertEquals(OutboundQueues.POLICY_VIOLATION, session.closeCode());
+		Assertions.assertEquals(3L, (long)metrics.snapshot().get("ws.outbound.dropped"));
+		Assertions.assertEquals(1L, (long)metrics.snapshot().get("ws.outbound.disconnected"));
+	}
+
+	/**
+	 * Sends a message the session holds on to, so the ones after it wait in the queue
+	 */
+	private static void sendInFlight(String payload) throws InterruptedException {
+		session.hold();
+		outbound.send(session.session(), payload, false);
+		awaitValue(() -> outbound.getQueuedNum(session.session()), 0);
+	}
+
+	private static void awaitValue(LongSupplier value, long expected) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (value.getAsLong() != expected && System.nanoTime() < deadline) {
+			Thread.sleep(5);
+		}
+		Assertions.assertEquals(expected, value.getAsLong());
+	}
+}
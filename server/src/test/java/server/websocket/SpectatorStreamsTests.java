@@ -0,0 +1,92 @@
+package server.websocket;
+
+import org.junit.jupiter.api.*;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPosition;
+import server.metrics.MetricsRegistry;
+import server.websocket.SpectatorStreams.SpectatorConfig;
+import websocket.messages.RedrawBoardMessage;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.google.gson.Gson;
+
+public class SpectatorStreamsTests {
+	/**
+	 * One board a second, so the stream's own ticks stay out of the way of the test's
+	 */
+	private static final SpectatorConfig TEST_CONFIG = new SpectatorConfig(2, 1);
+
+	private static SpectatorStreams streams;
+	private static List<String> sent;
+	//
+	// ==================== TEST SETUP ===============
+	//
+
+	@BeforeEach
+	public void init() {
+		streams = new SpectatorStreams(TEST_CONFIG, new MetricsRegistry());
+		sent = new ArrayList<>();
+		streams.setFanout((gameID, payload) -> sent.add(gameID + ":" + payload));
+	}
+
+	@AfterEach
+	public void shutdown() {
+		streams.shutdown();
+	}
+
+	//
+	// ==================== TEST CASES ================
+	//
+
+	@Test
+	@Order(1)
+	public void streamAudienceThreshold() {
+		Assertions.assertFalse(streams.isConflated(0));
+		Assertions.assertFalse(streams.isConflated(2));
+		Assertions.assertTrue(streams.isConflated(3));
+	}
+
+	@Test
+	@Order(2)
+	public void streamSendsOncePerTick() {
+		ChessGame game = new ChessGame();
+		for (long sequence = 1; sequence <= 5; sequence++) {
+			streams.publish(7, game, sequence);
+		}
+
+		streams.tick();
+		Assertions.assertEquals(1, sent.size());
+		Assertions.assertEquals(5L, sequenceOf(sent.get(0)));
+
+		// Nothing new, nothing sent
+		streams.tick();
+		Assertions.assertEquals(1, sent.size());
+	}
+
+	@Test
+	@Order(3)
+	public void streamWaitsForLatestMove() {
+		ChessGame game = new ChessGame();
+		streams.publish(7, game, 1);
+
+		// A move lands before the tick; its own publish is still to come
+		Assertions.assertDoesNotThrow(() -> game.makeMove(
+				new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null)));
+		streams.tick();
+		Assertions.assertTrue(sent.isEmpty());
+
+		streams.publish(7, game, 2);
+		streams.tick();
+		Assertions.assertEquals(1, sent.size());
+		Assertions.assertEquals(2L, sequenceOf(sent.get(0)));
+	}
+
+	private static long sequenceOf(String sentPayload) {
+		String payload = sentPayload.substring(sentPayload.indexOf(':') + 1);
+		return new Gson().fromJson(payload, RedrawBoardMessage.class).getSequence();
+	}
+}
@@ -0,0 +1,109 @@
+package server.websocket;
+
+import org.junit.jupiter.api.*;
+
+import server.metrics.MetricsRegistry;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class TimingWheelTests {
+	/**
+	 * An hour a tick, so the wheel's own thread never turns it during a test
+	 */
+	private static final long TICK = 3_600_000;
+
+	private static TimingWheel wheel;
+	private static List<Integer> expired;
+	private static long start;
+	//
+	// ==================== TEST SETUP ===============
+	//
+
+	@BeforeEach
+	public void init() {
+		start = System.currentTimeMillis() / TICK * TICK;
+		wheel = new TimingWheel(TICK, start, new MetricsRegistry());
+		expired = new ArrayList<>();
+		wheel.setExpiryListener(expired::add);
+	}
+
+	@AfterEach
+	public void shutdown() {
+		wheel.shutdown();
+	}
+
+	//
+	// ==================== TEST CASES ================
+	//
+
+	@Test
+	@Order(1)
+	public void wheelFiresOnTime() {
+		// Rounded up to the next tick, never early
+		wheel.schedule(1, start + 5 * TICK + 1);
+		wheel.advance(start + 5 * TICK);
+		Assertions.assertTrue(expired.isEmpty());
+		Assertions.assertEquals(1, wheel.getScheduledNum());
+
+		wheel.advance(start + 6 * TICK);
+		Assertions.assertEquals(List.of(1), expired);
+		Assertions.assertEquals(0, wheel.getScheduledNum());
+
+		// Once only
+		wheel.advance(start + 1000 * TICK);
+		Assertions.assertEquals(List.of(1), expired);
+	}
+
+	@Test
+	@Order(2)
+	public void wheelCascades() {
+		// Past the first level, and past the second
+		wheel.schedule(1, start + 300 * TICK);
+		wheel.schedule(2, start + 70_000 * TICK);
+
+		wheel.advance(start + 299 * TICK);
+		Assertions.assertTrue(expired.isEmpty());
+		wheel.advance(start + 300 * TICK);
+		Assertions.assertEquals(List.of(1), expired);
+
+		wheel.advance(start + 69_999 * TICK);
+		Assertions.assertEquals(List.of(1), expired);
+		wheel.advance(start + 70_000 * TICK);
+		Assertions.assertEquals(List.of(1, 2), expired);
+	}
+
+	@Test
+	@Order(3)
+	public void wheelReschedules() {
+		wheel.schedule(1, start + 5 * TICK);
+		wheel.schedule(1, start + 10 * TICK);
+		wheel.schedule(2, start + 20 * TICK);
+		wheel.schedule(2, start + 8 * TICK);
+		wheel.schedule(3, start + 4 * TICK);
+		wheel.cancel(3);
+
+		wheel.advance(start + 5 * TICK);
+		Assertions.assertTrue(expired.isEmpty());
+		wheel.advance(start + 8 * TICK);
+		Assertions.assertEquals(List.of(2), expired);
+		wheel.advance(start + 30 * TICK);
+		Assertions.assertEquals(List.of(2, 1), expired);
+		Assertions.assertEquals(0, wheel.getScheduledNum());
+	}
+
+	@Test
+	@Order(4)
+	public void wheelCatchesUp() {
+		wheel.schedule(3, start + 3 * TICK);
+		wheel.schedule(1, start + TICK);
+		wheel.schedule(2, start + 2 * TICK);
+
+		// A deadline already past fires on the next tick, after 1 which was there first
+		wheel.schedule(4, start - 5 * TICK);
+
+		// One late turn fires everything due, tick by tick
+		wheel.advance(start + 50 * TICK);
+		Assertions.assertEquals(List.of(1, 4, 2, 3), expired);
+	}
+}
@@ -0,0 +1,66 @@
+package service;
+
+import dataaccess.*;
+
+import service.AnalysisService.AnalysisJob;
+import service.AnalysisService.AnalysisRequest;
+import service.AnalysisService.AnalysisResult;
+
+import org.junit.jupiter.api.*;
+
+import chess.search.SearchEngine;
+
+public class AnalysisServiceTests extends WithAllDataTests {
+	//
+	// ======================= TEST CASES ======================= 
+	//
+	
+	@Test
+	@DisplayName("Correct Analysis Tests")
+	public void analyzeCorrect() {
+		AnalysisService service = new AnalysisService(authDAO, gameDAO);
+		AnalysisRequest request = new AnalysisRequest(authToken, "1", 2, null, null);
+
+		AnalysisResult result = Assertions.assertDoesNotThrow(() -> service.analyze(request));
+
+		Assertions.assertEquals(2, result.analysis().depth());
+		Assertions.assertNotNull(result.analysis().bestMove());
+
+		service.shutdown();
+	}
+
+	@Test
+	@DisplayName("Incorrect Analysis Tests")
+	public void analyzeIncorrect() {
+		AnalysisService service = new AnalysisService(authDAO, gameDAO);
+
+		AnalysisRequest badAuth = new AnalysisRequest("WRONG AUTH TOKEN", "1", 2, null, null);
+		Assertions.assertThrows(AuthenticationException.class, () -> service.analyze(badAuth));
+
+		AnalysisRequest badGame = new AnalysisRequest(authToken, "1000", 2, null, null);
+		Assertions.assertThrows(DataAccessException.class, () -> service.analyze(badGame));
+
+		AnalysisRequest badDepth = new AnalysisRequest(authToken, "1", -1, null, null);
+		Assertions.assertThrows(IllegalArgumentException.class, () -> service.analyze(badDepth));
+
+		service.shutdown();
+	}
+
+	@Test
+	@DisplayName("Analysis User Quota Tests")
+	public void analyzeQuota() {
+		AnalysisService service = new AnalysisService(authDAO, gameDAO, new SearchEngine(), 1, 8, 1);
+
+		// The first analysis holds the user's only slot until it is cancelled
+		AnalysisRequest request = new AnalysisRequest(authToken, "1", 8, 60_000L, null);
+		AnalysisJob job = Assertions.assertDoesNotThrow(() -> service.submit(request, pv -> { }));
+
+		AnalysisRequest second = new AnalysisRequest(authToken, "2", 8, 60_000L, null);
+		Assertions.assertThrows(QuotaExceededException.class, () -> service.submit(second, pv -> { }));
+
+		job.cancel();
+		Assertions.assertDoesNotThrow(() -> job.result().join());
+
+		service.shutdown();
+	}
+}
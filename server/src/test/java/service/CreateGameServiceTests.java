@@ -7,6 +7,10 @@ import service.CreateGameService.CreateGameResult;
 
 import org.junit.jupiter.api.*;
 
+import chess.ChessClock;
+import chess.ChessGame.TeamColor;
+import model.GameData;
+
 public class CreateGameServiceTests extends WithDataTests {
 	
 	//
@@ -35,4 +39,68 @@ public class CreateGameServiceTests extends WithDataTests {
 
 		Assertions.assertThrows(AuthenticationException.class, () -> gamesService.createGame(request));
 	}
+
+	@Test
+	@DisplayName("Correct Create Bot Game Tests")
+	public void createBotGameCorrect() {
+		CreateGameService gamesService = new CreateGameService(authDAO, gameDAO);
+		CreateGameRequest request = new CreateGameRequest(authToken, "botGame", TeamColor.BLACK, "hard");
+
+		CreateGameResult result = Assertions.assertDoesNotThrow(() -> gamesService.createGame(request));
+		GameData game = Assertions.assertDoesNotThrow(() -> gameDAO.getGame(result.gameID()));
+
+		Assertions.assertEquals(BotProfile.HARD.getUsername(), game.blackUsername());
+		Assertions.assertEquals("", game.whiteUsername());
+	}
+
+	@Test
+	@DisplayName("Incorrect Create Bot Game Tests")
+	public void createBotGameIncorrect() {
+		CreateGameService gamesService = new CreateGameService(authDAO, gameDAO);
+		CreateGameRequest request = new CreateGameRequest(authToken, "botGame", TeamColor.WHITE, "grandmaster");
+
+		Assertions.assertThrows(IllegalArgumentException.class, () -> gamesService.createGame(request));
+	}
+
+	@Test
+	@DisplayName("Correct Create Timed Game Tests")
+	public void createTimedGameCorrect() {
+		CreateGameService gamesService = new CreateGameService(authDAO, gameDAO);
+		CreateGameRequest request = new CreateGameRequest(authToken, "timedGame", null, null, 300_000L, 2_000L);
+
+		CreateGameResult result = Assertions.assertDoesNotThrow(() -> gamesService.createGame(request));
+		GameData game = Assertions.assertDoesNotThrow(() -> gameDAO.getGame(result.gameID()));
+
+		ChessClock clock = game.game().getClock();
+		Assertions.assertNotNull(clock);
+		Assertions.assertEquals(300_000L, clock.getBaseMillis());
+		Assertions.assertEquals(2_000L, clock.getIncrementMillis());
+		Assertions.assertFalse(clock.isRunning());
+	}
+
+	@Test
+	@DisplayName("Incorrect Create Timed Game Tests")
+	public void createTimedGameIncorrect() {
+		CreateGameService gamesService = new CreateGameService(authDAO, gameDAO);
+		CreateGameRequest request = new CreateGameRequest(authToken, "timedGame", null, null, 0L, null);
+
+		Assertions.assertThrows(IllegalArgumentException.class, () -> gamesService.createGame(request));
+	}
+
+	@Test
+	@DisplayName("Correct Create Timed Bot Game Tests")
+	public void createTimedBotGameCorrect() {
+		CreateGameService gamesService = new CreateGameService(authDAO, gameDAO);
+		CreateGameRequest request = new CreateGameRequest(authToken, "timedBotGame", TeamColor.WHITE, "easy",
+				60_000L, null);
+
+		CreateGameResult result = Assertions.assertDoesNotThrow(() -> gamesService.createGame(request));
+		GameData game = Assertions.assertDoesNotThrow(() -> gameDAO.getGame(result.gameID()));
+
+		// The seat and the clock went in with a single versioned write
+		Assertions.assertEquals(1, game.version());
+		Assertions.assertEquals(BotProfile.EASY.getUsername(), game.whiteUsername());
+		Assertions.assertEquals(60_000L, game.game().getClock().getBaseMillis());
+		Assertions.assertEquals(0L, game.game().getClock().getIncrementMillis());
+	}
 }
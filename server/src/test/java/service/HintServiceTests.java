@@ -0,0 +1,108 @@
+package service;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPosition;
+import chess.InvalidMoveException;
+import dataaccess.*;
+import model.GameData;
+
+import service.HintService.HintRequest;
+import service.HintService.HintResult;
+
+import server.metrics.MetricsRegistry;
+
+import org.junit.jupiter.api.*;
+
+public class HintServiceTests extends WithAllDataTests {
+	//
+	// ======================= TEST CASES ======================= 
+	//
+	
+	@Test
+	@DisplayName("Correct Hint Tests")
+	public void hintsCorrect() {
+		MetricsRegistry metrics = new MetricsRegistry();
+		HintService service = new HintService(authDAO, gameDAO, metrics);
+		HintRequest request = new HintRequest(authToken, "1", 3, 2);
+
+		HintResult result = Assertions.assertDoesNotThrow(() -> service.getHints(request).join());
+
+		Assertions.assertEquals(3, result.hints().size());
+		Assertions.assertEquals(2, result.depth());
+
+		// The same position again is answered from the cache
+		HintRequest again = new HintRequest(authToken, "2", 1, 2);
+		HintResult cached = Assertions.assertDoesNotThrow(() -> service.getHints(again).join());
+
+		Assertions.assertEquals(1, cached.hints().size());
+		Assertions.assertEquals(result.hints().get(0), cached.hints().get(0));
+		Assertions.assertEquals(1L, (long)metrics.snapshot().get("hint.cache.hits"));
+		Assertions.assertEquals(1L, (long)metrics.snapshot().get("hint.searches"));
+
+		service.shutdown();
+	}
+
+	@Test
+	@DisplayName("Incorrect Hint Tests")
+	public void hintsIncorrect() {
+		HintService service = new HintService(authDAO, gameDAO, new MetricsRegistry());
+
+		HintRequest badAuth = new HintRequest("WRONG AUTH TOKEN", "1", 3, 2);
+		Assertions.assertThrows(AuthenticationException.class, () -> service.getHints(badAuth));
+
+		HintRequest badGame = new HintRequest(authToken, "1000", 3, 2);
+		Assertions.assertThrows(DataAccessException.class, () -> service.getHints(badGame));
+
+		HintRequest badCount = new HintRequest(authToken, "1", 0, 2);
+		Assertions.assertThrows(IllegalArgumentException.class, () -> service.getHints(badCount));
+
+		service.shutdown();
+	}
+
+	@Test
+	@DisplayName("Hints Follow Game Rules")
+	public void hintsFollowGameRules() throws InvalidMoveException {
+		// Both games reach the same board, but in the first the kings have stepped out and back
+		ChessGame moved = openKingside();
+		for (ChessMove move : new ChessMove[] { move(1, 5, 1, 6), move(8, 5, 8, 6), move(1, 6, 1, 5), move(8, 6, 8, 5) }) {
+			moved.makeMove(move);
+		}
+		ChessGame castling = openKingside();
+		Assertions.assertEquals(castling, moved);
+		Assertions.assertDoesNotThrow(() -> gameDAO.updateGame("1", new GameData("1", "", "", "moved", moved)));
+		Assertions.assertDoesNotThrow(() -> gameDAO.updateGame("2", new GameData("2", "", "", "castling", castling)));
+
+		MetricsRegistry metrics = new MetricsRegistry();
+		HintService service = new HintService(authDAO, gameDAO, metrics);
+		HintResult movedHints = Assertions.assertDoesNotThrow(
+				() -> service.getHints(new HintRequest(authToken, "1", HintService.MAX_HINTS, 2)).join());
+		HintResult castlingHints = Assertions.assertDoesNotThrow(
+				() -> service.getHints(new HintRequest(authToken, "2", HintService.MAX_HINTS, 2)).join());
+
+		// The rights tell the positions apart, so each is searched
+		Assertions.assertEquals(2L, (long)metrics.snapshot().get("hint.searches"));
+		Assertions.assertFalse(movedHints.hints().isEmpty());
+
+		for (HintService.Hint hint : movedHints.hints()) {
+			Assertions.assertFalse(hint.line().contains(move(1, 5, 1, 7)));
+			Assertions.assertEquals(hint.move(), hint.line().get(0));
+		}
+		Assertions.assertFalse(castlingHints.hints().isEmpty());
+
+		service.shutdown();
+	}
+
+	private static ChessGame openKingside() throws InvalidMoveException {
+		ChessGame game = new ChessGame();
+		for (ChessMove move : new ChessMove[] { move(2, 5, 4, 5), move(7, 5, 5, 5), move(1, 7, 3, 6),
+				move(8, 7, 6, 6), move(1, 6, 2, 5), move(8, 6, 7, 5) }) {
+			game.makeMove(move);
+		}
+		return game;
+	}
+
+	private static ChessMove move(int startRow, int startCol, int endRow, int endCol) {
+		return new ChessMove(new ChessPosition(startRow, startCol), new ChessPosition(endRow, endCol), null);
+	}
+}
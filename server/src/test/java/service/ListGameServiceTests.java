@@ -1,9 +1,15 @@
 package service;
 
 import dataaccess.*;
+import service.CreateGameService.CreateGameRequest;
+import service.JoinGameService.JoinGameRequest;
+import service.LobbyCache.LobbySnapshot;
 import service.ListGameService.ListGameRequest;
 import service.ListGameService.ListGameResult;
 
+import chess.ChessGame.TeamColor;
+import model.GameSummary;
+
 
 import org.junit.jupiter.api.*;
 
@@ -33,4 +39,102 @@ public class ListGameServiceTests extends WithAllDataTests {
 
 		Assertions.assertThrows(AuthenticationException.class, () -> service.listGames(request));
 	}
+
+	@Test
+	@DisplayName("Paged List Games Tests")
+	public void listGamesPaged() {
+		ListGameService service = new ListGameService(authDAO, gameDAO);
+
+		ListGameRequest first = new ListGameRequest(authToken, null, 3, null, null, null);
+		ListGameResult firstPage = Assertions.assertDoesNotThrow(() -> service.listGames(first));
+		Assertions.assertEquals(3, firstPage.games().size());
+		Assertions.assertNotNull(firstPage.nextCursor());
+
+		ListGameRequest second = new ListGameRequest(authToken, firstPage.nextCursor(), 3, null, null, null);
+		ListGameResult secondPage = Assertions.assertDoesNotThrow(() -> service.listGames(second));
+		Assertions.assertEquals(CREATE_GAMES_NUM - 3, secondPage.games().size());
+		Assertions.assertNull(secondPage.nextCursor());
+
+		// Pages follow on in gameID order, with no game listed twice
+		int lastID = 0;
+		for (ListGameResult page : new ListGameResult[] { firstPage, secondPage }) {
+			for (GameSummary game : page.games()) {
+				Assertions.assertTrue(game.getGameID() > lastID);
+				lastID = game.getGameID();
+			}
+		}
+	}
+
+	@Test
+	@DisplayName("Filtered List Games Tests")
+	public void listGamesFiltered() {
+		ListGameService service = new ListGameService(authDAO, gameDAO);
+
+		ListGameResult all = Assertions.assertDoesNotThrow(() -> service.listGames(new ListGameRequest(authToken)));
+		String gameID = all.games().iterator().next().gameID();
+
+		JoinGameService joinService = new JoinGameService(authDAO, gameDAO);
+		Assertions.assertDoesNotThrow(() -> joinService.joinGame(new JoinGameRequest(authToken, TeamColor.WHITE, gameID)));
+
+		ListGameRequest mine = new ListGameRequest(authToken, null, null, null, username, null);
+		ListGameResult mineResult = Assertions.assertDoesNotThrow(() -> service.listGames(mine));
+		Assertions.assertEquals(1, mineResult.games().size());
+
+		GameSummary joined = mineResult.games().iterator().next();
+		Assertions.assertEquals(gameID, joined.gameID());
+		Assertions.assertEquals(username, joined.whiteUsername());
+		Assertions.assertNull(joined.blackUsername());
+		Assertions.assertEquals(GameSummary.Status.OPEN, joined.status());
+
+		ListGameRequest open = new ListGameRequest(authToken, null, null, true, null, true);
+		ListGameResult openResult = Assertions.assertDoesNotThrow(() -> service.listGames(open));
+		Assertions.assertEquals(CREATE_GAMES_NUM, openResult.games().size());
+	}
+
+	@Test
+	@DisplayName("Incorrect List Games Page Tests")
+	public void listGamesPageIncorrect() {
+		ListGameService service = new ListGameService(authDAO, gameDAO);
+
+		ListGameRequest badLimit = new ListGameRequest(authToken, null, 0, null, null, null);
+		Assertions.assertThrows(IllegalArgumentException.class, () -> service.listGames(badLimit));
+
+		ListGameRequest badCursor = new ListGameRequest(authToken, "not a cursor", null, null, null, null);
+		Assertions.assertThrows(IllegalArgumentException.class, () -> service.listGames(badCursor));
+	}
+
+	@Test
+	@DisplayName("Cached List Games Tests")
+	public void listGamesSnapshotCached() {
+		LobbyCache lobbyCache = new LobbyCache();
+		ListGameService service = new ListGameService(authDAO, gameDAO, lobbyCache);
+
+		LobbySnapshot first = Assertions.assertDoesNotThrow(
+				() -> service.listGamesSnapshot(new ListGameRequest(authToken)));
+		LobbySnapshot second = Assertions.assertDoesNotThrow(
+				() -> service.listGamesSnapshot(new ListGameRequest(authToken)));
+
+		// Nothing changed, so the same serialized page is served again
+		Assertions.assertTrue(first == second);
+		Assertions.assertTrue(second.matches(first.etag()));
+		Assertions.assertFalse(second.matches(null));
+
+		CreateGameService createService = new CreateGameService(authDAO, gameDAO, lobbyCache);
+		Assertions.assertDoesNotThrow(() -> createService.createGame(new CreateGameRequest(authToken, "new game")));
+
+		LobbySnapshot third = Assertions.assertDoesNotThrow(
+				() -> service.listGamesSnapshot(new ListGameRequest(authToken)));
+		Assertions.assertFalse(third.matches(first.etag()));
+		Assertions.assertTrue(new String(third.json()).contains("new game"));
+	}
+
+	@Test
+	@DisplayName("Incorrect Cached List Games Tests")
+	public void listGamesSnapshotIncorrect() {
+		ListGameService service = new ListGameService(authDAO, gameDAO, new LobbyCache());
+
+		ListGameRequest request = new ListGameRequest("WRONG AUTH TOKEN");
+
+		Assertions.assertThrows(AuthenticationException.class, () -> service.listGamesSnapshot(request));
+	}
 }
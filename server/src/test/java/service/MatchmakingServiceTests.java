@@ -0,0 +1,170 @@
+package service;
+
+import dataaccess.*;
+
+import service.MatchmakingService.MatchConfig;
+import service.MatchmakingService.MatchRequest;
+import service.MatchmakingService.MatchResult;
+import service.RegisterService.RegisterRequest;
+
+import org.junit.jupiter.api.*;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import dataaccess.memorydao.MemoryGameDAO;
+
+import chess.ChessGame.TeamColor;
+import model.GameData;
+import server.metrics.MetricsRegistry;
+
+public class MatchmakingServiceTests extends WithDataTests {
+	/**
+	 * Long enough that the background sweep never runs during a test
+	 */
+	private static final MatchConfig TEST_CONFIG = new MatchConfig(100, 100, 25, 800, 3_600_000);
+
+	private MatchmakingService matchmakingService;
+	private String opponentToken;
+
+	@BeforeEach
+	public void initMatchmaking() {
+		this.matchmakingService = new MatchmakingService(authDAO, gameDAO, new LobbyCache(), TEST_CONFIG,
+				new MetricsRegistry());
+
+		RegisterService registerService = new RegisterService(authDAO, userDAO);
+		RegisterRequest request = new RegisterRequest("Frodo Barman", "p@sw@ord", "another@email.com");
+		this.opponentToken = Assertions.assertDoesNotThrow(() -> registerService.register(request)).authToken();
+	}
+
+	@AfterEach
+	public void shutdownMatchmaking() {
+		this.matchmakingService.shutdown();
+	}
+
+	//
+	// ======================= TEST CASES =======================
+	//
+
+	@Test
+	@DisplayName("Correct Match Close Ratings Tests")
+	public void matchCloseRatingsCorrect() {
+		AtomicReference<MatchResult> notified = new AtomicReference<>();
+
+		MatchResult waiting = Assertions.assertDoesNotThrow(
+				() -> this.matchmakingService.enqueue(new MatchRequest(authToken, 1500), notified::set));
+		Assertions.assertTrue(waiting.isWaiting());
+		Assertions.assertEquals(1, this.matchmakingService.getWaitingNum());
+
+		MatchResult result = Assertions.assertDoesNotThrow(
+				() -> this.matchmakingService.enqueue(new MatchRequest(this.opponentToken, 1540), r -> { }));
+		Assertions.assertFalse(result.isWaiting());
+		Assertions.assertEquals(0, this.matchmakingService.getWaitingNum());
+
+		// The waiting player is told the same game, in the other seat
+		Assertions.assertNotNull(notified.get());
+		Assertions.assertEquals(result.gameID(), notified.get().gameID());
+		Assertions.assertNotEquals(result.playerColor(), notified.get().playerColor());
+
+		GameData game = Assertions.assertDoesNotThrow(() -> gameDAO.getGame(result.gameID()));
+		String opponentSeat = result.playerColor() == TeamColor.WHITE ? game.whiteUsername() : game.blackUsername();
+		String waitingSeat = result.playerColor() == TeamColor.WHITE ? game.blackUsername() : game.whiteUsername();
+		Assertions.assertEquals("Frodo Barman", opponentSeat);
+		Assertions.assertEquals(username, waitingSeat);
+	}
+
+	@Test
+	@DisplayName("Correct Match Widened Window Tests")
+	public void matchWidenedWindowCorrect() {
+		MatchResult first = Assertions.assertDoesNotThrow(
+				() -> this.matchmakingService.enqueue(new MatchRequest(authToken, 1000)));
+		MatchResult second = Assertions.assertDoesNotThrow(
+				() -> this.matchmakingService.enqueue(new MatchRequest(this.opponentToken, 1700)));
+
+		// Too far apart to pair at first
+		Assertions.assertTrue(first.isWaiting());
+		Assertions.assertTrue(second.isWaiting());
+		this.matchmakingService.sweep(System.currentTimeMillis());
+		Assertions.assertEquals(2, this.matchmakingService.getWaitingNum());
+
+		// After a minute, both windows have widened to the maximum
+		this.matchmakingService.sweep(System.currentTimeMillis() + 60_000);
+		Assertions.assertEquals(0, this.matchmakingService.getWaitingNum());
+
+		MatchResult firstMatch = Assertions.assertDoesNotThrow(() -> this.matchmakingService.poll(authToken));
+		MatchResult secondMatch = Assertions.assertDoesNotThrow(() -> this.matchmakingService.poll(this.opponentToken));
+		Assertions.assertFalse(firstMatch.isWaiting());
+		Assertions.assertEquals(firstMatch.gameID(), secondMatch.gameID());
+		Assertions.assertNotEquals(firstMatch.playerColor(), secondMatch.playerColor());
+
+		// Each result is handed over once
+		Assertions.assertNull(Assertions.assertDoesNotThrow(() -> this.matchmakingService.poll(authToken)));
+	}
+
+	@Test
+	@DisplayName("Correct Cancel Match Tests")
+	public void cancelMatchCorrect() {
+		Assertions.assertDoesNotThrow(() -> this.matchmakingService.enqueue(new MatchRequest(authToken, null)));
+		Assertions.assertTrue(Assertions.assertDoesNotThrow(() -> this.matchmakingService.cancel(authToken)));
+		Assertions.assertFalse(Assertions.assertDoesNotThrow(() -> this.matchmakingService.cancel(authToken)));
+
+		// A cancelled player isn't paired
+		MatchResult result = Assertions.assertDoesNotThrow(
+				() -> this.matchmakingService.enqueue(new MatchRequest(this.opponentToken, null)));
+		Assertions.assertTrue(result.isWaiting());
+	}
+
+	@Test
+	@DisplayName("Correct Unpolled Match Tests")
+	public void unpolledMatchCorrect() {
+		Assertions.assertDoesNotThrow(() -> this.matchmakingService.enqueue(new MatchRequest(authToken, 1000)));
+		Assertions.assertDoesNotThrow(() -> this.matchmakingService.enqueue(new MatchRequest(this.opponentToken, 1700)));
+		long pairedMillis = System.currentTimeMillis() + 60_000;
+		this.matchmakingService.sweep(pairedMillis);
+
+		// Cancelling forgets a pairing that wasn't polled for
+		Assertions.assertFalse(Assertions.assertDoesNotThrow(() -> this.matchmakingService.cancel(authToken)));
+		Assertions.assertNull(Assertions.assertDoesNotThrow(() -> this.matchmakingService.poll(authToken)));
+
+		// One never polled for expires
+		this.matchmakingService.sweep(pairedMillis + MatchmakingService.PAIRING_TTL_MILLIS);
+		Assertions.assertNull(Assertions.assertDoesNotThrow(() -> this.matchmakingService.poll(this.opponentToken)));
+	}
+
+	@Test
+	@DisplayName("Incorrect Match Tests")
+	public void matchIncorrect() {
+		Assertions.assertThrows(AuthenticationException.class,
+				() -> this.matchmakingService.enqueue(new MatchRequest("BAD AUTH TOKEN", 1500)));
+		Assertions.assertThrows(IllegalArgumentException.class,
+				() -> this.matchmakingService.enqueue(new MatchRequest(authToken, -1)));
+		Assertions.assertEquals(0, this.matchmakingService.getWaitingNum());
+	}
+
+	@Test
+	@DisplayName("Incorrect Match Seating Tests")
+	public void matchSeatingIncorrect() {
+		AtomicReference<Exception> requeued = new AtomicReference<>();
+		gameDAO = new MemoryGameDAO() {
+			@Override
+			public void compareAndSetGame(String gameID, long expectedVersion, GameData newGameData)
+					throws DataAccessException {
+				// The waiting player asks again while they are being seated, then seating fails
+				requeued.compareAndSet(null, Assertions.assertThrows(AlreadyTakenException.class,
+						() -> matchmakingService.enqueue(new MatchRequest(authToken, 1500))));
+				throw new DataAccessException("Database down");
+			}
+		};
+		this.matchmakingService.shutdown();
+		this.matchmakingService = new MatchmakingService(authDAO, gameDAO, new LobbyCache(), TEST_CONFIG,
+				new MetricsRegistry());
+
+		Assertions.assertDoesNotThrow(() -> this.matchmakingService.enqueue(new MatchRequest(authToken, 1500)));
+		Assertions.assertThrows(DataAccessException.class,
+				() -> this.matchmakingService.enqueue(new MatchRequest(this.opponentToken, 1540)));
+		Assertions.assertNotNull(requeued.get());
+
+		// The game made for them is gone, and both are put back in the queue once each
+		Assertions.assertTrue(Assertions.assertDoesNotThrow(() -> gameDAO.getAllGames()).isEmpty());
+		Assertions.assertEquals(2, this.matchmakingService.getWaitingNum());
+	}
+}
@@ -61,4 +61,13 @@ public class RegisterServiceTests {
 		RegisterRequest request2 = new RegisterRequest(username, "newPassword", "newEmail@email");
 		Assertions.assertThrows(DataAccessException.class, () -> service.register(request2));
 	}
+
+	@Test
+	@DisplayName("Register Reserved Bot Username Tests")
+	public void registerBotUsername() {
+		RegisterService service = new RegisterService(authDAO, userDAO);
+
+		RegisterRequest request = new RegisterRequest(BotProfile.EASY.getUsername(), "p@ssword", "email@email");
+		Assertions.assertThrows(AlreadyTakenException.class, () -> service.register(request));
+	}
 }
@@ -97,6 +97,21 @@ public class ChessBoard implements Iterable<ChessBoard.IndexedPiece>{
 	// ======================== MEMBER METHODS =======================
 	//
 
+	/**
+	 * Copies the board, sharing its pieces. Pieces never change once made, and a game's
+	 * move engine tells the pieces that have moved apart by reference, so a copied game
+	 * needs the same ones. The copy constructor makes new pieces.
+	 *
+	 * @return A board with its own squares
+	 */
+	public ChessBoard copy() {
+		ChessBoard copy = new ChessBoard(this.rowNum, this.colNum);
+		for (int row = 0; row < this.board.length; row++) {
+			copy.board[row] = this.board[row].clone();
+		}
+		return copy;
+	}
+
     /**
      * Adds a chess piece to the chessboard
      *
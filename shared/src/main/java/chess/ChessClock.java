@@ -0,0 +1,180 @@
+package chess;
+
+import chess.ChessGame.TeamColor;
+
+/**
+ * A chess clock with a base time and an increment, kept with the game it times.
+ *
+ * Each side's remaining time is stored as of the start of the current turn, along with
+ * when that turn started, in epoch milliseconds. The clock can be saved and loaded with
+ * the game and keeps running while the server is down. It starts once white has moved,
+ * and adds the increment to each side after it moves.
+ *
+ * A ChessClock isn't thread safe; it is guarded by its game's monitor like the board.
+ */
+public class ChessClock {
+	//
+	// ======================== MEMBER ATTRIBUTES =========================
+	//
+
+	private long baseMillis;
+	private long incrementMillis;
+
+	private long whiteMillis;
+	private long blackMillis;
+
+	/**
+	 * The side whose time is running, or null while the clock is stopped
+	 */
+	private TeamColor running;
+	private long turnStartedMillis;
+
+	/**
+	 * The side that ran out of time, or null
+	 */
+	private TeamColor flagged;
+
+	//
+	// ======================== CONSTRUCTORS ==============================
+	//
+
+	/**
+	 * @param baseMillis Each side's starting time
+	 * @param incrementMillis The time added to a side after each of its moves
+	 *
+	 * @throws IllegalArgumentException If the base isn't positive or the increment is negative
+	 */
+	public ChessClock(long baseMillis, long incrementMillis) {
+		if (baseMillis <= 0 || incrementMillis < 0) {
+			throw new IllegalArgumentException("A clock needs a positive base time and a non-negative increment");
+		}
+		this.baseMillis = baseMillis;
+		this.incrementMillis = incrementMillis;
+		this.whiteMillis = baseMillis;
+		this.blackMillis = baseMillis;
+	}
+
+	/**
+	 * Copies another clock, running or not
+	 */
+	public ChessClock(ChessClock other) {
+		this.baseMillis = other.baseMillis;
+		this.incrementMillis = other.incrementMillis;
+		this.whiteMillis = other.whiteMillis;
+		this.blackMillis = other.blackMillis;
+		this.running = other.running;
+		this.turnStartedMillis = other.turnStartedMillis;
+		this.flagged = other.flagged;
+	}
+
+	//
+	// ======================== MEMBER METHODS =============================
+	//
+
+	public long getBaseMillis() {
+		return this.baseMillis;
+	}
+
+	public long getIncrementMillis() {
+		return this.incrementMillis;
+	}
+
+	/**
+	 * @return The time a side has left at nowMillis, never below 0
+	 */
+	public long getRemainingMillis(TeamColor color, long nowMillis) {
+		long stored = color == TeamColor.WHITE ? this.whiteMillis : this.blackMillis;
+		if (color != this.running) {
+			return stored;
+		}
+		return Math.max(0, stored - (nowMillis - this.turnStartedMillis));
+	}
+
+	public boolean isRunning() {
+		return this.running != null;
+	}
+
+	/**
+	 * @return The side whose time is running, or null
+	 */
+	public TeamColor getRunning() {
+		return this.running;
+	}
+
+	/**
+	 * @return When the side whose time is running runs out, or Long.MAX_VALUE if the
+	 * clock is stopped
+	 */
+	public long getDeadlineMillis() {
+		if (this.running == null) {
+			return Long.MAX_VALUE;
+		}
+		long stored = this.running == TeamColor.WHITE ? this.whiteMillis : this.blackMillis;
+		return this.turnStartedMillis + stored;
+	}
+
+	/**
+	 * @return True if the side whose time is running has none left
+	 */
+	public boolean isOutOfTime(long nowMillis) {
+		return this.running != null && nowMillis >= this.getDeadlineMillis();
+	}
+
+	/**
+	 * @return The side that ran out of time, or null if neither has
+	 */
+	public TeamColor getFlagged() {
+		return this.flagged;
+	}
+
+	/**
+	 * Ends a side's turn after it moves: charges it the time taken, adds the increment,
+	 * and starts the other side's time
+	 *
+	 * @param mover The side that moved
+	 */
+	public void punch(TeamColor mover, long nowMillis) {
+		if (this.flagged != null) {
+			return;
+		}
+
+		long remaining = this.getRemainingMillis(mover, nowMillis) + this.incrementMillis;
+		this.setStored(mover, remaining);
+
+		this.running = mover.next();
+		this.turnStartedMillis = nowMillis;
+	}
+
+	/**
+	 * Stops the clock, charging the side to move the time it has taken
+	 */
+	public void stop(long nowMillis) {
+		if (this.running != null) {
+			this.setStored(this.running, this.getRemainingMillis(this.running, nowMillis));
+			this.running = null;
+		}
+	}
+
+	/**
+	 * Stops the clock with the side to move out of time
+	 *
+	 * @return The side that ran out, or null if the clock wasn't running
+	 */
+	public TeamColor flag() {
+		TeamColor loser = this.running;
+		if (loser != null) {
+			this.setStored(loser, 0);
+			this.running = null;
+			this.flagged = loser;
+		}
+		return loser;
+	}
+
+	private void setStored(TeamColor color, long millis) {
+		if (color == TeamColor.WHITE) {
+			this.whiteMillis = millis;
+		} else {
+			this.blackMillis = millis;
+		}
+	}
+}
@@ -4,13 +4,18 @@ import chess.moveengine.ChessMoveEngine;
 import chess.moveengine.StandardChessMoveEngine;
 
 import java.lang.reflect.Type;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.HashMap;
 import java.util.Map;
 import java.lang.Object;
 
+import util.Pair;
+
 import com.google.gson.*;
 import com.google.gson.reflect.TypeToken;
 
@@ -39,6 +44,23 @@ public class ChessGame {
 			// Put them into a game.
 			ChessGame game = new ChessGame(board, activeTeam, chessTeamData);
 
+			// Games stored before move history was recorded don't have one
+			if (obj.has("moveHistory")) {
+				ArrayList<ChessMove> moveHistory = ctx.deserialize(
+						obj.get("moveHistory"), new TypeToken<ArrayList<ChessMove>>(){}.getType());
+				game.moveHistory.addAll(moveHistory);
+			}
+
+			// Nor do untimed games have a clock
+			if (obj.has("clock")) {
+				game.clock = ctx.deserialize(obj.get("clock"), ChessClock.class);
+			}
+
+			// Nor do games nobody resigned
+			if (obj.has("resigned")) {
+				game.resigned = ctx.deserialize(obj.get("resigned"), TeamColor.class);
+			}
+
 			return game;
 		}
 	}
@@ -76,6 +98,13 @@ public class ChessGame {
 	private TeamColor activeTeam;
 	private transient ChessMoveEngine moveEngine;
 	private Map<TeamColor, ChessTeamDatabase> chessTeamData;
+	private ArrayList<ChessMove> moveHistory = new ArrayList<>();
+	private ChessClock clock;
+
+	/**
+	 * The side that resigned, or null
+	 */
+	private TeamColor resigned;
 
 	
 	//
@@ -100,6 +129,16 @@ public class ChessGame {
 		this.chessTeamData = chessTeamData;
 	}
 
+	/**
+	 * Builds a game on an engine that already knows the board, for copy()
+	 */
+	private ChessGame(ChessBoard board, TeamColor activeColor, ChessMoveEngine moveEngine) {
+		this.gameBoard = board;
+		this.activeTeam = activeColor;
+		this.moveEngine = moveEngine;
+		this.chessTeamData = moveEngine.getChessTeamDatabase();
+	}
+
 	//
 	// ============================ MEMBER METHODS =======================
 	//
@@ -151,6 +190,7 @@ public class ChessGame {
      */
     public void makeMove(ChessMove move) throws InvalidMoveException {
 		this.moveEngine.makeMove(this.gameBoard, move, this.activeTeam);
+		this.moveHistory.add(move);
 
 		// Switches turns
 		this.changeTurn();
@@ -220,6 +260,117 @@ public class ChessGame {
 		this.moveEngine.updateDatabases(board);
     }
 
+	/**
+	 * Copies the whole game. Checking for mate or listing valid moves tries moves on the
+	 * board, so a game shared between threads is queried on a copy taken while holding its
+	 * monitor.
+	 *
+	 * The copy shares the game's pieces, which never change, and copies everything that
+	 * does. Unlike saving and loading the game, it keeps which pieces have moved and the
+	 * last move of each side, so castling and en passant are allowed exactly as before.
+	 *
+	 * @return A game with its own board, team data, history and clock
+	 */
+	public ChessGame copy() {
+		HashMap<TeamColor, ChessTeamDatabase> teamData = new HashMap<>();
+		for (Map.Entry<TeamColor, ChessTeamDatabase> entry : this.moveEngine.getTeamDatabase().entrySet()) {
+			teamData.put(entry.getKey(), new ChessTeamDatabase(entry.getValue()));
+		}
+
+		ChessGame copy = new ChessGame(this.gameBoard.copy(), this.activeTeam, new StandardChessMoveEngine(teamData));
+		copy.moveHistory.addAll(this.moveHistory);
+		copy.clock = this.clock == null ? null : new ChessClock(this.clock);
+		copy.resigned = this.resigned;
+		return copy;
+	}
+
+	/**
+	 * Gets every move made in this game, in order
+	 *
+	 * @return A read-only view of the move history, empty if nothing has been played or
+	 * the game was stored before moves were recorded
+	 */
+	public List<ChessMove> getMoveHistory() {
+		return Collections.unmodifiableList(this.moveHistory);
+	}
+
+	/**
+	 * @return The game's clock, or null if the game is untimed
+	 */
+	public ChessClock getClock() {
+		return this.clock;
+	}
+
+	public void setClock(ChessClock clock) {
+		this.clock = clock;
+	}
+
+	/**
+	 * @return The side that resigned, or null if neither has
+	 */
+	public TeamColor getResigned() {
+		return this.resigned;
+	}
+
+	/**
+	 * Ends the game with a side resigning. Only the first resignation counts.
+	 *
+	 * @param color The side giving up
+	 *
+	 * @return True if the resignation was recorded, false if a side had already resigned
+	 */
+	public boolean resign(TeamColor color) {
+		if (this.resigned != null) {
+			return false;
+		}
+		this.resigned = color;
+		return true;
+	}
+
+	/**
+	 * Sums up what the board alone doesn't show about the moves allowed: which sides may
+	 * still castle to either side, and which pawn, if any, may be taken en passant. Two
+	 * games with the same board, turn and rights allow the same moves.
+	 *
+	 * @return Bit 0 and 1 for white castling king and queen side, bits 2 and 3 for black,
+	 * and from bit 4 the column of a pawn that just moved two squares, or 0
+	 */
+	public int getMoveRights() {
+		int rights = 0;
+		for (TeamColor color : TeamColor.values()) {
+			int homeRow = color == TeamColor.WHITE ? 1 : this.gameBoard.getBoardHeight();
+			int shift = color.ordinal() * 2;
+			ChessTeamDatabase db = this.moveEngine.getTeamData(color);
+
+			// The move engine only checks the king by type, but each rook by reference
+			ChessPiece king = this.gameBoard.getPiece(new ChessPosition(homeRow, 5));
+			if (!isPiece(king, color, ChessPiece.PieceType.KING) || db.getMovedPieces().contains(king)) {
+				continue;
+			}
+
+			int[] rookCols = { this.gameBoard.getBoardWidth(), 1 };
+			for (int side = 0; side < rookCols.length; side++) {
+				ChessPiece rook = this.gameBoard.getPiece(new ChessPosition(homeRow, rookCols[side]));
+				if (isPiece(rook, color, ChessPiece.PieceType.ROOK) && !db.pieceHasMoved(rook)) {
+					rights |= 1 << (shift + side);
+				}
+			}
+		}
+
+		// Only the side that just moved can have given the chance
+		Pair<ChessPiece, ChessMove> last = this.moveEngine.getTeamData(this.activeTeam.next()).getLastMovedPiece();
+		if (last != null && last.getFirst().getPieceType() == ChessPiece.PieceType.PAWN &&
+				Math.abs(last.getSecond().getEndPosition().getRow() - last.getSecond().getStartPosition().getRow()) == 2) {
+			rights |= last.getSecond().getEndPosition().getColumn() << 4;
+		}
+
+		return rights;
+	}
+
+	private static boolean isPiece(ChessPiece piece, TeamColor color, ChessPiece.PieceType type) {
+		return piece != null && piece.getTeamColor() == color && piece.getPieceType() == type;
+	}
+
     /**
      * Gets the current chessboard
      *
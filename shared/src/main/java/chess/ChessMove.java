@@ -13,6 +13,14 @@ import chess.ChessPiece.PieceType;
  */
 public class ChessMove {
 
+	//
+	// ======================== STATIC ATTRIBUTES =========================
+	//
+
+	private static final PieceType[] PROMOTION_TYPES = {
+		PieceType.QUEEN, PieceType.ROOK, PieceType.BISHOP, PieceType.KNIGHT
+	};
+
 	//
 	// ======================== STATIC METHODS =========================
 	//
@@ -51,6 +59,24 @@ public class ChessMove {
 		return endPositions;
 	}
 
+	/**
+	 * Rebuilds a move packed with ChessMove.pack()
+	 *
+	 * @param packed The packed move
+	 *
+	 * @return The ChessMove
+	 */
+	public static ChessMove unpack(int packed) {
+		int from = (packed >> 9) & 0x3F;
+		int to = (packed >> 3) & 0x3F;
+		int promotion = packed & 0x7;
+
+		return new ChessMove(
+				new ChessPosition(from / 8 + 1, from % 8 + 1),
+				new ChessPosition(to / 8 + 1, to % 8 + 1),
+				promotion == 0 ? null : PROMOTION_TYPES[promotion - 1]);
+	}
+
 	//
 	// ======================== MEMBER ATTRIBUTES =========================
 	//
@@ -110,6 +136,26 @@ public class ChessMove {
 		return this.promotionPiece;
     }
 
+	/**
+	 * Packs the move into 15 bits: 6 for the start square, 6 for the end square and 3 for
+	 * the promotion piece. Only valid on a standard 8x8 board.
+	 *
+	 * @return The packed move, see ChessMove.unpack()
+	 */
+	public short pack() {
+		int from = (this.startPos.getRow() - 1) * 8 + (this.startPos.getColumn() - 1);
+		int to = (this.endPos.getRow() - 1) * 8 + (this.endPos.getColumn() - 1);
+
+		int promotion = 0;
+		for (int i = 0; i < PROMOTION_TYPES.length; i++) {
+			if (PROMOTION_TYPES[i] == this.promotionPiece) {
+				promotion = i + 1;
+			}
+		}
+
+		return (short)((from << 9) | (to << 3) | promotion);
+	}
+
 	/**
 	 * Overriden equality method
 	 *
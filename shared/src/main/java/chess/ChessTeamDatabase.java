@@ -58,6 +58,25 @@ public class ChessTeamDatabase {
 		this.moveSet = this.generateMoveSet(currentBoard);
 	}
 
+	/**
+	 * Copies another database. The pieces are shared, since moved pieces are recognized by
+	 * reference, so the copy belongs with a board copied by ChessBoard.copy().
+	 *
+	 * @param other The database to copy
+	 */
+	public ChessTeamDatabase(ChessTeamDatabase other) {
+		this.teamColor = other.teamColor;
+
+		this.kingPositions = new HashSet<>(other.kingPositions);
+		this.attackMoveSet = new HashSet<>(other.attackMoveSet);
+		this.moveSet = new HashSet<>(other.moveSet);
+
+		this.capturedPieces = new ArrayList<>(other.capturedPieces);
+		this.movedPieces = new ArrayList<>(other.movedPieces);
+
+		this.lastMovedPiece = other.lastMovedPiece;
+	}
+
 	//
 	// ============================== MEMBER METHODS ============================== 
 	//
@@ -0,0 +1,101 @@
+package chess;
+
+import java.util.SplittableRandom;
+
+import chess.ChessGame.TeamColor;
+
+/**
+ * Computes 64-bit Zobrist hashes of chess positions.
+ *
+ * Every (color, piece type, square) gets a fixed random key, and a position's hash is the
+ * XOR of the keys of its pieces, plus a key for black to move. The keys come from a fixed
+ * seed, so hashes are stable across runs and can be written to files such as an opening
+ * book.
+ */
+public class ZobristHash {
+	//
+	// ============================ STATIC ATTRIBUTES =======================
+	//
+
+	private static final long SEED = 0x5EEDC4E55L;
+
+	private static final int SQUARE_NUM = 64;
+	private static final int BOARD_SIZE = 8;
+
+	private static final long[][][] PIECE_KEYS;
+	private static final long BLACK_TO_MOVE_KEY;
+
+	static {
+		SplittableRandom random = new SplittableRandom(SEED);
+
+		PIECE_KEYS = new long[TeamColor.values().length][ChessPiece.PieceType.values().length][SQUARE_NUM];
+		for (long[][] colorKeys : PIECE_KEYS) {
+			for (long[] typeKeys : colorKeys) {
+				for (int square = 0; square < SQUARE_NUM; square++) {
+					typeKeys[square] = random.nextLong();
+				}
+			}
+		}
+
+		BLACK_TO_MOVE_KEY = random.nextLong();
+	}
+
+	//
+	// ============================ STATIC METHODS =======================
+	//
+
+	/**
+	 * Hashes a position.
+	 *
+	 * @param board The board, which must be a standard 8x8 board
+	 * @param toMove The side to move
+	 *
+	 * @return The 64-bit hash
+	 */
+	public static long hash(ChessBoard board, TeamColor toMove) {
+		long hash = toMove == TeamColor.BLACK ? BLACK_TO_MOVE_KEY : 0L;
+
+		for (int row = 1; row <= BOARD_SIZE; row++) {
+			for (int col = 1; col <= BOARD_SIZE; col++) {
+				ChessPiece piece = board.getPiece(new ChessPosition(row, col));
+				if (piece != null) {
+					hash ^= pieceKey(piece, (row - 1) * BOARD_SIZE + (col - 1));
+				}
+			}
+		}
+
+		return hash;
+	}
+
+	/**
+	 * Hashes the current position of a game.
+	 *
+	 * @param game The game
+	 *
+	 * @return The 64-bit hash
+	 */
+	public static long hash(ChessGame game) {
+		return hash(game.getBoard(), game.getTeamTurn());
+	}
+
+	/**
+	 * @return The key of a piece standing on a 0-63 square, for updating a hash in place
+	 */
+	public static long pieceKey(ChessPiece piece, int square) {
+		return PIECE_KEYS[piece.getTeamColor().ordinal()][piece.getPieceType().ordinal()][square];
+	}
+
+	/**
+	 * @return The key toggled whenever the side to move changes
+	 */
+	public static long sideKey() {
+		return BLACK_TO_MOVE_KEY;
+	}
+
+	//
+	// ============================ CONSTRUCTORS =======================
+	//
+
+	private ZobristHash() {
+	}
+}
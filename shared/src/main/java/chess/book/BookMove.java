@@ -0,0 +1,21 @@
+package chess.book;
+
+import chess.ChessMove;
+
+/**
+ * A move found in the opening book, with the results of the games that played it.
+ * Results are counted from the point of view of the side making the move.
+ */
+public record BookMove(ChessMove move, int wins, int draws, int losses) {
+	public int games() {
+		return this.wins + this.draws + this.losses;
+	}
+
+	/**
+	 * @return The average score of the move between 0 and 1, counting a draw as half
+	 */
+	public double score() {
+		int games = this.games();
+		return games == 0 ? 0 : (this.wins + this.draws * 0.5) / games;
+	}
+}
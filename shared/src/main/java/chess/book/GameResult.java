@@ -0,0 +1,67 @@
+package chess.book;
+
+import chess.ChessGame;
+import chess.ChessGame.TeamColor;
+
+/**
+ * The final result of a game, as recorded in an opening book
+ */
+public enum GameResult {
+	WHITE_WINS,
+	BLACK_WINS,
+	DRAW;
+
+	//
+	// ============================ STATIC METHODS =======================
+	//
+
+	/**
+	 * Reads a PGN result token such as "1-0" or "1/2-1/2".
+	 *
+	 * @param token The result token
+	 *
+	 * @return The result, or null for an unfinished ("*") or unknown result
+	 */
+	public static GameResult fromPgn(String token) {
+		return switch (token.trim()) {
+			case "1-0" -> WHITE_WINS;
+			case "0-1" -> BLACK_WINS;
+			case "1/2-1/2" -> DRAW;
+			default -> null;
+		};
+	}
+
+	/**
+	 * Determines how a stored game ended from its final position.
+	 *
+	 * @param game The game
+	 *
+	 * @return The result, or null if the side to move is neither mated nor stalemated
+	 */
+	public static GameResult of(ChessGame game) {
+		TeamColor toMove = game.getTeamTurn();
+
+		if (game.isInCheckmate(toMove)) {
+			return toMove == TeamColor.WHITE ? BLACK_WINS : WHITE_WINS;
+		}
+		if (game.isInStalemate(toMove)) {
+			return DRAW;
+		}
+
+		return null;
+	}
+
+	//
+	// ============================ MEMBER METHODS =======================
+	//
+
+	/**
+	 * @return 1 if the given side won, 0 for a draw, -1 if it lost
+	 */
+	public int scoreFor(TeamColor color) {
+		if (this == DRAW) {
+			return 0;
+		}
+		return (this == WHITE_WINS) == (color == TeamColor.WHITE) ? 1 : -1;
+	}
+}
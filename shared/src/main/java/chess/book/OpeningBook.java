@@ -0,0 +1,223 @@
+package chess.book;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import chess.ChessBoard;
+import chess.ChessMove;
+import chess.ZobristHash;
+import chess.ChessGame.TeamColor;
+
+/**
+ * An opening book probed through read-only memory maps.
+ *
+ * The book file is a sorted array of fixed-size records, one per (position, move) pair,
+ * so a lookup is a binary search over the mapped file. Nothing is read onto the heap
+ * except the moves of a position that is actually found.
+ *
+ * File layout (big-endian):
+ *   int     MAGIC
+ *   short   VERSION
+ *   short   RECORD_SIZE
+ *   long    record count
+ *   records, sorted by hash then move:
+ *     long    position hash, see ZobristHash
+ *     short   packed move, see ChessMove.pack()
+ *     short   unused
+ *     int     wins, draws, losses for the side making the move
+ */
+public class OpeningBook {
+	//
+	// ============================ STATIC ATTRIBUTES =======================
+	//
+
+	public static final int MAGIC = 0x43424B31;  // "CBK1"
+	public static final short VERSION = 1;
+	public static final int HEADER_SIZE = 16;
+	public static final int RECORD_SIZE = 24;
+
+	/**
+	 * A single MappedByteBuffer is limited to 2GB, so large books are mapped in segments
+	 */
+	private static final long SEGMENT_RECORDS = (1L << 30) / RECORD_SIZE;
+
+	private static final int HASH_OFFSET = 0;
+	private static final int MOVE_OFFSET = 8;
+	private static final int WINS_OFFSET = 12;
+	private static final int DRAWS_OFFSET = 16;
+	private static final int LOSSES_OFFSET = 20;
+
+	//
+	// ============================ STATIC METHODS =======================
+	//
+
+	/**
+	 * Memory-maps a book file.
+	 *
+	 * @param file The book file
+	 *
+	 * @return The opened book
+	 */
+	public static OpeningBook open(Path file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+			header.order(ByteOrder.BIG_ENDIAN);
+
+			if (header.getInt(0) != MAGIC) {
+				throw new IOException("Not an opening book file: " + file);
+			}
+			if (header.getShort(4) != VERSION || header.getShort(6) != RECORD_SIZE) {
+				throw new IOException("Unsupported opening book version in " + file);
+			}
+
+			long count = header.getLong(8);
+			if (HEADER_SIZE + count * RECORD_SIZE > channel.size()) {
+				throw new IOException("Truncated opening book file: " + file);
+			}
+
+			int segmentNum = (int)((count + SEGMENT_RECORDS - 1) / SEGMENT_RECORDS);
+			MappedByteBuffer[] segments = new MappedByteBuffer[segmentNum];
+			for (int i = 0; i < segmentNum; i++) {
+				long first = i * SEGMENT_RECORDS;
+				long records = Math.min(SEGMENT_RECORDS, count - first);
+
+				segments[i] = channel.map(FileChannel.MapMode.READ_ONLY,
+						HEADER_SIZE + first * RECORD_SIZE, records * RECORD_SIZE);
+				segments[i].order(ByteOrder.BIG_ENDIAN);
+			}
+
+			return new OpeningBook(segments, count);
+		}
+	}
+
+	//
+	// ============================ MEMBER ATTRIBUTES =======================
+	//
+
+	private final MappedByteBuffer[] segments;
+	private final long count;
+
+	//
+	// ============================ CONSTRUCTORS =======================
+	//
+
+	private OpeningBook(MappedByteBuffer[] segments, long count) {
+		this.segments = segments;
+		this.count = count;
+	}
+
+	//
+	// ============================ MEMBER METHODS =======================
+	//
+
+	/**
+	 * @return The number of (position, move) records in the book
+	 */
+	public long size() {
+		return this.count;
+	}
+
+	/**
+	 * Determines if a position is in the book without reading any of its moves.
+	 *
+	 * @param hash The position hash
+	 *
+	 * @return true if the book has at least one move for the position
+	 */
+	public boolean contains(long hash) {
+		long i = this.lowerBound(hash);
+		return i < this.count && this.hashAt(i) == hash;
+	}
+
+	/**
+	 * Gets every book move of a position.
+	 *
+	 * @param hash The position hash
+	 *
+	 * @return The moves, empty if the position isn't in the book
+	 */
+	public List<BookMove> lookup(long hash) {
+		ArrayList<BookMove> moves = new ArrayList<>();
+
+		for (long i = this.lowerBound(hash); i < this.count && this.hashAt(i) == hash; i++) {
+			MappedByteBuffer segment = this.segments[(int)(i / SEGMENT_RECORDS)];
+			int offset = (int)(i % SEGMENT_RECORDS) * RECORD_SIZE;
+
+			moves.add(new BookMove(
+						ChessMove.unpack(segment.getShort(offset + MOVE_OFFSET) & 0xFFFF),
+						segment.getInt(offset + WINS_OFFSET),
+						segment.getInt(offset + DRAWS_OFFSET),
+						segment.getInt(offset + LOSSES_OFFSET)));
+		}
+
+		return moves;
+	}
+
+	/**
+	 * Gets every book move of a position.
+	 *
+	 * @param board The position
+	 * @param toMove The side to move
+	 *
+	 * @return The moves, empty if the position isn't in the book
+	 */
+	public List<BookMove> lookup(ChessBoard board, TeamColor toMove) {
+		return this.lookup(ZobristHash.hash(board, toMove));
+	}
+
+	/**
+	 * Picks the best scoring book move of a position, preferring the more played move
+	 * when scores tie.
+	 *
+	 * @param hash The position hash
+	 * @param minGames Moves played in fewer games than this are ignored
+	 *
+	 * @return The chosen move, or null if there is none
+	 */
+	public BookMove choose(long hash, int minGames) {
+		BookMove best = null;
+
+		for (BookMove move : this.lookup(hash)) {
+			if (move.games() < minGames) {
+				continue;
+			}
+
+			if (best == null || move.score() > best.score() ||
+				(move.score() == best.score() && move.games() > best.games())) {
+				best = move;
+			}
+		}
+
+		return best;
+	}
+
+	/**
+	 * @return The index of the first record with a hash no smaller than the given one
+	 */
+	private long lowerBound(long hash) {
+		long low = 0;
+		long high = this.count;
+
+		while (low < high) {
+			long mid = (low + high) >>> 1;
+			if (this.hashAt(mid) < hash) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+
+		return low;
+	}
+
+	private long hashAt(long record) {
+		MappedByteBuffer segment = this.segments[(int)(record / SEGMENT_RECORDS)];
+		return segment.getLong((int)(record % SEGMENT_RECORDS) * RECORD_SIZE + HASH_OFFSET);
+	}
+}
@@ -0,0 +1,353 @@
+package chess.book;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.InvalidMoveException;
+import chess.ZobristHash;
+
+/**
+ * Builds an opening book file from finished games.
+ *
+ * Games are replayed from the standard starting position and every (position, move) pair
+ * within the first maxPly plies is counted. Counts are kept in memory until maxEntries
+ * pairs have been seen, then sorted and spilled to a run file in the working directory.
+ * write() merges the runs into the final book, so memory stays bounded no matter how many
+ * games are added.
+ */
+public class OpeningBookBuilder {
+	//
+	// ============================ STATIC ATTRIBUTES =======================
+	//
+
+	public static final int DEFAULT_MAX_PLY = 30;
+	public static final int DEFAULT_MAX_ENTRIES = 1 << 20;
+
+	private record BookKey(long hash, short move) implements Comparable<BookKey> {
+		@Override
+		public int compareTo(BookKey other) {
+			int cmp = Long.compare(this.hash, other.hash);
+			return cmp != 0 ? cmp : Short.compare(this.move, other.move);
+		}
+	}
+
+	//
+	// ============================ MEMBER ATTRIBUTES =======================
+	//
+
+	private final Path workDir;
+	private final int maxPly;
+	private final int maxEntries;
+
+	private HashMap<BookKey, int[]> counts = new HashMap<>();
+	private final ArrayList<Path> runs = new ArrayList<>();
+	private long gameCount = 0;
+
+	//
+	// ============================ CONSTRUCTORS =======================
+	//
+
+	/**
+	 * @param workDir The directory to spill run files into
+	 */
+	public OpeningBookBuilder(Path workDir) {
+		this(workDir, DEFAULT_MAX_PLY, DEFAULT_MAX_ENTRIES);
+	}
+
+	/**
+	 * @param workDir The directory to spill run files into
+	 * @param maxPly How deep into each game to record moves
+	 * @param maxEntries How many (position, move) pairs to hold in memory before spilling
+	 */
+	public OpeningBookBuilder(Path workDir, int maxPly, int maxEntries) {
+		this.workDir = workDir;
+		this.maxPly = maxPly;
+		this.maxEntries = maxEntries;
+	}
+
+	//
+	// ============================ MEMBER METHODS =======================
+	//
+
+	public long getGameCount() {
+		return this.gameCount;
+	}
+
+	/**
+	 * Adds a stored game, using its move history and final position.
+	 *
+	 * @param game The game
+	 *
+	 * @return false if the game has no history or didn't end in mate or stalemate
+	 */
+	public boolean addGame(ChessGame game) throws IOException {
+		GameResult result = GameResult.of(game);
+		if (result == null || game.getMoveHistory().isEmpty()) {
+			return false;
+		}
+
+		return this.addGame(game.getMoveHistory(), result);
+	}
+
+	/**
+	 * Adds a game from its moves.
+	 *
+	 * @param moves The moves from the starting position
+	 * @param result How the game ended
+	 *
+	 * @return false if the first move was illegal
+	 */
+	public boolean addGame(List<ChessMove> moves, GameResult result) throws IOException {
+		ChessGame replay = new ChessGame();
+
+		int plies = Math.min(moves.size(), this.maxPly);
+		for (int i = 0; i < plies; i++) {
+			if (!this.recordMove(replay, moves.get(i), result)) {
+				return this.finishGame(i);
+			}
+		}
+
+		return this.finishGame(plies);
+	}
+
+	/**
+	 * Adds a game from moves in algebraic notation.
+	 *
+	 * @param moves The moves from the starting position
+	 * @param result How the game ended
+	 *
+	 * @return false if the first move couldn't be resolved
+	 */
+	public boolean addSanGame(List<String> moves, GameResult result) throws IOException {
+		ChessGame replay = new ChessGame();
+
+		int plies = Math.min(moves.size(), this.maxPly);
+		for (int i = 0; i < plies; i++) {
+			ChessMove move = SanParser.toMove(replay, moves.get(i));
+			if (move == null || !this.recordMove(replay, move, result)) {
+				return this.finishGame(i);
+			}
+		}
+
+		return this.finishGame(plies);
+	}
+
+	/**
+	 * Adds every finished game of a PGN file.
+	 *
+	 * @param reader The PGN text
+	 *
+	 * @return The number of games added
+	 */
+	public int addPgn(Reader reader) throws IOException {
+		PgnReader pgn = new PgnReader(reader);
+		int added = 0;
+
+		PgnReader.PgnGame game;
+		while ((game = pgn.next()) != null) {
+			if (game.result() != null && this.addSanGame(game.moves(), game.result())) {
+				added++;
+			}
+		}
+
+		return added;
+	}
+
+	/**
+	 * Merges everything added so far into a book file and deletes the run files.
+	 *
+	 * @param file The book file to write
+	 * @param minGames Moves played in fewer games than this are left out
+	 *
+	 * @return The number of records written
+	 */
+	public long write(Path file, int minGames) throws IOException {
+		this.spill();
+
+		PriorityQueue<RunReader> heads = new PriorityQueue<>((a, b) -> a.key.compareTo(b.key));
+		try {
+			for (Path run : this.runs) {
+				RunReader reader = new RunReader(run);
+				if (reader.advance()) {
+					heads.add(reader);
+				} else {
+					reader.close();
+				}
+			}
+
+			long written = 0;
+			try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+						StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+				DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+				out.writeInt(OpeningBook.MAGIC);
+				out.writeShort(OpeningBook.VERSION);
+				out.writeShort(OpeningBook.RECORD_SIZE);
+				out.writeLong(0);  // Record count, filled in below
+
+				while (!heads.isEmpty()) {
+					// Sum the counts of this key across every run
+					BookKey key = heads.peek().key;
+					int[] total = new int[3];
+
+					while (!heads.isEmpty() && heads.peek().key.equals(key)) {
+						RunReader reader = heads.poll();
+						for (int i = 0; i < total.length; i++) {
+							total[i] += reader.counts[i];
+						}
+
+						if (reader.advance()) {
+							heads.add(reader);
+						} else {
+							reader.close();
+						}
+					}
+
+					if (total[0] + total[1] + total[2] >= minGames) {
+						writeRecord(out, key, total);
+						written++;
+					}
+				}
+				out.flush();
+
+				channel.write(ByteBuffer.allocate(Long.BYTES).putLong(0, written), 8);
+			}
+
+			return written;
+		} finally {
+			for (RunReader reader : heads) {
+				reader.close();
+			}
+			for (Path run : this.runs) {
+				Files.deleteIfExists(run);
+			}
+			this.runs.clear();
+		}
+	}
+
+	/**
+	 * Makes a move on the replay board and counts it.
+	 *
+	 * @return false if the move was illegal
+	 */
+	private boolean recordMove(ChessGame replay, ChessMove move, GameResult result) throws IOException {
+		long hash = ZobristHash.hash(replay);
+		ChessGame.TeamColor mover = replay.getTeamTurn();
+
+		try {
+			replay.makeMove(move);
+		} catch (InvalidMoveException ex) {
+			return false;
+		}
+
+		int[] count = this.counts.computeIfAbsent(new BookKey(hash, move.pack()), k -> new int[3]);
+		switch (result.scoreFor(mover)) {
+			case 1 -> count[0]++;
+			case 0 -> count[1]++;
+			default -> count[2]++;
+		}
+
+		if (this.counts.size() >= this.maxEntries) {
+			this.spill();
+		}
+
+		return true;
+	}
+
+	private boolean finishGame(int plies) {
+		if (plies == 0) {
+			return false;
+		}
+		this.gameCount++;
+		return true;
+	}
+
+	/**
+	 * Sorts the in-memory counts and writes them to a new run file
+	 */
+	private void spill() throws IOException {
+		if (this.counts.isEmpty()) {
+			return;
+		}
+
+		ArrayList<Map.Entry<BookKey, int[]>> entries = new ArrayList<>(this.counts.entrySet());
+		entries.sort(Map.Entry.comparingByKey());
+
+		Path run = Files.createTempFile(this.workDir, "book", ".run");
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(run)))) {
+			for (Map.Entry<BookKey, int[]> entry : entries) {
+				writeRecord(out, entry.getKey(), entry.getValue());
+			}
+		}
+
+		this.runs.add(run);
+		this.counts = new HashMap<>();
+	}
+
+	private static void writeRecord(DataOutputStream out, BookKey key, int[] counts) throws IOException {
+		out.writeLong(key.hash());
+		out.writeShort(key.move());
+		out.writeShort(0);
+		out.writeInt(counts[0]);
+		out.writeInt(counts[1]);
+		out.writeInt(counts[2]);
+	}
+
+	//
+	// ============================ RUN READER =======================
+	//
+
+	/**
+	 * Reads the records of one run file in order
+	 */
+	private static class RunReader implements AutoCloseable {
+		private final DataInputStream in;
+		private BookKey key;
+		private final int[] counts = new int[3];
+
+		RunReader(Path run) throws IOException {
+			this.in = new DataInputStream(new BufferedInputStream(Files.newInputStream(run)));
+		}
+
+		/**
+		 * @return false once the run is exhausted
+		 */
+		boolean advance() throws IOException {
+			try {
+				long hash = this.in.readLong();
+				short move = this.in.readShort();
+				this.in.readShort();
+				this.counts[0] = this.in.readInt();
+				this.counts[1] = this.in.readInt();
+				this.counts[2] = this.in.readInt();
+
+				this.key = new BookKey(hash, move);
+				return true;
+			} catch (EOFException ex) {
+				return false;
+			}
+		}
+
+		@Override
+		public void close() throws IOException {
+			this.in.close();
+		}
+	}
+}
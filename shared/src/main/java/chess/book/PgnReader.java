@@ -0,0 +1,138 @@
+package chess.book;
+
+import java.io.IOException;
+import java.io.PushbackReader;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streams games out of a PGN file one at a time, so files of any size can be read.
+ *
+ * Only the main line is kept: comments, variations and annotation glyphs are skipped, and
+ * of the tag pairs only Result is read.
+ */
+public class PgnReader {
+	//
+	// ============================ STATIC ATTRIBUTES =======================
+	//
+
+	/**
+	 * A game read from a PGN file
+	 *
+	 * @param moves The main line in algebraic notation
+	 * @param result The result, or null if the game was unfinished
+	 */
+	public static record PgnGame(List<String> moves, GameResult result) {}
+
+	private static final String TOKEN_DELIMITERS = "{}();[]";
+
+	//
+	// ============================ MEMBER ATTRIBUTES =======================
+	//
+
+	private final PushbackReader reader;
+
+	//
+	// ============================ CONSTRUCTORS =======================
+	//
+
+	public PgnReader(Reader reader) {
+		this.reader = new PushbackReader(reader);
+	}
+
+	//
+	// ============================ MEMBER METHODS =======================
+	//
+
+	/**
+	 * Reads the next game.
+	 *
+	 * @return The game, or null at the end of the input
+	 */
+	public PgnGame next() throws IOException {
+		ArrayList<String> moves = new ArrayList<>();
+		GameResult tagResult = null;
+		boolean started = false;
+
+		int c;
+		while ((c = this.reader.read()) != -1) {
+			if (Character.isWhitespace(c)) {
+				continue;
+			}
+			started = true;
+
+			switch (c) {
+				case '[' -> {
+					String tag = this.readUntil(']');
+					if (tag.startsWith("Result")) {
+						tagResult = GameResult.fromPgn(tag.substring("Result".length()).replace("\"", ""));
+					}
+				}
+				case '{' -> this.readUntil('}');
+				case ';' -> this.readUntil('\n');
+				case '(' -> this.skipVariation();
+				case ')', '}', ']' -> { }  // Stray closing bracket
+				default -> {
+					this.reader.unread(c);
+					String token = this.readToken();
+
+					if (isTermination(token)) {
+						GameResult result = GameResult.fromPgn(token);
+						return new PgnGame(moves, result != null ? result : tagResult);
+					}
+
+					// Drop move numbers such as "12." or "12...", which may be glued to the move
+					token = token.replaceFirst("^\\d+\\.+", "");
+					if (!token.isEmpty() && token.charAt(0) != '$') {
+						moves.add(token);
+					}
+				}
+			}
+		}
+
+		return started ? new PgnGame(moves, tagResult) : null;
+	}
+
+	private static boolean isTermination(String token) {
+		return token.equals("1-0") || token.equals("0-1") || token.equals("1/2-1/2") || token.equals("*");
+	}
+
+	private String readUntil(char end) throws IOException {
+		StringBuilder outStr = new StringBuilder();
+		int c;
+		while ((c = this.reader.read()) != -1 && c != end) {
+			outStr.append((char)c);
+		}
+		return outStr.toString().trim();
+	}
+
+	private String readToken() throws IOException {
+		StringBuilder outStr = new StringBuilder();
+		int c;
+		while ((c = this.reader.read()) != -1) {
+			if (Character.isWhitespace(c) || TOKEN_DELIMITERS.indexOf(c) >= 0) {
+				this.reader.unread(c);
+				break;
+			}
+			outStr.append((char)c);
+		}
+		return outStr.toString();
+	}
+
+	/**
+	 * Skips a (possibly nested) variation, whose opening parenthesis was already read
+	 */
+	private void skipVariation() throws IOException {
+		int depth = 1;
+		int c;
+		while (depth > 0 && (c = this.reader.read()) != -1) {
+			switch (c) {
+				case '(' -> depth++;
+				case ')' -> depth--;
+				case '{' -> this.readUntil('}');
+				default -> { }
+			}
+		}
+	}
+}
@@ -0,0 +1,125 @@
+package chess.book;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPiece;
+import chess.ChessPosition;
+import chess.ChessPiece.PieceType;
+
+/**
+ * Resolves moves written in standard algebraic notation ("e4", "Nbd7", "exd8=Q+", "O-O")
+ * against the current position of a game.
+ */
+public class SanParser {
+	//
+	// ============================ STATIC ATTRIBUTES =======================
+	//
+
+	private static final int BOARD_SIZE = 8;
+	private static final int KING_COLUMN = 5;
+
+	//
+	// ============================ STATIC METHODS =======================
+	//
+
+	/**
+	 * Finds the legal move a SAN token describes.
+	 *
+	 * @param game The game, positioned before the move
+	 * @param san The move in algebraic notation
+	 *
+	 * @return The move, or null if no legal move matches
+	 */
+	public static ChessMove toMove(ChessGame game, String san) {
+		String token = san.replaceAll("[+#!?]", "");
+		int homeRow = game.getTeamTurn() == ChessGame.TeamColor.WHITE ? 1 : BOARD_SIZE;
+
+		if (token.equals("O-O") || token.equals("0-0")) {
+			return findMove(game, new ChessPosition(homeRow, KING_COLUMN), new ChessPosition(homeRow, 7), null);
+		}
+		if (token.equals("O-O-O") || token.equals("0-0-0")) {
+			return findMove(game, new ChessPosition(homeRow, KING_COLUMN), new ChessPosition(homeRow, 3), null);
+		}
+
+		// Promotion, written either "e8=Q" or "e8Q"
+		PieceType promotion = null;
+		int equals = token.indexOf('=');
+		if (equals >= 0 && equals + 1 < token.length()) {
+			promotion = ChessPiece.resolveChessType(token.charAt(equals + 1));
+			token = token.substring(0, equals);
+		} else if (token.length() > 2 && Character.isUpperCase(token.charAt(token.length() - 1)) &&
+				Character.isDigit(token.charAt(token.length() - 2))) {
+			promotion = ChessPiece.resolveChessType(token.charAt(token.length() - 1));
+			token = token.substring(0, token.length() - 1);
+		}
+
+		if (token.length() < 2) {
+			return null;
+		}
+
+		ChessPosition dest = parseSquare(token.charAt(token.length() - 2), token.charAt(token.length() - 1));
+		if (dest == null) {
+			return null;
+		}
+
+		PieceType type = PieceType.PAWN;
+		String qualifier = token.substring(0, token.length() - 2).replace("x", "");
+		if (!qualifier.isEmpty() && Character.isUpperCase(qualifier.charAt(0))) {
+			type = ChessPiece.resolveChessType(qualifier.charAt(0));
+			qualifier = qualifier.substring(1);
+		}
+
+		// What's left disambiguates the start square by file, rank, or both
+		int fromCol = 0;
+		int fromRow = 0;
+		for (char c : qualifier.toCharArray()) {
+			if (c >= 'a' && c <= 'h') {
+				fromCol = c - 'a' + 1;
+			} else if (c >= '1' && c <= '8') {
+				fromRow = c - '1' + 1;
+			} else {
+				return null;
+			}
+		}
+
+		ChessBoard board = game.getBoard();
+		for (ChessBoard.IndexedPiece pieceInx : board) {
+			ChessPiece piece = pieceInx.piece();
+			ChessPosition pos = pieceInx.position();
+
+			if (piece == null || piece.getTeamColor() != game.getTeamTurn() || piece.getPieceType() != type) {
+				continue;
+			}
+			if ((fromCol != 0 && pos.getColumn() != fromCol) || (fromRow != 0 && pos.getRow() != fromRow)) {
+				continue;
+			}
+
+			ChessMove move = findMove(game, pos, dest, promotion);
+			if (move != null) {
+				return move;
+			}
+		}
+
+		return null;
+	}
+
+	private static ChessMove findMove(ChessGame game, ChessPosition start, ChessPosition end, PieceType promotion) {
+		ChessMove move = new ChessMove(start, end, promotion);
+		return game.validMoves(start).contains(move) ? move : null;
+	}
+
+	private static ChessPosition parseSquare(char file, char rank) {
+		if (file < 'a' || file > 'h' || rank < '1' || rank > '8') {
+			return null;
+		}
+		return new ChessPosition(rank - '1' + 1, file - 'a' + 1);
+	}
+
+	//
+	// ============================ CONSTRUCTORS =======================
+	//
+
+	private SanParser() {
+	}
+}
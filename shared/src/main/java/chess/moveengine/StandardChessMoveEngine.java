@@ -35,6 +35,17 @@ public class StandardChessMoveEngine implements ChessMoveEngine {
 		this.generateSpecialMoves();
 	}
 
+	/**
+	 * Builds an engine on team databases that already describe the board, such as the
+	 * copies made when a game is copied
+	 */
+	public StandardChessMoveEngine(Map<TeamColor, ChessTeamDatabase> chessTeamData) {
+		this.chessTeamData = chessTeamData;
+		this.specialMoveCalculators = new HashMap<>();
+
+		this.generateSpecialMoves();
+	}
+
 	/**
 	 * Helper generation function that creates the objects
 	 * necessary to calculate special moves.
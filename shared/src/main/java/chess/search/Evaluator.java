@@ -0,0 +1,88 @@
+package chess.search;
+
+import java.util.Map;
+
+import chess.ChessBoard;
+import chess.ChessPiece;
+import chess.ChessGame.TeamColor;
+import chess.ChessPiece.PieceType;
+
+/**
+ * Static evaluation of a position: material plus small bonuses for centralized minor
+ * pieces and advanced pawns.
+ */
+public class Evaluator {
+	//
+	// ============================ STATIC ATTRIBUTES =======================
+	//
+
+	private static final Map<PieceType, Integer> PIECE_VALUES = Map.of(
+		PieceType.PAWN, 100,
+		PieceType.KNIGHT, 320,
+		PieceType.BISHOP, 330,
+		PieceType.ROOK, 500,
+		PieceType.QUEEN, 900,
+		PieceType.KING, 0
+	);
+
+	private static final int CENTER_BONUS = 4;
+	private static final int PAWN_ADVANCE_BONUS = 6;
+
+	//
+	// ============================ STATIC METHODS =======================
+	//
+
+	/**
+	 * @return The value of a piece type in centipawns
+	 */
+	public static int pieceValue(PieceType type) {
+		return PIECE_VALUES.get(type);
+	}
+
+	/**
+	 * Evaluates a position.
+	 *
+	 * @param board The position
+	 * @param toMove The side to move
+	 *
+	 * @return The score in centipawns, positive when the side to move is better
+	 */
+	public static int evaluate(ChessBoard board, TeamColor toMove) {
+		int score = 0;
+
+		for (ChessBoard.IndexedPiece pieceInx : board) {
+			ChessPiece piece = pieceInx.piece();
+			if (piece == null) {
+				continue;
+			}
+
+			int row = pieceInx.position().getRow();
+			int col = pieceInx.position().getColumn();
+			int value = pieceValue(piece.getPieceType());
+
+			switch (piece.getPieceType()) {
+				case KNIGHT, BISHOP -> {
+					// Distance from the four center squares, 0 to 3 on each axis
+					int centerDistance = Math.max(Math.abs(2 * row - 9), Math.abs(2 * col - 9)) / 2;
+					value += CENTER_BONUS * (3 - centerDistance);
+				}
+				case PAWN -> {
+					int advanced = piece.getTeamColor() == TeamColor.WHITE ? row - 2 : 7 - row;
+					value += PAWN_ADVANCE_BONUS * advanced;
+				}
+				default -> { }
+			}
+
+			score += piece.getTeamColor() == toMove ? value : -value;
+		}
+
+		return score;
+	}
+
+	//
+	// ============================ CONSTRUCTORS =======================
+	//
+
+	private Evaluator() {
+	}
+}
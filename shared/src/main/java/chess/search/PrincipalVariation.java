@@ -0,0 +1,68 @@
+package chess.search;
+
+import java.util.List;
+
+import chess.ChessMove;
+
+/**
+ * The best line found by a search, reported once per finished iteration.
+ *
+ * @param depth The depth searched, in plies
+ * @param score The score for the side to move, in centipawns, or a mate score
+ * @param moves The line, best move first
+ * @param nodes The number of positions visited so far
+ * @param elapsedMillis The time spent so far
+ * @param source Where the line came from
+ */
+public record PrincipalVariation(int depth, int score, List<ChessMove> moves, long nodes,
+		long elapsedMillis, Source source) {
+
+	public static enum Source {
+		SEARCH,
+		BOOK,
+		TABLEBASE
+	}
+
+	/**
+	 * Scores above this are forced mates, MATE_SCORE minus the number of plies to mate
+	 */
+	public static final int MATE_SCORE = 1_000_000;
+	public static final int MATE_THRESHOLD = MATE_SCORE - 1_000;
+
+	public static int mateIn(int plies) {
+		return MATE_SCORE - plies;
+	}
+
+	public static int matedIn(int plies) {
+		return -MATE_SCORE + plies;
+	}
+
+	public boolean isMate() {
+		return Math.abs(this.score) >= MATE_THRESHOLD;
+	}
+
+	/**
+	 * @return The number of moves (not plies) until mate, negative if the side to move is
+	 * the one getting mated. Only meaningful when isMate() is true.
+	 */
+	public int mateDistance() {
+		int plies = MATE_SCORE - Math.abs(this.score);
+		int moves = (plies + 1) / 2;
+		return this.score > 0 ? moves : -moves;
+	}
+
+	/**
+	 * @return A rough estimate of the heap this line takes up, for cache budgeting
+	 */
+	public long estimateBytes() {
+		// The record, plus a move and its two positions per ply
+		return 64 + 80L * this.moves.size();
+	}
+
+	/**
+	 * @return The best move, or null if the position has no legal moves
+	 */
+	public ChessMove bestMove() {
+		return this.moves.isEmpty() ? null : this.moves.get(0);
+	}
+}
@@ -0,0 +1,610 @@
+package chess.search;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Properties;
+import java.util.Set;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPiece;
+import chess.ChessPosition;
+import chess.InvalidMoveException;
+import chess.ZobristHash;
+import chess.ChessGame.TeamColor;
+import chess.ChessPiece.PieceType;
+import chess.book.BookMove;
+import chess.book.OpeningBook;
+import chess.moveengine.StandardChessMoveEngine;
+import chess.tablebase.TablebaseResult;
+import chess.tablebase.TablebaseSet;
+
+/**
+ * Finds good moves with an iterative-deepening alpha-beta search.
+ *
+ * Moves come from StandardChessMoveEngine, so the search plays by the same rules as the
+ * server. Before searching, the opening book and the endgame tablebases are consulted if
+ * they have been set. Within the tree, positions covered by a tablebase are scored exactly.
+ *
+ * A SearchEngine holds no per-search state and may be shared between threads.
+ */
+public class SearchEngine {
+	//
+	// ============================ STATIC ATTRIBUTES =======================
+	//
+
+	private static final int INFINITY = PrincipalVariation.MATE_SCORE + 1;
+
+	/**
+	 * How many nodes pass between checks of the clock and the cancel flag
+	 */
+	private static final int CHECK_INTERVAL = 64;
+
+	private static final int BOOK_MIN_GAMES = 1;
+	private static final int BOARD_SIZE = 8;
+
+	/**
+	 * Thrown inside the tree to unwind a search that ran out of time, nodes, or was cancelled
+	 */
+	private static class SearchAbortedException extends RuntimeException {
+		private static final long serialVersionUID = 1L;
+
+		SearchAbortedException() {
+			super(null, null, false, false);
+		}
+	}
+
+	/**
+	 * Where an engine's opening and endgame knowledge is loaded from
+	 *
+	 * @param tablebaseDir The directory of tablebase files, or null to search without them
+	 * @param bookFile The opening book file, or null to search without one
+	 */
+	public static record EngineConfig(Path tablebaseDir, Path bookFile) {
+		public static final EngineConfig DEFAULT = new EngineConfig(null, null);
+
+		/**
+		 * Reads engine.tablebaseDir and engine.bookFile, leaving out whichever is missing
+		 */
+		public static EngineConfig fromProperties(Properties props) {
+			return new EngineConfig(pathProperty(props, "engine.tablebaseDir"), pathProperty(props, "engine.bookFile"));
+		}
+
+		private static Path pathProperty(Properties props, String key) {
+			String value = props.getProperty(key);
+			return value == null || value.isBlank() ? null : Path.of(value.trim());
+		}
+	}
+
+	//
+	// ============================ STATIC METHODS =======================
+	//
+
+	/**
+	 * Creates an engine with whatever a config names loaded into it.
+	 *
+	 * @param config The config
+	 *
+	 * @return The engine
+	 */
+	public static SearchEngine open(EngineConfig config) throws IOException {
+		SearchEngine engine = new SearchEngine();
+		if (config.tablebaseDir() != null) {
+			engine.setTablebases(TablebaseSet.open(config.tablebaseDir()));
+		}
+		if (config.bookFile() != null) {
+			engine.setOpeningBook(OpeningBook.open(config.bookFile()));
+		}
+		return engine;
+	}
+
+	/**
+	 * Lists the legal moves of the side to move.
+	 *
+	 * Castling is only kept when the king and rook stand on their starting squares, since
+	 * a board on its own doesn't record which pieces have moved.
+	 *
+	 * @param board The position
+	 * @param toMove The side to move
+	 *
+	 * @return The moves
+	 */
+	public static List<ChessMove> legalMoves(ChessBoard board, TeamColor toMove) {
+		return legalMoves(board, toMove, new StandardChessMoveEngine(board));
+	}
+
+	private static List<ChessMove> legalMoves(ChessBoard board, TeamColor toMove, StandardChessMoveEngine engine) {
+		ArrayList<ChessPosition> positions = new ArrayList<>();
+		for (ChessBoard.IndexedPiece pieceInx : board) {
+			if (pieceInx.piece() != null && pieceInx.piece().getTeamColor() == toMove) {
+				positions.add(pieceInx.position());
+			}
+		}
+
+		ArrayList<ChessMove> moves = new ArrayList<>();
+		for (ChessPosition pos : positions) {
+			ChessPiece piece = board.getPiece(pos);
+			for (ChessMove move : engine.validMoves(board, pos)) {
+				if (!isCastle(piece, move) || canCastle(board, move, toMove)) {
+					moves.add(move);
+				}
+			}
+		}
+
+		return moves;
+	}
+
+	/**
+	 * Plays a move on a copy of a board, including the rook of a castling move and the
+	 * pawn taken en passant.
+	 *
+	 * @param board The position before the move
+	 * @param move The move
+	 *
+	 * @return The position after the move
+	 */
+	public static ChessBoard applyMove(ChessBoard board, ChessMove move) {
+		ChessBoard child = new ChessBoard(board);
+		ChessPosition start = move.getStartPosition();
+		ChessPosition end = move.getEndPosition();
+		ChessPiece piece = child.getPiece(start);
+
+		if (piece.getPieceType() == PieceType.PAWN && start.getColumn() != end.getColumn() &&
+			child.getPiece(end) == null) {
+			child.removePiece(new ChessPosition(start.getRow(), end.getColumn()));
+		}
+
+		if (isCastle(piece, move)) {
+			boolean kingside = end.getColumn() > start.getColumn();
+			ChessPosition rookStart = new ChessPosition(start.getRow(), kingside ? BOARD_SIZE : 1);
+			ChessPosition rookEnd = new ChessPosition(start.getRow(), kingside ? end.getColumn() - 1 : end.getColumn() + 1);
+
+			child.addPiece(rookEnd, child.getPiece(rookStart));
+			child.removePiece(rookStart);
+		}
+
+		if (move.getPromotionPiece() != null) {
+			piece = ChessPiece.makeNewPiece(piece.getTeamColor(), move.getPromotionPiece());
+		}
+
+		child.removePiece(start);
+		child.addPiece(end, piece);
+		return child;
+	}
+
+	private static boolean isCastle(ChessPiece piece, ChessMove move) {
+		return piece.getPieceType() == PieceType.KING &&
+			Math.abs(move.getStartPosition().getColumn() - move.getEndPosition().getColumn()) == 2;
+	}
+
+	private static boolean canCastle(ChessBoard board, ChessMove move, TeamColor color) {
+		int homeRow = color == TeamColor.WHITE ? 1 : BOARD_SIZE;
+		ChessPosition start = move.getStartPosition();
+		boolean kingside = move.getEndPosition().getColumn() > start.getColumn();
+		ChessPiece rook = board.getPiece(new ChessPosition(homeRow, kingside ? BOARD_SIZE : 1));
+
+		return start.getRow() == homeRow && start.getColumn() == 5 && rook != null &&
+			rook.getPieceType() == PieceType.ROOK && rook.getTeamColor() == color;
+	}
+
+	/**
+	 * Orders captures and promotions first, most valuable victim first
+	 */
+	private static int orderingScore(ChessBoard board, ChessMove move) {
+		int score = 0;
+
+		ChessPiece victim = board.getPiece(move.getEndPosition());
+		if (victim != null) {
+			ChessPiece attacker = board.getPiece(move.getStartPosition());
+			score += 10 * Evaluator.pieceValue(victim.getPieceType()) - Evaluator.pieceValue(attacker.getPieceType()) / 10;
+		}
+		if (move.getPromotionPiece() != null) {
+			score += Evaluator.pieceValue(move.getPromotionPiece());
+		}
+
+		return score;
+	}
+
+	private static int tablebaseScore(TablebaseResult result, int ply) {
+		return switch (result.outcome()) {
+			case WIN -> PrincipalVariation.mateIn(ply + result.distanceToMate());
+			case LOSS -> PrincipalVariation.matedIn(ply + result.distanceToMate());
+			case DRAW -> 0;
+		};
+	}
+
+	//
+	// ============================ MEMBER ATTRIBUTES =======================
+	//
+
+	private volatile OpeningBook openingBook;
+	private volatile TablebaseSet tablebases;
+
+	//
+	// ============================ MEMBER METHODS =======================
+	//
+
+	public void setOpeningBook(OpeningBook openingBook) {
+		this.openingBook = openingBook;
+	}
+
+	public void setTablebases(TablebaseSet tablebases) {
+		this.tablebases = tablebases;
+	}
+
+	/**
+	 * Searches the current position of a game.
+	 *
+	 * @param game The game, which is only read
+	 * @param limits When to stop
+	 *
+	 * @return The best line of the deepest finished iteration
+	 */
+	public PrincipalVariation search(ChessGame game, SearchLimits limits) {
+		return this.search(game, limits, pv -> { }, () -> false);
+	}
+
+	/**
+	 * Searches the current position of a game.
+	 *
+	 * A board alone doesn't record which pieces have moved, so the search of a board may
+	 * castle where the game no longer allows it. Here the game's rules decide: the moves it
+	 * forbids are never searched first, and every line reported stops before the first
+	 * move the game wouldn't allow.
+	 *
+	 * @param game The game, which is only read; a game shared between threads must be a copy
+	 * @param limits When to stop
+	 * @param listener Receives the best line after each finished iteration
+	 * @param cancelled Polled during the search; the search stops once it returns true
+	 *
+	 * @return The best line of the deepest finished iteration
+	 */
+	public PrincipalVariation search(ChessGame game, SearchLimits limits,
+			Consumer<PrincipalVariation> listener, BooleanSupplier cancelled) {
+		Search search = new Search(limits, line -> listener.accept(legalLine(game, line)), cancelled,
+				illegalRootMoves(game));
+		return legalLine(game, search.run(new ChessBoard(game.getBoard()), game.getTeamTurn()));
+	}
+
+	/**
+	 * Searches the current position of a game for its best few moves, playing by the
+	 * game's rules like search(ChessGame, ...).
+	 *
+	 * @param game The game, which is only read; a game shared between threads must be a copy
+	 * @param limits When to stop
+	 * @param lineNum How many moves to report
+	 * @param cancelled Polled during the search; the search stops once it returns true
+	 *
+	 * @return The best lines of the deepest finished iteration, best first, or an empty list
+	 * if there are no legal moves
+	 */
+	public List<PrincipalVariation> searchLines(ChessGame game, SearchLimits limits, int lineNum,
+			BooleanSupplier cancelled) {
+		Search search = new Search(limits, pv -> { }, cancelled, illegalRootMoves(game));
+		List<PrincipalVariation> lines = search.runLines(new ChessBoard(game.getBoard()), game.getTeamTurn(), lineNum);
+		return lines.stream().map(line -> legalLine(game, line)).toList();
+	}
+
+	/**
+	 * Searches a position.
+	 *
+	 * @param board The position, which is copied before searching
+	 * @param toMove The side to move
+	 * @param limits When to stop
+	 * @param listener Receives the best line after each finished iteration
+	 * @param cancelled Polled during the search; the search stops once it returns true
+	 *
+	 * @return The best line of the deepest finished iteration
+	 */
+	public PrincipalVariation search(ChessBoard board, TeamColor toMove, SearchLimits limits,
+			Consumer<PrincipalVariation> listener, BooleanSupplier cancelled) {
+		return new Search(limits, listener, cancelled, Set.of()).run(new ChessBoard(board), toMove);
+	}
+
+	/**
+	 * Searches a position for its best few moves, each with its own line and score.
+	 *
+	 * The opening book and root tablebase probes are skipped, so every line is scored by
+	 * the search.
+	 *
+	 * @param board The position, which is copied before searching
+	 * @param toMove The side to move
+	 * @param limits When to stop
+	 * @param lineNum How many moves to report
+	 * @param cancelled Polled during the search; the search stops once it returns true
+	 *
+	 * @return The best lines of the deepest finished iteration, best first, or an empty list
+	 * if there are no legal moves
+	 */
+	public List<PrincipalVariation> searchLines(ChessBoard board, TeamColor toMove, SearchLimits limits,
+			int lineNum, BooleanSupplier cancelled) {
+		return new Search(limits, pv -> { }, cancelled, Set.of()).runLines(new ChessBoard(board), toMove, lineNum);
+	}
+
+	/**
+	 * @return The moves a search of the game's board would start with that the game forbids
+	 */
+	private static Set<ChessMove> illegalRootMoves(ChessGame game) {
+		// Listing a game's valid moves tries them on its board
+		ChessGame copy = game.copy();
+		HashMap<ChessPosition, Collection<ChessMove>> allowed = new HashMap<>();
+		HashSet<ChessMove> illegal = new HashSet<>();
+
+		for (ChessMove move : legalMoves(new ChessBoard(game.getBoard()), game.getTeamTurn())) {
+			if (!allowed.computeIfAbsent(move.getStartPosition(), copy::validMoves).contains(move)) {
+				illegal.add(move);
+			}
+		}
+		return illegal;
+	}
+
+	/**
+	 * Cuts a line before the first move the game doesn't allow, such as a castle after the
+	 * king or rook has moved
+	 */
+	private static PrincipalVariation legalLine(ChessGame game, PrincipalVariation pv) {
+		ChessGame copy = game.copy();
+		List<ChessMove> moves = pv.moves();
+
+		for (int i = 0; i < moves.size(); i++) {
+			try {
+				copy.makeMove(moves.get(i));
+			} catch (InvalidMoveException ex) {
+				return new PrincipalVariation(pv.depth(), pv.score(), List.copyOf(moves.subList(0, i)), pv.nodes(),
+						pv.elapsedMillis(), pv.source());
+			}
+		}
+		return pv;
+	}
+
+	//
+	// ============================ SEARCH =======================
+	//
+
+	/**
+	 * The state of a single search
+	 */
+	private class Search {
+		private final SearchLimits limits;
+		private final Consumer<PrincipalVariation> listener;
+		private final BooleanSupplier cancelled;
+		private final Set<ChessMove> excluded;
+		private final TablebaseSet tablebases = SearchEngine.this.tablebases;
+
+		private final long startTime = System.currentTimeMillis();
+		private long nodes = 0;
+
+		/**
+		 * @param excluded Moves never played at the root
+		 */
+		Search(SearchLimits limits, Consumer<PrincipalVariation> listener, BooleanSupplier cancelled,
+				Set<ChessMove> excluded) {
+			this.limits = limits;
+			this.listener = listener;
+			this.cancelled = cancelled;
+			this.excluded = excluded;
+		}
+
+		PrincipalVariation run(ChessBoard board, TeamColor toMove) {
+			StandardChessMoveEngine engine = new StandardChessMoveEngine(board);
+			List<ChessMove> rootMoves = legalMoves(board, toMove, engine);
+			rootMoves.removeAll(this.excluded);
+
+			if (rootMoves.isEmpty()) {
+				int score = engine.isInCheck(toMove) ? PrincipalVariation.matedIn(0) : 0;
+				return this.report(0, score, List.of(), PrincipalVariation.Source.SEARCH);
+			}
+
+			PrincipalVariation known = this.probeBook(board, toMove, rootMoves);
+			if (known == null) {
+				known = this.probeTablebases(board, toMove, rootMoves);
+			}
+			if (known != null) {
+				return known;
+			}
+
+			return this.iterate(board, toMove, rootMoves, 1).get(0);
+		}
+
+		List<PrincipalVariation> runLines(ChessBoard board, TeamColor toMove, int lineNum) {
+			List<ChessMove> rootMoves = legalMoves(board, toMove);
+			rootMoves.removeAll(this.excluded);
+			if (rootMoves.isEmpty()) {
+				return List.of();
+			}
+
+			return this.iterate(board, toMove, rootMoves, Math.min(lineNum, rootMoves.size()));
+		}
+
+		/**
+		 * Iterative deepening
+		 */
+		private List<PrincipalVariation> iterate(ChessBoard board, TeamColor toMove, List<ChessMove> rootMoves, int lineNum) {
+			rootMoves.sort(Comparator.comparingInt((ChessMove m) -> orderingScore(board, m)).reversed());
+
+			// Always have moves to report, even if the first iteration doesn't finish
+			int staticScore = Evaluator.evaluate(board, toMove);
+			List<PrincipalVariation> best = new ArrayList<>();
+			for (int i = 0; i < lineNum; i++) {
+				best.add(new PrincipalVariation(0, staticScore, List.of(rootMoves.get(i)), 0, 0,
+						PrincipalVariation.Source.SEARCH));
+			}
+
+			try {
+				for (int depth = 1; depth <= this.limits.maxDepth(); depth++) {
+					best = this.searchRoot(board, toMove, rootMoves, depth, lineNum);
+
+					// No point searching deeper once a forced mate is found
+					if (best.get(0).isMate()) {
+						break;
+					}
+				}
+			} catch (SearchAbortedException ex) {
+				// Keep the last finished iteration
+			}
+
+			return best;
+		}
+
+		private List<PrincipalVariation> searchRoot(ChessBoard board, TeamColor toMove, List<ChessMove> rootMoves,
+				int depth, int lineNum) {
+			Map<ChessMove, Integer> scores = new HashMap<>();
+			Map<ChessMove, List<ChessMove>> lines = new HashMap<>();
+
+			// Scores of the best lineNum moves so far, lowest first
+			PriorityQueue<Integer> top = new PriorityQueue<>();
+
+			for (ChessMove move : rootMoves) {
+				// A move only needs an exact score if it could make it into the top lineNum
+				int alpha = top.size() < lineNum ? -INFINITY : top.peek();
+
+				ArrayList<ChessMove> line = new ArrayList<>();
+				int score = -this.negamax(applyMove(board, move), toMove.next(), depth - 1, -INFINITY, -alpha, 1, line);
+				line.add(0, move);
+
+				scores.put(move, score);
+				lines.put(move, line);
+
+				if (top.size() < lineNum) {
+					top.add(score);
+				} else if (score > top.peek()) {
+					top.poll();
+					top.add(score);
+				}
+			}
+
+			// The next iteration searches the best moves of this one first. The sort is
+			// stable, so a move that only tied a better one stays behind it.
+			rootMoves.sort(Comparator.comparingInt((ChessMove m) -> scores.get(m)).reversed());
+
+			List<PrincipalVariation> best = new ArrayList<>();
+			for (int i = 0; i < lineNum; i++) {
+				ChessMove move = rootMoves.get(i);
+				best.add(new PrincipalVariation(depth, scores.get(move), List.copyOf(lines.get(move)), this.nodes,
+						System.currentTimeMillis() - this.startTime, PrincipalVariation.Source.SEARCH));
+			}
+
+			this.listener.accept(best.get(0));
+			return best;
+		}
+
+		private int negamax(ChessBoard board, TeamColor toMove, int depth, int alpha, int beta, int ply, List<ChessMove> pv) {
+			this.countNode();
+
+			if (this.tablebases != null) {
+				TablebaseResult result = this.tablebases.probe(board, toMove);
+				if (result != null) {
+					return tablebaseScore(result, ply);
+				}
+			}
+
+			if (depth == 0) {
+				return Evaluator.evaluate(board, toMove);
+			}
+
+			StandardChessMoveEngine engine = new StandardChessMoveEngine(board);
+			List<ChessMove> moves = legalMoves(board, toMove, engine);
+			if (moves.isEmpty()) {
+				return engine.isInCheck(toMove) ? PrincipalVariation.matedIn(ply) : 0;
+			}
+			moves.sort(Comparator.comparingInt((ChessMove m) -> orderingScore(board, m)).reversed());
+
+			int best = -INFINITY;
+			for (ChessMove move : moves) {
+				ArrayList<ChessMove> line = new ArrayList<>();
+				int score = -this.negamax(applyMove(board, move), toMove.next(), depth - 1, -beta, -alpha, ply + 1, line);
+
+				if (score > best) {
+					best = score;
+				}
+				if (score > alpha) {
+					alpha = score;
+					pv.clear();
+					pv.add(move);
+					pv.addAll(line);
+				}
+				if (alpha >= beta) {
+					break;
+				}
+			}
+
+			return best;
+		}
+
+		private PrincipalVariation probeBook(ChessBoard board, TeamColor toMove, List<ChessMove> rootMoves) {
+			OpeningBook book = SearchEngine.this.openingBook;
+			if (book == null) {
+				return null;
+			}
+
+			BookMove choice = book.choose(ZobristHash.hash(board, toMove), BOOK_MIN_GAMES);
+			if (choice == null || !rootMoves.contains(choice.move())) {
+				return null;
+			}
+
+			// Map the book score of 0..1 onto roughly a pawn either way
+			int score = (int)Math.round((choice.score() - 0.5) * 200);
+			return this.report(0, score, List.of(choice.move()), PrincipalVariation.Source.BOOK);
+		}
+
+		private PrincipalVariation probeTablebases(ChessBoard board, TeamColor toMove, List<ChessMove> rootMoves) {
+			if (this.tablebases == null || this.tablebases.probe(board, toMove) == null) {
+				return null;
+			}
+
+			ChessMove bestMove = null;
+			int bestScore = -INFINITY;
+			for (ChessMove move : rootMoves) {
+				TablebaseResult result = this.tablebases.probe(applyMove(board, move), toMove.next());
+				if (result == null) {
+					return null;
+				}
+
+				int score = -tablebaseScore(result, 1);
+				if (score > bestScore) {
+					bestScore = score;
+					bestMove = move;
+				}
+			}
+
+			return this.report(0, bestScore, List.of(bestMove), PrincipalVariation.Source.TABLEBASE);
+		}
+
+		private PrincipalVariation report(int depth, int score, List<ChessMove> line, PrincipalVariation.Source source) {
+			PrincipalVariation pv = new PrincipalVariation(depth, score, List.copyOf(line), this.nodes,
+					System.currentTimeMillis() - this.startTime, source);
+			this.listener.accept(pv);
+			return pv;
+		}
+
+		private void countNode() {
+			this.nodes++;
+
+			if (this.limits.maxNodes() > 0 && this.nodes > this.limits.maxNodes()) {
+				throw new SearchAbortedException();
+			}
+
+			if (this.nodes % CHECK_INTERVAL == 0) {
+				long elapsed = System.currentTimeMillis() - this.startTime;
+				if ((this.limits.maxTimeMillis() > 0 && elapsed >= this.limits.maxTimeMillis()) ||
+					this.cancelled.getAsBoolean() || Thread.currentThread().isInterrupted()) {
+					throw new SearchAbortedException();
+				}
+
+				// Let other virtual threads on this carrier run
+				Thread.yield();
+			}
+		}
+	}
+}
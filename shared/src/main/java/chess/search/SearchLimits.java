@@ -0,0 +1,49 @@
+package chess.search;
+
+/**
+ * Bounds on a single search. The search stops at whichever limit is reached first, and
+ * always reports the deepest iteration it finished.
+ *
+ * @param maxDepth The deepest iteration to search, in plies
+ * @param maxNodes The number of positions to visit before stopping, 0 for no limit
+ * @param maxTimeMillis The wall time to search for, 0 for no limit
+ */
+public record SearchLimits(int maxDepth, long maxNodes, long maxTimeMillis) {
+	public static final int MAX_DEPTH = 64;
+
+	public SearchLimits {
+		if (maxDepth < 1 || maxDepth > MAX_DEPTH) {
+			throw new IllegalArgumentException("Search depth must be between 1 and " + MAX_DEPTH);
+		}
+		if (maxNodes < 0 || maxTimeMillis < 0) {
+			throw new IllegalArgumentException("Search limits can't be negative");
+		}
+	}
+
+	/**
+	 * @return Limits that search to a fixed depth with no node or time limit
+	 */
+	public static SearchLimits depth(int maxDepth) {
+		return new SearchLimits(maxDepth, 0, 0);
+	}
+
+	/**
+	 * @return These limits, tightened to be no looser than the given ones
+	 */
+	public SearchLimits clamp(SearchLimits max) {
+		return new SearchLimits(
+				Math.min(this.maxDepth, max.maxDepth()),
+				tighter(this.maxNodes, max.maxNodes()),
+				tighter(this.maxTimeMillis, max.maxTimeMillis()));
+	}
+
+	private static long tighter(long a, long b) {
+		if (a == 0) {
+			return b;
+		}
+		if (b == 0) {
+			return a;
+		}
+		return Math.min(a, b);
+	}
+}
@@ -0,0 +1,375 @@
+package chess.tablebase;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import chess.ChessBoard;
+import chess.ChessPiece;
+import chess.ChessPosition;
+import chess.ChessGame.TeamColor;
+import chess.ChessPiece.PieceType;
+
+/**
+ * Describes the material on the board for an endgame tablebase, such as "KQK" or "KBNK".
+ *
+ * The pieces before the second 'K' belong to white, the rest to black. A signature also
+ * defines the indexing scheme of its table: every piece gets a 6-bit square, and the side
+ * to move is the lowest bit.
+ */
+public class MaterialSignature {
+	//
+	// ============================ STATIC ATTRIBUTES =======================
+	//
+
+	/**
+	 * The order pieces are written in a canonical signature name
+	 */
+	private static final String PIECE_ORDER = "KQRBNP";
+
+	/**
+	 * Tables are indexed with an int, so 2 * 64^4 is as large as we go.
+	 */
+	public static final int MAX_PIECES = 4;
+
+	private static final int SQUARE_NUM = 64;
+	private static final int BOARD_SIZE = 8;
+
+	//
+	// ============================ STATIC METHODS =======================
+	//
+
+	/**
+	 * Parses a signature name such as "KRK" or "KQKR".
+	 *
+	 * @param name The signature name
+	 *
+	 * @return The parsed signature
+	 */
+	public static MaterialSignature parse(String name) {
+		String upper = name.toUpperCase();
+		int split = upper.indexOf('K', 1);
+
+		if (upper.isEmpty() || upper.charAt(0) != 'K' || split < 0) {
+			throw new IllegalArgumentException("Material signature must contain two kings: " + name);
+		}
+
+		ArrayList<PieceType> white = new ArrayList<>();
+		ArrayList<PieceType> black = new ArrayList<>();
+		for (int i = 0; i < upper.length(); i++) {
+			PieceType type = ChessPiece.resolveChessType(upper.charAt(i));
+			if (type == null) {
+				throw new IllegalArgumentException("Unknown piece in material signature: " + name);
+			}
+
+			if (i < split) {
+				white.add(type);
+			} else {
+				black.add(type);
+			}
+		}
+
+		return new MaterialSignature(white, black);
+	}
+
+	/**
+	 * Builds the signature of the pieces currently on a board, white first.
+	 *
+	 * @param board The board to read
+	 *
+	 * @return The signature, or null if the board has more than MAX_PIECES pieces
+	 */
+	public static MaterialSignature of(ChessBoard board) {
+		ArrayList<PieceType> white = new ArrayList<>();
+		ArrayList<PieceType> black = new ArrayList<>();
+
+		for (ChessBoard.IndexedPiece pieceInx : board) {
+			ChessPiece piece = pieceInx.piece();
+			if (piece == null) {
+				continue;
+			}
+
+			if (piece.getTeamColor() == TeamColor.WHITE) {
+				white.add(piece.getPieceType());
+			} else {
+				black.add(piece.getPieceType());
+			}
+
+			if (white.size() + black.size() > MAX_PIECES) {
+				return null;
+			}
+		}
+
+		if (!white.contains(PieceType.KING) || !black.contains(PieceType.KING)) {
+			return null;
+		}
+
+		return new MaterialSignature(white, black);
+	}
+
+	private static String sideName(ArrayList<PieceType> pieces) {
+		StringBuilder outStr = new StringBuilder();
+		for (PieceType type : pieces) {
+			outStr.append(ChessPiece.resolveChessType(type, TeamColor.WHITE));
+		}
+		return outStr.toString();
+	}
+
+	private static void sortPieces(ArrayList<PieceType> pieces) {
+		pieces.sort((a, b) -> Integer.compare(
+					PIECE_ORDER.indexOf(ChessPiece.resolveChessType(a, TeamColor.WHITE)),
+					PIECE_ORDER.indexOf(ChessPiece.resolveChessType(b, TeamColor.WHITE))));
+	}
+
+	/**
+	 * Converts a 1-indexed ChessPosition into a 0-63 square number
+	 */
+	public static int toSquare(ChessPosition pos) {
+		return (pos.getRow() - 1) * BOARD_SIZE + (pos.getColumn() - 1);
+	}
+
+	/**
+	 * Converts a 0-63 square number into a 1-indexed ChessPosition
+	 */
+	public static ChessPosition toPosition(int square) {
+		return new ChessPosition(square / BOARD_SIZE + 1, square % BOARD_SIZE + 1);
+	}
+
+	//
+	// ============================ MEMBER ATTRIBUTES =======================
+	//
+
+	private final String name;
+	private final TeamColor[] colors;
+	private final PieceType[] types;
+	private final ArrayList<PieceType> whitePieces;
+	private final ArrayList<PieceType> blackPieces;
+
+	//
+	// ============================ CONSTRUCTORS =======================
+	//
+
+	private MaterialSignature(ArrayList<PieceType> white, ArrayList<PieceType> black) {
+		sortPieces(white);
+		sortPieces(black);
+
+		if (white.size() + black.size() > MAX_PIECES) {
+			throw new IllegalArgumentException("Tablebases support at most " + MAX_PIECES + " pieces");
+		}
+		if (white.indexOf(PieceType.KING) != 0 || white.lastIndexOf(PieceType.KING) != 0 ||
+			black.indexOf(PieceType.KING) != 0 || black.lastIndexOf(PieceType.KING) != 0) {
+			throw new IllegalArgumentException("Each side must have exactly one king");
+		}
+
+		this.whitePieces = white;
+		this.blackPieces = black;
+		this.name = sideName(white) + sideName(black);
+
+		int pieceNum = white.size() + black.size();
+		this.colors = new TeamColor[pieceNum];
+		this.types = new PieceType[pieceNum];
+		for (int i = 0; i < pieceNum; i++) {
+			boolean isWhite = i < white.size();
+			this.colors[i] = isWhite ? TeamColor.WHITE : TeamColor.BLACK;
+			this.types[i] = isWhite ? white.get(i) : black.get(i - white.size());
+		}
+	}
+
+	//
+	// ============================ MEMBER METHODS =======================
+	//
+
+	public String getName() {
+		return this.name;
+	}
+
+	public int getPieceCount() {
+		return this.types.length;
+	}
+
+	/**
+	 * @return The number of entries a table for this signature holds
+	 */
+	public int getEntryCount() {
+		int count = 2;
+		for (int i = 0; i < this.types.length; i++) {
+			count *= SQUARE_NUM;
+		}
+		return count;
+	}
+
+	/**
+	 * @return The same material with the colors swapped
+	 */
+	public MaterialSignature flip() {
+		return new MaterialSignature(new ArrayList<>(this.blackPieces), new ArrayList<>(this.whitePieces));
+	}
+
+	/**
+	 * Determines if neither side could ever deliver mate: bare kings, or a king and a
+	 * single minor piece against a bare king.
+	 *
+	 * @return true if the position is a dead draw
+	 */
+	public boolean isInsufficientMaterial() {
+		if (this.types.length == 2) {
+			return true;
+		}
+		if (this.types.length == 3) {
+			for (PieceType type : this.types) {
+				if (type == PieceType.BISHOP || type == PieceType.KNIGHT) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Returns every signature that a single capture or pawn promotion can lead to.
+	 *
+	 * @return The reachable signatures, keyed by name
+	 */
+	public Collection<MaterialSignature> getSubSignatures() {
+		Map<String, MaterialSignature> subSignatures = new LinkedHashMap<>();
+
+		for (int side = 0; side < 2; side++) {
+			ArrayList<PieceType> pieces = side == 0 ? this.whitePieces : this.blackPieces;
+			ArrayList<PieceType> others = side == 0 ? this.blackPieces : this.whitePieces;
+
+			for (int i = 1; i < pieces.size(); i++) {
+				// The piece is captured
+				ArrayList<PieceType> captured = new ArrayList<>(pieces);
+				captured.remove(i);
+				MaterialSignature sig = side == 0
+					? new MaterialSignature(captured, new ArrayList<>(others))
+					: new MaterialSignature(new ArrayList<>(others), captured);
+				subSignatures.put(sig.getName(), sig);
+
+				if (pieces.get(i) != PieceType.PAWN) {
+					continue;
+				}
+
+				// The pawn promotes
+				for (PieceType promotion : new PieceType[] {
+						PieceType.QUEEN, PieceType.ROOK, PieceType.BISHOP, PieceType.KNIGHT}) {
+					ArrayList<PieceType> promoted = new ArrayList<>(pieces);
+					promoted.set(i, promotion);
+					sig = side == 0
+						? new MaterialSignature(promoted, new ArrayList<>(others))
+						: new MaterialSignature(new ArrayList<>(others), promoted);
+					subSignatures.put(sig.getName(), sig);
+				}
+			}
+		}
+
+		return subSignatures.values();
+	}
+
+	/**
+	 * Computes the table index of a position.
+	 *
+	 * When mirrored is set, the board is read with the colors swapped and the ranks
+	 * flipped, which lets a black-strong position be probed in a white-strong table.
+	 *
+	 * @param board The board to index
+	 * @param toMove The side to move
+	 * @param mirrored Whether to read the board with colors swapped
+	 *
+	 * @return The index, or -1 if the board doesn't hold exactly this material
+	 */
+	public int indexOf(ChessBoard board, TeamColor toMove, boolean mirrored) {
+		int[] squares = new int[this.types.length];
+		boolean[] filled = new boolean[this.types.length];
+
+		for (int row = 1; row <= BOARD_SIZE; row++) {
+			for (int col = 1; col <= BOARD_SIZE; col++) {
+				ChessPiece piece = board.getPiece(new ChessPosition(row, col));
+				if (piece == null) {
+					continue;
+				}
+
+				TeamColor color = mirrored ? piece.getTeamColor().next() : piece.getTeamColor();
+				int square = mirrored
+					? (BOARD_SIZE - row) * BOARD_SIZE + (col - 1)
+					: (row - 1) * BOARD_SIZE + (col - 1);
+
+				// Put the piece into the first free slot of its kind
+				int slot = -1;
+				for (int i = 0; i < this.types.length; i++) {
+					if (!filled[i] && this.colors[i] == color && this.types[i] == piece.getPieceType()) {
+						slot = i;
+						break;
+					}
+				}
+				if (slot < 0) {
+					return -1;
+				}
+
+				filled[slot] = true;
+				squares[slot] = square;
+			}
+		}
+
+		int index = 0;
+		for (int i = 0; i < this.types.length; i++) {
+			if (!filled[i]) {
+				return -1;
+			}
+			index = index * SQUARE_NUM + squares[i];
+		}
+
+		TeamColor side = mirrored ? toMove.next() : toMove;
+		return index * 2 + (side == TeamColor.WHITE ? 0 : 1);
+	}
+
+	/**
+	 * @return The side to move of a table index
+	 */
+	public TeamColor sideToMove(int index) {
+		return (index & 1) == 0 ? TeamColor.WHITE : TeamColor.BLACK;
+	}
+
+	/**
+	 * Builds the board described by a table index.
+	 *
+	 * @param index The table index
+	 *
+	 * @return The board, or null if two pieces share a square
+	 */
+	public ChessBoard decode(int index) {
+		ChessBoard board = new ChessBoard();
+		int squares = index >>> 1;
+
+		for (int i = this.types.length - 1; i >= 0; i--) {
+			ChessPosition pos = toPosition(squares % SQUARE_NUM);
+			squares /= SQUARE_NUM;
+
+			if (board.getPiece(pos) != null) {
+				return null;
+			}
+			board.addPiece(pos, ChessPiece.makeNewPiece(this.colors[i], this.types[i]));
+		}
+
+		return board;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (obj == null || obj.getClass() != MaterialSignature.class) {
+			return false;
+		}
+		return this.name.equals(((MaterialSignature)obj).getName());
+	}
+
+	@Override
+	public int hashCode() {
+		return this.name.hashCode();
+	}
+
+	@Override
+	public String toString() {
+		return this.name;
+	}
+}
@@ -0,0 +1,136 @@
+package chess.tablebase;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import chess.ChessBoard;
+import chess.ChessGame.TeamColor;
+
+/**
+ * A single generated endgame table, probed through a read-only memory map.
+ *
+ * The file is never copied onto the heap; a probe is one index calculation and one
+ * absolute byte read from the mapped buffer.
+ *
+ * File layout (big-endian):
+ *   int     MAGIC
+ *   short   VERSION
+ *   short   signature name length, followed by the ASCII name
+ *   int     entry count
+ *   byte[]  entries, see TablebaseResult
+ */
+public class Tablebase {
+	//
+	// ============================ STATIC ATTRIBUTES =======================
+	//
+
+	public static final int MAGIC = 0x43544231;  // "CTB1"
+	public static final short VERSION = 1;
+	public static final String FILE_EXTENSION = ".ctb";
+
+	//
+	// ============================ STATIC METHODS =======================
+	//
+
+	/**
+	 * Memory-maps a tablebase file.
+	 *
+	 * @param file The path to the .ctb file
+	 *
+	 * @return The opened tablebase
+	 */
+	public static Tablebase open(Path file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			// The mapping stays valid after the channel is closed
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			buffer.order(ByteOrder.BIG_ENDIAN);
+
+			if (buffer.getInt(0) != MAGIC) {
+				throw new IOException("Not a tablebase file: " + file);
+			}
+			if (buffer.getShort(4) != VERSION) {
+				throw new IOException("Unsupported tablebase version in " + file);
+			}
+
+			int nameLength = buffer.getShort(6);
+			byte[] nameBytes = new byte[nameLength];
+			buffer.get(8, nameBytes);
+			MaterialSignature signature = MaterialSignature.parse(new String(nameBytes, StandardCharsets.US_ASCII));
+
+			int entryCount = buffer.getInt(8 + nameLength);
+			int dataOffset = 12 + nameLength;
+			if (entryCount != signature.getEntryCount() || (long)dataOffset + entryCount > buffer.capacity()) {
+				throw new IOException("Truncated tablebase file: " + file);
+			}
+
+			return new Tablebase(signature, buffer, dataOffset);
+		}
+	}
+
+	/**
+	 * @return The header length of a file holding the given signature
+	 */
+	public static int headerLength(MaterialSignature signature) {
+		return 12 + signature.getName().length();
+	}
+
+	//
+	// ============================ MEMBER ATTRIBUTES =======================
+	//
+
+	private final MaterialSignature signature;
+	private final MappedByteBuffer entries;
+	private final int dataOffset;
+
+	//
+	// ============================ CONSTRUCTORS =======================
+	//
+
+	private Tablebase(MaterialSignature signature, MappedByteBuffer entries, int dataOffset) {
+		this.signature = signature;
+		this.entries = entries;
+		this.dataOffset = dataOffset;
+	}
+
+	//
+	// ============================ MEMBER METHODS =======================
+	//
+
+	public MaterialSignature getSignature() {
+		return this.signature;
+	}
+
+	/**
+	 * Reads a packed entry directly.
+	 *
+	 * @param index The table index, see MaterialSignature.indexOf
+	 *
+	 * @return The packed entry
+	 */
+	public byte probe(int index) {
+		return this.entries.get(this.dataOffset + index);
+	}
+
+	/**
+	 * Probes a position.
+	 *
+	 * @param board The position
+	 * @param toMove The side to move
+	 * @param mirrored Whether the board must be read with colors swapped to fit this table
+	 *
+	 * @return The result for the side to move, or null if the board doesn't fit the table
+	 */
+	public TablebaseResult probe(ChessBoard board, TeamColor toMove, boolean mirrored) {
+		int index = this.signature.indexOf(board, toMove, mirrored);
+		if (index < 0) {
+			return null;
+		}
+
+		return TablebaseResult.decode(this.probe(index));
+	}
+}
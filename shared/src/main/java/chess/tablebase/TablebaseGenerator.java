@@ -0,0 +1,705 @@
+package chess.tablebase;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+import chess.ChessBoard;
+import chess.ChessMove;
+import chess.ChessPiece;
+import chess.ChessPosition;
+import chess.ChessGame.TeamColor;
+import chess.ChessPiece.PieceType;
+import chess.moveengine.StandardChessMoveEngine;
+
+/**
+ * Generates win/draw/loss and distance-to-mate tables by retrograde analysis.
+ *
+ * Generation runs in two phases. First, every position of a material signature is
+ * examined once with StandardChessMoveEngine: illegal positions, mates and stalemates are
+ * marked, moves that stay inside the table are counted, and moves that capture or promote
+ * are resolved through the tables they lead to. Then results are pushed backwards one ply
+ * at a time by un-moving pieces: the predecessor of a loss is a win, and a position whose
+ * moves have all been shown to reach wins is a loss. Whatever is left is a draw.
+ *
+ * A table entry can't record whether an en passant capture is available, so entries are
+ * the values of positions without one. A double pawn push that lets the opponent capture
+ * en passant therefore reaches a position the table doesn't hold, and is settled from both
+ * the entry it lands on and the best en passant capture.
+ *
+ * Both phases are split across the worker pool.
+ *
+ * Usage: TablebaseGenerator outputDirectory [signature...]
+ */
+public class TablebaseGenerator {
+	//
+	// ============================ STATIC ATTRIBUTES =======================
+	//
+
+	private static final String[] DEFAULT_SIGNATURES = { "KQK", "KRK", "KPK", "KBNK" };
+
+	/**
+	 * How many frontier positions are un-moved at a time, to bound memory on large tables
+	 */
+	private static final int CHUNK_SIZE = 1 << 16;
+
+	/**
+	 * Set in a position's move count when it has a capture or promotion that doesn't win
+	 * for the opponent, so it can never be lost
+	 */
+	private static final int ESCAPE_FLAG = 0x80;
+	private static final int COUNT_MASK = 0x7F;
+
+	/**
+	 * A double pawn push after which the opponent can capture en passant
+	 *
+	 * @param pred The position the push is made from
+	 * @param child The entry of the position it reaches, as if no capture were available
+	 * @param capture The result of the best en passant capture for the capturing side
+	 * @param forced True if en passant is the capturing side's only legal move
+	 */
+	private static record EnPassantEdge(int pred, int child, byte capture, boolean forced) {}
+
+	//
+	// ============================ STATIC METHODS =======================
+	//
+
+	public static void main(String[] args) throws IOException {
+		if (args.length < 1) {
+			System.out.println("Usage: TablebaseGenerator <output directory> [signature...]");
+			return;
+		}
+
+		Path outDir = Path.of(args[0]);
+		Files.createDirectories(outDir);
+
+		String[] names = args.length > 1 ? Arrays.copyOfRange(args, 1, args.length) : DEFAULT_SIGNATURES;
+
+		TablebaseGenerator generator = new TablebaseGenerator();
+		for (String name : names) {
+			MaterialSignature signature = MaterialSignature.parse(name);
+
+			long start = System.currentTimeMillis();
+			byte[] table = generator.generate(signature);
+			generator.write(signature, table, outDir.resolve(signature.getName() + Tablebase.FILE_EXTENSION));
+
+			System.out.println(String.format("%s: %d entries in %d ms",
+						signature.getName(), table.length, System.currentTimeMillis() - start));
+		}
+	}
+
+	/**
+	 * Castling is never legal in a tablebase position, but the engine offers it whenever a
+	 * king and rook share a rank, since neither has a recorded move.
+	 */
+	private static boolean isCastle(ChessPiece piece, ChessMove move) {
+		return piece.getPieceType() == PieceType.KING &&
+			Math.abs(move.getStartPosition().getColumn() - move.getEndPosition().getColumn()) == 2;
+	}
+
+	private static List<ChessMove> legalMoves(ChessBoard board, TeamColor toMove, StandardChessMoveEngine engine) {
+		ArrayList<ChessMove> moves = new ArrayList<>();
+		for (ChessPosition pos : piecePositions(board, toMove)) {
+			ChessPiece piece = board.getPiece(pos);
+			for (ChessMove move : engine.validMoves(board, pos)) {
+				if (!isCastle(piece, move)) {
+					moves.add(move);
+				}
+			}
+		}
+
+		return moves;
+	}
+
+	private static boolean isDoublePush(ChessPiece piece, ChessMove move) {
+		return piece.getPieceType() == PieceType.PAWN &&
+			Math.abs(move.getStartPosition().getRow() - move.getEndPosition().getRow()) == 2;
+	}
+
+	/**
+	 * Turns the value of a position into the value for the side that moved into it.
+	 */
+	private static byte fromMover(byte value) {
+		if (TablebaseResult.isLoss(value)) {
+			return TablebaseResult.encodeWin(TablebaseResult.distance(value) + 1);
+		}
+		if (TablebaseResult.isWin(value)) {
+			return TablebaseResult.encodeLoss(TablebaseResult.distance(value) + 1);
+		}
+		return value;
+	}
+
+	/**
+	 * @return True if the first value is better than the second for their side: the
+	 * quickest win, then a draw, then the slowest loss
+	 */
+	private static boolean isBetter(byte value, byte other) {
+		if (TablebaseResult.isWin(value) || TablebaseResult.isWin(other)) {
+			return TablebaseResult.isWin(value) &&
+				(!TablebaseResult.isWin(other) || TablebaseResult.distance(value) < TablebaseResult.distance(other));
+		}
+		if (TablebaseResult.isLoss(value) && TablebaseResult.isLoss(other)) {
+			return TablebaseResult.distance(value) > TablebaseResult.distance(other);
+		}
+		return TablebaseResult.isLoss(other) && !TablebaseResult.isLoss(value);
+	}
+
+	private static List<ChessPosition> piecePositions(ChessBoard board, TeamColor color) {
+		ArrayList<ChessPosition> positions = new ArrayList<>();
+		for (ChessBoard.IndexedPiece pieceInx : board) {
+			if (pieceInx.piece() != null && pieceInx.piece().getTeamColor() == color) {
+				positions.add(pieceInx.position());
+			}
+		}
+		return positions;
+	}
+
+	//
+	// ============================ MEMBER ATTRIBUTES =======================
+	//
+
+	private final ForkJoinPool pool;
+	private final Map<String, byte[]> solved = new ConcurrentHashMap<>();
+
+	//
+	// ============================ CONSTRUCTORS =======================
+	//
+
+	/**
+	 * Default constructor. Generates on every available core.
+	 */
+	public TablebaseGenerator() {
+		this(Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * @param parallelism The number of worker threads to generate with
+	 */
+	public TablebaseGenerator(int parallelism) {
+		this.pool = new ForkJoinPool(parallelism);
+	}
+
+	//
+	// ============================ MEMBER METHODS =======================
+	//
+
+	/**
+	 * Generates the table of a signature, and first every table it can convert into.
+	 *
+	 * @param signature The material to generate
+	 *
+	 * @return The packed entries, see TablebaseResult
+	 */
+	public byte[] generate(MaterialSignature signature) {
+		byte[] table = this.solved.get(signature.getName());
+		if (table != null) {
+			return table;
+		}
+
+		for (MaterialSignature sub : signature.getSubSignatures()) {
+			if (!sub.isInsufficientMaterial() && !this.solved.containsKey(sub.flip().getName())) {
+				this.generate(sub);
+			}
+		}
+
+		table = new Solver(signature).solve();
+		this.solved.put(signature.getName(), table);
+		return table;
+	}
+
+	/**
+	 * Writes a generated table in the format read by Tablebase.open.
+	 *
+	 * @param signature The material of the table
+	 * @param table The packed entries
+	 * @param file The file to write
+	 */
+	public void write(MaterialSignature signature, byte[] table, Path file) throws IOException {
+		byte[] name = signature.getName().getBytes(StandardCharsets.US_ASCII);
+
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+			out.writeInt(Tablebase.MAGIC);
+			out.writeShort(Tablebase.VERSION);
+			out.writeShort(name.length);
+			out.write(name);
+			out.writeInt(table.length);
+			out.write(table);
+		}
+	}
+
+	private void parallelFor(int size, IntConsumer body) {
+		this.pool.submit(() -> IntStream.range(0, size).parallel().forEach(body)).join();
+	}
+
+	/**
+	 * Finds the final value of a position reached by a capture or promotion.
+	 */
+	private byte lookupSolved(ChessBoard board, TeamColor toMove) {
+		MaterialSignature signature = MaterialSignature.of(board);
+		if (signature.isInsufficientMaterial()) {
+			return TablebaseResult.DRAW;
+		}
+
+		byte[] table = this.solved.get(signature.getName());
+		if (table != null) {
+			return table[signature.indexOf(board, toMove, false)];
+		}
+
+		MaterialSignature flipped = signature.flip();
+		table = this.solved.get(flipped.getName());
+		if (table != null) {
+			return table[flipped.indexOf(board, toMove, true)];
+		}
+
+		throw new IllegalStateException("No table generated for " + signature);
+	}
+
+	/**
+	 * Finds the best en passant capture of a pawn that has just pushed two squares.
+	 *
+	 * @param board The position right after the push
+	 * @param pushed Where the pushed pawn stands
+	 * @param capturer The side that may capture it, which is the side to move
+	 *
+	 * @return The result of the best legal capture for the capturer, or UNRESOLVED if it
+	 * has none
+	 */
+	private byte enPassantValue(ChessBoard board, ChessPosition pushed, TeamColor capturer) {
+		ChessPosition passed = new ChessPosition(pushed.getRow() + (capturer == TeamColor.WHITE ? 1 : -1),
+				pushed.getColumn());
+		byte best = TablebaseResult.UNRESOLVED;
+
+		for (int col = pushed.getColumn() - 1; col <= pushed.getColumn() + 1; col += 2) {
+			if (col < 1 || col > 8) {
+				continue;
+			}
+
+			ChessPosition from = new ChessPosition(pushed.getRow(), col);
+			ChessPiece pawn = board.getPiece(from);
+			if (pawn == null || pawn.getPieceType() != PieceType.PAWN || pawn.getTeamColor() != capturer) {
+				continue;
+			}
+
+			ChessBoard after = new ChessBoard(board);
+			after.removePiece(from);
+			after.removePiece(pushed);
+			after.addPiece(passed, pawn);
+			if (new StandardChessMoveEngine(after).isInCheck(capturer)) {
+				continue;
+			}
+
+			byte value = fromMover(lookupSolved(after, capturer.next()));
+			if (best == TablebaseResult.UNRESOLVED || isBetter(value, best)) {
+				best = value;
+			}
+		}
+
+		return best;
+	}
+
+	//
+	// ============================ SOLVER =======================
+	//
+
+	/**
+	 * The working state of a single table while it is generated.
+	 */
+	private class Solver {
+		private final MaterialSignature signature;
+		private final byte[] table;
+
+		/**
+		 * Number of moves that stay in this table and aren't yet known to reach a win,
+		 * plus ESCAPE_FLAG
+		 */
+		private final byte[] moveCounts;
+
+		/**
+		 * 1 + the shortest loss reachable by a capture or promotion, 0 if none
+		 */
+		private final byte[] exitLoss;
+
+		/**
+		 * 1 + the longest win reachable by a capture or promotion, 0 if none
+		 */
+		private final byte[] exitWin;
+
+		/**
+		 * frontier.get(n) holds the positions resolved with distance n
+		 */
+		private final ArrayList<IntList> frontier = new ArrayList<>();
+
+		/**
+		 * pendingWins.get(n) holds the positions that win in n through a capture or promotion
+		 */
+		private final ArrayList<IntList> pendingWins = new ArrayList<>();
+
+		/**
+		 * Double pushes that allow an en passant capture. They are counted as moves that
+		 * stay in the table, but settled by settleEnPassant rather than by un-moving.
+		 */
+		private final Queue<EnPassantEdge> enPassantEdges = new ConcurrentLinkedQueue<>();
+
+		Solver(MaterialSignature signature) {
+			int size = signature.getEntryCount();
+
+			this.signature = signature;
+			this.table = new byte[size];
+			this.moveCounts = new byte[size];
+			this.exitLoss = new byte[size];
+			this.exitWin = new byte[size];
+
+			for (int i = 0; i <= TablebaseResult.MAX_DISTANCE + 1; i++) {
+				this.frontier.add(new IntList());
+				this.pendingWins.add(new IntList());
+			}
+		}
+
+		byte[] solve() {
+			parallelFor(this.table.length, this::classify);
+			this.seedFrontier();
+
+			for (int ply = 1; ply <= TablebaseResult.MAX_DISTANCE; ply++) {
+				IntList pending = this.pendingWins.get(ply);
+				for (int i = 0; i < pending.size(); i++) {
+					this.resolve(pending.get(i), TablebaseResult.encodeWin(ply), ply);
+				}
+
+				this.settleEnPassant(ply);
+				this.retreat(this.frontier.get(ply - 1), ply);
+			}
+
+			for (int i = 0; i < this.table.length; i++) {
+				if (this.table[i] == TablebaseResult.UNRESOLVED) {
+					this.table[i] = TablebaseResult.DRAW;
+				}
+			}
+
+			return this.table;
+		}
+
+		/**
+		 * First pass: runs the move engine on a single position.
+		 */
+		private void classify(int index) {
+			ChessBoard board = this.signature.decode(index);
+			TeamColor toMove = this.signature.sideToMove(index);
+
+			// Overlapping pieces, or a second index for a position with identical pieces
+			if (board == null || this.signature.indexOf(board, toMove, false) != index) {
+				this.table[index] = TablebaseResult.ILLEGAL;
+				return;
+			}
+
+			// Pawns can never stand on the first or last rank
+			for (ChessBoard.IndexedPiece pieceInx : board) {
+				ChessPiece piece = pieceInx.piece();
+				int row = pieceInx.position().getRow();
+				if (piece != null && piece.getPieceType() == PieceType.PAWN && (row == 1 || row == 8)) {
+					this.table[index] = TablebaseResult.ILLEGAL;
+					return;
+				}
+			}
+
+			StandardChessMoveEngine engine = new StandardChessMoveEngine(board);
+
+			// The side that just moved can't have left its king in check
+			if (engine.isInCheck(toMove.next())) {
+				this.table[index] = TablebaseResult.ILLEGAL;
+				return;
+			}
+
+			List<ChessMove> moves = legalMoves(board, toMove, engine);
+			if (moves.isEmpty()) {
+				this.table[index] = engine.isInCheck(toMove) ? TablebaseResult.encodeLoss(0) : TablebaseResult.DRAW;
+				return;
+			}
+
+			int count = 0;
+			int minLoss = 0;
+			int maxWin = 0;
+			boolean escape = false;
+
+			for (ChessMove move : moves) {
+				ChessPosition start = move.getStartPosition();
+				ChessPosition end = move.getEndPosition();
+				ChessPiece moved = board.getPiece(start);
+
+				// A pawn moving diagonally onto an empty square takes the pawn beside it en passant
+				ChessPosition takenPos = end;
+				if (moved.getPieceType() == PieceType.PAWN && start.getColumn() != end.getColumn() &&
+					board.getPiece(end) == null) {
+					takenPos = new ChessPosition(start.getRow(), end.getColumn());
+				}
+				ChessPiece captured = board.getPiece(takenPos);
+
+				if (captured == null && move.getPromotionPiece() == null) {
+					if (isDoublePush(moved, move)) {
+						this.recordEnPassant(index, board, move, moved, toMove);
+					}
+					count++;
+					continue;
+				}
+
+				engine.utilMakeMove(board, move, moved, false);
+				if (takenPos != end) {
+					board.addPiece(takenPos, null);
+				}
+				byte value = lookupSolved(board, toMove.next());
+				board.addPiece(end, null);
+				board.addPiece(start, moved);
+				board.addPiece(takenPos, captured);
+
+				if (TablebaseResult.isLoss(value)) {
+					int ply = TablebaseResult.distance(value) + 1;
+					minLoss = minLoss == 0 ? ply : Math.min(minLoss, ply);
+				} else if (TablebaseResult.isWin(value)) {
+					maxWin = Math.max(maxWin, TablebaseResult.distance(value) + 1);
+				} else {
+					escape = true;
+				}
+			}
+
+			this.table[index] = TablebaseResult.UNRESOLVED;
+			this.moveCounts[index] = (byte)(count | (escape ? ESCAPE_FLAG : 0));
+			this.exitLoss[index] = (byte)minLoss;
+			this.exitWin[index] = (byte)maxWin;
+		}
+
+		/**
+		 * Records a double push from a position if the opponent can answer it en passant.
+		 */
+		private void recordEnPassant(int index, ChessBoard board, ChessMove move, ChessPiece pawn, TeamColor toMove) {
+			ChessPosition start = move.getStartPosition();
+			ChessPosition end = move.getEndPosition();
+			board.addPiece(start, null);
+			board.addPiece(end, pawn);
+
+			byte capture = enPassantValue(board, end, toMove.next());
+			if (capture != TablebaseResult.UNRESOLVED) {
+				boolean forced = legalMoves(board, toMove.next(), new StandardChessMoveEngine(board)).isEmpty();
+				int child = this.signature.indexOf(board, toMove.next(), false);
+				this.enPassantEdges.add(new EnPassantEdge(index, child, capture, forced));
+			}
+
+			board.addPiece(end, null);
+			board.addPiece(start, pawn);
+		}
+
+		/**
+		 * Queues mates, conversions that win, and positions whose every move converts into
+		 * a lost position for the side to move.
+		 */
+		private void seedFrontier() {
+			for (int index = 0; index < this.table.length; index++) {
+				byte value = this.table[index];
+
+				if (TablebaseResult.isLoss(value)) {
+					this.frontier.get(0).add(index);
+					continue;
+				}
+				if (value != TablebaseResult.UNRESOLVED) {
+					continue;
+				}
+
+				if (this.exitLoss[index] != 0) {
+					this.pendingWins.get(this.exitLoss[index]).add(index);
+				} else if (this.moveCounts[index] == 0) {
+					this.resolve(index, TablebaseResult.encodeLoss(this.exitWin[index]), this.exitWin[index]);
+				}
+			}
+		}
+
+		/**
+		 * Pushes every position resolved at ply - 1 back to its predecessors.
+		 */
+		private void retreat(IntList resolved, int ply) {
+			for (int from = 0; from < resolved.size(); from += CHUNK_SIZE) {
+				int to = Math.min(resolved.size(), from + CHUNK_SIZE);
+				int[][] predecessors = new int[to - from][];
+
+				final int offset = from;
+				parallelFor(to - from, i -> predecessors[i] = this.unmove(resolved.get(offset + i)));
+
+				for (int i = 0; i < predecessors.length; i++) {
+					boolean childLost = TablebaseResult.isLoss(this.table[resolved.get(from + i)]);
+
+					for (int pred : predecessors[i]) {
+						if (this.table[pred] != TablebaseResult.UNRESOLVED) {
+							continue;
+						}
+
+						if (childLost) {
+							this.resolve(pred, TablebaseResult.encodeWin(ply), ply);
+							continue;
+						}
+
+						this.countWin(pred, ply);
+					}
+				}
+			}
+		}
+
+		/**
+		 * Settles the double pushes that allow en passant once their value is known. The
+		 * capturing side takes whichever is better of the capture and its other moves, so
+		 * the push reaches a win for it at the quicker of the two, and a loss for it only
+		 * once both are known to lose.
+		 */
+		private void settleEnPassant(int ply) {
+			for (EnPassantEdge edge : this.enPassantEdges) {
+				if (this.table[edge.pred()] != TablebaseResult.UNRESOLVED) {
+					continue;
+				}
+
+				// Only an entry resolved before this ply is final, and a position whose only
+				// move is the capture has no other moves to fall back on
+				byte child = this.table[edge.child()];
+				boolean childKnown = !edge.forced() && child != TablebaseResult.UNRESOLVED &&
+					TablebaseResult.distance(child) < ply;
+				int childDistance = TablebaseResult.distance(child);
+				int captureDistance = TablebaseResult.distance(edge.capture());
+
+				if (TablebaseResult.isWin(edge.capture())) {
+					boolean childFaster = childKnown && TablebaseResult.isWin(child) && childDistance < captureDistance;
+					if ((childFaster ? childDistance : captureDistance) + 1 == ply) {
+						this.countWin(edge.pred(), ply);
+					}
+				} else if (childKnown && TablebaseResult.isWin(child)) {
+					if (childDistance + 1 == ply) {
+						this.countWin(edge.pred(), ply);
+					}
+				} else if (TablebaseResult.isLoss(edge.capture()) &&
+						(edge.forced() || (childKnown && TablebaseResult.isLoss(child)))) {
+					if (Math.max(edge.forced() ? 0 : childDistance, captureDistance) + 1 == ply) {
+						this.resolve(edge.pred(), TablebaseResult.encodeWin(ply), ply);
+					}
+				}
+			}
+		}
+
+		/**
+		 * Marks one more move of a position as reaching a win for the opponent at ply - 1,
+		 * which loses the position once no move is left.
+		 */
+		private void countWin(int pred, int ply) {
+			int flags = this.moveCounts[pred] & 0xFF;
+			int count = (flags & COUNT_MASK) - 1;
+			this.moveCounts[pred] = (byte)(count | (flags & ESCAPE_FLAG));
+
+			if (count == 0 && (flags & ESCAPE_FLAG) == 0 && this.exitLoss[pred] == 0) {
+				int distance = Math.max(ply, this.exitWin[pred]);
+				this.resolve(pred, TablebaseResult.encodeLoss(distance), distance);
+			}
+		}
+
+		private void resolve(int index, byte value, int distance) {
+			if (this.table[index] != TablebaseResult.UNRESOLVED) {
+				return;
+			}
+			if (distance > TablebaseResult.MAX_DISTANCE) {
+				throw new IllegalStateException(this.signature + " exceeds the maximum distance to mate");
+			}
+
+			this.table[index] = value;
+			this.frontier.get(distance).add(index);
+		}
+
+		/**
+		 * Lists the positions of this table that reach a position with one quiet move.
+		 * Captures, en passant included, and promotions never lead back into the same
+		 * table, so only non-capturing moves are taken back. A double push that allows
+		 * en passant is left to settleEnPassant.
+		 */
+		private int[] unmove(int index) {
+			ChessBoard board = this.signature.decode(index);
+			TeamColor mover = this.signature.sideToMove(index).next();
+			IntList predecessors = new IntList();
+
+			for (ChessPosition pos : piecePositions(board, mover)) {
+				ChessPiece piece = board.getPiece(pos);
+
+				if (piece.getPieceType() == PieceType.PAWN) {
+					int dir = mover == TeamColor.WHITE ? -1 : 1;
+					int startRow = mover == TeamColor.WHITE ? 2 : 7;
+
+					ChessPosition single = new ChessPosition(pos.getRow() + dir, pos.getColumn());
+					if ((dir < 0 ? single.getRow() >= startRow : single.getRow() <= startRow) &&
+						board.getPiece(single) == null) {
+						this.addPredecessor(predecessors, board, piece, pos, single, mover);
+
+						ChessPosition twice = new ChessPosition(pos.getRow() + 2 * dir, pos.getColumn());
+						if (twice.getRow() == startRow && board.getPiece(twice) == null &&
+							enPassantValue(board, pos, mover.next()) == TablebaseResult.UNRESOLVED) {
+							this.addPredecessor(predecessors, board, piece, pos, twice, mover);
+						}
+					}
+					continue;
+				}
+
+				// Piece movement is symmetric, so its quiet moves are also where it came from
+				for (ChessMove move : piece.pieceMoves(board, pos)) {
+					if (board.getPiece(move.getEndPosition()) == null) {
+						this.addPredecessor(predecessors, board, piece, pos, move.getEndPosition(), mover);
+					}
+				}
+			}
+
+			return predecessors.toArray();
+		}
+
+		private void addPredecessor(IntList predecessors, ChessBoard board, ChessPiece piece,
+				ChessPosition current, ChessPosition previous, TeamColor mover) {
+			board.addPiece(current, null);
+			board.addPiece(previous, piece);
+
+			int pred = this.signature.indexOf(board, mover, false);
+			if (this.table[pred] != TablebaseResult.ILLEGAL) {
+				predecessors.add(pred);
+			}
+
+			board.addPiece(previous, null);
+			board.addPiece(current, piece);
+		}
+	}
+
+	/**
+	 * A growable list of primitive ints
+	 */
+	private static class IntList {
+		private int[] values = new int[16];
+		private int size = 0;
+
+		void add(int value) {
+			if (this.size == this.values.length) {
+				this.values = Arrays.copyOf(this.values, this.size * 2);
+			}
+			this.values[this.size++] = value;
+		}
+
+		int get(int i) {
+			return this.values[i];
+		}
+
+		int size() {
+			return this.size;
+		}
+
+		int[] toArray() {
+			return Arrays.copyOf(this.values, this.size);
+		}
+	}
+}
@@ -0,0 +1,85 @@
+package chess.tablebase;
+
+/**
+ * The value of a tablebase position, seen from the side to move.
+ *
+ * Entries are packed into a single byte:
+ *   0          draw
+ *   1..125     win, mate in that many plies
+ *   -1..-126   loss, mated in (-value - 1) plies
+ *   127        illegal position
+ */
+public record TablebaseResult(Outcome outcome, int distanceToMate) {
+	//
+	// ============================ STATIC ATTRIBUTES =======================
+	//
+
+	public static enum Outcome {
+		WIN,
+		DRAW,
+		LOSS
+	}
+
+	public static final byte DRAW = 0;
+	public static final byte ILLEGAL = Byte.MAX_VALUE;
+
+	/**
+	 * Only used while a table is being generated
+	 */
+	public static final byte UNRESOLVED = Byte.MIN_VALUE;
+
+	public static final int MAX_DISTANCE = 125;
+
+	//
+	// ============================ STATIC METHODS =======================
+	//
+
+	public static byte encodeWin(int plies) {
+		return (byte)plies;
+	}
+
+	public static byte encodeLoss(int plies) {
+		return (byte)(-plies - 1);
+	}
+
+	public static boolean isWin(byte value) {
+		return value > 0 && value != ILLEGAL;
+	}
+
+	public static boolean isLoss(byte value) {
+		return value < 0 && value != UNRESOLVED;
+	}
+
+	/**
+	 * @return The distance to mate in plies of a win or loss entry, 0 otherwise
+	 */
+	public static int distance(byte value) {
+		if (isWin(value)) {
+			return value;
+		}
+		if (isLoss(value)) {
+			return -value - 1;
+		}
+		return 0;
+	}
+
+	/**
+	 * Unpacks a table entry.
+	 *
+	 * @param value The packed entry
+	 *
+	 * @return The result, or null if the entry is illegal or unresolved
+	 */
+	public static TablebaseResult decode(byte value) {
+		if (value == ILLEGAL || value == UNRESOLVED) {
+			return null;
+		}
+		if (isWin(value)) {
+			return new TablebaseResult(Outcome.WIN, distance(value));
+		}
+		if (isLoss(value)) {
+			return new TablebaseResult(Outcome.LOSS, distance(value));
+		}
+		return new TablebaseResult(Outcome.DRAW, 0);
+	}
+}
@@ -0,0 +1,92 @@
+package chess.tablebase;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import chess.ChessBoard;
+import chess.ChessGame.TeamColor;
+
+/**
+ * A collection of tablebases, usually every .ctb file in one directory.
+ *
+ * Positions are matched to a table by their material. A position where black holds the
+ * stronger material is probed in the white table with the board mirrored.
+ */
+public class TablebaseSet {
+	//
+	// ============================ STATIC METHODS =======================
+	//
+
+	/**
+	 * Maps every tablebase file found in a directory.
+	 *
+	 * @param directory The directory to scan
+	 *
+	 * @return The loaded set
+	 */
+	public static TablebaseSet open(Path directory) throws IOException {
+		TablebaseSet set = new TablebaseSet();
+
+		try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + Tablebase.FILE_EXTENSION)) {
+			for (Path file : files) {
+				set.add(Tablebase.open(file));
+			}
+		}
+
+		return set;
+	}
+
+	//
+	// ============================ MEMBER ATTRIBUTES =======================
+	//
+
+	private final Map<String, Tablebase> tables = new ConcurrentHashMap<>();
+
+	//
+	// ============================ MEMBER METHODS =======================
+	//
+
+	public void add(Tablebase table) {
+		this.tables.put(table.getSignature().getName(), table);
+	}
+
+	public boolean isEmpty() {
+		return this.tables.isEmpty();
+	}
+
+	/**
+	 * Looks a position up in whichever table covers its material. The position is taken
+	 * to have no en passant capture available, as a board alone can't show one.
+	 *
+	 * @param board The position
+	 * @param toMove The side to move
+	 *
+	 * @return The result for the side to move, or null if no table covers the position
+	 */
+	public TablebaseResult probe(ChessBoard board, TeamColor toMove) {
+		MaterialSignature signature = MaterialSignature.of(board);
+		if (signature == null) {
+			return null;
+		}
+
+		if (signature.isInsufficientMaterial()) {
+			return new TablebaseResult(TablebaseResult.Outcome.DRAW, 0);
+		}
+
+		Tablebase table = this.tables.get(signature.getName());
+		if (table != null) {
+			return table.probe(board, toMove, false);
+		}
+
+		table = this.tables.get(signature.flip().getName());
+		if (table != null) {
+			return table.probe(board, toMove, true);
+		}
+
+		return null;
+	}
+}
@@ -1,11 +1,37 @@
 package model;
 
+import chess.ChessClock;
 import chess.ChessGame;
 
-public record GameData(String gameID, String whiteUsername, String blackUsername, String gameName, ChessGame game) {
+/**
+ * @param version Counts the updates made to the game, for detecting concurrent writers
+ */
+public record GameData(String gameID, String whiteUsername, String blackUsername, String gameName, ChessGame game,
+		long version) {
+
+	public GameData(String gameID, String whiteUsername, String blackUsername, String gameName, ChessGame game) {
+		this(gameID, whiteUsername, blackUsername, gameName, game, 0);
+	}
 
 	public int getGameID() {
 		return Integer.parseInt(gameID); 
 	}
 
+	/**
+	 * A live game's monitor must be held while this reads its clock.
+	 *
+	 * @return When the game's running clock runs out, in epoch milliseconds, or Long.MAX_VALUE
+	 * if it has no clock running
+	 */
+	public long getClockDeadline() {
+		ChessClock clock = this.game == null ? null : this.game.getClock();
+		if (clock == null || clock.getFlagged() != null) {
+			return Long.MAX_VALUE;
+		}
+		return clock.getDeadlineMillis();
+	}
+
+	public GameData withVersion(long version) {
+		return new GameData(this.gameID, this.whiteUsername, this.blackUsername, this.gameName, this.game, version);
+	}
 }
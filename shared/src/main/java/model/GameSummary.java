@@ -0,0 +1,74 @@
+package model;
+
+import chess.ChessGame;
+
+/**
+ * What the lobby shows of a game: its name, who holds each seat and how far along it is.
+ * Listing games only needs this, so the board is never loaded for it.
+ *
+ * Empty seats are null.
+ */
+public record GameSummary(String gameID, String whiteUsername, String blackUsername, String gameName,
+		Status status) {
+
+	public static enum Status {
+		/** At least one seat is free */
+		OPEN,
+		/** Both seats are taken */
+		PLAYING,
+		/** The player to move is checkmated or stalemated, or a player ran out of time */
+		FINISHED
+	}
+
+	/**
+	 * Summarizes a full game. Callers sharing a live ChessGame must hold its monitor.
+	 */
+	public static GameSummary of(GameData gameData) {
+		return new GameSummary(gameData.gameID(), seat(gameData.whiteUsername()), seat(gameData.blackUsername()),
+				gameData.gameName(), statusOf(gameData));
+	}
+
+	/**
+	 * Works out a game's status from its seats and board
+	 */
+	public static Status statusOf(GameData gameData) {
+		ChessGame game = gameData.game();
+		if (game != null) {
+			if (game.getResigned() != null) {
+				return Status.FINISHED;
+			}
+			// Only the side to move can be out of moves
+			ChessGame.TeamColor turn = game.getTeamTurn();
+			if (game.isInCheckmate(turn) || game.isInStalemate(turn)) {
+				return Status.FINISHED;
+			}
+			if (game.getClock() != null && game.getClock().getFlagged() != null) {
+				return Status.FINISHED;
+			}
+		}
+
+		if (seat(gameData.whiteUsername()) == null || seat(gameData.blackUsername()) == null) {
+			return Status.OPEN;
+		}
+		return Status.PLAYING;
+	}
+
+	/**
+	 * Games are stored with "" for a free seat
+	 */
+	public static String seat(String username) {
+		return username == null || username.isEmpty() ? null : username;
+	}
+
+	public int getGameID() {
+		return Integer.parseInt(gameID);
+	}
+
+	public boolean hasOpenSeat() {
+		return this.whiteUsername == null || this.blackUsername == null;
+	}
+
+	public boolean isPlayer(String username) {
+		return username.equals(this.whiteUsername) || username.equals(this.blackUsername);
+	}
+}
@@ -0,0 +1,134 @@
+package util;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToLongFunction;
+
+/**
+ * A least-recently-used cache bounded by an estimate of the memory its values take up.
+ *
+ * Every value is weighed once when it is put, and the least recently used entries are
+ * evicted until the total weight fits the budget again. Hits, misses and evictions are
+ * counted so the cache can be monitored. All methods are thread safe.
+ */
+public class LruCache<K, V> {
+	//
+	// ================= STATIC ATTRIBUTES ===============
+	//
+
+	/**
+	 * A rough per-entry cost of the map itself, added to each value's weight
+	 */
+	public static final long ENTRY_OVERHEAD_BYTES = 64;
+
+	//
+	// ================= MEMBER ATTRIBUTES ===============
+	//
+
+	private final long maxBytes;
+	private final ToLongFunction<V> weigher;
+
+	private final LinkedHashMap<K, V> entries = new LinkedHashMap<>(16, 0.75f, true);
+	private final Map<K, Long> weights = new HashMap<>();
+	private long totalBytes = 0;
+
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder evictions = new LongAdder();
+
+	//
+	// ================= CONSTRUCTORS ===============
+	//
+
+	/**
+	 * @param maxBytes The memory budget
+	 * @param weigher Estimates the bytes a value takes up
+	 */
+	public LruCache(long maxBytes, ToLongFunction<V> weigher) {
+		this.maxBytes = maxBytes;
+		this.weigher = weigher;
+	}
+
+	//
+	// ================= MEMBER METHODS ===============
+	//
+
+	/**
+	 * @return The cached value, or null on a miss
+	 */
+	public synchronized V get(K key) {
+		V value = this.entries.get(key);
+		if (value == null) {
+			this.misses.increment();
+		} else {
+			this.hits.increment();
+		}
+		return value;
+	}
+
+	/**
+	 * Caches a value, evicting the least recently used entries if the budget is exceeded.
+	 * A value heavier than the whole budget isn't cached.
+	 */
+	public synchronized void put(K key, V value) {
+		long weight = this.weigher.applyAsLong(value) + ENTRY_OVERHEAD_BYTES;
+		if (weight > this.maxBytes) {
+			return;
+		}
+
+		this.remove(key);
+		this.entries.put(key, value);
+		this.weights.put(key, weight);
+		this.totalBytes += weight;
+
+		Iterator<Map.Entry<K, V>> eldest = this.entries.entrySet().iterator();
+		while (this.totalBytes > this.maxBytes && eldest.hasNext()) {
+			K eldestKey = eldest.next().getKey();
+			eldest.remove();
+			this.totalBytes -= this.weights.remove(eldestKey);
+			this.evictions.increment();
+		}
+	}
+
+	public synchronized void remove(K key) {
+		if (this.entries.remove(key) != null) {
+			this.totalBytes -= this.weights.remove(key);
+		}
+	}
+
+	public synchronized void clear() {
+		this.entries.clear();
+		this.weights.clear();
+		this.totalBytes = 0;
+	}
+
+	public synchronized int size() {
+		return this.entries.size();
+	}
+
+	/**
+	 * @return The estimated bytes used by the cached entries
+	 */
+	public synchronized long getBytes() {
+		return this.totalBytes;
+	}
+
+	public long getMaxBytes() {
+		return this.maxBytes;
+	}
+
+	public long getHitCount() {
+		return this.hits.sum();
+	}
+
+	public long getMissCount() {
+		return this.misses.sum();
+	}
+
+	public long getEvictionCount() {
+		return this.evictions.sum();
+	}
+}
@@ -0,0 +1,172 @@
+package websocket;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+import chess.ChessMove;
+import websocket.messages.MoveAppliedMessage;
+import websocket.messages.MoveAppliedMessage.Status;
+
+/**
+ * The compact binary form of the messages sent on every move, for clients that ask for it
+ * when they connect. Everything else is still sent as JSON.
+ *
+ * Every frame starts with a type byte and the gameID as a varint. A MAKE_MOVE follows it
+ * with the move, packed into two bytes by ChessMove.pack(). A MOVE_APPLIED follows it
+ * with the move number and sequence number as varints, the packed move, and a status
+ * byte. Varints hold seven bits a byte, low bits first, with the high bit set on every
+ * byte but the last.
+ *
+ * Reading and writing go straight to and from the buffer, without building anything
+ * but the message itself.
+ */
+public final class BinaryFrame {
+	//
+	// ================== STATIC ATTRIBUTES =====================
+	//
+
+	public static final byte MAKE_MOVE = 1;
+	public static final byte MOVE_APPLIED = 2;
+
+	/**
+	 * The most bytes a varint of a long takes
+	 */
+	private static final int MAX_VARINT_BYTES = 10;
+
+	private static final Status[] STATUSES = Status.values();
+
+	private BinaryFrame() {}
+
+	//
+	// ================== MAKE_MOVE =====================
+	//
+
+	/**
+	 * @return The frame moving a piece in a game
+	 */
+	public static ByteBuffer makeMove(int gameID, ChessMove move) {
+		ByteBuffer frame = ByteBuffer.allocate(1 + varintSize(gameID) + Short.BYTES);
+		frame.put(MAKE_MOVE);
+		writeVarint(frame, gameID);
+		frame.putShort(move.pack());
+		return frame.flip();
+	}
+
+	/**
+	 * Reads the move of a MAKE_MOVE whose type and gameID have been read
+	 *
+	 * @return The move, packed as by ChessMove.pack()
+	 */
+	public static int readMove(ByteBuffer frame) {
+		return frame.getShort() & 0xFFFF;
+	}
+
+	//
+	// ================== MOVE_APPLIED =====================
+	//
+
+	/**
+	 * @param msg A move update, already given its sequence number
+	 *
+	 * @return The frame, sized to fit
+	 */
+	public static byte[] moveApplied(MoveAppliedMessage msg) {
+		long sequence = msg.getSequence() == null ? 0 : msg.getSequence();
+
+		byte[] bytes = new byte[1 + varintSize(msg.getGameID()) + varintSize(msg.getMoveNumber()) +
+			varintSize(sequence) + Short.BYTES + 1];
+
+		ByteBuffer frame = ByteBuffer.wrap(bytes);
+		frame.put(MOVE_APPLIED);
+		writeVarint(frame, msg.getGameID());
+		writeVarint(frame, msg.getMoveNumber());
+		writeVarint(frame, sequence);
+		frame.putShort(msg.getMove().pack());
+		frame.put((byte) msg.getStatus().ordinal());
+		return bytes;
+	}
+
+	/**
+	 * Reads a MOVE_APPLIED whose type has been read
+	 *
+	 * @throws IllegalArgumentException If the frame is cut short or malformed
+	 */
+	public static MoveAppliedMessage readMoveApplied(ByteBuffer frame) {
+		try {
+			int gameID = readInt(frame);
+			int moveNumber = readInt(frame);
+			long sequence = readVarint(frame);
+			int move = readMove(frame);
+			int status = frame.get();
+			if (status < 0 || status >= STATUSES.length) {
+				throw new IllegalArgumentException("Unknown move status " + status);
+			}
+
+			MoveAppliedMessage msg = new MoveAppliedMessage(gameID, moveNumber, ChessMove.unpack(move), STATUSES[status]);
+			msg.setSequence(sequence);
+			return msg;
+		} catch (BufferUnderflowException ex) {
+			throw new IllegalArgumentException("Frame is too short", ex);
+		}
+	}
+
+	//
+	// ================== VARINTS =====================
+	//
+
+	/**
+	 * @return The frame's type byte
+	 */
+	public static byte readType(ByteBuffer frame) {
+		return frame.get();
+	}
+
+	/**
+	 * Reads a varint that must fit an int, like a gameID
+	 *
+	 * @throws IllegalArgumentException If it doesn't
+	 */
+	public static int readInt(ByteBuffer frame) {
+		long value = readVarint(frame);
+		if (value < 0 || value > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("Varint out of range");
+		}
+		return (int) value;
+	}
+
+	/**
+	 * @throws IllegalArgumentException If it runs longer than a long
+	 * @throws BufferUnderflowException If the frame ends first
+	 */
+	public static long readVarint(ByteBuffer frame) {
+		long value = 0;
+		for (int shift = 0; shift < MAX_VARINT_BYTES * 7; shift += 7) {
+			byte b = frame.get();
+			value |= (long) (b & 0x7F) << shift;
+			if (b >= 0) {
+				return value;
+			}
+		}
+		throw new IllegalArgumentException("Varint is too long");
+	}
+
+	public static void writeVarint(ByteBuffer frame, long value) {
+		while ((value & ~0x7FL) != 0) {
+			frame.put((byte) ((value & 0x7F) | 0x80));
+			value >>>= 7;
+		}
+		frame.put((byte) value);
+	}
+
+	/**
+	 * @return How many bytes writeVarint takes for a value
+	 */
+	public static int varintSize(long value) {
+		int size = 1;
+		while ((value & ~0x7FL) != 0) {
+			value >>>= 7;
+			size++;
+		}
+		return size;
+	}
+}
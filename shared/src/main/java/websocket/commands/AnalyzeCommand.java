@@ -0,0 +1,35 @@
+package websocket.commands;
+
+/**
+ * Asks the server to analyze the current position of a game.
+ *
+ * Any of the limits may be left null to use the server's default. The server streams an
+ * AnalysisMessage back after each finished search depth.
+ */
+public class AnalyzeCommand extends UserGameCommand {
+	private final static CommandType CMD_TYPE = CommandType.ANALYZE;
+
+	private Integer depth;
+	private Long timeMillis;
+	private Long nodes;
+
+	public AnalyzeCommand(String authToken, Integer gameID, Integer depth, Long timeMillis, Long nodes) {
+		super(CMD_TYPE, authToken, gameID);
+
+		this.depth = depth;
+		this.timeMillis = timeMillis;
+		this.nodes = nodes;
+	}
+
+	public Integer getDepth() {
+		return this.depth;
+	}
+
+	public Long getTimeMillis() {
+		return this.timeMillis;
+	}
+
+	public Long getNodes() {
+		return this.nodes;
+	}
+}
@@ -1,11 +1,62 @@
 package websocket.commands;
 
-import com.google.gson.Gson;
-
 public class ConnectCommand extends UserGameCommand {
 	private final static CommandType CMD_TYPE = CommandType.CONNECT;
 
+	/**
+	 * True to be sent a MOVE_APPLIED after each move instead of the whole board.
+	 * Null, as from clients that don't know about it, means false.
+	 */
+	private Boolean moveUpdates;
+
+	/**
+	 * The sequence number of the last game event a reconnecting client saw, or null
+	 */
+	private Long lastSeenSeq;
+
+	/**
+	 * True to be sent move updates as binary frames, see websocket.BinaryFrame. Only
+	 * move update clients can ask for them.
+	 */
+	private Boolean binaryFrames;
+
 	public ConnectCommand(String authToken, Integer gameID) {
+		this(authToken, gameID, false);
+	}
+
+	public ConnectCommand(String authToken, Integer gameID, boolean moveUpdates) {
+		this(authToken, gameID, moveUpdates, null);
+	}
+
+	/**
+	 * @param lastSeenSeq Where to resume a dropped connection from, or null to start
+	 * from the whole board. Only move update clients can resume.
+	 */
+	public ConnectCommand(String authToken, Integer gameID, boolean moveUpdates, Long lastSeenSeq) {
+		this(authToken, gameID, moveUpdates, lastSeenSeq, false);
+	}
+
+	/**
+	 * @param binaryFrames True to be sent move updates as binary frames
+	 */
+	public ConnectCommand(String authToken, Integer gameID, boolean moveUpdates, Long lastSeenSeq,
+			boolean binaryFrames) {
 		super(CMD_TYPE, authToken, gameID);
+
+		this.moveUpdates = moveUpdates;
+		this.lastSeenSeq = lastSeenSeq;
+		this.binaryFrames = binaryFrames;
+	}
+
+	public boolean wantsMoveUpdates() {
+		return Boolean.TRUE.equals(this.moveUpdates);
+	}
+
+	public boolean wantsBinaryFrames() {
+		return this.wantsMoveUpdates() && Boolean.TRUE.equals(this.binaryFrames);
+	}
+
+	public Long getLastSeenSeq() {
+		return this.lastSeenSeq;
 	}
 }
@@ -0,0 +1,24 @@
+package websocket.commands;
+
+/**
+ * Asks the server to pair the user with an opponent of similar rating.
+ *
+ * It isn't about a game yet, so it carries no gameID. The server sends a MatchFoundMessage
+ * once the user has been seated, and takes them out of the queue if the connection closes
+ * first. The rating may be left null to use the server's default.
+ */
+public class MatchCommand extends UserGameCommand {
+	private static final CommandType CMD_TYPE = CommandType.MATCH;
+
+	private Integer rating;
+
+	public MatchCommand(String authToken, Integer rating) {
+		super(CMD_TYPE, authToken, null);
+
+		this.rating = rating;
+	}
+
+	public Integer getRating() {
+		return this.rating;
+	}
+}
@@ -0,0 +1,12 @@
+package websocket.commands;
+
+/**
+ * Asks the server for the whole board again, after a client missed a MOVE_APPLIED
+ */
+public class SyncCommand extends UserGameCommand {
+	private static final CommandType CMD_TYPE = CommandType.SYNC;
+
+	public SyncCommand(String authToken, int gameID) {
+		super(CMD_TYPE, authToken, gameID);
+	}
+}
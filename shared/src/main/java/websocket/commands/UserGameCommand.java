@@ -11,6 +11,7 @@ import java.util.Objects;
  * methods.
  */
 public class UserGameCommand {
+    private static final Gson GSON = new Gson();
 
     private final CommandType commandType;
 
@@ -28,7 +29,10 @@ public class UserGameCommand {
         CONNECT,
         MAKE_MOVE,
         LEAVE,
-        RESIGN
+        RESIGN,
+		ANALYZE,
+		SYNC,
+		MATCH
     }
 
     public CommandType getCommandType() {
@@ -44,7 +48,7 @@ public class UserGameCommand {
     }
 
 	public String toJson() {
-		return new Gson().toJson(this);
+		return GSON.toJson(this);
 	}
 
     @Override
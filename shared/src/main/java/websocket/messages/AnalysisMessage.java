@@ -0,0 +1,90 @@
+package websocket.messages;
+
+import java.util.List;
+
+import chess.*;
+import chess.search.PrincipalVariation;
+
+/**
+ * One line of engine analysis for a game.
+ *
+ * The server sends one message per finished search depth, and marks the last one of an
+ * analysis as complete.
+ */
+public class AnalysisMessage extends ServerMessage {
+	private static final ServerMessageType MSG_TYPE = ServerMessageType.ANALYSIS;
+
+	private int gameID;
+	private int depth;
+	private int score;
+	private Integer mateIn;
+	private List<ChessMove> moves;
+	private long nodes;
+	private long elapsedMillis;
+	private String source;
+	private boolean complete;
+
+	public AnalysisMessage(int gameID, PrincipalVariation pv, boolean complete) {
+		super(MSG_TYPE);
+
+		this.gameID = gameID;
+		this.depth = pv.depth();
+		this.score = pv.score();
+		this.mateIn = pv.isMate() ? pv.mateDistance() : null;
+		this.moves = pv.moves();
+		this.nodes = pv.nodes();
+		this.elapsedMillis = pv.elapsedMillis();
+		this.source = pv.source().toString();
+		this.complete = complete;
+	}
+
+	public int getGameID() {
+		return this.gameID;
+	}
+
+	public int getDepth() {
+		return this.depth;
+	}
+
+	/**
+	 * @return The score in centipawns from the point of view of the side to move
+	 */
+	public int getScore() {
+		return this.score;
+	}
+
+	/**
+	 * @return Moves until mate, negative if the side to move is getting mated, or null
+	 */
+	public Integer getMateIn() {
+		return this.mateIn;
+	}
+
+	public List<ChessMove> getMoves() {
+		return this.moves;
+	}
+
+	public long getNodes() {
+		return this.nodes;
+	}
+
+	public long getElapsedMillis() {
+		return this.elapsedMillis;
+	}
+
+	public String getSource() {
+		return this.source;
+	}
+
+	/**
+	 * @return true if this is the last message of the analysis
+	 */
+	public boolean isComplete() {
+		return this.complete;
+	}
+
+	@Override
+	public String toJson() {
+		return GSON.toJson(this);
+	}
+}
@@ -0,0 +1,29 @@
+package websocket.messages;
+
+import chess.ChessGame.TeamColor;
+
+/**
+ * Tells a user who asked to be matched which game they were seated in, and as which
+ * color. They still CONNECT to the game to play it.
+ */
+public class MatchFoundMessage extends ServerMessage {
+	private static final ServerMessageType MSG_TYPE = ServerMessageType.MATCH_FOUND;
+
+	private final int gameID;
+	private final TeamColor playerColor;
+
+	public MatchFoundMessage(int gameID, TeamColor playerColor) {
+		super(MSG_TYPE);
+
+		this.gameID = gameID;
+		this.playerColor = playerColor;
+	}
+
+	public int getGameID() {
+		return this.gameID;
+	}
+
+	public TeamColor getPlayerColor() {
+		return this.playerColor;
+	}
+}
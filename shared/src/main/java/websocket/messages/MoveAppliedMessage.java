@@ -0,0 +1,82 @@
+package websocket.messages;
+
+import chess.*;
+import chess.ChessGame.TeamColor;
+
+/**
+ * A move made in a game, sent instead of the whole board to clients that asked for updates.
+ *
+ * A client applies the move to the board it already has when the move number follows
+ * the moves on that board, and asks for a fresh LOAD_GAME when it doesn't. Like every
+ * game event, it carries a sequence number, which a reconnecting client resumes from.
+ */
+public class MoveAppliedMessage extends ServerMessage {
+	private static final ServerMessageType MSG_TYPE = ServerMessageType.MOVE_APPLIED;
+
+	/**
+	 * How the game stands after the move, for the side that moves next
+	 */
+	public static enum Status {
+		IN_PROGRESS,
+		CHECK,
+		CHECKMATE,
+		STALEMATE
+	}
+
+	private int gameID;
+	private int moveNumber;
+	private ChessMove move;
+	private Status status;
+
+	/**
+	 * @param moveNumber How many moves the game's history holds with this one
+	 */
+	public MoveAppliedMessage(int gameID, int moveNumber, ChessMove move, Status status) {
+		super(MSG_TYPE);
+
+		this.gameID = gameID;
+		this.moveNumber = moveNumber;
+		this.move = move;
+		this.status = status;
+	}
+
+	public int getGameID() {
+		return this.gameID;
+	}
+
+	/**
+	 * @return How many moves the game's history holds with this one, one more than the
+	 * board it applies to
+	 */
+	public int getMoveNumber() {
+		return this.moveNumber;
+	}
+
+	public ChessMove getMove() {
+		return this.move;
+	}
+
+	public Status getStatus() {
+		return this.status;
+	}
+
+	/**
+	 * @return How a game stands for the side to move
+	 */
+	public static Status statusOf(ChessGame game) {
+		TeamColor toMove = game.getTeamTurn();
+		if (game.isInCheckmate(toMove)) {
+			return Status.CHECKMATE;
+		} else if (game.isInStalemate(toMove)) {
+			return Status.STALEMATE;
+		} else if (game.isInCheck(toMove)) {
+			return Status.CHECK;
+		}
+		return Status.IN_PROGRESS;
+	}
+
+	@Override
+	public String toJson() {
+		return GSON.toJson(this);
+	}
+}
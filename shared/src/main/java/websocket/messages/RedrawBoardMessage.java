@@ -2,8 +2,6 @@ package websocket.messages;
 
 import chess.*;
 
-import com.google.gson.Gson;
-
 public class RedrawBoardMessage extends ServerMessage {
 	private static final ServerMessageType MSG_TYPE = ServerMessageType.LOAD_GAME;
 
@@ -25,9 +23,21 @@ public class RedrawBoardMessage extends ServerMessage {
 		this.game = game;
 	}
 
+	/**
+	 * @param sequence The sequence number of the last game event the board includes
+	 */
+	public RedrawBoardMessage(ChessGame game, long sequence) {
+		this(game);
+		this.setSequence(sequence);
+	}
+
+	public ChessGame getGame() {
+		return this.game;
+	}
+
 	@Override 
 	public String toJson() {
-		return new Gson().toJson(this);
+		return GSON.toJson(this);
 	}
 }
 
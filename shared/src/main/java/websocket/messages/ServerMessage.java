@@ -11,13 +11,26 @@ import java.util.Objects;
  * methods.
  */
 public class ServerMessage {
+    /**
+     * Shared by every message, since building a Gson costs more than the serializing
+     */
+    protected static final Gson GSON = new Gson();
+
     ServerMessageType serverMessageType;
 
+    /**
+     * The message's place among the events of its game, or null if it isn't a game event
+     */
+    private Long sequence;
+
     public enum ServerMessageType {
         LOAD_GAME,
         ERROR,
         NOTIFICATION,
-		GAME_OVER
+		GAME_OVER,
+		ANALYSIS,
+		MOVE_APPLIED,
+		MATCH_FOUND
     }
 
     public ServerMessage(ServerMessageType type) {
@@ -28,8 +41,20 @@ public class ServerMessage {
         return this.serverMessageType;
     }
 
+    /**
+     * @return The sequence number of the game event this message reports, one more than
+     * the event before it, or null if it isn't a game event
+     */
+    public Long getSequence() {
+        return this.sequence;
+    }
+
+    public void setSequence(long sequence) {
+        this.sequence = sequence;
+    }
+
 	public String toJson() {
-		return new Gson().toJson(this);
+		return GSON.toJson(this);
 	}
 
     @Override
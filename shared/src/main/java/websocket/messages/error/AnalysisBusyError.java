@@ -0,0 +1,9 @@
+package websocket.messages.error;
+
+public class AnalysisBusyError extends Error {
+	private static final String MSG = "error: Too many analysis requests, try again later";
+
+	public AnalysisBusyError() {
+		super(MSG);
+	}
+}
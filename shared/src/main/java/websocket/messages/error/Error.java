@@ -2,8 +2,6 @@ package websocket.messages.error;
 
 import websocket.messages.*;
 
-import com.google.gson.Gson;
-
 public class Error extends ServerMessage {
 	private static final ServerMessageType MSG_TYPE = ServerMessageType.ERROR;
 
@@ -20,6 +18,6 @@ public class Error extends ServerMessage {
 
 	@Override
 	public String toJson() {
-		return new Gson().toJson(this);
+		return GSON.toJson(this);
 	}
 }
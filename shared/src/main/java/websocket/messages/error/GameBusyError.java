@@ -0,0 +1,9 @@
+package websocket.messages.error;
+
+public class GameBusyError extends Error {
+	private static final String MSG = "error: Game is busy, try again later";
+
+	public GameBusyError() {
+		super(MSG);
+	}
+}
@@ -0,0 +1,9 @@
+package websocket.messages.error;
+
+public class GameResyncedError extends Error {
+	private static final String MSG = "error: Game was changed elsewhere, its latest moves were undone";
+
+	public GameResyncedError() {
+		super(MSG);
+	}
+}
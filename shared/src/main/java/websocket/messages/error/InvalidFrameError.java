@@ -0,0 +1,9 @@
+package websocket.messages.error;
+
+public class InvalidFrameError extends Error {
+	private static final String MSG = "error: Message could not be read";
+
+	public InvalidFrameError() {
+		super(MSG);
+	}
+}
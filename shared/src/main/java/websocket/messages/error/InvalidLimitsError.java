@@ -0,0 +1,9 @@
+package websocket.messages.error;
+
+public class InvalidLimitsError extends Error {
+	private static final String MSG = "error: Invalid analysis limits";
+
+	public InvalidLimitsError() {
+		super(MSG);
+	}
+}
@@ -0,0 +1,9 @@
+package websocket.messages.error;
+
+public class InvalidRatingError extends Error {
+	private static final String MSG = "error: Invalid rating";
+
+	public InvalidRatingError() {
+		super(MSG);
+	}
+}
@@ -0,0 +1,9 @@
+package websocket.messages.error;
+
+public class MatchPendingError extends Error {
+	private static final String MSG = "error: Already being seated in a match";
+
+	public MatchPendingError() {
+		super(MSG);
+	}
+}
@@ -0,0 +1,9 @@
+package websocket.messages.error;
+
+public class WrongGameError extends Error {
+	private static final String MSG = "error: This connection is for another game";
+
+	public WrongGameError() {
+		super(MSG);
+	}
+}
@@ -2,8 +2,6 @@ package websocket.messages.notification;
 
 import websocket.messages.*;
 
-import com.google.gson.Gson;
-
 public class Notification extends ServerMessage {
 	private static final ServerMessageType MSG_TYPE = ServerMessageType.NOTIFICATION;
 
@@ -20,6 +18,6 @@ public class Notification extends ServerMessage {
 
 	@Override 
 	public String toJson() {
-		return new Gson().toJson(this);
+		return GSON.toJson(this);
 	}
 }
@@ -0,0 +1,14 @@
+package websocket.messages.notification;
+
+public class TimeoutNotification extends Notification {
+	private static final String MSG_TEMPLATE = """
+		Player %s ran out of time! Game over.""";
+
+	private static String formatMsg(String username) {
+		return String.format(MSG_TEMPLATE, username);
+	}
+	
+	public TimeoutNotification(String username) {
+		super(formatMsg(username));
+	}
+}
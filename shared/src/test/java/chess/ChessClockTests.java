@@ -0,0 +1,112 @@
+package chess;
+
+import org.junit.jupiter.api.*;
+
+import chess.ChessGame.TeamColor;
+import model.GameData;
+import model.GameSummary;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+public class ChessClockTests {
+
+	//
+	// ==================== TEST CASES ================
+	//
+
+	@Test
+	@Order(1)
+	public void clockPunchCorrect() {
+		ChessClock clock = new ChessClock(1_000, 100);
+		Assertions.assertFalse(clock.isRunning());
+		Assertions.assertEquals(Long.MAX_VALUE, clock.getDeadlineMillis());
+
+		// White's move starts black's time, and white gets the increment
+		clock.punch(TeamColor.WHITE, 0);
+		Assertions.assertEquals(TeamColor.BLACK, clock.getRunning());
+		Assertions.assertEquals(1_100, clock.getRemainingMillis(TeamColor.WHITE, 400));
+		Assertions.assertEquals(600, clock.getRemainingMillis(TeamColor.BLACK, 400));
+		Assertions.assertEquals(1_000, clock.getDeadlineMillis());
+
+		// Black is charged the time taken
+		clock.punch(TeamColor.BLACK, 400);
+		Assertions.assertEquals(700, clock.getRemainingMillis(TeamColor.BLACK, 10_000));
+		Assertions.assertEquals(1_500, clock.getDeadlineMillis());
+
+		clock.stop(500);
+		Assertions.assertFalse(clock.isRunning());
+		Assertions.assertEquals(1_000, clock.getRemainingMillis(TeamColor.WHITE, 10_000));
+	}
+
+	@Test
+	@Order(2)
+	public void clockFlagCorrect() {
+		ChessClock clock = new ChessClock(1_000, 0);
+		Assertions.assertFalse(clock.isOutOfTime(5_000));
+		Assertions.assertNull(clock.flag());
+
+		clock.punch(TeamColor.WHITE, 0);
+		Assertions.assertFalse(clock.isOutOfTime(999));
+		Assertions.assertTrue(clock.isOutOfTime(1_000));
+
+		Assertions.assertEquals(TeamColor.BLACK, clock.flag());
+		Assertions.assertEquals(TeamColor.BLACK, clock.getFlagged());
+		Assertions.assertEquals(0, clock.getRemainingMillis(TeamColor.BLACK, 1_000));
+		Assertions.assertFalse(clock.isOutOfTime(2_000));
+
+		// A flagged clock stays stopped
+		clock.punch(TeamColor.BLACK, 1_500);
+		Assertions.assertFalse(clock.isRunning());
+
+		ChessGame game = new ChessGame();
+		game.setClock(clock);
+		GameData gameData = new GameData("1", "white", "black", "timed", game);
+		Assertions.assertEquals(GameSummary.Status.FINISHED, GameSummary.statusOf(gameData));
+	}
+
+	@Test
+	@Order(3)
+	public void clockSavedWithGame() {
+		ChessGame game = new ChessGame();
+		ChessClock clock = new ChessClock(300_000, 2_000);
+		game.setClock(clock);
+
+		long nowMillis = System.currentTimeMillis();
+		clock.punch(TeamColor.WHITE, nowMillis);
+
+		Gson gson = new GsonBuilder()
+			.registerTypeAdapter(ChessGame.class, new ChessGame.ChessGameDeserializer())
+			.registerTypeAdapter(ChessPiece.class, new ChessPiece.ChessPieceDeserializer())
+			.create();
+		ChessClock loaded = gson.fromJson(gson.toJson(game), ChessGame.class).getClock();
+
+		Assertions.assertEquals(TeamColor.BLACK, loaded.getRunning());
+		Assertions.assertEquals(302_000L, loaded.getRemainingMillis(TeamColor.WHITE, nowMillis));
+		Assertions.assertEquals(clock.getDeadlineMillis(), loaded.getDeadlineMillis());
+	}
+
+	@Test
+	@Order(4)
+	public void clockIncorrect() {
+		Assertions.assertThrows(IllegalArgumentException.class, () -> new ChessClock(0, 0));
+		Assertions.assertThrows(IllegalArgumentException.class, () -> new ChessClock(1_000, -1));
+	}
+
+	@Test
+	@Order(5)
+	public void resignationFinishesGame() {
+		ChessGame game = new ChessGame();
+		GameData gameData = new GameData("1", "white", "black", "resigned", game);
+		Assertions.assertEquals(GameSummary.Status.PLAYING, GameSummary.statusOf(gameData));
+
+		Assertions.assertTrue(game.resign(TeamColor.BLACK));
+		Assertions.assertFalse(game.resign(TeamColor.WHITE));
+		Assertions.assertEquals(GameSummary.Status.FINISHED, GameSummary.statusOf(gameData));
+
+		// The resignation is kept when the game is saved
+		ChessGame loaded = game.copy();
+		Assertions.assertEquals(TeamColor.BLACK, loaded.getResigned());
+		Assertions.assertNull(new ChessGame().copy().getResigned());
+	}
+}
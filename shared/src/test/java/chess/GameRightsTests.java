@@ -0,0 +1,134 @@
+package chess;
+
+import org.junit.jupiter.api.*;
+
+import chess.ChessGame.TeamColor;
+import chess.search.PrincipalVariation;
+import chess.search.SearchEngine;
+import chess.search.SearchLimits;
+
+import java.util.List;
+
+public class GameRightsTests {
+	private static final ChessPosition WHITE_KING = new ChessPosition(1, 5);
+	private static final ChessMove WHITE_CASTLE = move(1, 5, 1, 7);
+
+	private static ChessGame game;
+	//
+	// ==================== TEST SETUP ===============
+	//
+
+	@BeforeEach
+	public void init() throws InvalidMoveException {
+		// Clears the squares between the kings and their rooks on the king's side
+		game = new ChessGame();
+		game.makeMove(move(2, 5, 4, 5));
+		game.makeMove(move(7, 5, 5, 5));
+		game.makeMove(move(1, 7, 3, 6));
+		game.makeMove(move(8, 7, 6, 6));
+		game.makeMove(move(1, 6, 2, 5));
+		game.makeMove(move(8, 6, 7, 5));
+	}
+
+	//
+	// ==================== TEST CASES ================
+	//
+
+	@Test
+	@Order(1)
+	public void copyKeepsCastlingRights() throws InvalidMoveException {
+		Assertions.assertTrue(game.copy().validMoves(WHITE_KING).contains(WHITE_CASTLE));
+
+		// The kings step out and back, which gives up castling though the board is the same
+		kingsStepBack(game);
+
+		Assertions.assertFalse(game.validMoves(WHITE_KING).contains(WHITE_CASTLE));
+		Assertions.assertFalse(game.copy().validMoves(WHITE_KING).contains(WHITE_CASTLE));
+	}
+
+	@Test
+	@Order(2)
+	public void copyKeepsEnPassant() throws InvalidMoveException {
+		game.makeMove(move(2, 4, 4, 4));
+		game.makeMove(move(7, 1, 6, 1));
+		game.makeMove(move(4, 4, 5, 4));
+		game.makeMove(move(7, 3, 5, 3));
+
+		ChessMove enPassant = move(5, 4, 6, 3);
+		Assertions.assertTrue(game.validMoves(new ChessPosition(5, 4)).contains(enPassant));
+		Assertions.assertTrue(game.copy().validMoves(new ChessPosition(5, 4)).contains(enPassant));
+	}
+
+	@Test
+	@Order(3)
+	public void copyIsIndependent() throws InvalidMoveException {
+		ChessClock clock = new ChessClock(60_000, 1_000);
+		clock.punch(TeamColor.BLACK, 0);
+		game.setClock(clock);
+		Assertions.assertTrue(game.resign(TeamColor.BLACK));
+
+		ChessGame copy = game.copy();
+		Assertions.assertEquals(game, copy);
+		Assertions.assertEquals(game.getMoveHistory(), copy.getMoveHistory());
+		Assertions.assertEquals(TeamColor.BLACK, copy.getResigned());
+		Assertions.assertEquals(clock.getDeadlineMillis(), copy.getClock().getDeadlineMillis());
+
+		copy.makeMove(WHITE_CASTLE);
+		copy.getClock().punch(TeamColor.WHITE, 5_000);
+
+		Assertions.assertNotEquals(game, copy);
+		Assertions.assertEquals(6, game.getMoveHistory().size());
+		Assertions.assertEquals(TeamColor.WHITE, game.getTeamTurn());
+		Assertions.assertEquals(TeamColor.WHITE, clock.getRunning());
+		Assertions.assertEquals(60_000, clock.getDeadlineMillis());
+		Assertions.assertTrue(game.validMoves(WHITE_KING).contains(WHITE_CASTLE));
+	}
+
+	@Test
+	@Order(4)
+	public void rightsTellPositionsApart() throws InvalidMoveException {
+		Assertions.assertEquals(0b1111, game.getMoveRights());
+
+		ChessGame moved = kingsStepBack(game.copy());
+		Assertions.assertEquals(game, moved);
+		Assertions.assertEquals(ZobristHash.hash(game), ZobristHash.hash(moved));
+		Assertions.assertEquals(0, moved.getMoveRights());
+
+		// A pawn that just moved two squares can be taken en passant on its column
+		game.makeMove(move(2, 1, 4, 1));
+		Assertions.assertEquals(0b1111 | (1 << 4), game.getMoveRights());
+		game.makeMove(move(7, 1, 6, 1));
+		Assertions.assertEquals(0b1111, game.getMoveRights());
+	}
+
+	@Test
+	@Order(5)
+	public void searchFollowsGameRules() throws InvalidMoveException {
+		SearchEngine engine = new SearchEngine();
+		SearchLimits limits = new SearchLimits(1, 0, 0);
+		ChessGame moved = kingsStepBack(game.copy());
+
+		// The board alone looks like either side may still castle
+		List<ChessMove> boardMoves = SearchEngine.legalMoves(moved.getBoard(), TeamColor.WHITE);
+		Assertions.assertTrue(boardMoves.contains(WHITE_CASTLE));
+
+		List<PrincipalVariation> lines = engine.searchLines(moved, limits, boardMoves.size(), () -> false);
+		Assertions.assertEquals(boardMoves.size() - 1, lines.size());
+		Assertions.assertTrue(lines.stream().noneMatch(pv -> pv.bestMove().equals(WHITE_CASTLE)));
+
+		lines = engine.searchLines(game, limits, boardMoves.size(), () -> false);
+		Assertions.assertTrue(lines.stream().anyMatch(pv -> pv.bestMove().equals(WHITE_CASTLE)));
+	}
+
+	private static ChessGame kingsStepBack(ChessGame game) throws InvalidMoveException {
+		game.makeMove(move(1, 5, 1, 6));
+		game.makeMove(move(8, 5, 8, 6));
+		game.makeMove(move(1, 6, 1, 5));
+		game.makeMove(move(8, 6, 8, 5));
+		return game;
+	}
+
+	private static ChessMove move(int startRow, int startCol, int endRow, int endCol) {
+		return new ChessMove(new ChessPosition(startRow, startCol), new ChessPosition(endRow, endCol), null);
+	}
+}
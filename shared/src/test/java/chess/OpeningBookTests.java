@@ -0,0 +1,196 @@
+package chess;
+
+import org.junit.jupiter.api.*;
+
+import chess.book.BookMove;
+import chess.book.GameResult;
+import chess.book.OpeningBook;
+import chess.book.OpeningBookBuilder;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+public class OpeningBookTests {
+	private static final ChessMove E4 = move(2, 5, 4, 5);
+	private static final ChessMove D4 = move(2, 4, 4, 4);
+	private static final ChessMove E5 = move(7, 5, 5, 5);
+	private static final ChessMove C5 = move(7, 3, 5, 3);
+	private static final ChessMove D5 = move(7, 4, 5, 4);
+
+	private static Path dir;
+	private static long startHash;
+	private static long afterE4Hash;
+	private static long afterD4Hash;
+	//
+	// ==================== TEST SETUP ===============
+	//
+
+	@BeforeEach
+	public void init() throws IOException, InvalidMoveException {
+		dir = Files.createTempDirectory("book");
+
+		ChessGame game = new ChessGame();
+		startHash = ZobristHash.hash(game);
+		game.makeMove(E4);
+		afterE4Hash = ZobristHash.hash(game);
+
+		game = new ChessGame();
+		game.makeMove(D4);
+		afterD4Hash = ZobristHash.hash(game);
+	}
+
+	@AfterEach
+	public void cleanup() throws IOException {
+		try (Stream<Path> files = Files.walk(dir)) {
+			for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+				Files.delete(file);
+			}
+		}
+	}
+
+	//
+	// ==================== TEST CASES ================
+	//
+
+	@Test
+	@Order(1)
+	public void bookMergesRuns() throws IOException {
+		// Every move recorded spills its own run, so every count comes from the merge
+		Path workDir = Files.createDirectory(dir.resolve("runs"));
+		OpeningBookBuilder builder = new OpeningBookBuilder(workDir, OpeningBookBuilder.DEFAULT_MAX_PLY, 1);
+		addGames(builder);
+
+		Path file = dir.resolve("merged.book");
+		Assertions.assertEquals(5, builder.write(file, 1));
+		Assertions.assertEquals(4, builder.getGameCount());
+
+		// The runs are gone once merged
+		try (Stream<Path> runs = Files.list(workDir)) {
+			Assertions.assertEquals(0, runs.count());
+		}
+
+		OpeningBook book = OpeningBook.open(file);
+		Assertions.assertEquals(5, book.size());
+		Assertions.assertEquals(Set.of(new BookMove(D4, 0, 0, 1), new BookMove(E4, 1, 1, 1)),
+				Set.copyOf(book.lookup(startHash)));
+		Assertions.assertEquals(Set.of(new BookMove(C5, 0, 1, 0), new BookMove(E5, 1, 0, 1)),
+				Set.copyOf(book.lookup(afterE4Hash)));
+		Assertions.assertEquals(List.of(new BookMove(D5, 1, 0, 0)), book.lookup(afterD4Hash));
+	}
+
+	@Test
+	@Order(2)
+	public void bookMergeMatchesMemory() throws IOException {
+		OpeningBookBuilder spilled = new OpeningBookBuilder(dir, OpeningBookBuilder.DEFAULT_MAX_PLY, 2);
+		OpeningBookBuilder unspilled = new OpeningBookBuilder(dir);
+		addGames(spilled);
+		addGames(unspilled);
+
+		spilled.write(dir.resolve("spilled.book"), 1);
+		unspilled.write(dir.resolve("unspilled.book"), 1);
+		OpeningBook spilledBook = OpeningBook.open(dir.resolve("spilled.book"));
+		OpeningBook unspilledBook = OpeningBook.open(dir.resolve("unspilled.book"));
+
+		Assertions.assertEquals(unspilledBook.size(), spilledBook.size());
+		for (long hash : new long[] { startHash, afterE4Hash, afterD4Hash }) {
+			Assertions.assertEquals(unspilledBook.lookup(hash), spilledBook.lookup(hash));
+		}
+	}
+
+	@Test
+	@Order(3)
+	public void bookBinarySearch() throws IOException {
+		OpeningBookBuilder builder = new OpeningBookBuilder(dir);
+		addGames(builder);
+		builder.write(dir.resolve("search.book"), 1);
+		OpeningBook book = OpeningBook.open(dir.resolve("search.book"));
+
+		for (long hash : new long[] { startHash, afterE4Hash, afterD4Hash }) {
+			Assertions.assertTrue(book.contains(hash));
+		}
+
+		// Before the first record, after the last, and between records
+		for (long hash : new long[] { Long.MIN_VALUE, Long.MAX_VALUE, startHash + 1, afterE4Hash - 1 }) {
+			Assertions.assertFalse(book.contains(hash));
+			Assertions.assertTrue(book.lookup(hash).isEmpty());
+			Assertions.assertNull(book.choose(hash, 1));
+		}
+
+		Assertions.assertEquals(E4, book.choose(startHash, 1).move());
+		Assertions.assertNull(book.choose(afterD4Hash, 2));
+	}
+
+	@Test
+	@Order(4)
+	public void bookSkipsRareMoves() throws IOException {
+		OpeningBookBuilder builder = new OpeningBookBuilder(dir);
+		addGames(builder);
+
+		Assertions.assertEquals(2, builder.write(dir.resolve("common.book"), 2));
+		OpeningBook book = OpeningBook.open(dir.resolve("common.book"));
+
+		Assertions.assertEquals(List.of(new BookMove(E4, 1, 1, 1)), book.lookup(startHash));
+		Assertions.assertEquals(List.of(new BookMove(E5, 1, 0, 1)), book.lookup(afterE4Hash));
+		Assertions.assertFalse(book.contains(afterD4Hash));
+	}
+
+	@Test
+	@Order(5)
+	public void bookAddsFinishedGame() throws IOException, InvalidMoveException {
+		ChessGame game = new ChessGame();
+		OpeningBookBuilder builder = new OpeningBookBuilder(dir);
+
+		// An unfinished game has no result to count
+		game.makeMove(move(2, 6, 3, 6));
+		Assertions.assertFalse(builder.addGame(game));
+
+		game.makeMove(E5);
+		game.makeMove(move(2, 7, 4, 7));
+		game.makeMove(move(8, 4, 4, 8));
+		Assertions.assertTrue(builder.addGame(game));
+		Assertions.assertEquals(1, builder.getGameCount());
+
+		// The history is only readable from outside the game
+		Assertions.assertThrows(UnsupportedOperationException.class, () -> game.getMoveHistory().add(E4));
+		Assertions.assertEquals(4, game.getMoveHistory().size());
+	}
+
+	@Test
+	@Order(6)
+	public void bookIncorrect() throws IOException {
+		Path file = dir.resolve("bad.book");
+		try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(file))) {
+			out.writeInt(0);
+			out.writeShort(OpeningBook.VERSION);
+			out.writeShort(OpeningBook.RECORD_SIZE);
+			out.writeLong(0);
+		}
+		Assertions.assertThrows(IOException.class, () -> OpeningBook.open(file));
+
+		// A header promising more records than the file holds
+		try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(file))) {
+			out.writeInt(OpeningBook.MAGIC);
+			out.writeShort(OpeningBook.VERSION);
+			out.writeShort(OpeningBook.RECORD_SIZE);
+			out.writeLong(1);
+		}
+		Assertions.assertThrows(IOException.class, () -> OpeningBook.open(file));
+	}
+
+	private static void addGames(OpeningBookBuilder builder) throws IOException {
+		builder.addGame(List.of(E4, E5), GameResult.WHITE_WINS);
+		builder.addGame(List.of(E4, C5), GameResult.DRAW);
+		builder.addGame(List.of(D4, D5), GameResult.BLACK_WINS);
+		builder.addGame(List.of(E4, E5), GameResult.BLACK_WINS);
+	}
+
+	private static ChessMove move(int startRow, int startCol, int endRow, int endCol) {
+		return new ChessMove(new ChessPosition(startRow, startCol), new ChessPosition(endRow, endCol), null);
+	}
+}
@@ -0,0 +1,127 @@
+package chess;
+
+import org.junit.jupiter.api.*;
+
+import chess.ChessGame.TeamColor;
+import chess.ChessPiece.PieceType;
+import chess.search.PrincipalVariation;
+import chess.search.SearchEngine;
+import chess.search.SearchLimits;
+import chess.tablebase.MaterialSignature;
+import chess.tablebase.Tablebase;
+import chess.tablebase.TablebaseGenerator;
+import chess.tablebase.TablebaseResult;
+import chess.tablebase.TablebaseResult.Outcome;
+import chess.tablebase.TablebaseSet;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+public class TablebaseTests {
+	private static final MaterialSignature KQK = MaterialSignature.parse("KQK");
+
+	private static Path tablebaseDir;
+	private static TablebaseSet tablebases;
+	//
+	// ==================== TEST SETUP ===============
+	//
+
+	@BeforeAll
+	public static void init() throws IOException {
+		tablebaseDir = Files.createTempDirectory("tablebases");
+
+		TablebaseGenerator generator = new TablebaseGenerator(2);
+		generator.write(KQK, generator.generate(KQK), tablebaseDir.resolve(KQK.getName() + Tablebase.FILE_EXTENSION));
+		tablebases = TablebaseSet.open(tablebaseDir);
+	}
+
+	@AfterAll
+	public static void cleanup() throws IOException {
+		try (Stream<Path> files = Files.walk(tablebaseDir)) {
+			for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+				Files.delete(file);
+			}
+		}
+	}
+
+	//
+	// ==================== TEST CASES ================
+	//
+
+	@Test
+	@Order(1)
+	public void tablebaseMateIsLost() {
+		// Black king in the corner, the queen guarded by the white king
+		ChessBoard board = board(new ChessPosition(6, 2), new ChessPosition(7, 2), new ChessPosition(8, 1),
+				TeamColor.WHITE);
+
+		Assertions.assertEquals(new TablebaseResult(Outcome.LOSS, 0), tablebases.probe(board, TeamColor.BLACK));
+	}
+
+	@Test
+	@Order(2)
+	public void tablebaseMirroredMateIsLost() {
+		// The same mate with the colors swapped is probed in the KQK table mirrored
+		ChessBoard board = board(new ChessPosition(3, 2), new ChessPosition(2, 2), new ChessPosition(1, 1),
+				TeamColor.BLACK);
+
+		Assertions.assertEquals(new TablebaseResult(Outcome.LOSS, 0), tablebases.probe(board, TeamColor.WHITE));
+	}
+
+	@Test
+	@Order(3)
+	public void tablebaseWinDistance() {
+		// The queen mates next move on b7, a7 or g8
+		ChessBoard board = board(new ChessPosition(6, 2), new ChessPosition(7, 8), new ChessPosition(8, 1),
+				TeamColor.WHITE);
+		Assertions.assertEquals(new TablebaseResult(Outcome.WIN, 1), tablebases.probe(board, TeamColor.WHITE));
+
+		// Black's only move is to a7, after which the queen mates on b7, so black is lost in 2
+		board = board(new ChessPosition(7, 3), new ChessPosition(5, 2), new ChessPosition(8, 1), TeamColor.WHITE);
+		Assertions.assertEquals(new TablebaseResult(Outcome.LOSS, 2), tablebases.probe(board, TeamColor.BLACK));
+
+		// Two bare kings need no table to be drawn
+		ChessBoard kings = new ChessBoard();
+		kings.addPiece(new ChessPosition(1, 1), ChessPiece.makeNewPiece(TeamColor.WHITE, PieceType.KING));
+		kings.addPiece(new ChessPosition(8, 8), ChessPiece.makeNewPiece(TeamColor.BLACK, PieceType.KING));
+		Assertions.assertEquals(Outcome.DRAW, tablebases.probe(kings, TeamColor.WHITE).outcome());
+	}
+
+	@Test
+	@Order(4)
+	public void tablebaseStalemateIsDrawn() {
+		// The queen on c7 leaves the cornered king no move and no check
+		ChessBoard board = board(new ChessPosition(6, 2), new ChessPosition(7, 3), new ChessPosition(8, 1),
+				TeamColor.WHITE);
+
+		Assertions.assertEquals(new TablebaseResult(Outcome.DRAW, 0), tablebases.probe(board, TeamColor.BLACK));
+	}
+
+	@Test
+	@Order(5)
+	public void engineOpensTablebases() throws IOException {
+		SearchEngine engine = SearchEngine.open(new SearchEngine.EngineConfig(tablebaseDir, null));
+		ChessBoard board = board(new ChessPosition(6, 2), new ChessPosition(7, 8), new ChessPosition(8, 1),
+				TeamColor.WHITE);
+
+		PrincipalVariation pv = engine.search(board, TeamColor.WHITE, new SearchLimits(4, 0, 0), line -> { }, () -> false);
+		Assertions.assertEquals(PrincipalVariation.Source.TABLEBASE, pv.source());
+		Assertions.assertTrue(pv.isMate());
+
+		// Any of the mates in one will do
+		ChessBoard mated = SearchEngine.applyMove(board, pv.moves().get(0));
+		Assertions.assertEquals(new TablebaseResult(Outcome.LOSS, 0), tablebases.probe(mated, TeamColor.BLACK));
+	}
+
+	private static ChessBoard board(ChessPosition strongKing, ChessPosition queen, ChessPosition loneKing,
+			TeamColor strong) {
+		ChessBoard board = new ChessBoard();
+		board.addPiece(strongKing, ChessPiece.makeNewPiece(strong, PieceType.KING));
+		board.addPiece(queen, ChessPiece.makeNewPiece(strong, PieceType.QUEEN));
+		board.addPiece(loneKing, ChessPiece.makeNewPiece(strong.next(), PieceType.KING));
+		return board;
+	}
+}
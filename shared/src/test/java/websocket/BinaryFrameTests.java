@@ -0,0 +1,107 @@
+package websocket;
+
+import org.junit.jupiter.api.*;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import chess.ChessMove;
+import chess.ChessPiece.PieceType;
+import chess.ChessPosition;
+import websocket.messages.MoveAppliedMessage;
+import websocket.messages.MoveAppliedMessage.Status;
+
+public class BinaryFrameTests {
+	private static final ChessMove PROMOTION = new ChessMove(new ChessPosition(7, 2), new ChessPosition(8, 1),
+			PieceType.KNIGHT);
+
+	//
+	// ==================== TEST CASES ================
+	//
+
+	@Test
+	@Order(1)
+	public void varintEdgesRoundTrip() {
+		long[] values = { 0, 1, 0x7F, 0x80, 0x3FFF, 0x4000, Integer.MAX_VALUE, Long.MAX_VALUE, -1, Long.MIN_VALUE };
+		int[] sizes = { 1, 1, 1, 2, 2, 3, 5, 9, 10, 10 };
+
+		for (int i = 0; i < values.length; i++) {
+			ByteBuffer frame = ByteBuffer.allocate(BinaryFrame.varintSize(values[i]));
+			BinaryFrame.writeVarint(frame, values[i]);
+			Assertions.assertEquals(sizes[i], frame.position());
+
+			frame.flip();
+			Assertions.assertEquals(values[i], BinaryFrame.readVarint(frame));
+			Assertions.assertFalse(frame.hasRemaining());
+		}
+	}
+
+	@Test
+	@Order(2)
+	public void varintIncorrect() {
+		// Eleven continuation bytes run longer than any long
+		byte[] tooLong = new byte[11];
+		Arrays.fill(tooLong, (byte) 0x80);
+		Assertions.assertThrows(IllegalArgumentException.class, () -> BinaryFrame.readVarint(ByteBuffer.wrap(tooLong)));
+
+		// A continuation byte with nothing after it
+		Assertions.assertThrows(BufferUnderflowException.class,
+				() -> BinaryFrame.readVarint(ByteBuffer.wrap(new byte[] { (byte) 0x80 })));
+
+		// A gameID must fit an int
+		ByteBuffer tooBig = ByteBuffer.allocate(BinaryFrame.varintSize(1L << 31));
+		BinaryFrame.writeVarint(tooBig, 1L << 31);
+		Assertions.assertThrows(IllegalArgumentException.class, () -> BinaryFrame.readInt(tooBig.flip()));
+	}
+
+	@Test
+	@Order(3)
+	public void makeMoveRoundTrip() {
+		ByteBuffer frame = BinaryFrame.makeMove(300, PROMOTION);
+
+		Assertions.assertEquals(BinaryFrame.MAKE_MOVE, BinaryFrame.readType(frame));
+		Assertions.assertEquals(300, BinaryFrame.readInt(frame));
+		Assertions.assertEquals(PROMOTION, ChessMove.unpack(BinaryFrame.readMove(frame)));
+		Assertions.assertFalse(frame.hasRemaining());
+	}
+
+	@Test
+	@Order(4)
+	public void moveAppliedRoundTrip() {
+		MoveAppliedMessage msg = new MoveAppliedMessage(Integer.MAX_VALUE, 128, PROMOTION, Status.CHECKMATE);
+		msg.setSequence(1_700_000_000_000L);
+
+		ByteBuffer frame = ByteBuffer.wrap(BinaryFrame.moveApplied(msg));
+		Assertions.assertEquals(BinaryFrame.MOVE_APPLIED, BinaryFrame.readType(frame));
+		MoveAppliedMessage read = BinaryFrame.readMoveApplied(frame);
+
+		Assertions.assertEquals(msg.getGameID(), read.getGameID());
+		Assertions.assertEquals(msg.getMoveNumber(), read.getMoveNumber());
+		Assertions.assertEquals(msg.getSequence(), read.getSequence());
+		Assertions.assertEquals(msg.getMove(), read.getMove());
+		Assertions.assertEquals(msg.getStatus(), read.getStatus());
+		Assertions.assertFalse(frame.hasRemaining());
+	}
+
+	@Test
+	@Order(5)
+	public void moveAppliedTruncated() {
+		MoveAppliedMessage msg = new MoveAppliedMessage(7, 3, PROMOTION, Status.CHECK);
+		msg.setSequence(42L);
+		byte[] bytes = BinaryFrame.moveApplied(msg);
+
+		// Cut anywhere after the type byte, the frame is refused rather than half read
+		for (int length = 1; length < bytes.length; length++) {
+			ByteBuffer frame = ByteBuffer.wrap(bytes, 0, length);
+			BinaryFrame.readType(frame);
+			Assertions.assertThrows(IllegalArgumentException.class, () -> BinaryFrame.readMoveApplied(frame));
+		}
+
+		// As is a status no client knows
+		bytes[bytes.length - 1] = (byte) Status.values().length;
+		ByteBuffer frame = ByteBuffer.wrap(bytes);
+		BinaryFrame.readType(frame);
+		Assertions.assertThrows(IllegalArgumentException.class, () -> BinaryFrame.readMoveApplied(frame));
+	}
+}